@@ -27,6 +27,7 @@ import akka.actor.ActorSystem;
 import org.humanbrainproject.knowledgegraph.annotations.NoTests;
 import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.ArangoConnection;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
@@ -36,6 +37,9 @@ import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.context.request.RequestContextListener;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 
 @SpringBootApplication
 @ComponentScan("org.humanbrainproject.knowledgegraph")
@@ -107,6 +111,24 @@ public class KgQueryApplication {
 		return new ArangoConnection("kg_released", false);
 	}
 
+	@Bean(destroyMethod = "shutdownNow")
+	@Qualifier("releasing")
+	public ExecutorService createReleasingExecutor(@Value("${org.humanbrainproject.knowledgegraph.releasing.parallelism:8}") int parallelism) {
+		return Executors.newFixedThreadPool(Math.max(1, parallelism));
+	}
+
+	@Bean(destroyMethod = "shutdownNow")
+	@Qualifier("structure")
+	public ExecutorService createStructureExecutor(@Value("${org.humanbrainproject.knowledgegraph.structure.parallelism:4}") int parallelism) {
+		return Executors.newFixedThreadPool(Math.max(1, parallelism));
+	}
+
+	@Bean(destroyMethod = "shutdownNow")
+	@Qualifier("maintenance")
+	public ExecutorService createMaintenanceExecutor(@Value("${org.humanbrainproject.knowledgegraph.instances.maintenance.parallelism:8}") int parallelism) {
+		return Executors.newFixedThreadPool(Math.max(1, parallelism));
+	}
+
 	@Bean
 	public ActorSystem actorSystem() {
 		ActorSystem system = ActorSystem.create("uploader-actor-system");
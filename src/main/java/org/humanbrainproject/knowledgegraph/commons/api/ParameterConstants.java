@@ -38,6 +38,7 @@ public class ParameterConstants {
     public static final String VOCAB = "vocab";
     public static final String START = "start";
     public static final String SIZE = "size";
+    public static final String CURSOR = "cursor";
     public static final String ORGS = "orgs";
     public static final String DATABASE_SCOPE = "databaseScope";
     public static final String SEARCH = "search";
@@ -56,6 +57,7 @@ public class ParameterConstants {
     public static final String VOCAB_DOC="A namespace which shall be treated as the @vocab (the default namespace). If defined, the keys matching this namespace will be simpliniified)";
     public static final String SIZE_DOC = "For pagination: Defines the maximal size of the queries page";
     public static final String START_DOC = "For pagination: Defines the initial offset of the pagination (0-based)";
+    public static final String CURSOR_DOC = "For pagination: The \"nextCursor\" of the previous page - if defined, the page continues right after the last instance of the previous page (the start offset is applied relative to the cursor and the total reflects the number of instances following the cursor). This is considerably faster than large start offsets.";
     public static final String RESTRICTED_ORGANIZATION_DOC = "Restrict the results to explicitly defined organizations - the main use case is if a user with broad access permissions wants to simulate restricted read access (e.g. the indexing functionality of the KG search UI)";
     public static final String SEARCH_DOC = "A search string checking for instances with names which match this term (includes wildcards)";
 
@@ -23,20 +23,28 @@
 
 package org.humanbrainproject.knowledgegraph.commons.api;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.humanbrainproject.knowledgegraph.annotations.Tested;
 import org.humanbrainproject.knowledgegraph.query.entity.QueryResult;
+import org.humanbrainproject.knowledgegraph.query.entity.StreamedQueryResult;
 import org.humanbrainproject.knowledgegraph.query.entity.TransformedQueryResult;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Arrays;
+import java.util.Map;
 
 @Tested
 public class RestUtils {
 
     public static final String APPLICATION_LD_JSON = "application/ld+json";
 
+    private static final int STREAM_FLUSH_INTERVAL = 100;
+
+    private static final ObjectMapper STREAM_MAPPER = new ObjectMapper().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
     public static String[] splitCommaSeparatedValues(String original){
         return original!=null ? Arrays.stream(original.split(",")).map(String::trim).toArray(String[]::new) : null;
     }
@@ -67,4 +75,37 @@ public class RestUtils {
         return queryResult;
     }
 
+    /**
+     * Writes the streamed result in the same structure as a serialized {@link QueryResult} - document by document, so only the documents which are currently in transit are held in memory.
+     * The size and the next cursor are only known once all documents have been written and are therefore appended after the results. The output stream is not closed.
+     */
+    public static void writeStreamedQueryResult(StreamedQueryResult queryResult, OutputStream out) throws IOException {
+        try (JsonGenerator generator = STREAM_MAPPER.getFactory().createGenerator(out)) {
+            generator.writeStartObject();
+            writeIfNotNull(generator, "databaseScope", queryResult.getDatabaseScope());
+            writeIfNotNull(generator, "apiName", queryResult.getApiName());
+            writeIfNotNull(generator, "start", queryResult.getStart());
+            writeIfNotNull(generator, "total", queryResult.getTotal());
+            generator.writeArrayFieldStart("results");
+            long size = 0;
+            while (queryResult.hasNext()) {
+                Map document = queryResult.next();
+                generator.writeObject(document);
+                if (++size % STREAM_FLUSH_INTERVAL == 0) {
+                    generator.flush();
+                }
+            }
+            generator.writeEndArray();
+            generator.writeNumberField("size", size);
+            writeIfNotNull(generator, "nextCursor", queryResult.getNextCursor());
+            generator.writeEndObject();
+        }
+    }
+
+    private static void writeIfNotNull(JsonGenerator generator, String fieldName, Object value) throws IOException {
+        if (value != null) {
+            generator.writeObjectField(fieldName, value);
+        }
+    }
+
 }
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.commons.authorization.control;
+
+import org.humanbrainproject.knowledgegraph.annotations.Tested;
+import org.humanbrainproject.knowledgegraph.commons.authorization.entity.AccessRight;
+import org.humanbrainproject.knowledgegraph.commons.cache.LruTtlCache;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * A size-bounded cache of the access rights per credential. Entries expire after the configured time to live so changes of the permissions in Nexus are picked up eventually. If the maximal size is reached, the least recently used entry is evicted.
+ */
+@Tested
+class AccessRightsCache {
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    private final LruTtlCache<String, Set<AccessRight>> cache = new LruTtlCache<>(1000, 5 * 60 * 1000, () -> clock.getAsLong());
+
+    void setMaxSize(int maxSize) {
+        cache.setMaxSize(maxSize);
+    }
+
+    void setTimeToLiveInMillis(long timeToLiveInMillis) {
+        cache.setTimeToLiveInMillis(timeToLiveInMillis);
+    }
+
+    /**
+     * @return the (unmodifiable) access rights for the given key or null if there is no valid entry
+     */
+    Set<AccessRight> get(String key) {
+        return cache.get(key);
+    }
+
+    void put(String key, Set<AccessRight> accessRights) {
+        cache.put(key, Collections.unmodifiableSet(accessRights));
+    }
+
+    int size() {
+        return cache.size();
+    }
+
+}
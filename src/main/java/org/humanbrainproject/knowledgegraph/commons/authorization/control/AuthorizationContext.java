@@ -57,6 +57,8 @@ public interface AuthorizationContext {
 
     boolean isReadable(Map data);
 
+    boolean isWritable(String organization);
+
     ClientHttpRequestInterceptor getInterceptor();
 
     String getUserId();
@@ -23,7 +23,6 @@
 
 package org.humanbrainproject.knowledgegraph.commons.authorization.control;
 
-import org.apache.commons.collections4.map.LRUMap;
 import org.humanbrainproject.knowledgegraph.annotations.Tested;
 import org.humanbrainproject.knowledgegraph.commons.authorization.entity.AccessRight;
 import org.humanbrainproject.knowledgegraph.commons.authorization.entity.Credential;
@@ -34,13 +33,14 @@ import org.humanbrainproject.knowledgegraph.commons.nexus.control.NexusConfigura
 import org.humanbrainproject.knowledgegraph.commons.vocabulary.ArangoVocabulary;
 import org.humanbrainproject.knowledgegraph.query.entity.JsonDocument;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.stereotype.Component;
 
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -74,22 +74,45 @@ public class AuthorizationController {
         return (String)userInfo.get("sub");
     }
 
-    final Map<String, Set<AccessRight>> tokenToAccessRights = Collections.synchronizedMap(new LRUMap<>());
+    final AccessRightsCache tokenToAccessRights = new AccessRightsCache();
+
+    @Value("${org.humanbrainproject.knowledgegraph.authorization.cache.maxSize:1000}")
+    void setAccessRightsCacheSize(int maxSize){
+        tokenToAccessRights.setMaxSize(maxSize);
+    }
+
+    @Value("${org.humanbrainproject.knowledgegraph.authorization.cache.ttlInSeconds:300}")
+    void setAccessRightsCacheTimeToLive(long timeToLiveInSeconds){
+        tokenToAccessRights.setTimeToLiveInMillis(TimeUnit.SECONDS.toMillis(timeToLiveInSeconds));
+    }
+
+    private String getCacheKey(Credential credential){
+        if(credential instanceof OidcAccessToken){
+            return ((OidcAccessToken)credential).getBearerToken();
+        }
+        if(credential instanceof InternalMasterKey){
+            return InternalMasterKey.class.getName();
+        }
+        return null;
+    }
 
     Set<AccessRight> getAccessRights(Credential credential) {
-        if (credential instanceof OidcAccessToken && tokenToAccessRights.containsKey(((OidcAccessToken)credential).getBearerToken())) {
-            return tokenToAccessRights.get(((OidcAccessToken)credential).getBearerToken());
+        String cacheKey = getCacheKey(credential);
+        if (cacheKey != null) {
+            Set<AccessRight> cachedAccessRights = tokenToAccessRights.get(cacheKey);
+            if (cachedAccessRights != null) {
+                return cachedAccessRights;
+            }
         }
         Set<String> allOrganizations = nexusClient.getAllOrganizations(getInterceptor(credential));
         //TODO right now, we only have the differentiation if a organization is visible or not - we therefore only can tell that there is at least READ access. We should have other means to ensure WRITE access.
         Set<AccessRight> accessRights = allOrganizations.stream().map(org -> new AccessRight(org.replace(nexusConfiguration.getNexusBase(NexusConfiguration.ResourceType.ORGANIZATION)+"/", ""), AccessRight.Permission.READ)).collect(Collectors.toSet());
-        if (credential instanceof OidcAccessToken && tokenToAccessRights.containsKey(((OidcAccessToken)credential).getBearerToken())) {
-            tokenToAccessRights.put(((OidcAccessToken)credential).getBearerToken(), accessRights);
+        if (cacheKey != null) {
+            tokenToAccessRights.put(cacheKey, accessRights);
         }
         return accessRights;
     }
 
-
     Set<String> getReadableOrganizations(Credential credential, List<String> whitelistedOrganizations){
         Set<AccessRight> accessRights = getAccessRights(credential);
         Set<String> readableOrganizations = accessRights.stream().map(AccessRight::getPath).collect(Collectors.toSet());
@@ -99,9 +122,18 @@ public class AuthorizationController {
         return readableOrganizations;
     }
 
+    boolean isWritable(String organization, Credential credential){
+        if(credential instanceof InternalMasterKey){
+            return true;
+        }
+        Set<String> permissions = nexusClient.getPermissions(organization, credential);
+        return permissions.contains("write") || permissions.contains("own");
+    }
+
     boolean isReadable(Map data, Credential credential){
         if(data.containsKey(ArangoVocabulary.PERMISSION_GROUP) && data.get(ArangoVocabulary.PERMISSION_GROUP) instanceof String){
-            return getReadableOrganizations(credential, null).contains(data.get(ArangoVocabulary.PERMISSION_GROUP));
+            Object permissionGroup = data.get(ArangoVocabulary.PERMISSION_GROUP);
+            return getAccessRights(credential).stream().anyMatch(accessRight -> permissionGroup.equals(accessRight.getPath()));
         }
         return false;
     }
@@ -138,6 +138,11 @@ public class DefaultAuthorizationContext implements AuthorizationContext {
         return authorizationController.isReadable(data, getCredential());
     }
 
+    @Override
+    public boolean isWritable(String organization) {
+        return authorizationController.isWritable(organization, getCredential());
+    }
+
     @Override
     public ClientHttpRequestInterceptor getInterceptor(){
         return authorizationController.getInterceptor(getCredential());
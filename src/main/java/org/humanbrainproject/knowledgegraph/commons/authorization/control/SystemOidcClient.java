@@ -26,6 +26,8 @@ package org.humanbrainproject.knowledgegraph.commons.authorization.control;
 import com.google.gson.Gson;
 import org.humanbrainproject.knowledgegraph.annotations.ToBeTested;
 import org.humanbrainproject.knowledgegraph.commons.authorization.entity.OidcAccessToken;
+import org.humanbrainproject.knowledgegraph.commons.http.control.HttpClientProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
@@ -34,7 +36,6 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
-import org.springframework.web.client.RestTemplate;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
@@ -56,6 +57,9 @@ public class SystemOidcClient {
     @Value("${org.humanbrainproject.knowledgegraph.oidc.configFile}")
     String oidcConfigFile;
 
+    @Autowired
+    HttpClientProvider httpClientProvider;
+
     final Gson gson = new Gson();
 
     private String getTokenUrl(String host) {
@@ -63,8 +67,7 @@ public class SystemOidcClient {
     }
 
     private String getUrlFromConfig(String host, String key){
-        RestTemplate template = new RestTemplate();
-        String openidconf = template.getForObject(String.format("%s/%s", host, RELATIVE_OPENID_CONFIGURATION_URL), String.class);
+        String openidconf = httpClientProvider.getRestTemplate().getForObject(String.format("%s/%s", host, RELATIVE_OPENID_CONFIGURATION_URL), String.class);
         Map map = gson.fromJson(openidconf, Map.class);
         return map.get(key).toString();
     }
@@ -89,8 +92,7 @@ public class SystemOidcClient {
         }
         params.add("grant_type", "client_credentials");
         HttpEntity<Map> request = new HttpEntity<>(params, headers);
-        RestTemplate template = new RestTemplate();
-        return template.postForObject(tokenUrl, request, String.class);
+        return httpClientProvider.getRestTemplate().postForObject(tokenUrl, request, String.class);
     }
 
     public void refreshToken(){
@@ -107,11 +109,10 @@ public class SystemOidcClient {
         Map map = readConfigFile();
         String host = map.get(OPENID_HOST_KEY).toString();
         String url =  getUrlFromConfig(host, USER_INFO);
-        RestTemplate restTemplate = new RestTemplate();
         HttpHeaders headers = new HttpHeaders();
         headers.set("Authorization", token.getBearerToken());
         HttpEntity<String> entity = new HttpEntity<>(headers);
-        ResponseEntity<Map> res = restTemplate.exchange(url, HttpMethod.GET, entity, Map.class);
+        ResponseEntity<Map> res = httpClientProvider.getRestTemplate().exchange(url, HttpMethod.GET, entity, Map.class);
         return new UserInformation(res.getBody());
     }
 
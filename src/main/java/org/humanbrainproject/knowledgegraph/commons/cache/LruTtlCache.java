@@ -0,0 +1,142 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.commons.cache;
+
+import org.humanbrainproject.knowledgegraph.annotations.Tested;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * A size-bounded, thread-safe cache whose entries expire after the configured time to live. If the maximal size is reached, the least recently used entry is evicted.
+ * A time to live of {@link Long#MAX_VALUE} disables the expiration, a time to live of 0 (or less) disables the caching.
+ */
+@Tested
+public class LruTtlCache<K, V> {
+
+    private final Map<K, CachedValue<V>> cache = new LinkedHashMap<K, CachedValue<V>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, CachedValue<V>> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    private final LongSupplier clock;
+    private int maxSize;
+    private long timeToLiveInMillis;
+
+    private static class CachedValue<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private CachedValue(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    public LruTtlCache(int maxSize, long timeToLiveInMillis) {
+        this(maxSize, timeToLiveInMillis, System::currentTimeMillis);
+    }
+
+    public LruTtlCache(int maxSize, long timeToLiveInMillis, LongSupplier clock) {
+        this.maxSize = maxSize;
+        this.timeToLiveInMillis = timeToLiveInMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Changes the maximal size - a smaller size is applied with the next insertion.
+     */
+    public synchronized void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Changes the time to live of the entries which are inserted from now on.
+     */
+    public synchronized void setTimeToLiveInMillis(long timeToLiveInMillis) {
+        this.timeToLiveInMillis = timeToLiveInMillis;
+    }
+
+    /**
+     * @return the value of the given key or null if there is no entry which hasn't expired yet
+     */
+    public synchronized V get(K key) {
+        return get(key, value -> true);
+    }
+
+    /**
+     * @param isValid - an additional condition for the cached value. An entry which doesn't fulfill it is removed.
+     * @return the value of the given key or null if there is no entry which hasn't expired yet and is valid
+     */
+    public synchronized V get(K key, Predicate<V> isValid) {
+        CachedValue<V> cachedValue = cache.get(key);
+        if (cachedValue == null) {
+            return null;
+        }
+        if (cachedValue.expiresAt <= clock.getAsLong() || !isValid.test(cachedValue.value)) {
+            cache.remove(key);
+            return null;
+        }
+        return cachedValue.value;
+    }
+
+    public synchronized void put(K key, V value) {
+        if (timeToLiveInMillis > 0) {
+            long now = clock.getAsLong();
+            //Saturates instead of overflowing for entries which don't expire
+            long expiresAt = timeToLiveInMillis > Long.MAX_VALUE - now ? Long.MAX_VALUE : now + timeToLiveInMillis;
+            cache.put(key, new CachedValue<>(value, expiresAt));
+        }
+    }
+
+    /**
+     * @return the cached value of the given key or - if there is none - the newly computed (and cached) value. The computation takes place while the cache is locked, so it should be cheap.
+     */
+    public synchronized V computeIfAbsent(K key, Function<K, V> computation) {
+        V value = get(key);
+        if (value == null) {
+            value = computation.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    public synchronized void removeIf(Predicate<V> predicate) {
+        cache.values().removeIf(cachedValue -> predicate.test(cachedValue.value));
+    }
+
+    public synchronized void clear() {
+        cache.clear();
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.commons.http.control;
+
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.humanbrainproject.knowledgegraph.annotations.Tested;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provides the HTTP client shared by all outgoing REST calls (Nexus, OIDC, JSON-LD service). The connections are pooled
+ * and kept alive, so subsequent requests to the same host don't pay for a new TCP / TLS handshake.
+ */
+@Component
+@Tested
+public class HttpClientProvider {
+
+    @Value("${org.humanbrainproject.knowledgegraph.http.maxConnections:200}")
+    int maxConnections;
+
+    @Value("${org.humanbrainproject.knowledgegraph.http.maxConnectionsPerRoute:50}")
+    int maxConnectionsPerRoute;
+
+    @Value("${org.humanbrainproject.knowledgegraph.http.connectTimeoutInMs:10000}")
+    int connectTimeoutInMs;
+
+    @Value("${org.humanbrainproject.knowledgegraph.http.readTimeoutInMs:120000}")
+    int readTimeoutInMs;
+
+    @Value("${org.humanbrainproject.knowledgegraph.http.idleTimeoutInSeconds:30}")
+    long idleTimeoutInSeconds;
+
+    protected Logger logger = LoggerFactory.getLogger(HttpClientProvider.class);
+
+    PoolingHttpClientConnectionManager connectionManager;
+
+    private CloseableHttpClient httpClient;
+
+    private HttpComponentsClientHttpRequestFactory requestFactory;
+
+    private List<HttpMessageConverter<?>> messageConverters;
+
+    private RestTemplate restTemplate;
+
+    @PostConstruct
+    public void init() {
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        httpClient = HttpClients.custom().setConnectionManager(connectionManager).evictExpiredConnections().evictIdleConnections(idleTimeoutInSeconds, TimeUnit.SECONDS).build();
+        requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        requestFactory.setConnectTimeout(connectTimeoutInMs);
+        requestFactory.setConnectionRequestTimeout(connectTimeoutInMs);
+        requestFactory.setReadTimeout(readTimeoutInMs);
+        List<HttpMessageConverter<?>> converters = new ArrayList<>(new RestTemplate().getMessageConverters());
+        converters.add(0, new StringHttpMessageConverter(StandardCharsets.UTF_8));
+        messageConverters = Collections.unmodifiableList(converters);
+        restTemplate = createRestTemplate(null);
+    }
+
+    @PreDestroy
+    public void close() {
+        try {
+            if (httpClient != null) {
+                httpClient.close();
+            }
+        } catch (IOException e) {
+            logger.warn("Was not able to close the http client", e);
+        }
+    }
+
+    /**
+     * @return a rest template without any interceptors, backed by the shared connection pool
+     */
+    public RestTemplate getRestTemplate() {
+        return restTemplate;
+    }
+
+    /**
+     * @param interceptor - an interceptor (e.g. for authentication) applied to all requests of the returned template. Can be null.
+     * @return a new (lightweight) rest template backed by the shared connection pool
+     */
+    public RestTemplate createRestTemplate(ClientHttpRequestInterceptor interceptor) {
+        RestTemplate template = new RestTemplate(messageConverters);
+        template.setRequestFactory(requestFactory);
+        if (interceptor != null) {
+            template.setInterceptors(Collections.singletonList(interceptor));
+        }
+        return template;
+    }
+
+}
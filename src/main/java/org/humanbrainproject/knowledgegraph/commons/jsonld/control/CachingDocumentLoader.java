@@ -0,0 +1,123 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.commons.jsonld.control;
+
+import com.github.jsonldjava.core.DocumentLoader;
+import com.github.jsonldjava.core.JsonLdError;
+import com.github.jsonldjava.core.RemoteDocument;
+import com.github.jsonldjava.utils.JsonUtils;
+import org.humanbrainproject.knowledgegraph.annotations.Tested;
+import org.humanbrainproject.knowledgegraph.commons.cache.LruTtlCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A document loader which keeps the remote documents (typically JSON-LD contexts) in a size-bounded cache. Entries expire after the configured time to live; if the maximal size is reached, the least recently used entry is evicted.
+ * <p>
+ * Documents can be preloaded from a local directory - they are never expired and therefore never fetched from the network. The URL of a preloaded document is the URL-decoded file name without the ".json" / ".jsonld" suffix (e.g. "https%3A%2F%2Fschema.org%2F.jsonld" for "https://schema.org/").
+ */
+@Tested
+public class CachingDocumentLoader extends DocumentLoader {
+
+    private final Map<String, String> preloadedDocuments = new ConcurrentHashMap<>();
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    private final LruTtlCache<String, String> cache = new LruTtlCache<>(100, 60 * 60 * 1000, () -> clock.getAsLong());
+
+    protected Logger logger = LoggerFactory.getLogger(CachingDocumentLoader.class);
+
+    public void setMaxSize(int maxSize) {
+        cache.setMaxSize(maxSize);
+    }
+
+    public void setTimeToLiveInMillis(long timeToLiveInMillis) {
+        cache.setTimeToLiveInMillis(timeToLiveInMillis);
+    }
+
+    /**
+     * Registers all ".json" and ".jsonld" files of the given directory as preloaded documents.
+     */
+    public void preload(Path directory) throws IOException {
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(f -> f.getFileName().toString().endsWith(".json") || f.getFileName().toString().endsWith(".jsonld")).collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            String fileName = file.getFileName().toString();
+            String url = URLDecoder.decode(fileName.substring(0, fileName.lastIndexOf('.')), StandardCharsets.UTF_8.name());
+            String document = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            //Fail early if the file is not valid JSON
+            JsonUtils.fromString(document);
+            preloadedDocuments.put(url, document);
+            logger.info("Preloaded the JSON-LD document {} from {}", url, file);
+        }
+    }
+
+    @Override
+    public RemoteDocument loadDocument(String url) throws JsonLdError {
+        String document = preloadedDocuments.get(url);
+        if (document == null) {
+            document = cache.get(url);
+        }
+        if (document == null) {
+            RemoteDocument remoteDocument = loadRemoteDocument(url);
+            try {
+                document = JsonUtils.toString(remoteDocument.getDocument());
+            } catch (IOException e) {
+                throw new JsonLdError(JsonLdError.Error.LOADING_REMOTE_CONTEXT_FAILED, url, e);
+            }
+            cache.put(url, document);
+            logger.debug("Loaded the JSON-LD document {}", url);
+        }
+        try {
+            //The document is parsed for every request since the JSON-LD processor is allowed to modify it
+            return new RemoteDocument(url, JsonUtils.fromString(document));
+        } catch (IOException e) {
+            throw new JsonLdError(JsonLdError.Error.LOADING_DOCUMENT_FAILED, url, e);
+        }
+    }
+
+    protected RemoteDocument loadRemoteDocument(String url) throws JsonLdError {
+        return super.loadDocument(url);
+    }
+
+    int size() {
+        return cache.size();
+    }
+
+}
@@ -23,6 +23,7 @@
 
 package org.humanbrainproject.knowledgegraph.commons.jsonld.control;
 
+import com.github.jsonldjava.core.DocumentLoader;
 import com.github.jsonldjava.core.JsonLdConsts;
 import com.github.jsonldjava.core.JsonLdError;
 import com.github.jsonldjava.core.JsonLdOptions;
@@ -30,6 +31,8 @@ import com.github.jsonldjava.core.JsonLdProcessor;
 import com.github.jsonldjava.utils.JsonUtils;
 import com.google.gson.Gson;
 import org.humanbrainproject.knowledgegraph.annotations.ToBeTested;
+import org.humanbrainproject.knowledgegraph.commons.cache.LruTtlCache;
+import org.humanbrainproject.knowledgegraph.commons.http.control.HttpClientProvider;
 import org.humanbrainproject.knowledgegraph.commons.vocabulary.HBPVocabulary;
 import org.humanbrainproject.knowledgegraph.commons.vocabulary.NexusVocabulary;
 import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusInstanceReference;
@@ -44,7 +47,9 @@ import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -61,17 +66,55 @@ public class JsonLdStandardization {
     @Value("${org.humanbrainproject.knowledgegraph.jsonld.endpoint}")
     String endpoint;
 
-    private static final JsonLdOptions NO_ARRAY_COMPACTION_JSONLD_OPTIONS = createOptionsWithoutArrayCompaction();
-    private static final JsonLdOptions DEFAULT_JSON_LD_OPTIONS = new JsonLdOptions();
+    /**
+     * Remote contexts are resolved through this loader, so the same contexts are not downloaded for every message.
+     */
+    final CachingDocumentLoader documentLoader = new CachingDocumentLoader();
+
+    private final JsonLdOptions defaultJsonLdOptions = createDefaultOptions(documentLoader);
+
+    private RestTemplate restTemplate = new RestTemplate();
+
+    private static final int MAX_CACHED_KEY_MAPPINGS = 100;
+
+    /**
+     * The mapping of the (fully qualified) keys to their compact terms by context (serialized as JSON)
+     */
+    private final LruTtlCache<String, Map<String, String>> keyMappingCache = new LruTtlCache<>(MAX_CACHED_KEY_MAPPINGS, Long.MAX_VALUE);
 
     protected Logger logger = LoggerFactory.getLogger(JsonLdStandardization.class);
 
-    private static JsonLdOptions createOptionsWithoutArrayCompaction() {
+    private static JsonLdOptions createDefaultOptions(DocumentLoader documentLoader) {
         JsonLdOptions jsonLdOptions = new JsonLdOptions();
-        jsonLdOptions.setCompactArrays(false);
+        jsonLdOptions.setDocumentLoader(documentLoader);
         return jsonLdOptions;
     }
 
+    /**
+     * The fallback to the JSON-LD service shares the pooled connections with the other outgoing requests
+     */
+    @Autowired
+    public void setHttpClientProvider(HttpClientProvider httpClientProvider) {
+        this.restTemplate = httpClientProvider.getRestTemplate();
+    }
+
+    @Value("${org.humanbrainproject.knowledgegraph.jsonld.contextCache.maxSize:100}")
+    public void setContextCacheSize(int maxSize) {
+        documentLoader.setMaxSize(maxSize);
+    }
+
+    @Value("${org.humanbrainproject.knowledgegraph.jsonld.contextCache.ttlInSeconds:3600}")
+    public void setContextCacheTimeToLive(long timeToLiveInSeconds) {
+        documentLoader.setTimeToLiveInMillis(timeToLiveInSeconds * 1000);
+    }
+
+    @Value("${org.humanbrainproject.knowledgegraph.jsonld.contextCache.preloadDirectory:}")
+    public void setContextPreloadDirectory(String preloadDirectory) throws IOException {
+        if (preloadDirectory != null && !preloadDirectory.trim().isEmpty()) {
+            documentLoader.preload(Paths.get(preloadDirectory.trim()));
+        }
+    }
+
     /**
      * Takes the given json element and adds a @context with the default namespace as @vocab. This is e.g. required if the input is a JSON-only file.
      *
@@ -226,23 +269,51 @@ public class JsonLdStandardization {
     }
 
     private Map fullyQualifyLocally(Map input) {
-        Object expanded = JsonLdProcessor.expand(input, DEFAULT_JSON_LD_OPTIONS);
-        return JsonLdProcessor.compact(expanded, Collections.emptyMap(), DEFAULT_JSON_LD_OPTIONS);
+        Object expanded = JsonLdProcessor.expand(input, defaultJsonLdOptions);
+        return JsonLdProcessor.compact(expanded, Collections.emptyMap(), defaultJsonLdOptions);
     }
 
     private Map fullyQualifyByService(Map input) {
-        RestTemplate template = new RestTemplate();
-        String fullyQualified = template.postForObject(endpoint, input, String.class);
+        String fullyQualified = restTemplate.postForObject(endpoint, input, String.class);
         return jsonTransformer.parseToMap(fullyQualified);
     }
 
     public List<Map> applyContext(List<Map> objects, Object context) {
         handleVocab(context);
+        Set<String> keys = new LinkedHashSet<>();
+        for (Map object : objects) {
+            collectKeys(object, keys);
+        }
+        Map<String, String> keymapping = getKeyMapping(context, keys);
         return objects.parallelStream().map(o -> {
-            List<Map<String, String>> keys = getKeys(o, new ArrayList<>());
+            applyKeyMap(o, keymapping);
+            return o;
+        }).collect(Collectors.toList());
+    }
+
+    /**
+     * The documents of a result (and of subsequent requests with the same context) share the same keys - this is why the compact term of a key is only computed once per context.
+     */
+    private Map<String, String> getKeyMapping(Object context, Set<String> keys) {
+        String contextKey;
+        try {
+            contextKey = JsonUtils.toString(context);
+        } catch (IOException e) {
+            throw new JsonLdError(JsonLdError.Error.INVALID_LOCAL_CONTEXT, context, e);
+        }
+        Map<String, String> cachedKeyMapping = keyMappingCache.computeIfAbsent(contextKey, k -> new ConcurrentHashMap<>());
+        List<String> missingKeys = keys.stream().filter(k -> !cachedKeyMapping.containsKey(k)).collect(Collectors.toList());
+        if (!missingKeys.isEmpty()) {
+            List<Map<String, String>> lookupKeys = new ArrayList<>();
+            for (String key : missingKeys) {
+                Map<String, String> m = new LinkedHashMap<>();
+                m.put(JsonLdConsts.ID, key);
+                m.put("http://jsonldstandardization/original", key);
+                lookupKeys.add(m);
+            }
             Map<String, Object> lookupMap = new LinkedHashMap<>();
-            lookupMap.put("http://jsonldstandardization/keymapping", keys);
-            Map<String, Object> lookup = JsonLdProcessor.compact(lookupMap, context, DEFAULT_JSON_LD_OPTIONS);
+            lookupMap.put("http://jsonldstandardization/keymapping", lookupKeys);
+            Map<String, Object> lookup = JsonLdProcessor.compact(lookupMap, context, defaultJsonLdOptions);
             List<Map<String, String>> mapping = new ArrayList<>();
             Object l = lookup.get("http://jsonldstandardization/keymapping");
             if (l instanceof Map){
@@ -252,13 +323,15 @@ public class JsonLdStandardization {
             } else {
                 throw new ClassCastException("Could not cast keymapping type");
             }
-            Map<String, String> keymapping = expandedToContextualizedKeys(mapping);
-            applyKeyMap(o, keymapping);
-            return o;
-        }).collect(Collectors.toList());
+            Map<String, String> newKeyMapping = expandedToContextualizedKeys(mapping);
+            for (String key : missingKeys) {
+                //Keys without a compact term are kept as they are
+                cachedKeyMapping.put(key, newKeyMapping.getOrDefault(key, key));
+            }
+        }
+        return cachedKeyMapping;
     }
 
-
     private void handleVocab(Object context) {
         if (context instanceof Map && ((Map) context).containsKey(JsonLdConsts.VOCAB)) {
             Map ctx = ((Map) context);
@@ -307,23 +380,19 @@ public class JsonLdStandardization {
     }
 
 
-    private List<Map<String, String>> getKeys(Object element, List<Map<String, String>> allKeys) {
+    private void collectKeys(Object element, Set<String> allKeys) {
         if (element instanceof Map) {
             Map map = (Map) element;
             for (Object k : map.keySet()) {
-                HashMap<String, String> m = new LinkedHashMap<>();
-                m.put(JsonLdConsts.ID, k.toString());
-                m.put("http://jsonldstandardization/original", k.toString());
-                allKeys.add(m);
-                getKeys(map.get(k), allKeys);
+                allKeys.add(k.toString());
+                collectKeys(map.get(k), allKeys);
             }
         }
         if (element instanceof Collection) {
             for (Object o : ((Collection) element)) {
-                getKeys(o, allKeys);
+                collectKeys(o, allKeys);
             }
         }
-        return allKeys;
     }
 
 
@@ -27,6 +27,7 @@ package org.humanbrainproject.knowledgegraph.commons.nexus.control;
 import org.humanbrainproject.knowledgegraph.annotations.ToBeTested;
 import org.humanbrainproject.knowledgegraph.commons.authorization.control.AuthorizationController;
 import org.humanbrainproject.knowledgegraph.commons.authorization.entity.Credential;
+import org.humanbrainproject.knowledgegraph.commons.http.control.HttpClientProvider;
 import org.humanbrainproject.knowledgegraph.commons.jsonld.control.JsonTransformer;
 import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusInstanceReference;
 import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusRelativeUrl;
@@ -35,25 +36,30 @@ import org.humanbrainproject.knowledgegraph.query.entity.JsonDocument;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Primary;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
-import org.springframework.http.converter.StringHttpMessageConverter;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
-import java.nio.charset.StandardCharsets;
+import javax.annotation.PreDestroy;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * This class is the interface for interacting with nexus on behalf of the user. It should never use the
@@ -77,11 +83,31 @@ public class NexusClient {
     protected Logger logger = LoggerFactory.getLogger(NexusClient.class);
 
 
+    @Autowired
+    HttpClientProvider httpClientProvider;
+
+    /**
+     * The number of pages loaded ahead of the consumer when iterating over a listing
+     */
+    @Value("${org.humanbrainproject.knowledgegraph.nexus.pagePrefetch:2}")
+    int pagePrefetch = 2;
+
+    private final ExecutorService pageLoader = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "nexus-page-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Stops the prefetching of pages of listings which are still being iterated.
+     */
+    @PreDestroy
+    public void shutdown() {
+        pageLoader.shutdownNow();
+    }
+
     private RestTemplate createRestTemplate(ClientHttpRequestInterceptor oidc){
-        RestTemplate template = new RestTemplate();
-        template.setInterceptors(Collections.singletonList(oidc));
-        template.getMessageConverters().add(0, new StringHttpMessageConverter(StandardCharsets.UTF_8));
-        return template;
+        return httpClientProvider.createRestTemplate(oidc);
     }
 
 
@@ -108,6 +134,30 @@ public class NexusClient {
 
     }
 
+    /**
+     * @return the permissions (e.g. "read", "write") the credential has for the given organization
+     */
+    public Set<String> getPermissions(String organization, Credential credential) {
+        Set<String> permissions = new HashSet<>();
+        try {
+            Map acls = createRestTemplate(authorizationController.getInterceptor(credential)).getForEntity(configuration.getAclEndpoint(organization), Map.class).getBody();
+            if (acls != null && acls.get("acl") instanceof List) {
+                for (Object acl : (List) acls.get("acl")) {
+                    if (acl instanceof Map && ((Map) acl).get("permissions") instanceof List) {
+                        for (Object permission : (List) ((Map) acl).get("permissions")) {
+                            permissions.add(permission.toString());
+                        }
+                    }
+                }
+            }
+        } catch (HttpClientErrorException exception) {
+            if (exception.getStatusCode() != HttpStatus.NOT_FOUND && exception.getStatusCode() != HttpStatus.FORBIDDEN && exception.getStatusCode() != HttpStatus.UNAUTHORIZED) {
+                throw exception;
+            }
+        }
+        return permissions;
+    }
+
     public JsonDocument put(NexusRelativeUrl url, Integer revision, Map payload, Credential oidc) throws HttpClientErrorException {
         return put(url, revision, payload, authorizationController.getInterceptor(oidc));
     }
@@ -176,9 +226,7 @@ public class NexusClient {
     }
 
     JsonDocument patch(NexusRelativeUrl url, Integer revision, Map payload, ClientHttpRequestInterceptor oidc) {
-        RestTemplate template = createRestTemplate(oidc);
-        template.setRequestFactory(new HttpComponentsClientHttpRequestFactory());
-        ResponseEntity<Map> result = template.exchange(String.format("%s%s", configuration.getEndpoint(url), revision != null ? String.format("%srev=%d", !url.getUrl().contains("?") ? "?" : "&", revision) : ""), HttpMethod.PATCH, new HttpEntity<>(payload), Map.class);
+        ResponseEntity<Map> result = createRestTemplate(oidc).exchange(String.format("%s%s", configuration.getEndpoint(url), revision != null ? String.format("%srev=%d", !url.getUrl().contains("?") ? "?" : "&", revision) : ""), HttpMethod.PATCH, new HttpEntity<>(payload), Map.class);
         if (result.getStatusCode().is2xxSuccessful() && result.getBody() != null) {
             return new JsonDocument(result.getBody());
         }
@@ -260,44 +308,55 @@ public class NexusClient {
     }
 
     public void consumeInstances(NexusSchemaReference schemaReference, Credential credential, boolean followPages, Consumer<List<NexusInstanceReference>> consumer){
-        consume(createUrl(new NexusRelativeUrl(NexusConfiguration.ResourceType.DATA, schemaReference.getRelativeUrl().getUrl())), authorizationController.getInterceptor(credential), followPages, consumer);
+        Iterator<List<JsonDocument>> pages = pages(createUrl(new NexusRelativeUrl(NexusConfiguration.ResourceType.DATA, schemaReference.getRelativeUrl().getUrl())), authorizationController.getInterceptor(credential), followPages);
+        while (pages.hasNext()) {
+            consumer.accept(pages.next().stream().map(r -> NexusInstanceReference.createFromUrl((String) r.get("resultId"))).collect(Collectors.toList()));
+        }
     }
 
-    private void consume(String url, ClientHttpRequestInterceptor oidc, boolean followPages, Consumer<List<NexusInstanceReference>> consumer) {
-        ResponseEntity<Map> result = createRestTemplate(oidc).getForEntity(url, Map.class);
+    /**
+     * Lazily streams the instances of the given schema - the pages are loaded while the stream is consumed.
+     */
+    public Stream<NexusInstanceReference> streamInstances(NexusSchemaReference schemaReference, Credential credential){
+        return stream(schemaReference, credential, true).map(d -> d.get("resultId")).filter(o -> o instanceof String).map(o -> NexusInstanceReference.createFromUrl((String) o));
+    }
+
+    public Stream<JsonDocument> stream(NexusSchemaReference schemaReference, Credential credential, boolean followPages){
+        return stream(new NexusRelativeUrl(NexusConfiguration.ResourceType.DATA, schemaReference.getRelativeUrl().getUrl()), credential, followPages);
+    }
+
+    public Stream<JsonDocument> stream(NexusRelativeUrl relativeUrl, Credential credential, boolean followPages){
+        return stream(createUrl(relativeUrl), authorizationController.getInterceptor(credential), followPages);
+    }
+
+    private Stream<JsonDocument> stream(String url, ClientHttpRequestInterceptor oidc, boolean followPages) {
+        Iterable<List<JsonDocument>> pages = () -> pages(url, oidc, followPages);
+        return StreamSupport.stream(pages.spliterator(), false).flatMap(List::stream);
+    }
+
+    private Iterator<List<JsonDocument>> pages(String url, ClientHttpRequestInterceptor oidc, boolean followPages) {
+        RestTemplate restTemplate = createRestTemplate(oidc);
+        return new NexusPageIterator(url, pageUrl -> loadPage(restTemplate, pageUrl, followPages), pageLoader, pagePrefetch);
+    }
+
+    private NexusPage loadPage(RestTemplate restTemplate, String url, boolean followPages) {
+        ResponseEntity<Map> result = restTemplate.getForEntity(url, Map.class);
         if (result.getStatusCode().is2xxSuccessful() && result.getBody() != null && result.getBody().containsKey("results") && result.getBody().get("results") instanceof List) {
             List<JsonDocument> results = (List<JsonDocument>) ((List) result.getBody().get("results")).stream().map(r -> new JsonDocument((Map) r)).collect(Collectors.toList());
-            consumer.accept(results.stream().map(r -> NexusInstanceReference.createFromUrl((String)r.get("resultId"))).collect(Collectors.toList()));
+            String next = null;
             if (followPages) {
                 Object links = result.getBody().get("links");
-                if (links instanceof Map) {
-                    Object next = ((Map) links).get("next");
-                    if (next instanceof String) {
-                        consume((String)next, oidc, true, consumer);
-                    }
+                if (links instanceof Map && ((Map) links).get("next") instanceof String) {
+                    next = (String) ((Map) links).get("next");
                 }
             }
+            return new NexusPage(results, next);
         }
+        return NexusPage.EMPTY;
     }
 
-    //TODO reimplement with the use of consume
     private List<JsonDocument> list(String url, ClientHttpRequestInterceptor oidc, boolean followPages) {
-        ResponseEntity<Map> result = createRestTemplate(oidc).getForEntity(url, Map.class);
-        if (result.getStatusCode().is2xxSuccessful() && result.getBody() != null && result.getBody().containsKey("results") && result.getBody().get("results") instanceof List) {
-            List<JsonDocument> results = (List<JsonDocument>) ((List) result.getBody().get("results")).stream().map(r -> new JsonDocument((Map) r)).collect(Collectors.toList());
-            if (followPages) {
-                Object links = result.getBody().get("links");
-                if (links instanceof Map) {
-                    Object next = ((Map) links).get("next");
-                    if (next instanceof String) {
-                        List<JsonDocument> nextPage = list((String)next, oidc, true);
-                        results.addAll(nextPage);
-                    }
-                }
-            }
-            return results;
-        }
-        return Collections.emptyList();
+        return stream(url, oidc, followPages).collect(Collectors.toList());
     }
 
 }
@@ -65,6 +65,13 @@ public class NexusConfiguration {
         return String.format("%s/v0/oauth2/userinfo", iamEndpoint);
     }
 
+    /**
+     * @return the endpoint for the access control list of the organization (including the permissions inherited from its parents) of the calling user
+     */
+    public String getAclEndpoint(String organization){
+        return String.format("%s/v0/acls/kg/%s?self=true&parents=true", iamEndpoint, organization);
+    }
+
 
     /**
      * @return the nexus-base URL. This is the URL which is used e.g. to prefix the IDs of nexus instances.
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.commons.nexus.control;
+
+import org.humanbrainproject.knowledgegraph.annotations.Tested;
+import org.humanbrainproject.knowledgegraph.query.entity.JsonDocument;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Iterates lazily over the pages of a Nexus listing by following the "next" links. Up to <code>prefetch</code> pages are
+ * loaded in the background ahead of the consumer, so the processing of a page overlaps with the loading of the following ones
+ * while the memory consumption stays bounded.
+ */
+@Tested
+class NexusPageIterator implements Iterator<List<JsonDocument>> {
+
+    private final Function<String, NexusPage> pageLoader;
+    private final Executor executor;
+    private final int prefetch;
+
+    /**
+     * The pages ahead of the consumer - every future is chained to its predecessor since the url of a page is only known
+     * after its predecessor has been loaded. A null page marks the end of the listing.
+     */
+    private final Deque<CompletableFuture<NexusPage>> pages = new ArrayDeque<>();
+
+    private CompletableFuture<NexusPage> last;
+
+    NexusPageIterator(String url, Function<String, NexusPage> pageLoader, Executor executor, int prefetch) {
+        this.pageLoader = pageLoader;
+        this.executor = executor;
+        this.prefetch = Math.max(1, prefetch);
+        last = CompletableFuture.supplyAsync(() -> pageLoader.apply(url), executor);
+        pages.add(last);
+        fillPrefetchBuffer();
+    }
+
+    private void fillPrefetchBuffer() {
+        while (pages.size() < prefetch) {
+            last = last.thenApplyAsync(page -> page != null && page.getNext() != null ? pageLoader.apply(page.getNext()) : null, executor);
+            pages.add(last);
+        }
+    }
+
+    private NexusPage peek() {
+        try {
+            return pages.getFirst().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return peek() != null;
+    }
+
+    @Override
+    public List<JsonDocument> next() {
+        NexusPage page = peek();
+        if (page == null) {
+            throw new NoSuchElementException();
+        }
+        pages.removeFirst();
+        if (page.getNext() != null) {
+            fillPrefetchBuffer();
+        } else {
+            last = CompletableFuture.completedFuture(null);
+            pages.clear();
+            pages.add(last);
+        }
+        return page.getResults();
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control;
+
+import com.arangodb.ArangoCollection;
+import com.arangodb.ArangoDBException;
+import com.arangodb.ArangoDatabase;
+import com.arangodb.entity.CollectionEntity;
+import com.arangodb.model.AqlQueryOptions;
+import com.arangodb.model.TransactionOptions;
+import org.humanbrainproject.knowledgegraph.annotations.Tested;
+import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.entity.ArangoCollectionReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The number of occurrences of the attributes per collection. The statistics are maintained incrementally with the changes of every {@link ArangoWriteBatch}
+ * and can therefore be read without scanning the collection. A regular reconciliation recalculates them from scratch to correct any drift
+ * (e.g. of collections which have been populated before the statistics were introduced).
+ * The statistics of edge collections additionally contain the number of relations per attribute, source collection and target collection.
+ */
+@Component
+@Tested
+public class ArangoAttributeStatistics {
+
+    public static final ArangoCollectionReference STATISTICS_COLLECTION = new ArangoCollectionReference("attribute_statistics");
+
+    /**
+     * Recalculates the statistics of a single collection - the scan and the update are executed in the same transaction so no concurrent write gets lost.
+     */
+    static final String RECONCILIATION = "function (params) { " +
+            "var db = require('@arangodb').db; " +
+            "var attributes = {}; " +
+            "db._query('FOR doc IN @@collection FOR att IN ATTRIBUTES(doc, true) COLLECT attribute = att WITH COUNT INTO numOfOccurences RETURN { attribute, numOfOccurences }', { '@collection': params.collection }).toArray().forEach(function (r) { attributes[r.attribute] = r.numOfOccurences; }); " +
+            "var collection = db._collection(params.collection); " +
+            "var statistics = db._collection(params.statistics); " +
+            "var updated = { count: collection.count(), attributes: attributes }; " +
+            "if (collection.type() === 3) { " +
+            "var relations = {}; " +
+            "db._query('FOR e IN @@collection FILTER IS_STRING(e._name) COLLECT attribute = e._name, source = PARSE_IDENTIFIER(e._from).collection, target = PARSE_IDENTIFIER(e._to).collection WITH COUNT INTO numOfRelations RETURN { attribute, source, target, numOfRelations }', { '@collection': params.collection }).toArray().forEach(function (r) { var bySource = relations[r.attribute] || (relations[r.attribute] = {}); var byTarget = bySource[r.source] || (bySource[r.source] = {}); byTarget[r.target] = r.numOfRelations; }); " +
+            "updated.relations = relations; " +
+            "} " +
+            "if (statistics.exists(params.collection)) { statistics.replace(params.collection, updated); } else { updated._key = params.collection; statistics.insert(updated); } " +
+            "}";
+
+    /**
+     * Adds the changes of a committed write batch to the statistics. Collections without statistics are skipped (unless they have been created by the batch)
+     * since their absolute numbers are unknown - they are populated by the reconciliation. For the same reason, the relation counts are only updated if the statistics of the edge collection already contain them.
+     */
+    static final String APPLY_CHANGES = "function (params) { " +
+            "var db = require('@arangodb').db; " +
+            "var statistics = db._collection(params.statistics); " +
+            "var merge = function (counts, changes) { Object.keys(changes).forEach(function (key) { var value = (counts[key] || 0) + changes[key]; if (value > 0) { counts[key] = value; } else { delete counts[key]; } }); }; " +
+            "Object.keys(params.changes).forEach(function (name) { " +
+            "var change = params.changes[name]; " +
+            "var current = statistics.exists(name) ? statistics.document(name) : (params.newCollections.indexOf(name) >= 0 ? { _key: name, count: 0, attributes: {}, relations: change.relations ? {} : undefined } : null); " +
+            "if (current !== null) { " +
+            "var attributes = current.attributes || {}; " +
+            "merge(attributes, change.attributes); " +
+            "var updated = { count: Math.max(0, (current.count || 0) + change.count), attributes: attributes }; " +
+            "var relations = current.relations; " +
+            "if (relations && change.relations) { " +
+            "Object.keys(change.relations).forEach(function (attribute) { var bySource = relations[attribute] || (relations[attribute] = {}); " +
+            "Object.keys(change.relations[attribute]).forEach(function (source) { var byTarget = bySource[source] || (bySource[source] = {}); merge(byTarget, change.relations[attribute][source]); if (Object.keys(byTarget).length === 0) { delete bySource[source]; } }); " +
+            "if (Object.keys(bySource).length === 0) { delete relations[attribute]; } }); " +
+            "} " +
+            "if (relations) { updated.relations = relations; } " +
+            "if (statistics.exists(name)) { statistics.replace(name, updated); } else { updated._key = name; statistics.insert(updated); } " +
+            "} }); " +
+            "}";
+
+    /**
+     * The number of edge collections which have relation statistics
+     */
+    static final String RELATION_STATISTICS_COUNT = "RETURN LENGTH(FOR s IN @@statistics FILTER s._key IN @edgeCollections AND s.relations != null RETURN 1)";
+
+    static final String OUTBOUND_RELATIONS = "FOR s IN @@statistics FILTER s._key IN @edgeCollections AND s.relations != null " +
+            "FOR attribute IN ATTRIBUTES(s.relations) " +
+            "FOR target IN ATTRIBUTES(NOT_NULL(s.relations[attribute][@collection], {})) " +
+            "FILTER s.relations[attribute][@collection][target] > 0 " +
+            "RETURN DISTINCT { \"ref\": target, \"attribute\": attribute }";
+
+    static final String INBOUND_RELATIONS = "FOR s IN @@statistics FILTER s._key IN @edgeCollections AND s.relations != null " +
+            "FOR attribute IN ATTRIBUTES(s.relations) " +
+            "FOR source IN ATTRIBUTES(s.relations[attribute]) " +
+            "FILTER s.relations[attribute][source][@collection] > 0 " +
+            "RETURN DISTINCT { \"ref\": source, \"attribute\": attribute }";
+
+    static final int MAX_ATTEMPTS = 5;
+
+    @Autowired
+    ArangoDatabaseFactory databaseFactory;
+
+    protected Logger logger = LoggerFactory.getLogger(ArangoAttributeStatistics.class);
+
+    /**
+     * @return the attributes of the collection with their number of occurrences (in the same format as {@link org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.query.ArangoQueryFactory#getAttributesWithCount(ArangoCollectionReference)})
+     * or null if there are no statistics for the collection (yet).
+     */
+    public List<Map> getAttributesWithCount(ArangoConnection connection, ArangoCollectionReference collection) {
+        ArangoCollection statistics = connection.getOrCreateDB().collection(STATISTICS_COLLECTION.getName());
+        if (!statistics.exists()) {
+            return null;
+        }
+        Map document = statistics.getDocument(collection.getName(), Map.class);
+        return document != null ? toAttributesWithCount(document) : null;
+    }
+
+    /**
+     * @return the relation types of the collection (in the same format as {@link org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.query.ArangoQueryFactory#queryDirectRelationsWithType(ArangoCollectionReference, Set, boolean)})
+     * or null if not all edge collections have relation statistics (yet). Unlike the query, the statistics also count relations pointing to documents which don't exist (yet).
+     */
+    public List<Map> getDirectRelationsWithType(ArangoConnection connection, ArangoCollectionReference collection, Set<ArangoCollectionReference> edgeCollections, boolean outbound) {
+        ArangoDatabase db = connection.getOrCreateDB();
+        if (!db.collection(STATISTICS_COLLECTION.getName()).exists()) {
+            return null;
+        }
+        Map<String, Object> bindVars = new LinkedHashMap<>();
+        bindVars.put("@statistics", STATISTICS_COLLECTION.getName());
+        bindVars.put("edgeCollections", edgeCollections.stream().map(ArangoCollectionReference::getName).collect(Collectors.toList()));
+        List<Number> count = db.query(RELATION_STATISTICS_COUNT, bindVars, new AqlQueryOptions(), Number.class).asListRemaining();
+        if (count.isEmpty() || count.get(0).intValue() < edgeCollections.size()) {
+            return null;
+        }
+        bindVars.put("collection", collection.getName());
+        return db.query(outbound ? OUTBOUND_RELATIONS : INBOUND_RELATIONS, bindVars, new AqlQueryOptions(), Map.class).asListRemaining();
+    }
+
+    /**
+     * Applies the statistics changes of a committed write batch in a short transaction of its own (the statistics collection is expected to exist). Concurrent batches only compete for the statistics documents here (and not within their data transaction) - a write-write conflict is therefore retried.
+     * If the changes can't be applied, the statistics drift until the next reconciliation - the data itself is not affected.
+     */
+    static void applyChanges(ArangoDatabase database, Map changes, List<String> newCollections) {
+        if (changes == null || changes.isEmpty()) {
+            return;
+        }
+        String statisticsCollection = STATISTICS_COLLECTION.getName();
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("changes", changes);
+        parameters.put("newCollections", newCollections);
+        parameters.put("statistics", statisticsCollection);
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                database.transaction(APPLY_CHANGES, Void.class, new TransactionOptions().writeCollections(statisticsCollection).params(parameters));
+                return;
+            } catch (ArangoDBException e) {
+                if (!Integer.valueOf(409).equals(e.getResponseCode()) || attempt == MAX_ATTEMPTS) {
+                    LoggerFactory.getLogger(ArangoAttributeStatistics.class).error(String.format("Was not able to update the attribute statistics of the collections %s in database %s - they are corrected by the next reconciliation", changes.keySet(), database.name()), e);
+                    return;
+                }
+                try {
+                    Thread.sleep(10L * attempt);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    static List<Map> toAttributesWithCount(Map statistics) {
+        List<Map> result = new ArrayList<>();
+        Object attributes = statistics.get("attributes");
+        if (attributes instanceof Map) {
+            for (Object attribute : ((Map) attributes).keySet()) {
+                Object numOfOccurences = ((Map) attributes).get(attribute);
+                if (numOfOccurences instanceof Number && ((Number) numOfOccurences).longValue() > 0) {
+                    Map<String, Object> attributeWithCount = new LinkedHashMap<>();
+                    attributeWithCount.put("attribute", attribute);
+                    attributeWithCount.put("numOfOccurences", ((Number) numOfOccurences).longValue());
+                    result.add(attributeWithCount);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Recalculates the statistics of all collections of the given database
+     */
+    public void reconcile(ArangoConnection connection) {
+        ArangoDatabase db = connection.getOrCreateDB();
+        if (!db.collection(STATISTICS_COLLECTION.getName()).exists()) {
+            db.createCollection(STATISTICS_COLLECTION.getName());
+        }
+        for (CollectionEntity collection : db.getCollections()) {
+            if (!collection.getIsSystem() && !STATISTICS_COLLECTION.getName().equals(collection.getName())) {
+                reconcile(db, collection.getName());
+            }
+        }
+    }
+
+    private void reconcile(ArangoDatabase db, String collection) {
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("collection", collection);
+        parameters.put("statistics", STATISTICS_COLLECTION.getName());
+        try {
+            db.transaction(RECONCILIATION, Void.class, new TransactionOptions().readCollections(collection).writeCollections(STATISTICS_COLLECTION.getName()).params(parameters));
+        } catch (ArangoDBException e) {
+            //We don't interrupt the reconciliation of the other collections - the failed one is reconciled the next time.
+            logger.error(String.format("Was not able to reconcile the attribute statistics of collection %s in database %s", collection, db.name()), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${org.humanbrainproject.knowledgegraph.statistics.reconcileIntervalInMs:86400000}", initialDelayString = "${org.humanbrainproject.knowledgegraph.statistics.reconcileDelayInMs:60000}")
+    public void reconcileInferredDatabase() {
+        try {
+            logger.info("Start reconciling the attribute statistics");
+            reconcile(databaseFactory.getInferredDB(true));
+            logger.info("Done reconciling the attribute statistics");
+        } catch (ArangoDBException e) {
+            logger.error("Was not able to reconcile the attribute statistics", e);
+        }
+    }
+
+}
@@ -31,6 +31,7 @@ import com.arangodb.model.AqlQueryOptions;
 import org.humanbrainproject.knowledgegraph.annotations.ToBeTested;
 import org.humanbrainproject.knowledgegraph.commons.authorization.control.AuthorizationContext;
 import org.humanbrainproject.knowledgegraph.commons.propertyGraph.AuthorizedAccess;
+import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.aql.AQL;
 import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.query.ArangoQueryFactory;
 import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.entity.ArangoCollectionReference;
 import org.humanbrainproject.knowledgegraph.commons.suggestion.SuggestionStatus;
@@ -86,11 +87,12 @@ public class ArangoInferredRepository {
     @Deprecated
     @AuthorizedAccess
     public Map getInstanceList(ArangoCollectionReference collection, String searchTerm, Pagination pagination) {
-        String query = queryFactory.getInstanceList(collection, pagination!=null ? pagination.getStart() : null, pagination!=null ? pagination.getSize() : null, searchTerm, authorizationContext.getReadableOrganizations(), true);
+        AQL query = queryFactory.getInstanceList(collection, pagination!=null ? pagination.getStart() : null, pagination!=null ? pagination.getSize() : null, searchTerm, authorizationContext.getReadableOrganizations(), true);
         AqlQueryOptions options = new AqlQueryOptions().count(true).fullCount(true);
         Map m = new HashMap();
         try {
-            ArangoCursor<Map> q = databaseFactory.getInferredDB(false).getOrCreateDB().query(query, null, options, Map.class);
+            ArangoDatabase db = databaseFactory.getInferredDB(false).getOrCreateDB();
+            ArangoCursor<Map> q = db.query(query.build().getValue(), query.getBindParameters(), options, Map.class);
             m.put("count", q.getCount());
             m.put("fullCount", q.getStats().getFullCount());
             m.put("data", q.asListRemaining());
@@ -38,6 +38,7 @@ import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.entity.
 import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.exceptions.StoredQueryNotFoundException;
 import org.humanbrainproject.knowledgegraph.commons.vocabulary.ArangoVocabulary;
 import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusSchemaReference;
+import org.humanbrainproject.knowledgegraph.query.control.SpecificationCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -66,6 +67,9 @@ public class ArangoInternalRepository {
     @Autowired
     JsonTransformer jsonTransformer;
 
+    @Autowired
+    SpecificationCache specificationCache;
+
     protected Logger logger = LoggerFactory.getLogger(ArangoRepository.class);
 
     private ArangoDatabase getDB(){
@@ -116,6 +120,7 @@ public class ArangoInternalRepository {
                     throw dbexception;
                 }
             }
+            specificationCache.invalidate(document);
         }
     }
 
@@ -140,6 +145,15 @@ public class ArangoInternalRepository {
     }
 
 
+    /**
+     * @return the revision of the given internal collection (changes with every modification of one of its documents) or null if the collection doesn't exist.
+     */
+    public String getCollectionRevision(ArangoCollectionReference collectionReference) {
+        ArangoCollection collection = getDB().collection(collectionReference.getName());
+        return collection.exists() ? collection.getRevision().getRevision() : null;
+    }
+
+
     public List<Map> getInternalDocuments(ArangoCollectionReference collection) {
         String query = queryFactory.getAllInternalDocumentsOfACollection(collection);
         ArangoCursor<Map> q = getDB().query(query, null, new AqlQueryOptions(), Map.class);
@@ -175,6 +189,7 @@ public class ArangoInternalRepository {
         ArangoCollection collection = db.collection(document.getCollection().getName());
         if ( collection.exists() && collection.documentExists(document.getKey())) {
             collection.deleteDocument(document.getKey());
+            specificationCache.invalidate(document);
         } else {
             throw new StoredQueryNotFoundException("Query not found");
         }
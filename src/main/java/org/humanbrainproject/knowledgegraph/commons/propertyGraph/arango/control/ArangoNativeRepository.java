@@ -44,6 +44,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Component
@@ -126,13 +127,81 @@ public class ArangoNativeRepository {
      * @return the NexusInstanceReference of the original element (e.g. if we're requesting it with a reference of an instance extension, it will return the reference to the extended instance)
      */
     public NexusInstanceReference findOriginalId(NexusInstanceReference reference) {
-        Map byKey = null;
+        ArangoConnection connection = databaseFactory.getDefaultDB(true);
+        return resolveOriginalId(reference, document -> arangoRepository.getDocumentByKey(document, Map.class, connection));
+    }
+
+    /**
+     * Resolves the original ids of multiple references at once (see {@link #findOriginalId(NexusInstanceReference)}). Instead of looking up every reference in every sub space
+     * one by one, the documents are fetched with (at most) two queries: one for the references in all sub spaces and one for the original instances they point to.
+     *
+     * @return the original ids by the requested references
+     */
+    public Map<NexusInstanceReference, NexusInstanceReference> findOriginalIds(Collection<NexusInstanceReference> references) {
+        ArangoConnection connection = databaseFactory.getDefaultDB(true);
+        Set<ArangoCollectionReference> existingCollections = connection.getCollections();
+        Set<String> ids = new LinkedHashSet<>();
+        for (NexusInstanceReference reference : references) {
+            for (SubSpace subSpace : SubSpace.values()) {
+                ids.add(ArangoDocumentReference.fromNexusInstance(reference.toSubSpace(subSpace)).getId());
+            }
+        }
+        Map<String, Map> documentsById = getDocumentsById(connection, ids, existingCollections);
+        Set<String> originalIds = new LinkedHashSet<>();
+        for (NexusInstanceReference reference : references) {
+            Map byKey = findInAnySubSpace(reference, document -> documentsById.get(document.getId()));
+            NexusInstanceReference originalReference = byKey != null ? getOriginalReference(byKey) : null;
+            if (originalReference != null && !documentsById.containsKey(ArangoDocumentReference.fromNexusInstance(originalReference).getId())) {
+                originalIds.add(ArangoDocumentReference.fromNexusInstance(originalReference).getId());
+            }
+        }
+        documentsById.putAll(getDocumentsById(connection, originalIds, existingCollections));
+        Map<NexusInstanceReference, NexusInstanceReference> result = new LinkedHashMap<>();
+        for (NexusInstanceReference reference : references) {
+            result.put(reference, resolveOriginalId(reference, document -> documentsById.get(document.getId())));
+        }
+        return result;
+    }
+
+    private Map<String, Map> getDocumentsById(ArangoConnection connection, Set<String> ids, Set<ArangoCollectionReference> existingCollections) {
+        //Documents of non-existing collections can't be found - we therefore don't even ask for them.
+        List<String> idsInExistingCollections = ids.stream().filter(id -> existingCollections.contains(ArangoDocumentReference.fromId(id).getCollection())).collect(Collectors.toList());
+        Map<String, Map> documentsById = new HashMap<>();
+        if (!idsInExistingCollections.isEmpty()) {
+            List<Map> documents = connection.getOrCreateDB().query(queryFactory.queryDocumentsByIds(), Collections.<String, Object>singletonMap("ids", idsInExistingCollections), new AqlQueryOptions(), Map.class).asListRemaining();
+            for (Map document : documents) {
+                documentsById.put((String) document.get(ArangoVocabulary.ID), document);
+            }
+        }
+        return documentsById;
+    }
+
+    private Map findInAnySubSpace(NexusInstanceReference reference, Function<ArangoDocumentReference, Map> documentLookup) {
         for (SubSpace subSpace : SubSpace.values()) {
-            if (byKey == null) {
-                ArangoDocumentReference arangoDocumentReferenceInSubSpace = ArangoDocumentReference.fromNexusInstance(reference.toSubSpace(subSpace));
-                byKey = arangoRepository.getDocumentByKey(arangoDocumentReferenceInSubSpace, Map.class, databaseFactory.getDefaultDB(true));
+            Map byKey = documentLookup.apply(ArangoDocumentReference.fromNexusInstance(reference.toSubSpace(subSpace)));
+            if (byKey != null) {
+                return byKey;
             }
         }
+        return null;
+    }
+
+    private NexusInstanceReference getOriginalReference(Map byKey) {
+        Object originalParent = byKey.get(HBPVocabulary.INFERENCE_EXTENDS);
+        if (originalParent == null) {
+            originalParent = byKey.get(HBPVocabulary.INFERENCE_OF);
+        }
+        if (originalParent instanceof Map) {
+            String id = (String) ((Map) originalParent).get(JsonLdConsts.ID);
+            return NexusInstanceReference.createFromUrl(id);
+        } else if (byKey.get(JsonLdConsts.ID) != null) {
+            return NexusInstanceReference.createFromUrl((String) byKey.get(JsonLdConsts.ID));
+        }
+        return null;
+    }
+
+    private NexusInstanceReference resolveOriginalId(NexusInstanceReference reference, Function<ArangoDocumentReference, Map> documentLookup) {
+        Map byKey = findInAnySubSpace(reference, documentLookup);
         NexusInstanceReference result = reference.clone();
         if (byKey != null) {
             Object rev = byKey.get(ArangoVocabulary.NEXUS_REV);
@@ -142,19 +211,9 @@ public class ArangoNativeRepository {
                     result.setRevision(revision);
                 }
             }
-            Object originalParent = byKey.get(HBPVocabulary.INFERENCE_EXTENDS);
-            if (originalParent == null) {
-                originalParent = byKey.get(HBPVocabulary.INFERENCE_OF);
-            }
-            NexusInstanceReference originalReference = null;
-            if (originalParent instanceof Map) {
-                String id = (String) ((Map) originalParent).get(JsonLdConsts.ID);
-                originalReference = NexusInstanceReference.createFromUrl(id);
-            } else if (byKey.get(JsonLdConsts.ID) != null) {
-                originalReference = NexusInstanceReference.createFromUrl((String) byKey.get(JsonLdConsts.ID));
-            }
+            NexusInstanceReference originalReference = getOriginalReference(byKey);
             if (originalReference != null && !reference.isSameInstanceRegardlessOfRevision(originalReference)) {
-                Map originalObject = arangoRepository.getDocumentByKey(ArangoDocumentReference.fromNexusInstance(originalReference), Map.class, databaseFactory.getDefaultDB(true));
+                Map originalObject = documentLookup.apply(ArangoDocumentReference.fromNexusInstance(originalReference));
                 if (originalObject != null) {
                     Object originalRev = originalObject.get(ArangoVocabulary.NEXUS_REV);
                     if (originalRev != null) {
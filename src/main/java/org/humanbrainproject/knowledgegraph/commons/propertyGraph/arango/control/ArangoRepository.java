@@ -32,6 +32,7 @@ import org.apache.solr.client.solrj.SolrServerException;
 import org.humanbrainproject.knowledgegraph.annotations.ToBeTested;
 import org.humanbrainproject.knowledgegraph.commons.authorization.control.AuthorizationContext;
 import org.humanbrainproject.knowledgegraph.commons.propertyGraph.AuthorizedAccess;
+import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.aql.AQL;
 import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.query.ArangoQueryFactory;
 import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.entity.ArangoCollectionReference;
 import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.entity.ArangoDocumentReference;
@@ -116,7 +117,7 @@ public class ArangoRepository {
 
     public QueryResult<List<Map>> getInstances(ArangoCollectionReference collection, Integer from, Integer size, String searchTerm, ArangoConnection arangoConnection) {
         QueryResult<List<Map>> result = new QueryResult<>();
-        String query = queryFactory.getInstanceList(collection, from, size, searchTerm, authorizationContext.getReadableOrganizations(), false);
+        AQL query = queryFactory.getInstanceList(collection, from, size, searchTerm, authorizationContext.getReadableOrganizations(), false);
         AqlQueryOptions options = new AqlQueryOptions();
         if (size != null) {
             options.fullCount(true);
@@ -124,7 +125,8 @@ public class ArangoRepository {
             options.count(true);
         }
         try {
-            ArangoCursor<Map> cursor = arangoConnection.getOrCreateDB().query(query, null, options, Map.class);
+            ArangoDatabase db = arangoConnection.getOrCreateDB();
+            ArangoCursor<Map> cursor = db.query(query.build().getValue(), query.getBindParameters(), options, Map.class);
             Long count;
             if (size != null) {
                 count = cursor.getStats().getFullCount();
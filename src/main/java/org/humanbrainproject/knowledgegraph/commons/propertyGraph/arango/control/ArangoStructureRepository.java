@@ -23,6 +23,7 @@
 
 package org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control;
 
+import com.arangodb.ArangoCollection;
 import com.arangodb.ArangoCursor;
 import com.arangodb.ArangoDatabase;
 import com.arangodb.model.AqlQueryOptions;
@@ -34,11 +35,14 @@ import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.entity.
 import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.entity.ArangoDocumentReference;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 @Component
 @ToBeTested(systemTestRequired = true)
@@ -54,9 +58,18 @@ public class ArangoStructureRepository {
     @Autowired
     AuthorizationContext authorizationContext;
 
+    @Autowired
+    ArangoAttributeStatistics attributeStatistics;
+
 
     public List<Map> getAttributesWithCount(ArangoCollectionReference reference) {
-        ArangoDatabase db = databaseFactory.getInferredDB(true).getOrCreateDB();
+        ArangoConnection inferredDB = databaseFactory.getInferredDB(true);
+        List<Map> statistics = attributeStatistics.getAttributesWithCount(inferredDB, reference);
+        if (statistics != null) {
+            return statistics;
+        }
+        //There are no statistics for this collection yet - we need to scan it.
+        ArangoDatabase db = inferredDB.getOrCreateDB();
         if (db.collection(reference.getName()).exists()) {
             String q = queryFactory.getAttributesWithCount(reference);
             ArangoCursor<Map> result = db.query(q, null, new AqlQueryOptions(), Map.class);
@@ -66,6 +79,24 @@ public class ArangoStructureRepository {
         }
     }
 
+    /**
+     * @return the current revision of the collection (changes with every modification of the collection) or null if the collection doesn't exist.
+     */
+    public String getCollectionRevision(ArangoCollectionReference reference) {
+        ArangoCollection collection = databaseFactory.getInferredDB(true).getOrCreateDB().collection(reference.getName());
+        return collection.exists() ? collection.getRevision().getRevision() : null;
+    }
+
+    /**
+     * @return a fingerprint of the revisions of all edge collections - it changes as soon as any relation is modified.
+     */
+    public String getEdgesCollectionsRevision() {
+        ArangoConnection inferredDB = databaseFactory.getInferredDB(true);
+        ArangoDatabase db = inferredDB.getOrCreateDB();
+        String revisions = inferredDB.getEdgesCollectionNames().stream().map(ArangoCollectionReference::getName).sorted().map(name -> name + ":" + db.collection(name).getRevision().getRevision()).collect(Collectors.joining(","));
+        return DigestUtils.md5DigestAsHex(revisions.getBytes(StandardCharsets.UTF_8));
+    }
+
     public List<Map> getInboundRelationsForDocument(ArangoDocumentReference documentReference) {
         ArangoConnection inferredDB = databaseFactory.getInferredDB(false);
         Set<ArangoCollectionReference> edgesCollectionNames = inferredDB.getEdgesCollectionNames();
@@ -78,6 +109,11 @@ public class ArangoStructureRepository {
         ArangoConnection inferredDB = databaseFactory.getInferredDB(true);
         if(inferredDB.getOrCreateDB().collection(collectionReference.getName()).exists()) {
             Set<ArangoCollectionReference> edgesCollectionNames = inferredDB.getEdgesCollectionNames();
+            List<Map> statistics = attributeStatistics.getDirectRelationsWithType(inferredDB, collectionReference, edgesCollectionNames, outbound);
+            if (statistics != null) {
+                return statistics;
+            }
+            //Not all edge collections have relation statistics yet - we need to scan them.
             String q = queryFactory.queryDirectRelationsWithType(collectionReference, edgesCollectionNames, outbound);
             ArangoCursor<Map> result = inferredDB.getOrCreateDB().query(q, null, new AqlQueryOptions(), Map.class);
             return result.asListRemaining();
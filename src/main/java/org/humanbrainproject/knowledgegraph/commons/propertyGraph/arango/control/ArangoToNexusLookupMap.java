@@ -23,57 +23,136 @@
 
 package org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control;
 
-import org.humanbrainproject.knowledgegraph.annotations.ToBeTested;
+import org.humanbrainproject.knowledgegraph.annotations.Tested;
 import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.entity.ArangoCollectionReference;
+import org.humanbrainproject.knowledgegraph.commons.propertyGraph.entity.SubSpace;
 import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusSchemaReference;
 import org.humanbrainproject.knowledgegraph.structure.boundary.StructureFromNexus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
 
+/**
+ * Translates arango collection names back to their nexus schemas. Unknown collections trigger a refresh of the schemas
+ * from nexus - concurrent misses share a single refresh and collections which are still unknown afterwards are remembered
+ * for a short time, so they don't cause a refresh on every request.
+ */
 @Component
-@ToBeTested
+@Tested
 public class ArangoToNexusLookupMap {
 
     @Autowired
     StructureFromNexus structureFromNexus;
 
+    @Value("${org.humanbrainproject.knowledgegraph.arango.lookup.negativeTtlInSeconds:60}")
+    long negativeTimeToLiveInSeconds = 60;
+
+    LongSupplier clock = System::currentTimeMillis;
+
     protected Logger logger = LoggerFactory.getLogger(ArangoToNexusLookupMap.class);
 
-    private static final Map<String, NexusSchemaReference> schemaReferenceMap = Collections.synchronizedMap(new HashMap<>());
-    private static boolean initialFetch = false;
+    private static volatile Map<String, NexusSchemaReference> schemaReferenceMap = new ConcurrentHashMap<>();
+    private static volatile boolean initialFetch = false;
+
+    /**
+     * The collection names which were not found by the last refresh and the time at which they can be looked up again
+     */
+    private final Map<String, Long> unknownCollections = new ConcurrentHashMap<>();
+
+    private final AtomicReference<CompletableFuture<Void>> runningRefresh = new AtomicReference<>();
 
 
     public static void addToSchemaReferenceMap(ArangoCollectionReference arangoName, NexusSchemaReference schemaReference){
-        if(!schemaReferenceMap.containsKey(arangoName.getName())) {
-            schemaReferenceMap.put(arangoName.getName(), schemaReference);
+        if(schemaReference!=null) {
+            schemaReferenceMap.putIfAbsent(arangoName.getName(), schemaReference);
         }
     }
 
-    public synchronized NexusSchemaReference getNexusSchema(ArangoCollectionReference arangoCollectionReference){
-        NexusSchemaReference schemaReference = schemaReferenceMap.get(arangoCollectionReference.getName());
+    public NexusSchemaReference getNexusSchema(ArangoCollectionReference arangoCollectionReference){
+        String name = arangoCollectionReference.getName();
+        NexusSchemaReference schemaReference = schemaReferenceMap.get(name);
         if(schemaReference==null){
+            Long unknownUntil = unknownCollections.get(name);
+            if(unknownUntil!=null && unknownUntil > clock.getAsLong()){
+                return null;
+            }
             //Refetch schemas from nexus and translate them
             refetch();
-            schemaReference = schemaReferenceMap.get(arangoCollectionReference.getName());
+            schemaReference = schemaReferenceMap.get(name);
+            if(schemaReference==null){
+                unknownCollections.put(name, clock.getAsLong() + negativeTimeToLiveInSeconds * 1000);
+            }
         }
         return schemaReference;
     }
 
+    /**
+     * Fetches the schemas from nexus - if there is already a fetch in progress, the caller waits for its result instead of starting another one.
+     */
     private void refetch(){
-        initialFetch = true;
-        logger.info("Start fetching schemas - cache population in process");
-        structureFromNexus.getAllSchemasInMainSpace().forEach(ArangoCollectionReference::fromNexusSchemaReference);
-        logger.info("Done fetching schemas - the cache is populated");
+        CompletableFuture<Void> refresh = new CompletableFuture<>();
+        while(!runningRefresh.compareAndSet(null, refresh)){
+            CompletableFuture<Void> running = runningRefresh.get();
+            if(running!=null){
+                try {
+                    running.join();
+                    return;
+                }
+                catch (CompletionException e){
+                    if(e.getCause() instanceof RuntimeException){
+                        throw (RuntimeException)e.getCause();
+                    }
+                    throw e;
+                }
+            }
+        }
+        try {
+            logger.info("Start fetching schemas - cache population in process");
+            Map<String, NexusSchemaReference> refreshedMap = new ConcurrentHashMap<>();
+            for (NexusSchemaReference schemaReference : structureFromNexus.getAllSchemasInMainSpace()) {
+                //The collections of the sub spaces (e.g. of the editor) are registered as well - they belong to the same schema
+                for (SubSpace subSpace : SubSpace.values()) {
+                    NexusSchemaReference subSpaceReference = schemaReference.toSubSpace(subSpace);
+                    refreshedMap.put(ArangoCollectionReference.fromNexusSchemaReference(subSpaceReference).getName(), subSpaceReference);
+                }
+            }
+            //The map is replaced as a whole so schemas which don't exist in nexus anymore are removed from the lookup as well
+            schemaReferenceMap = refreshedMap;
+            initialFetch = true;
+            unknownCollections.keySet().removeIf(schemaReferenceMap::containsKey);
+            logger.info("Done fetching schemas - the cache is populated");
+            refresh.complete(null);
+        }
+        catch (RuntimeException e){
+            refresh.completeExceptionally(e);
+            throw e;
+        }
+        finally {
+            runningRefresh.set(null);
+        }
     }
 
+    @Scheduled(fixedDelayString = "${org.humanbrainproject.knowledgegraph.arango.lookup.refreshIntervalInMs:3600000}", initialDelayString = "${org.humanbrainproject.knowledgegraph.arango.lookup.refreshIntervalInMs:3600000}")
+    public void refreshInBackground(){
+        try {
+            refetch();
+        }
+        catch (RuntimeException e){
+            logger.error("Was not able to refresh the schemas in the background", e);
+        }
+    }
 
-    public synchronized Map<String, NexusSchemaReference> getLookupTable(boolean refetch){
+    public Map<String, NexusSchemaReference> getLookupTable(boolean refetch){
         if(!initialFetch || schemaReferenceMap.isEmpty() || refetch){
             refetch();
         }
@@ -23,14 +23,12 @@
 
 package org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control;
 
-import com.arangodb.ArangoCollection;
 import com.arangodb.ArangoCursor;
 import com.arangodb.ArangoDBException;
 import com.arangodb.ArangoDatabase;
 import com.arangodb.entity.CollectionEntity;
 import com.arangodb.entity.CollectionType;
 import com.arangodb.model.AqlQueryOptions;
-import com.arangodb.model.CollectionCreateOptions;
 import org.humanbrainproject.knowledgegraph.annotations.ToBeTested;
 import org.humanbrainproject.knowledgegraph.commons.authorization.control.AuthorizationContext;
 import org.humanbrainproject.knowledgegraph.commons.authorization.control.AuthorizationController;
@@ -55,8 +53,23 @@ import org.springframework.stereotype.Component;
 
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Executes the {@link TodoList}s against ArangoDB. The writes of a todo list are committed atomically per database by an {@link ArangoWriteBatch}.
+ * <p>
+ * Constraints of this implementation:
+ * <ul>
+ * <li>The batch is applied as a server-side JavaScript transaction since the ArangoDB java driver in use (4.6) doesn't support stream transactions. The outgoing relations which have to be removed are therefore read before the transaction starts.</li>
+ * <li>To prevent a concurrent execution for the same instance from changing these relations in the meantime, the executions are serialized per instance by (striped) locks. These locks only exist within this JVM
+ * - it is assumed that all writes to an instance are executed by a single node (the indexing queue processes all messages of an instance with the same worker). Multiple nodes writing the same instances concurrently are not protected from each other.</li>
+ * </ul>
+ */
 @Component
 @ToBeTested(integrationTestRequired = true, systemTestRequired = true)
 public class ArangoTransaction implements DatabaseTransaction {
@@ -80,19 +93,65 @@ public class ArangoTransaction implements DatabaseTransaction {
     boolean updatePrimaryStore;
 
 
+    private static final int NUMBER_OF_INSTANCE_LOCKS = 256;
+
     protected Logger logger = LoggerFactory.getLogger(ArangoTransaction.class);
 
+    /**
+     * The writes of concurrent executions touching the same instance are serialized - striped to keep the number of locks bounded. Only effective within this JVM (see the class documentation).
+     */
+    private final ReentrantLock[] instanceLocks = createInstanceLocks();
+
+    private static ReentrantLock[] createInstanceLocks() {
+        ReentrantLock[] locks = new ReentrantLock[NUMBER_OF_INSTANCE_LOCKS];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+
+    private List<ReentrantLock> getInstanceLocks(TodoList todoList) {
+        //The locks are always acquired in the same order to prevent dead locks
+        SortedSet<Integer> stripes = new TreeSet<>();
+        for (DeleteTodoItem deleteItem : todoList.getDeleteTodoItems()) {
+            stripes.add(getStripe(deleteItem.getReference()));
+        }
+        for (InsertTodoItem insertItem : todoList.getInsertTodoItems()) {
+            stripes.add(getStripe(insertItem.getVertex().getInstanceReference()));
+        }
+        return stripes.stream().map(stripe -> instanceLocks[stripe]).collect(Collectors.toList());
+    }
+
+    private int getStripe(NexusInstanceReference reference) {
+        return Math.floorMod(reference.getFullId(false).hashCode(), NUMBER_OF_INSTANCE_LOCKS);
+    }
+
     @Override
     public void execute(TodoList todoList) {
+        List<ReentrantLock> locks = getInstanceLocks(todoList);
+        locks.forEach(ReentrantLock::lock);
+        try {
+            write(todoList);
+        } finally {
+            for (int i = locks.size() - 1; i >= 0; i--) {
+                locks.get(i).unlock();
+            }
+        }
+    }
+
+    private void write(TodoList todoList) {
+        //The write operations are collected per database and committed atomically at the end
+        Map<ArangoConnection, ArangoWriteBatch> batches = new LinkedHashMap<>();
+
         //First remove instances
         List<DeleteTodoItem> deleteItems = todoList.getDeleteTodoItems();
         for (DeleteTodoItem deleteItem : deleteItems) {
             ArangoConnection databaseConnection = deleteItem.getDatabaseConnection(ArangoConnection.class);
             if(databaseConnection!=null) {
-                ArangoDatabase database = databaseConnection.getOrCreateDB();
+                ArangoWriteBatch batch = batches.computeIfAbsent(databaseConnection, c -> new ArangoWriteBatch(c.getOrCreateDB()));
                 ArangoDocumentReference reference = ArangoDocumentReference.fromNexusInstance(deleteItem.getReference());
-                deleteOutgoingRelations(reference, databaseConnection);
-                deleteDocument(reference, database);
+                deleteOutgoingRelations(reference, batch);
+                batch.delete(reference);
             }
         }
 
@@ -101,45 +160,45 @@ public class ArangoTransaction implements DatabaseTransaction {
         for (InsertTodoItem insertItem : insertItems) {
             ArangoConnection databaseConnection = insertItem.getDatabaseConnection(ArangoConnection.class);
             if(databaseConnection!=null) {
-                ArangoDatabase database = databaseConnection.getOrCreateDB();
+                ArangoWriteBatch batch = batches.computeIfAbsent(databaseConnection, c -> new ArangoWriteBatch(c.getOrCreateDB()));
                 Vertex vertex = insertItem.getVertex();
                 ArangoDocumentReference reference = ArangoDocumentReference.fromNexusInstance(vertex.getInstanceReference());
                 LinkingInstance linkingInstance = new LinkingInstance(vertex.getQualifiedIndexingMessage());
                 if(linkingInstance.isInstance()) {
                     ArangoDocumentReference documentReference = ArangoDocumentReference.fromNexusInstance(vertex.getInstanceReference());
-                    deleteDocument(documentReference, database);
+                    batch.delete(documentReference);
                     if(linkingInstance.getFrom()!=null && linkingInstance.getTo()!=null) {
                         String jsonFromLinkingInstance = arangoDocumentConverter.createJsonFromLinkingInstance(documentReference, linkingInstance.getFrom(), linkingInstance.getTo(), vertex.getInstanceReference(), vertex);
-                        insertDocument(documentReference, jsonFromLinkingInstance, CollectionType.EDGES, database);
+                        batch.insert(documentReference, jsonFromLinkingInstance, CollectionType.EDGES);
                     }
                 }
                 else {
-                    ArangoCollection targetCollection = databaseConnection.getOrCreateDB().collection(reference.getCollection().getName());
-                    if(targetCollection.exists() && targetCollection.getInfo().getType() == CollectionType.EDGES){
+                    if(batch.getCollectionType(reference.getCollection()) == CollectionType.EDGES){
                         logger.error(String.format("Tried to insert a document into an edge collection (%s). This has to be an invalid payload (maybe the document was not properly defined to be a linking instance)", reference.getCollection().getName()));
                         break;
                     }
                     //Remove already existing instances
-                    deleteOutgoingRelations(reference, databaseConnection);
-                    deleteDocument(reference, database);
+                    deleteOutgoingRelations(reference, batch);
+                    batch.delete(reference);
 
                     String vertexJson = arangoDocumentConverter.createJsonFromVertex(reference, vertex, insertItem.getBlacklist());
                     if (vertexJson != null) {
-                        insertDocument(reference, vertexJson, CollectionType.DOCUMENT, database);
+                        batch.insert(reference, vertexJson, CollectionType.DOCUMENT);
                     }
                     for (Edge edge : vertex.getEdges()) {
                         ArangoDocumentReference document = ArangoDocumentReference.fromEdge(edge);
                         String jsonFromEdge = arangoDocumentConverter.createJsonFromEdge(document, vertex, edge, insertItem.getBlacklist());
-                        insertDocument(document, jsonFromEdge, CollectionType.EDGES, database);
-                        ArangoCollectionReference collection = ArangoCollectionReference.fromNexusSchemaReference(edge.getReference().getNexusSchema());
-                        if (!database.collection(collection.getName()).exists()) {
-                            database.createCollection(collection.getName(), new CollectionCreateOptions().type(CollectionType.DOCUMENT));
-                        }
+                        batch.insert(document, jsonFromEdge, CollectionType.EDGES);
+                        batch.ensureCollection(ArangoCollectionReference.fromNexusSchemaReference(edge.getReference().getNexusSchema()), CollectionType.DOCUMENT);
                     }
                 }
             }
         }
 
+        for (ArangoWriteBatch batch : batches.values()) {
+            batch.apply();
+        }
+
         if(updatePrimaryStore) {
             //and finally trigger primary store insertions/updates.
             List<InsertOrUpdateInPrimaryStoreTodoItem> insertOrUpdateInPrimaryStoreItems = todoList.getInsertOrUpdateInPrimaryStoreTodoItems();
@@ -151,73 +210,22 @@ public class ArangoTransaction implements DatabaseTransaction {
         }
     }
 
-
-    private void insertDocument(ArangoDocumentReference document, String documentPayload, CollectionType
-            collectionType, ArangoDatabase db) {
-        if (document != null && documentPayload != null) {
-            ArangoCollection collection = db.collection(document.getCollection().getName());
-            if (!collection.exists()) {
-                db.createCollection(document.getCollection().getName(), new CollectionCreateOptions().type(collectionType));
-                logger.info("Created collection {} in database {}", document.getCollection().getName(), db.name());
-                collection = db.collection(document.getCollection().getName());
-            }
-            if (collection.documentExists(document.getKey())) {
-                updateDocument(document, documentPayload, collectionType, db);
-            } else {
-                try {
-                    collection.insertDocument(documentPayload);
-                    logger.info("Inserted document: {} in database {}", document.getId(), db.name());
-                    logger.debug("Payload of document {} in database {}: {}", document.getId(), db.name(), documentPayload);
-                } catch (ArangoDBException dbexception) {
-                    logger.error(String.format("Was not able to insert document: %s in database %s", document.getId(), db.name()), dbexception);
-                    throw dbexception;
-                }
-            }
-        }
-    }
-
-
-
-    private void updateDocument(ArangoDocumentReference document, String documentPayload, CollectionType
-            collectionType, ArangoDatabase db) {
-        if (document != null && documentPayload != null) {
-            ArangoCollection collection = db.collection(document.getCollection().getName());
-            if (!collection.exists() || !collection.documentExists(document.getKey())) {
-                insertDocument(document, documentPayload, collectionType, db);
-            } else {
-                try {
-                    collection.updateDocument(document.getKey(), documentPayload);
-                    logger.info("Updated document: {} in database {}", document.getId(), db.name());
-                    logger.debug("Payload of document {} in database {}: {}", document.getId(), db.name(), documentPayload);
-                } catch (ArangoDBException dbexception) {
-                    logger.error(String.format("Was not able to update document: %s in database %s", document.getId(), db.name()), dbexception);
-                    throw dbexception;
-                }
-            }
-        }
-    }
-
-    private void deleteOutgoingRelations(ArangoDocumentReference document, ArangoConnection connection) {
+    private void deleteOutgoingRelations(ArangoDocumentReference document, ArangoWriteBatch batch) {
         if (document != null) {
-            ArangoDatabase db = connection.getOrCreateDB();
-            ArangoCollection collection = db.collection(document.getCollection().getName());
-            if (collection.exists() && collection.getInfo().getType()==CollectionType.DOCUMENT) {
-                if (collection.documentExists(document.getKey())) {
-                    try {
-                        Set<ArangoCollectionReference> edgesCollectionNames = connection.getEdgesCollectionNames();
-                        if(!edgesCollectionNames.isEmpty()) {
-                            String query = queryFactory.queryOutboundRelationsForDocument(document, edgesCollectionNames, authorizationContext.getReadableOrganizations(), true);
-                            ArangoCursor<String> result = db.query(query, null, new AqlQueryOptions(), String.class);
-                            for (String id : result.asListRemaining()) {
-                                deleteDocument(ArangoDocumentReference.fromId(id), db);
-                            }
+            if (batch.getCollectionType(document.getCollection()) == CollectionType.DOCUMENT) {
+                ArangoDatabase db = batch.getDatabase();
+                try {
+                    Set<ArangoCollectionReference> edgesCollectionNames = batch.getExistingEdgesCollections();
+                    if(!edgesCollectionNames.isEmpty()) {
+                        String query = queryFactory.queryOutboundRelationsForDocument(document, edgesCollectionNames, authorizationContext.getReadableOrganizations(), true);
+                        ArangoCursor<String> result = db.query(query, null, new AqlQueryOptions(), String.class);
+                        for (String id : result.asListRemaining()) {
+                            batch.delete(ArangoDocumentReference.fromId(id));
                         }
-                    } catch (ArangoDBException dbexception) {
-                        logger.error(String.format("Was not able to delete the outgoing relation: %s in database %s", document.getId(), db.name()), dbexception);
-                        throw dbexception;
                     }
-                } else {
-                    logger.debug("Was not able to delete {} because the document does not exist. Skip.", document.getId());
+                } catch (ArangoDBException dbexception) {
+                    logger.error(String.format("Was not able to delete the outgoing relation: %s in database %s", document.getId(), db.name()), dbexception);
+                    throw dbexception;
                 }
             } else {
                 logger.debug("Tried to delete {} although the collection doesn't exist. Skip.", document.getId());
@@ -227,30 +235,6 @@ public class ArangoTransaction implements DatabaseTransaction {
         }
     }
 
-
-    private void deleteDocument(ArangoDocumentReference document, ArangoDatabase db) {
-        if (document != null) {
-            ArangoCollection collection = db.collection(document.getCollection().getName());
-            if (collection.exists()) {
-                if (collection.documentExists(document.getKey())) {
-                    try {
-                        collection.deleteDocument(document.getKey());
-                        logger.info("Deleted document: {} from database {}", document.getId(), db.name());
-                    } catch (ArangoDBException dbexception) {
-                        logger.error(String.format("Was not able to delete document: %s in database %s", document.getId(), db.name()), dbexception);
-                        throw dbexception;
-                    }
-                } else {
-                    logger.debug("Was not able to delete {} because the document does not exist. Skip.", document.getId());
-                }
-            } else {
-                logger.debug("Tried to delete {} although the collection doesn't exist. Skip.", document.getId());
-            }
-        } else {
-            logger.error("Was not able to delete document due to missing id");
-        }
-    }
-
     public void clearDatabase(ArangoDatabase db) {
         for (CollectionEntity collectionEntity : db.getCollections()) {
             if (!collectionEntity.getName().startsWith("_")) {
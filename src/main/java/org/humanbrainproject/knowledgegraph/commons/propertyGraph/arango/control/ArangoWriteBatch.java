@@ -0,0 +1,210 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control;
+
+import com.arangodb.ArangoDBException;
+import com.arangodb.ArangoDatabase;
+import com.arangodb.entity.CollectionEntity;
+import com.arangodb.entity.CollectionType;
+import com.arangodb.model.CollectionCreateOptions;
+import com.arangodb.model.TransactionOptions;
+import org.humanbrainproject.knowledgegraph.annotations.Tested;
+import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.entity.ArangoCollectionReference;
+import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.entity.ArangoDocumentReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Collects the write operations of a {@link org.humanbrainproject.knowledgegraph.indexing.entity.todo.TodoList} for a single database and applies them atomically in a single round trip.
+ * The collection metadata is read once when the batch is created - the batch is therefore meant to be used for a single execution only.
+ */
+@Tested
+class ArangoWriteBatch {
+
+    /**
+     * Removes the documents (if they exist) and inserts the new ones (which are passed as JSON strings) - since ArangoDB executes the whole function as a transaction, a failure rolls back all changes.
+     * The function returns the changes of the attribute statistics (and of the relation counts of edge collections) per collection which are applied by {@link ArangoAttributeStatistics#applyChanges(ArangoDatabase, Map, List)} after the commit
+     * - the shared statistics documents are intentionally not touched by this transaction, so concurrent batches writing to the same collection don't conflict on them.
+     */
+    static final String TRANSACTION = "function (params) { " +
+            "var db = require('@arangodb').db; " +
+            "var changes = {}; " +
+            "var count = function (collection, document, delta) { " +
+            "var change = changes[collection] || (changes[collection] = { count: 0, attributes: {} }); change.count += delta; " +
+            "Object.keys(document).forEach(function (attribute) { if (attribute.charAt(0) !== '_') { change.attributes[attribute] = (change.attributes[attribute] || 0) + delta; } }); " +
+            "if (document._from && document._to && typeof document._name === 'string') { " +
+            "var relations = change.relations || (change.relations = {}); var bySource = relations[document._name] || (relations[document._name] = {}); " +
+            "var source = document._from.split('/')[0]; var target = document._to.split('/')[0]; var byTarget = bySource[source] || (bySource[source] = {}); " +
+            "byTarget[target] = (byTarget[target] || 0) + delta; } }; " +
+            "params.deletions.forEach(function (deletion) { var collection = db._collection(deletion.collection); deletion.keys.forEach(function (key) { if (collection.exists(key)) { count(deletion.collection, collection.document(key), -1); collection.remove(key); } }); }); " +
+            "params.insertions.forEach(function (insertion) { var collection = db._collection(insertion.collection); insertion.documents.forEach(function (document) { var parsed = JSON.parse(document); collection.insert(parsed); count(insertion.collection, parsed, 1); }); }); " +
+            "return changes; " +
+            "}";
+
+    private final ArangoDatabase database;
+    private final Map<String, CollectionType> existingCollections;
+    private final Map<String, CollectionType> collectionsToCreate = new LinkedHashMap<>();
+    private final Map<String, Set<String>> deletions = new LinkedHashMap<>();
+    private final Map<String, Map<String, String>> insertions = new LinkedHashMap<>();
+
+    protected Logger logger = LoggerFactory.getLogger(ArangoWriteBatch.class);
+
+    ArangoWriteBatch(ArangoDatabase database) {
+        this.database = database;
+        this.existingCollections = database.getCollections().stream().filter(c -> !c.getIsSystem()).collect(Collectors.toMap(CollectionEntity::getName, CollectionEntity::getType, (a, b) -> a, LinkedHashMap::new));
+    }
+
+    ArangoDatabase getDatabase() {
+        return database;
+    }
+
+    /**
+     * @return the type of the collection or null if the collection doesn't exist (and is not going to be created by this batch)
+     */
+    CollectionType getCollectionType(ArangoCollectionReference collection) {
+        CollectionType type = existingCollections.get(collection.getName());
+        return type != null ? type : collectionsToCreate.get(collection.getName());
+    }
+
+    Set<ArangoCollectionReference> getExistingEdgesCollections() {
+        return existingCollections.entrySet().stream().filter(c -> c.getValue() == CollectionType.EDGES).map(c -> new ArangoCollectionReference(c.getKey())).collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    void ensureCollection(ArangoCollectionReference collection, CollectionType type) {
+        if (getCollectionType(collection) == null) {
+            collectionsToCreate.put(collection.getName(), type);
+        }
+    }
+
+    void delete(ArangoDocumentReference document) {
+        if (document == null) {
+            logger.error("Was not able to delete document due to missing id");
+            return;
+        }
+        String collection = document.getCollection().getName();
+        Map<String, String> insertionsInCollection = insertions.get(collection);
+        if (insertionsInCollection != null) {
+            insertionsInCollection.remove(document.getKey());
+        }
+        if (existingCollections.containsKey(collection)) {
+            deletions.computeIfAbsent(collection, k -> new LinkedHashSet<>()).add(document.getKey());
+        } else {
+            logger.debug("Tried to delete {} although the collection doesn't exist. Skip.", document.getId());
+        }
+    }
+
+    /**
+     * Registers the document for insertion - an already existing document with the same key is replaced.
+     */
+    void insert(ArangoDocumentReference document, String documentPayload, CollectionType collectionType) {
+        if (document != null && documentPayload != null) {
+            ensureCollection(document.getCollection(), collectionType);
+            if (existingCollections.containsKey(document.getCollection().getName())) {
+                deletions.computeIfAbsent(document.getCollection().getName(), k -> new LinkedHashSet<>()).add(document.getKey());
+            }
+            insertions.computeIfAbsent(document.getCollection().getName(), k -> new LinkedHashMap<>()).put(document.getKey(), documentPayload);
+        }
+    }
+
+    /**
+     * Applies the registered operations: Missing collections are created first, then all deletions and insertions are executed within a single server-side transaction
+     * - either all of them are visible afterwards or none of them.
+     */
+    void apply() {
+        List<String> newCollections = new ArrayList<>();
+        for (Map.Entry<String, CollectionType> collection : collectionsToCreate.entrySet()) {
+            try {
+                database.createCollection(collection.getKey(), new CollectionCreateOptions().type(collection.getValue()));
+                logger.info("Created collection {} in database {}", collection.getKey(), database.name());
+            } catch (ArangoDBException e) {
+                //The collection could have been created by a concurrent batch in the meantime
+                if (!database.collection(collection.getKey()).exists()) {
+                    throw e;
+                }
+            }
+            existingCollections.put(collection.getKey(), collection.getValue());
+            newCollections.add(collection.getKey());
+        }
+        collectionsToCreate.clear();
+        List<Map<String, Object>> deletionParameters = new ArrayList<>();
+        Set<String> writeCollections = new LinkedHashSet<>();
+        for (Map.Entry<String, Set<String>> deletion : deletions.entrySet()) {
+            if (!deletion.getValue().isEmpty()) {
+                Map<String, Object> parameter = new LinkedHashMap<>();
+                parameter.put("collection", deletion.getKey());
+                parameter.put("keys", new ArrayList<>(deletion.getValue()));
+                deletionParameters.add(parameter);
+                writeCollections.add(deletion.getKey());
+            }
+        }
+        List<Map<String, Object>> insertionParameters = new ArrayList<>();
+        for (Map.Entry<String, Map<String, String>> insertion : insertions.entrySet()) {
+            if (!insertion.getValue().isEmpty()) {
+                Map<String, Object> parameter = new LinkedHashMap<>();
+                parameter.put("collection", insertion.getKey());
+                parameter.put("documents", new ArrayList<>(insertion.getValue().values()));
+                insertionParameters.add(parameter);
+                writeCollections.add(insertion.getKey());
+            }
+        }
+        deletions.clear();
+        insertions.clear();
+        if (!writeCollections.isEmpty()) {
+            String statisticsCollection = ArangoAttributeStatistics.STATISTICS_COLLECTION.getName();
+            if (!existingCollections.containsKey(statisticsCollection)) {
+                try {
+                    database.createCollection(statisticsCollection);
+                } catch (ArangoDBException e) {
+                    //The collection could have been created by a concurrent batch in the meantime
+                    if (!database.collection(statisticsCollection).exists()) {
+                        throw e;
+                    }
+                }
+                existingCollections.put(statisticsCollection, CollectionType.DOCUMENT);
+            }
+            Map<String, Object> parameters = new LinkedHashMap<>();
+            parameters.put("deletions", deletionParameters);
+            parameters.put("insertions", insertionParameters);
+            Map changes;
+            try {
+                changes = database.transaction(TRANSACTION, Map.class, new TransactionOptions().writeCollections(writeCollections.toArray(new String[0])).params(parameters));
+                logger.info("Committed the deletions {} and the insertions into the collections {} in database {}", deletionParameters, insertionParameters.stream().map(p -> p.get("collection")).collect(Collectors.toList()), database.name());
+                logger.debug("Inserted documents in database {}: {}", database.name(), insertionParameters);
+            } catch (ArangoDBException dbexception) {
+                logger.error(String.format("Was not able to write to the collections %s in database %s - the transaction has been rolled back", writeCollections, database.name()), dbexception);
+                throw dbexception;
+            }
+            ArangoAttributeStatistics.applyChanges(database, changes, newCollections);
+        }
+    }
+
+}
@@ -43,6 +43,7 @@ public class AQL {
     public final String INVITATION_ALIAS = "invitation";
 
     final Map<String, String> parameters = new LinkedHashMap<>();
+    final Map<String, Object> bindParameters = new LinkedHashMap<>();
     private StringBuilder query = new StringBuilder();
     private int indent = 0;
 
@@ -83,6 +84,20 @@ public class AQL {
         return this;
     }
 
+    /**
+     * Registers a value which is passed to the database as a bind parameter (referenced as @key in the query) instead of being spliced into the query text.
+     * This keeps the query text stable across requests so the database can reuse its query plan.
+     */
+    public AQL setBindParameter(String key, Object value) {
+        bindParameters.put(key, value);
+        return this;
+    }
+
+    @NoTests(NoTests.TRIVIAL)
+    public Map<String, Object> getBindParameters() {
+        return bindParameters;
+    }
+
     @NoTests(NoTests.TRIVIAL)
     public AQL addLine(TrustedAqlValue queryLine) {
         if(queryLine!=null) {
@@ -27,6 +27,8 @@ import com.github.jsonldjava.core.JsonLdConsts;
 import org.humanbrainproject.knowledgegraph.annotations.ToBeTested;
 import org.humanbrainproject.knowledgegraph.commons.vocabulary.ArangoVocabulary;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Set;
 
 @ToBeTested(easy = true)
@@ -46,11 +48,25 @@ public class AuthorizedArangoQuery extends AQL {
     }
 
     public AuthorizedArangoQuery(Set<String> permissionGroupsWithReadAccess, Set<String> invitations, boolean subQuery) {
+        this(permissionGroupsWithReadAccess, invitations, subQuery, false);
+    }
+
+    /**
+     * @param bindPermissions if true, the whitelist and the invitations are passed as bind parameters (see {@link #getBindParameters()}) instead of being inlined into the query text.
+     */
+    public AuthorizedArangoQuery(Set<String> permissionGroupsWithReadAccess, Set<String> invitations, boolean subQuery, boolean bindPermissions) {
         if (!subQuery) {
-            addLine(trust("LET " + WHITELIST_ALIAS + "=[${" + WHITELIST_ALIAS + "}]"));
-            addLine(trust("LET " + INVITATION_ALIAS + "=[${" + INVITATION_ALIAS + "}]"));
-            setTrustedParameter(WHITELIST_ALIAS, listValues(permissionGroupsWithReadAccess));
-            setTrustedParameter(INVITATION_ALIAS, listValues(invitations));
+            if (bindPermissions) {
+                addLine(trust("LET " + WHITELIST_ALIAS + "=@" + WHITELIST_ALIAS));
+                addLine(trust("LET " + INVITATION_ALIAS + "=@" + INVITATION_ALIAS));
+                setBindParameter(WHITELIST_ALIAS, permissionGroupsWithReadAccess != null ? new ArrayList<>(permissionGroupsWithReadAccess) : Collections.emptyList());
+                setBindParameter(INVITATION_ALIAS, invitations != null ? new ArrayList<>(invitations) : Collections.emptyList());
+            } else {
+                addLine(trust("LET " + WHITELIST_ALIAS + "=[${" + WHITELIST_ALIAS + "}]"));
+                addLine(trust("LET " + INVITATION_ALIAS + "=[${" + INVITATION_ALIAS + "}]"));
+                setTrustedParameter(WHITELIST_ALIAS, listValues(permissionGroupsWithReadAccess));
+                setTrustedParameter(INVITATION_ALIAS, listValues(invitations));
+            }
         }
     }
 
@@ -45,11 +45,17 @@ import static org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.
 
 public class DataQueryBuilder {
 
+    /**
+     * The (technical) field of the root instances holding the sort key for keyset pagination - it is removed from the results before they are returned.
+     */
+    public static final String CURSOR_FIELD = "_cursor";
+
     private final Specification specification;
     private final Pagination pagination;
     private final AuthorizedArangoQuery q;
     private final Map<String, String> filterValues;
     private final Map<String, Object> processedFilterValues = new HashMap<>();
+    private int staticFilterCounter = 0;
 
     private final Set<ArangoCollectionReference> existingCollections;
 
@@ -71,8 +77,12 @@ public class DataQueryBuilder {
     }
 
 
+    /**
+     * Builds the AQL query for the specification. All request dependent values (permissions, invitations, filter values, search terms and pagination) are registered as bind parameters (see {@link #getProcessedFilterValues()}) - the query text therefore only depends on the specification and on the structural choices (id restriction, pagination) of the request.
+     */
     public String build(List<String> restrictToIds, String search) {
         search = search!=null ? search.toLowerCase() : null;
+        TrustedAqlValue cursor = null;
         //Define the global parameters
         ArangoAlias rootAlias = new ArangoAlias("root");
         q.setParameter("rootFieldName", rootAlias.getArangoName());
@@ -93,36 +103,41 @@ public class DataQueryBuilder {
         q.addDocumentFilterWithWhitelistFilter(rootAlias);
 
         //FIXME We want to get rid of the static search parameter - this could be done dynamically but we keep it for backwards compatibility right now.
-        if(search!=null){
-            q.addLine(trust("FILTER LOWER(${rootFieldName}_doc.`http://schema.org/name`) LIKE @searchQuery OR LOWER(${rootFieldName}_doc.`http://www.w3.org/2000/01/rdf-schema#label`) LIKE @searchQuery "));
-            getProcessedFilterValues().put("searchQuery", "%"+search+"%");
-        }
+        q.addLine(trust("FILTER @searchQuery == null OR LOWER(${rootFieldName}_doc.`http://schema.org/name`) LIKE @searchQuery OR LOWER(${rootFieldName}_doc.`http://www.w3.org/2000/01/rdf-schema#label`) LIKE @searchQuery "));
+        getProcessedFilterValues().put("searchQuery", search!=null ? "%"+search+"%" : null);
 
         if(restrictToIds!=null && !restrictToIds.isEmpty()){
             q.addLine(trust("FILTER ${rootFieldName}_doc._key IN @generalIdRestriction"));
             getProcessedFilterValues().put("generalIdRestriction", restrictToIds);
         }
         else {
-            //Define sorting
-            q.add(new SortBuilder(rootAlias, specification.getFields()).getSort());
-
-            //Pagination
+            SortBuilder sortBuilder = new SortBuilder(rootAlias, specification.getFields());
             if (this.pagination != null && this.pagination.getSize() != null) {
-                q.addLine(trust("LIMIT ${paginationStart}, ${paginationSize}"));
-                q.setParameter("paginationSize", String.valueOf(this.pagination.getSize()));
-                q.setParameter("paginationStart", String.valueOf(this.pagination.getStart()));
+                //Keyset pagination: The document key is added as the last sort criteria to guarantee a total order. The sort key of every instance is returned so the client can continue after the last one.
+                q.add(sortBuilder.getCursorFilter());
+                q.add(sortBuilder.getSortWithKey());
+                q.addLine(trust("LIMIT @paginationStart, @paginationSize"));
+                getProcessedFilterValues().put("paginationCursor", this.pagination.getCursor() != null ? this.pagination.getCursor().getSortKey() : null);
+                getProcessedFilterValues().put("paginationStart", this.pagination.getStart());
+                getProcessedFilterValues().put("paginationSize", this.pagination.getSize());
+                cursor = sortBuilder.getSortKey();
+            }
+            else {
+                //Define sorting
+                q.add(sortBuilder.getSort());
             }
         }
 
         //Define return value
-        q.add(new ReturnBuilder(rootAlias, null, specification.getFields()).getReturnStructure());
+        q.add(new ReturnBuilder(rootAlias, null, specification.getFields(), cursor).getReturnStructure());
 
+        getProcessedFilterValues().putAll(q.getBindParameters());
         return q.build().getValue();
     }
 
 
     public DataQueryBuilder(Specification specification, Set<String> permissionGroupsWithReadAccess, Set<String> invitations, Pagination pagination, Map<String, String> filterValues, Set<ArangoCollectionReference> existingCollections) {
-        this.q = new AuthorizedArangoQuery(permissionGroupsWithReadAccess, invitations);
+        this.q = new AuthorizedArangoQuery(permissionGroupsWithReadAccess, invitations, false, true);
         this.specification = specification;
         this.pagination = pagination;
         this.filterValues = new HashMap<>(filterValues);
@@ -486,11 +501,17 @@ public class DataQueryBuilder {
         private final List<SpecField> fields;
         private final ArangoAlias parentAlias;
         private final SpecField parentField;
+        private final TrustedAqlValue cursor;
 
         public ReturnBuilder(ArangoAlias parentAlias, SpecField parentField, List<SpecField> fields) {
+            this(parentAlias, parentField, fields, null);
+        }
+
+        public ReturnBuilder(ArangoAlias parentAlias, SpecField parentField, List<SpecField> fields, TrustedAqlValue cursor) {
             this.fields = fields;
             this.parentAlias = parentAlias;
             this.parentField = parentField;
+            this.cursor = cursor;
         }
 
         TrustedAqlValue getReturnStructure() {
@@ -532,11 +553,17 @@ public class DataQueryBuilder {
                     fieldResult.add(new TrustedAqlValue("\"${fieldName}\": ${fieldRepresentation}"));
                     fieldResult.setParameter("fieldName", field.fieldName);
                     fieldResult.setTrustedParameter("fieldRepresentation", getRepresentationOfField(parentAlias, field));
-                    if (field != fields.get(fields.size() - 1)) {
+                    if (field != fields.get(fields.size() - 1) || cursor != null) {
                         fieldResult.addComma();
                     }
                     aql.addLine(fieldResult.build());
                 }
+                if (cursor != null) {
+                    AQL cursorResult = new AQL();
+                    cursorResult.add(trust("\"" + CURSOR_FIELD + "\": ${cursor}"));
+                    cursorResult.setTrustedParameter("cursor", cursor);
+                    aql.addLine(cursorResult.build());
+                }
                 aql.outdent();
                 aql.addLine(trust("}"));
             }
@@ -582,6 +609,64 @@ public class DataQueryBuilder {
             return null;
         }
 
+        TrustedAqlValue getSortWithKey() {
+            AQL aql = new AQL();
+            aql.add(trust("SORT "));
+            for (SpecField sortField : fieldsWithSort()) {
+                AQL sort = new AQL();
+                sort.add(trust("${field} ASC, "));
+                sort.setTrustedParameter("field", getRepresentationOfField(parentAlias, sortField));
+                aql.add(sort.build());
+            }
+            aql.addLine(trust("${parentAliasDoc}._key ASC"));
+            aql.setParameter("parentAliasDoc", parentAlias.getArangoDocName());
+            return aql.build();
+        }
+
+        TrustedAqlValue getSortKey() {
+            AQL aql = new AQL();
+            aql.add(trust("["));
+            for (SpecField sortField : fieldsWithSort()) {
+                AQL sort = new AQL();
+                sort.add(trust("${field}, "));
+                sort.setTrustedParameter("field", getRepresentationOfField(parentAlias, sortField));
+                aql.add(sort.build());
+            }
+            aql.add(trust("${parentAliasDoc}._key]"));
+            aql.setParameter("parentAliasDoc", parentAlias.getArangoDocName());
+            return aql.build();
+        }
+
+        TrustedAqlValue getCursorFilter() {
+            List<TrustedAqlValue> criteria = new ArrayList<>();
+            for (SpecField sortField : fieldsWithSort()) {
+                criteria.add(getRepresentationOfField(parentAlias, sortField));
+            }
+            criteria.add(new AQL().add(trust("${parentAliasDoc}._key")).setParameter("parentAliasDoc", parentAlias.getArangoDocName()).build());
+            //The sort key is compared criterion by criterion (lexicographically) instead of as an array - an array comparison can't make use of the indices of the sort criteria
+            AQL filter = new AQL();
+            filter.add(trust("FILTER @paginationCursor == null"));
+            for (int i = 0; i < criteria.size(); i++) {
+                filter.add(trust(i == 0 ? " OR " : " OR ("));
+                for (int j = 0; j < i; j++) {
+                    filter.add(compareWithCursor(criteria.get(j), "==", j));
+                    filter.add(trust(" AND "));
+                }
+                filter.add(compareWithCursor(criteria.get(i), ">", i));
+                if (i > 0) {
+                    filter.add(trust(")"));
+                }
+            }
+            return new AQL().addLine(filter.build()).build();
+        }
+
+        private TrustedAqlValue compareWithCursor(TrustedAqlValue criterion, String operator, int index) {
+            AQL comparison = new AQL();
+            comparison.add(trust("${criterion} " + operator + " @paginationCursor[" + index + "]"));
+            comparison.setTrustedParameter("criterion", criterion);
+            return comparison.build();
+        }
+
 
     }
 
@@ -621,13 +706,12 @@ public class DataQueryBuilder {
         private TrustedAqlValue createInstanceFilter(FieldFilter filter){
             AQL aql = new AQL();
             if (filter != null) {
-                TrustedAqlValue fieldFilter = createFieldFilter(filter);
+                TrustedAqlValue fieldFilter = createFieldFilter(filter, preventAqlInjection(alias.getArangoDocName()));
                 if (fieldFilter != null) {
-                    aql.addLine(trust("AND ${document} ${fieldFilter}"));
+                    aql.addLine(trust("AND ${fieldFilter}"));
                     aql.setTrustedParameter("fieldFilter", fieldFilter);
                 }
             }
-            aql.setParameter("document", alias.getArangoDocName());
             return aql.build();
         }
 
@@ -640,9 +724,9 @@ public class DataQueryBuilder {
                 aql.addLine(trust("AND ${field} !=[]"));
             }
             if (field.fieldFilter != null && field.fieldFilter.getOp()!=null && !field.fieldFilter.getOp().isInstanceFilter()) {
-                TrustedAqlValue fieldFilter = createFieldFilter(field.fieldFilter);
+                TrustedAqlValue fieldFilter = createFieldFilter(field.fieldFilter, getRepresentationOfField(alias, field));
                 if (fieldFilter != null) {
-                    aql.addLine(trust("AND LOWER(${field})${fieldFilter}"));
+                    aql.addLine(trust("AND ${fieldFilter}"));
                     aql.setTrustedParameter("fieldFilter", fieldFilter);
                 }
             }
@@ -651,13 +735,16 @@ public class DataQueryBuilder {
         }
 
 
-        private TrustedAqlValue createAqlForFilter(FieldFilter fieldFilter, boolean prefixWildcard, boolean postfixWildcard) {
+        /**
+         * Registers the value of the filter as bind parameter and returns the name of the bind parameter. Dynamic filters are always registered - even if no value has been passed - to keep the query text independent of the request. Static filters without a value are skipped.
+         */
+        private String createBindParameterForFilter(FieldFilter fieldFilter, boolean prefixWildcard, boolean postfixWildcard) {
             String value = null;
-            String key = null;
+            String key;
             if (fieldFilter.getParameter() != null) {
                 key = fieldFilter.getParameter().getName();
             } else {
-                key = "staticFilter" + DataQueryBuilder.this.processedFilterValues.size();
+                key = "staticFilter" + DataQueryBuilder.this.staticFilterCounter++;
             }
             if (DataQueryBuilder.this.filterValues.containsKey(key)) {
                 Object fromMap = DataQueryBuilder.this.filterValues.get(key);
@@ -666,66 +753,64 @@ public class DataQueryBuilder {
             if (value == null && fieldFilter.getValue() != null) {
                 value = fieldFilter.getValue().getValue();
             }
-            if (value != null && key != null) {
+            if (value == null && fieldFilter.getParameter() == null) {
+                return null;
+            }
+            if (value != null) {
                 if (prefixWildcard && !value.startsWith("%")) {
                     value = "%" + value;
                 }
                 if (postfixWildcard && !value.endsWith("%")) {
                     value = value + "%";
                 }
-                DataQueryBuilder.this.processedFilterValues.put(key, value);
-                AQL aql = new AQL();
-                if(fieldFilter.getOp().isInstanceFilter()){
-                    aql.add(trust("@${field}"));
-                }
-                else {
-                    aql.add(trust("LOWER(@${field})"));
-                }
-                aql.setParameter("field", key);
-                return aql.build();
             }
-            return null;
+            DataQueryBuilder.this.processedFilterValues.put(key, value);
+            return key;
         }
 
 
-        private TrustedAqlValue createFieldFilter(FieldFilter fieldFilter) {
-            AQL aql = new AQL();
-            TrustedAqlValue value;
+        private TrustedAqlValue createFieldFilter(FieldFilter fieldFilter, TrustedAqlValue field) {
+            String key;
             switch (fieldFilter.getOp()) {
                 case REGEX:
                 case EQUALS:
                 case MBB:
-                    value = createAqlForFilter(fieldFilter, false, false);
+                    key = createBindParameterForFilter(fieldFilter, false, false);
                     break;
                 case STARTS_WITH:
-                    value = createAqlForFilter(fieldFilter, false, true);
+                    key = createBindParameterForFilter(fieldFilter, false, true);
                     break;
                 case ENDS_WITH:
-                    value = createAqlForFilter(fieldFilter, true, false);
+                    key = createBindParameterForFilter(fieldFilter, true, false);
                     break;
                 case CONTAINS:
-                    value = createAqlForFilter(fieldFilter, true, true);
+                    key = createBindParameterForFilter(fieldFilter, true, true);
                     break;
                 default:
-                    value = null;
+                    key = null;
             }
-            if (value != null) {
+            if (key != null) {
+                AQL aql = new AQL();
+                aql.add(trust("(@${key} == null OR "));
                 switch (fieldFilter.getOp()) {
                     case EQUALS:
-                        aql.add(trust(" == " + value.getValue()));
+                        aql.add(trust("LOWER(${field}) == LOWER(@${key})"));
                         break;
                     case STARTS_WITH:
                     case ENDS_WITH:
                     case CONTAINS:
-                        aql.add(trust(" LIKE " + value.getValue()));
+                        aql.add(trust("LOWER(${field}) LIKE LOWER(@${key})"));
                         break;
                     case REGEX:
-                        aql.add(trust(" =~ " + value.getValue()));
+                        aql.add(trust("LOWER(${field}) =~ LOWER(@${key})"));
                         break;
                     case MBB:
-                        aql.add(trust("._id IN " + value.getValue()+" "));
+                        aql.add(trust("${field}._id IN @${key}"));
                         break;
                 }
+                aql.add(trust(")"));
+                aql.setParameter("key", key);
+                aql.setTrustedParameter("field", field);
                 return aql.build();
             }
             return null;
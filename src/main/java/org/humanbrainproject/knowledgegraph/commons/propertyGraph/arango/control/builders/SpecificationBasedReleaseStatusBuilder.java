@@ -0,0 +1,97 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.builders;
+
+import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.aql.AQL;
+import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.aql.TrustedAqlValue;
+import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.entity.ArangoAlias;
+import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.entity.ArangoCollectionReference;
+import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.entity.ArangoDocumentReference;
+import org.humanbrainproject.knowledgegraph.query.entity.Specification;
+import org.humanbrainproject.knowledgegraph.releasing.entity.ReleaseStatus;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.aql.AQL.*;
+
+/**
+ * Traverses the same tree as the {@link SpecificationBasedReleaseTreeBuilder} but doesn't return it. Instead, every sub query only returns the highest severity of the release states in its sub tree, so the database returns the release status of the root instance and the worst release status of its children only.
+ */
+public class SpecificationBasedReleaseStatusBuilder extends SpecificationBasedReleaseTreeBuilder {
+
+    public static final String STATUS = "status";
+    public static final String CHILDREN_STATUS = "childrenStatus";
+
+    //The values are the names of the release states - they therefore can be trusted.
+    private static final String RELEASE_STATES_BY_SEVERITY = "[" + ReleaseStatus.bySeverity().stream().map(s -> "\"" + s.name() + "\"").collect(Collectors.joining(",")) + "]";
+
+    public SpecificationBasedReleaseStatusBuilder(Specification specification, Set<String> permissionGroupsWithReadAccess, ArangoDocumentReference instanceId, Set<ArangoCollectionReference> existingCollections, String nexusInstanceBase, TreeScope scope) {
+        super(specification, permissionGroupsWithReadAccess, instanceId, existingCollections, nexusInstanceBase, scope);
+    }
+
+    @Override
+    protected void createRootReturn(AQL query, List<ArangoAlias> fieldAliases) {
+        query.addLine(trust("LET ${rootDoc}_children_severity = ${childrenSeverity}"));
+        query.setTrustedParameter("childrenSeverity", getMaximalSeverity(fieldAliases));
+        query.addLine(trust("RETURN {"));
+        query.addLine(trust(" \"" + STATUS + "\": ${rootDoc}_status,"));
+        query.addLine(trust(" \"" + CHILDREN_STATUS + "\": ${rootDoc}_children_severity == null ? null : " + RELEASE_STATES_BY_SEVERITY + "[${rootDoc}_children_severity]"));
+        query.addLine(trust("}"));
+    }
+
+    @Override
+    protected AQL createNodeReturn(ArangoAlias alias, ArangoAlias linkingInstanceAlias, ArangoAlias childrenAlias, List<ArangoAlias> subFieldAliases) {
+        AQL subQuery = new AQL();
+        subQuery.addLine(trust("RETURN MAX(["));
+        if (linkingInstanceAlias != null) {
+            subQuery.addLine(trust(" ${linkingInstanceSeverity},"));
+            subQuery.setTrustedParameter("linkingInstanceSeverity", getSeverity(linkingInstanceAlias));
+        }
+        if (childrenAlias != null) {
+            subQuery.addLine(trust(" MAX(${childrenAlias}),"));
+            subQuery.setParameter("childrenAlias", childrenAlias.getArangoName());
+        } else if (subFieldAliases != null && !subFieldAliases.isEmpty()) {
+            subQuery.addLine(trust(" ${subFieldsSeverity},"));
+            subQuery.setTrustedParameter("subFieldsSeverity", getMaximalSeverity(subFieldAliases));
+        }
+        subQuery.addLine(trust(" ${severity}"));
+        subQuery.setTrustedParameter("severity", getSeverity(alias));
+        subQuery.addLine(trust("]))"));
+        return subQuery;
+    }
+
+    private TrustedAqlValue getSeverity(ArangoAlias alias) {
+        return new AQL().add(trust("POSITION(" + RELEASE_STATES_BY_SEVERITY + ", ${status}, true)")).setParameter("status", alias.getArangoDocName() + "_status").build();
+    }
+
+    private TrustedAqlValue getMaximalSeverity(List<ArangoAlias> aliases) {
+        if (aliases == null || aliases.isEmpty()) {
+            return trust("null");
+        }
+        return new AQL().add(trust("MAX(FLATTEN([${aliases}]))")).setTrustedParameter("aliases", trust(aliases.stream().map(a -> preventAqlInjection(a.getArangoName()).getValue()).collect(Collectors.joining(", ")))).build();
+    }
+
+}
@@ -37,9 +37,12 @@ import org.humanbrainproject.knowledgegraph.query.entity.SpecTraverse;
 import org.humanbrainproject.knowledgegraph.query.entity.Specification;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
+import java.util.stream.Collectors;
 
 import static org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.aql.AQL.*;
 
@@ -47,6 +50,7 @@ public class SpecificationBasedScopeBuilder {
 
     private final Specification specification;
     private final ArangoDocumentReference instanceId;
+    private final List<String> instanceIds;
     private final AuthorizedArangoQuery q;
     protected final String nexusInstanceBase;
     private TreeScope scope;
@@ -57,9 +61,21 @@ public class SpecificationBasedScopeBuilder {
     private final ArangoAlias rootAlias = new ArangoAlias("root");
 
     public SpecificationBasedScopeBuilder(Specification specification, Set<String> permissionGroupsWithReadAccess, ArangoDocumentReference instanceId, Set<ArangoCollectionReference> existingCollections, String nexusInstanceBase, TreeScope scope) {
+        this(specification, permissionGroupsWithReadAccess, instanceId, null, existingCollections, nexusInstanceBase, scope);
+    }
+
+    /**
+     * Builds the trees of several root instances (of the root schema of the specification) at once - one tree is returned per root instance. The ids of the root instances are passed as bind parameter (see {@link #getBindParameters()}).
+     */
+    public SpecificationBasedScopeBuilder(Specification specification, Set<String> permissionGroupsWithReadAccess, Collection<ArangoDocumentReference> instanceIds, Set<ArangoCollectionReference> existingCollections, String nexusInstanceBase, TreeScope scope) {
+        this(specification, permissionGroupsWithReadAccess, null, instanceIds.stream().map(ArangoDocumentReference::getId).distinct().collect(Collectors.toList()), existingCollections, nexusInstanceBase, scope);
+    }
+
+    private SpecificationBasedScopeBuilder(Specification specification, Set<String> permissionGroupsWithReadAccess, ArangoDocumentReference instanceId, List<String> instanceIds, Set<ArangoCollectionReference> existingCollections, String nexusInstanceBase, TreeScope scope) {
         this.q = new AuthorizedArangoQuery(permissionGroupsWithReadAccess);
         this.specification = specification;
         this.instanceId = instanceId;
+        this.instanceIds = instanceIds;
         this.existingCollections = existingCollections;
         this.nexusInstanceBase = nexusInstanceBase;
         if(scope == null){
@@ -72,7 +88,9 @@ public class SpecificationBasedScopeBuilder {
         q.setParameter("rootFieldName", rootAlias.getArangoName());
         q.setParameter("rootDoc", rootAlias.getArangoDocName());
         q.setParameter("collection", getRootCollection());
-        q.setParameter("instanceId", instanceId.getKey());
+        if(instanceId!=null) {
+            q.setParameter("instanceId", instanceId.getKey());
+        }
         q.addLine(trust(""));
         q.addLine(trust("//*****************************"));
         q.addLine(trust("//add root"));
@@ -80,20 +98,41 @@ public class SpecificationBasedScopeBuilder {
         q.addLine(trust(""));
         q.addLine(trust("FOR ${rootDoc} IN `${collection}`")).indent();
         q.addDocumentFilter(rootAlias);
-        q.addLine(trust("FILTER ${rootDoc}._id == \"${id}\""));
+        if(instanceIds!=null){
+            q.addLine(trust("FILTER ${rootDoc}._id IN @instanceIds"));
+            q.setBindParameter("instanceIds", instanceIds);
+        }
+        else {
+            q.addLine(trust("FILTER ${rootDoc}._id == \"${id}\""));
+        }
         queryExtraFieldsForAlias(q, rootAlias);
         List<ArangoAlias> fieldAliases = null;
         if(!scope.name().equals(TreeScope.TOP_INSTANCE_ONLY.name())){
             fieldAliases = processFields(rootAlias, specification.getFields());
         }
-        q.addLine(trust("RETURN {"));
-        createReturnObject(fieldAliases);
-        q.addLine(trust("}"));
+        createRootReturn(q, fieldAliases);
         return q.build().getValue();
     }
 
+    public Map<String, Object> getBindParameters() {
+        return q.getBindParameters();
+    }
+
+    /**
+     * Adds the RETURN statement for the root instance.
+     *
+     * @param fieldAliases the aliases of the (sub)trees of the fields of the root instance or null if they are not part of the scope.
+     */
+    protected void createRootReturn(AQL query, List<ArangoAlias> fieldAliases){
+        query.addLine(trust("RETURN {"));
+        createReturnObject(fieldAliases);
+        query.addLine(trust("}"));
+    }
+
     private void createReturnObject(List<ArangoAlias> fieldAliases){
-        q.setParameter("id", instanceId.getId());
+        if(instanceId!=null) {
+            q.setParameter("id", instanceId.getId());
+        }
         if(scope.name().equals(TreeScope.CHILDREN_ONLY.name())){
             handleReturnStructureOfSubfields(q, fieldAliases, true);
         }else{
@@ -162,31 +201,12 @@ public class SpecificationBasedScopeBuilder {
             while(!traverseStack.empty()){
                 SpecTraverse traverse = traverseStack.pop();
                 ArangoAlias alias = aliasStack.pop();
-                AQL subQuery = new AQL();
-                subQuery.addLine(trust("RETURN DISTINCT {"));
-                ArangoAlias lnkAlias;
-                if (traverse.isLinkingInstance()) {
-                    lnkAlias = aliasStack.pop();
-                    handleReturnOfExtraFields(subQuery, trust("aliasLnkDoc"), true);
-                    subQuery.addLine(trust(" \"" + JsonLdConsts.ID + "\": ${aliasLnkDoc}.`" + JsonLdConsts.ID + "`,"));
-                    subQuery.addLine(trust(" \"children\": [{"));
-                    subQuery.setParameter("aliasLnkDoc", lnkAlias.getArangoDocName());
-                }
-                if(previousAlias!=null){
-                    subQuery.addLine(trust(" \"children\":${previousAlias},"));
-                    subQuery.setParameter("previousAlias", previousAlias.getArangoName());
+                ArangoAlias lnkAlias = traverse.isLinkingInstance() ? aliasStack.pop() : null;
+                List<ArangoAlias> subFieldAliases = null;
+                if(previousAlias==null && field.hasSubFields()){
+                    subFieldAliases = processFields(alias, field.fields);
                 }
-                else if(field.hasSubFields()){
-                    List<ArangoAlias> fieldAliases = processFields(alias, field.fields);
-                    handleReturnStructureOfSubfields(subQuery, fieldAliases, false);
-                }
-                handleReturnOfExtraFields(subQuery, trust("aliasDoc"), false);
-                subQuery.addLine(trust(" \"" + JsonLdConsts.ID + "\": ${aliasDoc}.`" + JsonLdConsts.ID + "`"));
-                subQuery.setParameter("aliasDoc", alias.getArangoDocName());
-                if (traverse.isLinkingInstance()) {
-                    subQuery.addLine(trust("}]"));
-                }
-                subQuery.addLine(trust("})"));
+                AQL subQuery = createNodeReturn(alias, lnkAlias, previousAlias, subFieldAliases);
                 q.addLine(subQuery.build());
                 previousAlias = alias;
             }
@@ -197,6 +217,39 @@ public class SpecificationBasedScopeBuilder {
         }
     }
 
+    /**
+     * Creates the RETURN statement for an instance reached by a traversal (closing the sub query of its alias).
+     *
+     * @param linkingInstanceAlias the alias of the linking instance the instance has been reached through or null if it is linked directly.
+     * @param childrenAlias the alias of the next step of the traversal path or null if the instance is at the end of the path.
+     * @param subFieldAliases the aliases of the (sub)trees of the sub fields of the instance or null if there are none.
+     */
+    protected AQL createNodeReturn(ArangoAlias alias, ArangoAlias linkingInstanceAlias, ArangoAlias childrenAlias, List<ArangoAlias> subFieldAliases) {
+        AQL subQuery = new AQL();
+        subQuery.addLine(trust("RETURN DISTINCT {"));
+        if (linkingInstanceAlias != null) {
+            handleReturnOfExtraFields(subQuery, trust("aliasLnkDoc"), true);
+            subQuery.addLine(trust(" \"" + JsonLdConsts.ID + "\": ${aliasLnkDoc}.`" + JsonLdConsts.ID + "`,"));
+            subQuery.addLine(trust(" \"children\": [{"));
+            subQuery.setParameter("aliasLnkDoc", linkingInstanceAlias.getArangoDocName());
+        }
+        if(childrenAlias!=null){
+            subQuery.addLine(trust(" \"children\":${previousAlias},"));
+            subQuery.setParameter("previousAlias", childrenAlias.getArangoName());
+        }
+        else if(subFieldAliases!=null){
+            handleReturnStructureOfSubfields(subQuery, subFieldAliases, false);
+        }
+        handleReturnOfExtraFields(subQuery, trust("aliasDoc"), false);
+        subQuery.addLine(trust(" \"" + JsonLdConsts.ID + "\": ${aliasDoc}.`" + JsonLdConsts.ID + "`"));
+        subQuery.setParameter("aliasDoc", alias.getArangoDocName());
+        if (linkingInstanceAlias != null) {
+            subQuery.addLine(trust("}]"));
+        }
+        subQuery.addLine(trust("})"));
+        return subQuery;
+    }
+
     protected void queryExtraFieldsForAlias(AQL query, ArangoAlias alias){
     }
 
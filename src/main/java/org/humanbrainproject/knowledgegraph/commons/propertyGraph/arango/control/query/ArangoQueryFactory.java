@@ -283,19 +283,22 @@ public class ArangoQueryFactory {
 
     }
 
-    public String getInstanceList(ArangoCollectionReference collection, Integer from, Integer size, String searchTerm, Set<String> permissionGroupsWithReadAccess, boolean sort) {
+    /**
+     * Lists the instances of the collection. The search term (a case insensitive substring of the name) is passed as bind parameter (see {@link AQL#getBindParameters()}).
+     */
+    public AQL getInstanceList(ArangoCollectionReference collection, Integer from, Integer size, String searchTerm, Set<String> permissionGroupsWithReadAccess, boolean sort) {
         AuthorizedArangoQuery query = new AuthorizedArangoQuery(permissionGroupsWithReadAccess, false);
         query.setParameter("collection", collection.getName());
         query.setParameter("from", from != null ? from.toString() : null);
         query.setParameter("size", size != null ? size.toString() : null);
         boolean hasSearchTerm = searchTerm != null && !searchTerm.isEmpty();
-        query.setParameter("searchTerm", hasSearchTerm ? searchTerm.toLowerCase() : null);
         query.setParameter("filterProperty", SchemaOrgVocabulary.NAME);
 
         query.addLine(trust("FOR doc IN `${collection}`"));
         query.addDocumentFilter(new TrustedAqlValue("doc"));
         if (hasSearchTerm) {
-            query.addLine(trust("FILTER LIKE (LOWER(doc.`${filterProperty}`), \"%${searchTerm}%\")"));
+            query.addLine(trust("FILTER LIKE (LOWER(doc.`${filterProperty}`), @searchTerm)"));
+            query.setBindParameter("searchTerm", "%" + searchTerm.toLowerCase() + "%");
         }
         if (sort) {
             query.addLine(trust("SORT doc.`${filterProperty}`"));
@@ -308,7 +311,7 @@ public class ArangoQueryFactory {
             }
         }
         query.addLine(trust("RETURN doc"));
-        return query.build().getValue();
+        return query;
     }
 
 
@@ -327,7 +330,7 @@ public class ArangoQueryFactory {
         q.addLine(trust("FOR i IN 1..1 OUTBOUND doc `schema_hbp_eu-hbpkg-bookmarkInstanceLink`")).indent();
         q.addDocumentFilter(new TrustedAqlValue("i"));
         q.addLine(trust("FILTER i.`" + JsonLdConsts.ID + "` != NULL"));
-        if (searchTerm != null && !searchTerm.isEmpty()) {
+        if (hasSearchTerm) {
             q.addLine(trust("FILTER LIKE (LOWER(i.`" + SchemaOrgVocabulary.NAME + "`), \"%${searchTerm}%\")"));
         }
         q.addLine(trust("SORT i.`" + SchemaOrgVocabulary.NAME + "`"));
@@ -346,6 +349,18 @@ public class ArangoQueryFactory {
         return q.build().getValue();
     }
 
+    /**
+     * @return a query returning all existing documents of the ids passed as bind parameter "ids"
+     */
+    public String queryDocumentsByIds() {
+        AQL q = new AQL();
+        q.addLine(trust("FOR id IN @ids"));
+        q.addLine(trust("LET doc = DOCUMENT(id)"));
+        q.addLine(trust("FILTER doc != null"));
+        q.addLine(trust("RETURN doc"));
+        return q.build().getValue();
+    }
+
     public String getAttributesWithCount(ArangoCollectionReference reference) {
         AQL q = new AQL();
         q.addLine(trust("FOR doc IN `${reference}`"));
@@ -39,6 +39,7 @@ import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -59,6 +60,22 @@ public class SpecificationQuery {
         if(!queryBuilderNew.existsRootSchema()){
             return QueryResult.createEmptyResult(queryContext.getDatabaseScope().name());
         }
+        String query = buildQuery(queryBuilderNew, restrictedIds, search);
+        return query(query, queryBuilderNew.getSpecification().getName(), queryBuilderNew.getPagination(), queryBuilderNew.getProcessedFilterValues());
+    }
+
+    /**
+     * The streaming counterpart of {@link #queryForData(DataQueryBuilder, List, String)} - the documents are fetched from the database in batches of the given size while the result is consumed.
+     */
+    public StreamedQueryResult streamForData(DataQueryBuilder queryBuilderNew, List<String> restrictedIds, String search, int batchSize) throws IOException, SolrServerException {
+        if(!queryBuilderNew.existsRootSchema()){
+            return StreamedQueryResult.createEmptyResult(queryContext.getDatabaseScope().name());
+        }
+        String query = buildQuery(queryBuilderNew, restrictedIds, search);
+        return stream(query, queryBuilderNew.getSpecification().getName(), queryBuilderNew.getPagination(), queryBuilderNew.getProcessedFilterValues(), batchSize);
+    }
+
+    private String buildQuery(DataQueryBuilder queryBuilderNew, List<String> restrictedIds, String search) throws IOException, SolrServerException {
         String query = queryBuilderNew.build(restrictedIds, search);
         Map<String, Object> filterValues = queryBuilderNew.getProcessedFilterValues();
 
@@ -74,7 +91,7 @@ public class SpecificationQuery {
                 filterValues.put(definedMbbParameter, idRestrictions);
             }
         }
-        return query(query, spec.getName(), queryBuilderNew.getPagination(), filterValues);
+        return query;
     }
 
     public QueryResult<List<Map>> query(String aqlQuery, String apiName, Pagination pagination){
@@ -82,7 +99,11 @@ public class SpecificationQuery {
     }
 
     public List<Map> queryForSimpleMap(String aqlQuery){
-        return queryContext.queryDatabase(aqlQuery, false, null, Map.class, null).asListRemaining();
+        return queryForSimpleMap(aqlQuery, null);
+    }
+
+    public List<Map> queryForSimpleMap(String aqlQuery, Map<String, Object> bindParameters){
+        return queryContext.queryDatabase(aqlQuery, false, null, Map.class, bindParameters).asListRemaining();
     }
 
 
@@ -103,9 +124,75 @@ public class SpecificationQuery {
         }
         result.setTotal(count);
         result.setSize(pagination==null || pagination.getSize() == null ? count : Math.min(count, result.getResults().size()));
+        if (pagination != null && pagination.getSize() != null) {
+            Object lastSortKey = null;
+            for (Map instance : result.getResults()) {
+                lastSortKey = instance.remove(DataQueryBuilder.CURSOR_FIELD);
+            }
+            result.setNextCursor(createNextCursor(lastSortKey, pagination, count, result.getResults().size()));
+        }
         return result;
     }
 
+    public StreamedQueryResult stream(String aqlQuery, String apiName, Pagination pagination, Map<String, Object> bindParameters, int batchSize){
+        ArangoCursor<Map> cursor = queryContext.queryDatabase(aqlQuery,true, pagination, Map.class, bindParameters, batchSize);
+        Long count;
+        if (pagination!=null && pagination.getSize() != null) {
+            count = cursor.getStats().getFullCount();
+        } else {
+            count = cursor.getCount().longValue();
+        }
+        SortKeyTrackingIterator documents = new SortKeyTrackingIterator(cursor);
+        StreamedQueryResult result = new StreamedQueryResult(documents, cursor);
+        result.setDatabaseScope(queryContext.getDatabaseScope().name());
+        result.setApiName(apiName);
+        result.setTotal(count);
+        if(pagination!=null) {
+            result.setStart((long) pagination.getStart());
+            if (pagination.getSize() != null) {
+                result.setNextCursor(() -> createNextCursor(documents.lastSortKey, pagination, count, documents.consumed));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the encoded cursor pointing to the instance following the one with the given sort key or null if there are no more results
+     */
+    String createNextCursor(Object lastSortKey, Pagination pagination, Long count, long numberOfResults) {
+        boolean hasMoreResults = count != null && count > pagination.getStart() + numberOfResults;
+        if (hasMoreResults && lastSortKey instanceof List) {
+            return new PaginationCursor((List<Object>) lastSortKey).encode();
+        }
+        return null;
+    }
+
+    /**
+     * Removes the sort keys of the instances (see {@link DataQueryBuilder#CURSOR_FIELD}) while they are consumed and keeps track of the last one.
+     */
+    private static class SortKeyTrackingIterator implements Iterator<Map> {
+        private final Iterator<Map> documents;
+        private Object lastSortKey;
+        private long consumed;
+
+        private SortKeyTrackingIterator(Iterator<Map> documents) {
+            this.documents = documents;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return documents.hasNext();
+        }
+
+        @Override
+        public Map next() {
+            Map document = documents.next();
+            lastSortKey = document.remove(DataQueryBuilder.CURSOR_FIELD);
+            consumed++;
+            return document;
+        }
+    }
+
 
     private void handleEdgesAsLeaf(List<SpecField> fields, Set<ArangoCollectionReference> existingCollections){
         for (SpecField field : fields) {
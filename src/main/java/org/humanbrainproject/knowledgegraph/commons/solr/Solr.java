@@ -30,11 +30,12 @@ import org.apache.solr.client.solrj.impl.HttpSolrClient;
 import org.apache.solr.client.solrj.request.CoreAdminRequest;
 import org.apache.solr.client.solrj.request.schema.FieldTypeDefinition;
 import org.apache.solr.client.solrj.request.schema.SchemaRequest;
-import org.apache.solr.client.solrj.response.Group;
+import org.apache.solr.client.solrj.response.FacetField;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.client.solrj.response.UpdateResponse;
 import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.common.params.CoreAdminParams;
+import org.apache.solr.common.params.FacetParams;
 import org.apache.solr.common.util.NamedList;
 import org.humanbrainproject.knowledgegraph.annotations.ToBeTested;
 import org.humanbrainproject.knowledgegraph.query.entity.BoundingBox;
@@ -59,6 +60,15 @@ public class Solr implements InitializingBean {
     @Value("${org.humanbrainproject.knowledgegraph.solr.core}")
     String solrCore;
 
+    @Value("${org.humanbrainproject.knowledgegraph.solr.batchSize:1000}")
+    int batchSize = 1000;
+
+    /**
+     * If not negative, Solr is asked to commit the registered points within the given time instead of committing them explicitly.
+     */
+    @Value("${org.humanbrainproject.knowledgegraph.solr.commitWithinInMs:-1}")
+    int commitWithinInMs = -1;
+
 
     @Override
     public void afterPropertiesSet() {
@@ -71,7 +81,7 @@ public class Solr implements InitializingBean {
     }
 
 
-    private SolrClient solr;
+    SolrClient solr;
 
     protected Logger logger = LoggerFactory.getLogger(Solr.class);
 
@@ -193,27 +203,107 @@ public class Solr implements InitializingBean {
     }
 
 
+    /**
+     * Registers the points for the given id in batches of the configured size - the points are committed once at the end (or by Solr itself if a commitWithin is configured).
+     */
     public void registerPoints(String id, String referenceSpace, Collection<ThreeDVector> points) throws IOException, SolrServerException {
-        points.forEach(p ->
-                {
-                    SolrInputDocument document = new SolrInputDocument();
-                    document.addField("aid", id);
-                    document.addField("r", referenceSpace);
-                    document.addField("c", p.toString());
-                    try {
-                        UpdateResponse response = solr.add(solrCore, document);
-                        logger.info(String.format("Indexed point %s for reference %s in space \"%s\" in Solr in %d ms", p.toString(), id, referenceSpace, response.getElapsedTime()));
-                    } catch (SolrServerException | IOException e) {
-                        logger.error("Was not able to index document into Solr", e);
-                    }
-                }
-        );
-        solr.commit(solrCore);
+        try (PointRegistration registration = registerPoints(id, referenceSpace)) {
+            for (ThreeDVector point : points) {
+                registration.add(point.getX(), point.getY(), point.getZ());
+            }
+        }
+    }
+
+    /**
+     * Starts the registration of points for the given id - the points are added one by one and sent in batches of the configured size. Closing the registration sends the remaining points and commits them.
+     */
+    public PointRegistration registerPoints(String id, String referenceSpace) {
+        return new PointRegistration(id, referenceSpace);
+    }
+
+    public class PointRegistration implements AutoCloseable {
+
+        private final String id;
+        private final String referenceSpace;
+        private final int batchSize = Math.max(Solr.this.batchSize, 1);
+        private final long start = System.currentTimeMillis();
+        private final StringBuilder coordinate = new StringBuilder();
+        private List<SolrInputDocument> batch = new ArrayList<>();
+        private int numberOfPoints;
+        private int requests;
+        private Exception failure;
+
+        private PointRegistration(String id, String referenceSpace) {
+            this.id = id;
+            this.referenceSpace = referenceSpace;
+        }
+
+        /**
+         * Adds a point - if the batch is full, it is sent to Solr. A failure is reported when the registration is closed (further points are ignored).
+         */
+        public void add(double x, double y, double z) {
+            if (failure != null) {
+                return;
+            }
+            coordinate.setLength(0);
+            coordinate.append(x).append(',').append(y).append(',').append(z);
+            SolrInputDocument document = new SolrInputDocument();
+            document.addField("aid", id);
+            document.addField("r", referenceSpace);
+            document.addField("c", coordinate.toString());
+            batch.add(document);
+            numberOfPoints++;
+            if (logger.isDebugEnabled()) {
+                logger.debug("Prepared point {} for reference {} in space \"{}\" for Solr", coordinate, id, referenceSpace);
+            }
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            try {
+                addDocuments(batch);
+                requests++;
+                batch = new ArrayList<>();
+            } catch (SolrServerException | IOException e) {
+                failure = e;
+            }
+        }
+
+        @Override
+        public void close() throws IOException, SolrServerException {
+            if (failure == null && !batch.isEmpty()) {
+                flush();
+            }
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            } else if (failure instanceof SolrServerException) {
+                throw (SolrServerException) failure;
+            }
+            if (commitWithinInMs < 0) {
+                getSolr().commit(solrCore);
+            }
+            logger.info(String.format("Indexed %d points for reference %s in space \"%s\" in Solr with %d requests in %d ms", numberOfPoints, id, referenceSpace, requests, System.currentTimeMillis() - start));
+        }
+    }
+
+    private void addDocuments(List<SolrInputDocument> documents) throws IOException, SolrServerException {
+        try {
+            if (commitWithinInMs >= 0) {
+                getSolr().add(solrCore, documents, commitWithinInMs);
+            } else {
+                getSolr().add(solrCore, documents);
+            }
+        } catch (SolrServerException | IOException e) {
+            logger.error("Was not able to index documents into Solr", e);
+            throw e;
+        }
     }
 
     public void delete(String id, String referenceSpace)  {
         try {
-            UpdateResponse response = solr.deleteByQuery(solrCore, "aid:" + id+" AND r:"+referenceSpace);
+            UpdateResponse response = getSolr().deleteByQuery(solrCore, "aid:" + id+" AND r:"+referenceSpace);
             logger.info(String.format("Removed points for id %s in space \"%s\" in Solr in %d ms", id, referenceSpace, response.getElapsedTime()));
         } catch (SolrServerException | IOException e) {
             e.printStackTrace();
@@ -228,22 +318,24 @@ public class Solr implements InitializingBean {
         return getSolr().query(solrCore, query);
     }
 
+    /**
+     * @return the distinct ids of the instances with at least one point within the bounding box. The ids are collected by Solr (faceting on the instance id) so the response only contains one entry per instance - regardless of the number of matching points.
+     */
     public List<String> queryIdsOfMinimalBoundingBox(BoundingBox boundingBox) throws IOException, SolrServerException {
         SolrQuery query = new SolrQuery("*:*");
         String coordinateQuery = String.format("c:[\"%s\" TO \"%s\"]", boundingBox.getFrom(), boundingBox.getTo());
         String referenceSpaceQuery = String.format("r:\"%s\"", boundingBox.getReferenceSpace());
         query.setFilterQueries(coordinateQuery, referenceSpaceQuery);
-        query.setFields("aid");
         query.setRows(0);
-        QueryResponse response = query(query);
-        long matches = response.getResults().getNumFound();
-        if (matches == 0) {
+        query.addFacetField("aid");
+        query.setFacetLimit(-1);
+        query.setFacetMinCount(1);
+        query.setFacetSort(FacetParams.FACET_SORT_INDEX);
+        FacetField instances = query(query).getFacetField("aid");
+        if (instances == null || instances.getValues() == null) {
             return Collections.emptyList();
         }
-        query.setRows(Long.valueOf(matches).intValue());
-        query.setParam("group", true);
-        query.setParam("group.field", "aid");
-        return query(query).getGroupResponse().getValues().get(0).getValues().stream().map(Group::getGroupValue).collect(Collectors.toList());
+        return instances.getValues().stream().map(FacetField.Count::getName).collect(Collectors.toList());
     }
 
 
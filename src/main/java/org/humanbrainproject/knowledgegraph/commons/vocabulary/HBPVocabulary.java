@@ -86,6 +86,7 @@ public class HBPVocabulary {
     public static final String SPATIAL_COORDINATES = SPATIAL_NAMESPACE+"coordinates";
     public static final String SPATIAL_REFERENCESPACE =  SPATIAL_NAMESPACE+ "referenceSpace";
     public static final String SPATIAL_LOCATED_INSTANCE =  SPATIAL_NAMESPACE+"locatedInstance";
+    public static final String SPATIAL_RESOLUTION =  SPATIAL_NAMESPACE+"resolution";
 
     public static final String SUGGESTION = HBPVocabulary.NAMESPACE+ "suggestion";
 
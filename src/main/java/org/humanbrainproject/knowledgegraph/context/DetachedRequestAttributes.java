@@ -0,0 +1,111 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.context;
+
+import org.humanbrainproject.knowledgegraph.annotations.Tested;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Provides an artificial request scope for work which is executed outside of a HTTP request (e.g. by background workers), so the request scoped beans (such as the {@link org.humanbrainproject.knowledgegraph.commons.authorization.control.AuthorizationContext} or the {@link QueryContext}) can be used as if the work was triggered by a request.
+ */
+@Tested
+public class DetachedRequestAttributes implements RequestAttributes {
+
+    private final Map<String, Object> requestAttributes = new LinkedHashMap<>();
+    private final Map<String, Object> sessionAttributes = new LinkedHashMap<>();
+    private final List<Runnable> destructionCallbacks = new ArrayList<>();
+
+    /**
+     * Executes the given work in a new request scope which is destroyed afterwards.
+     */
+    public static <T> T execute(Supplier<T> work) {
+        RequestAttributes previous = RequestContextHolder.getRequestAttributes();
+        DetachedRequestAttributes attributes = new DetachedRequestAttributes();
+        RequestContextHolder.setRequestAttributes(attributes);
+        try {
+            return work.get();
+        } finally {
+            attributes.requestCompleted();
+            RequestContextHolder.setRequestAttributes(previous);
+        }
+    }
+
+    private Map<String, Object> getAttributes(int scope) {
+        return scope == SCOPE_SESSION ? sessionAttributes : requestAttributes;
+    }
+
+    @Override
+    public Object getAttribute(String name, int scope) {
+        return getAttributes(scope).get(name);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value, int scope) {
+        getAttributes(scope).put(name, value);
+    }
+
+    @Override
+    public void removeAttribute(String name, int scope) {
+        getAttributes(scope).remove(name);
+    }
+
+    @Override
+    public String[] getAttributeNames(int scope) {
+        return getAttributes(scope).keySet().toArray(new String[0]);
+    }
+
+    @Override
+    public void registerDestructionCallback(String name, Runnable callback, int scope) {
+        destructionCallbacks.add(callback);
+    }
+
+    @Override
+    public Object resolveReference(String key) {
+        return null;
+    }
+
+    @Override
+    public String getSessionId() {
+        return "detached";
+    }
+
+    @Override
+    public Object getSessionMutex() {
+        return this;
+    }
+
+    void requestCompleted() {
+        destructionCallbacks.forEach(Runnable::run);
+        destructionCallbacks.clear();
+        requestAttributes.clear();
+        sessionAttributes.clear();
+    }
+}
@@ -97,7 +97,17 @@ public class QueryContext {
 
 
     public <T> ArangoCursor<T> queryDatabase(String aqlQuery, boolean count, Pagination pagination, Class<T> returnType, Map<String, Object> bindParameters) {
+        return queryDatabase(aqlQuery, count, pagination, returnType, bindParameters, null);
+    }
+
+    /**
+     * @param batchSize the maximal number of documents transferred from the database per round trip - if the cursor is consumed incrementally, this defines the number of documents kept in memory.
+     */
+    public <T> ArangoCursor<T> queryDatabase(String aqlQuery, boolean count, Pagination pagination, Class<T> returnType, Map<String, Object> bindParameters, Integer batchSize) {
         AqlQueryOptions options = new AqlQueryOptions();
+        if (batchSize != null) {
+            options.batchSize(batchSize);
+        }
         if (count) {
             if (pagination != null && pagination.getSize()!=null) {
                 options.fullCount(true);
@@ -23,7 +23,7 @@
 
 package org.humanbrainproject.knowledgegraph.indexing.api;
 
-import com.github.jsonldjava.core.JsonLdError;
+import com.github.jsonldjava.utils.JsonUtils;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import org.humanbrainproject.knowledgegraph.annotations.ToBeTested;
@@ -31,18 +31,22 @@ import org.humanbrainproject.knowledgegraph.commons.InternalApi;
 import org.humanbrainproject.knowledgegraph.commons.api.RestUtils;
 import org.humanbrainproject.knowledgegraph.commons.authorization.control.AuthorizationContext;
 import org.humanbrainproject.knowledgegraph.indexing.boundary.GraphIndexing;
-import org.humanbrainproject.knowledgegraph.indexing.entity.IndexingMessage;
+import org.humanbrainproject.knowledgegraph.indexing.boundary.IndexingQueue;
+import org.humanbrainproject.knowledgegraph.indexing.entity.QueuedIndexingMessage;
 import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusInstanceReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.ws.rs.core.MediaType;
+import java.io.IOException;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Map;
 
 import static org.humanbrainproject.knowledgegraph.commons.api.ParameterConstants.*;
 
@@ -59,6 +63,9 @@ public class IndexingInternalAPI {
     @Autowired
     GraphIndexing indexer;
 
+    @Autowired
+    IndexingQueue indexingQueue;
+
     private Logger logger = LoggerFactory.getLogger(IndexingInternalAPI.class);
 
     private String getTimestamp(String timestamp){
@@ -66,63 +73,62 @@ public class IndexingInternalAPI {
     }
 
 
-    @ApiOperation("Index the creation of a new instance")
+    private ResponseEntity<String> enqueue(QueuedIndexingMessage message){
+        try {
+            long sequence = indexingQueue.enqueue(message);
+            return ResponseEntity.accepted().body(String.format("Accepted the %s of the instance %s as message %d", message.getOperation(), message.getInstanceReference().getRelativeUrl().getUrl(), sequence));
+        } catch (IOException e) {
+            logger.error(String.format("Was not able to enqueue the %s of the instance %s", message.getOperation(), message.getInstanceReference().getRelativeUrl().getUrl()), e);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        }
+    }
+
+    private boolean isValidJson(String payload, NexusInstanceReference path){
+        try {
+            JsonUtils.fromString(payload);
+            return true;
+        } catch (IOException e) {
+            logger.warn(String.format("Was not able to process the payload for %s: %s", path.getRelativeUrl().getUrl(), payload), e);
+            return false;
+        }
+    }
+
+    @ApiOperation(value = "Index the creation of a new instance", notes = "The message is queued and indexed asynchronously (see /queue for the state of the queue)")
     @PostMapping(value="/{"+ ORG+"}/{"+DOMAIN+"}/{"+SCHEMA+"}/{"+VERSION+"}/{"+ID+"}", consumes = {MediaType.APPLICATION_JSON, RestUtils.APPLICATION_LD_JSON}, produces = MediaType.APPLICATION_JSON)
     public ResponseEntity<String> addInstance(@RequestBody String payload, @PathVariable(ORG) String organization, @PathVariable(DOMAIN) String domain, @PathVariable(SCHEMA) String schema, @PathVariable(VERSION) String schemaVersion, @PathVariable(ID) String id, @RequestParam(value = "authorId", required = false) String authorId, @RequestParam(value = "eventDateTime", required = false) String timestamp) {
-        authorizationContext.setMasterCredential();
-
         NexusInstanceReference path = new NexusInstanceReference(organization, domain, schema, schemaVersion, id).setRevision(1);
         logger.info("Received insert request for {}", path.getRelativeUrl().getUrl());
         logger.debug("Payload for insert request {}: {}", path.getRelativeUrl().getUrl(), payload);
-        try {
-            IndexingMessage message = new IndexingMessage(path, payload, getTimestamp(timestamp), authorId);
-            indexer.insert(message);
-            return ResponseEntity.ok(null);
-        } catch (JsonLdError e) {
-            logger.warn(String.format("INS: Was not able to process the payload %s", payload), e);
-            return ResponseEntity.badRequest().body(e.getMessage());
-        } catch(Exception e){
-            logger.error(String.format("INS: Was not able to insert the instance %s with the payload %s", path.getRelativeUrl().getUrl(), payload), e);
-            throw new RuntimeException(e);
+        if(!isValidJson(payload, path)){
+            return ResponseEntity.badRequest().body("The payload is not valid JSON");
         }
+        return enqueue(new QueuedIndexingMessage(QueuedIndexingMessage.Operation.INSERT, path, payload, getTimestamp(timestamp), authorId));
     }
 
-    @ApiOperation("Index the update of an existing instance in a specific revision")
+    @ApiOperation(value = "Index the update of an existing instance in a specific revision", notes = "The message is queued and indexed asynchronously (see /queue for the state of the queue)")
     @PutMapping(value="/{"+ ORG+"}/{"+DOMAIN+"}/{"+SCHEMA+"}/{"+VERSION+"}/{"+ID+"}/{"+REV+"}", consumes = {MediaType.APPLICATION_JSON, RestUtils.APPLICATION_LD_JSON}, produces = MediaType.APPLICATION_JSON)
     public ResponseEntity<String> updateInstance(@RequestBody String payload, @PathVariable(ORG) String organization, @PathVariable(DOMAIN) String domain, @PathVariable(SCHEMA) String schema, @PathVariable(VERSION) String schemaVersion, @PathVariable(ID) String id, @PathVariable(REV) Integer rev, @RequestParam(value = "authorId", required = false) String authorId, @RequestParam(value = "eventDateTime", required = false) String timestamp) {
-        authorizationContext.setMasterCredential();
-
         NexusInstanceReference path = new NexusInstanceReference(organization, domain, schema, schemaVersion, id).setRevision(rev);
         logger.info("Received update request for {} in rev {}", path.getRelativeUrl().getUrl(), rev);
         logger.debug("Payload for update request {} in rev {}: {}", path.getRelativeUrl().getUrl(), rev, payload);
-        try {
-            IndexingMessage message = new IndexingMessage(path, payload, getTimestamp(timestamp), authorId);
-            indexer.update(message);
-            return ResponseEntity.ok(null);
-        } catch (JsonLdError  e) {
-            logger.warn(String.format("UPD: Was not able to process the payload %s", payload), e);
-            return ResponseEntity.badRequest().body(e.getMessage());
-        } catch(Exception e){
-            logger.error(String.format("UPD: Was not able to update the instance %s with the payload %s", path.getRelativeUrl().getUrl(), payload), e);
-            e.printStackTrace();
-            throw new RuntimeException(e);
+        if(!isValidJson(payload, path)){
+            return ResponseEntity.badRequest().body("The payload is not valid JSON");
         }
+        return enqueue(new QueuedIndexingMessage(QueuedIndexingMessage.Operation.UPDATE, path, payload, getTimestamp(timestamp), authorId));
     }
-    @ApiOperation("Index the deletion of an existing instance")
+
+    @ApiOperation(value = "Index the deletion of an existing instance", notes = "The message is queued and indexed asynchronously (see /queue for the state of the queue)")
     @DeleteMapping(value="/{"+ ORG+"}/{"+DOMAIN+"}/{"+SCHEMA+"}/{"+VERSION+"}/{"+ID+"}", produces = MediaType.APPLICATION_JSON)
     public ResponseEntity<String> deleteInstance(@PathVariable(ORG) String organization, @PathVariable(DOMAIN) String domain, @PathVariable(SCHEMA) String schema, @PathVariable(VERSION) String schemaVersion, @PathVariable(ID) String id, @RequestAttribute(value=REV, required = false) Integer rev, @RequestParam(value = "authorId", required = false) String authorId, @RequestParam(value = "eventDateTime", required = false) String timestamp) {
-        authorizationContext.setMasterCredential();
-
         NexusInstanceReference path = new NexusInstanceReference(organization, domain, schema, schemaVersion, id).setRevision(rev);
         logger.info("Received delete request for {} in rev {}", path.getRelativeUrl().getUrl(), rev);
-        try {
-            indexer.delete(path);
-            return ResponseEntity.ok(String.format("Successfully deleted the instance %s", path.getRelativeUrl().getUrl()));
-        }
-        catch(Exception e){
-            logger.error(String.format("DEL: Was not able to delete the instance %s", path.getRelativeUrl().getUrl() ), e);
-            throw new RuntimeException(e);
-        }
+        return enqueue(new QueuedIndexingMessage(QueuedIndexingMessage.Operation.DELETE, path, null, getTimestamp(timestamp), authorId));
+    }
+
+    @ApiOperation("The state of the indexing queue (number of pending messages and the age of the oldest one)")
+    @GetMapping(value = "/queue", produces = MediaType.APPLICATION_JSON)
+    public ResponseEntity<Map<String, Object>> getQueueStatus(){
+        return ResponseEntity.ok(indexingQueue.getStatus());
     }
 
     @ApiOperation("Remove everything in the index")
@@ -0,0 +1,411 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.indexing.boundary;
+
+import com.google.gson.Gson;
+import org.humanbrainproject.knowledgegraph.annotations.Tested;
+import org.humanbrainproject.knowledgegraph.commons.authorization.control.AuthorizationContext;
+import org.humanbrainproject.knowledgegraph.context.DetachedRequestAttributes;
+import org.humanbrainproject.knowledgegraph.indexing.entity.QueuedIndexingMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Decouples the reception of indexing messages from their processing: The messages are persisted in a local directory (so they survive a restart) and are processed by a pool of workers.
+ * Messages of the same instance are always processed by the same worker and therefore in the order of their reception. A failing message is retried until it succeeds - the worker does not skip ahead, so a later message of the same instance is never applied before an earlier one.
+ * Only the files of at most {@link #capacity} messages are held in memory - the payloads are read when a message is processed. If more messages are waiting, the remaining ones are only kept on the disk and are loaded (oldest first) as soon as the workers have caught up.
+ */
+@Component
+@Tested
+public class IndexingQueue {
+
+    private static final String MESSAGE_SUFFIX = ".json";
+    private static final String FAILED_DIRECTORY = "failed";
+
+    @Autowired
+    GraphIndexing indexer;
+
+    @Autowired
+    AuthorizationContext authorizationContext;
+
+    @Value("${org.humanbrainproject.knowledgegraph.indexing.queue.directory:${org.humanbrainproject.knowledgegraph.dataDirectory:${user.home}/.kg-query}/indexing-queue}")
+    String directory;
+
+    @Value("${org.humanbrainproject.knowledgegraph.indexing.queue.workers:4}")
+    int numberOfWorkers;
+
+    @Value("${org.humanbrainproject.knowledgegraph.indexing.queue.capacity:10000}")
+    int capacity;
+
+    @Value("${org.humanbrainproject.knowledgegraph.indexing.queue.retryBackoffInMs:1000}")
+    long retryBackoffInMs;
+
+    @Value("${org.humanbrainproject.knowledgegraph.indexing.queue.maxRetryBackoffInMs:300000}")
+    long maxRetryBackoffInMs;
+
+    private final Gson gson = new Gson();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong depth = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong failedAttempts = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong lastProcessingLag = new AtomicLong();
+    //The messages which are held in memory (scheduled or in process) by their sequence
+    private final ConcurrentSkipListMap<Long, Path> scheduled = new ConcurrentSkipListMap<>();
+    private final AtomicInteger numberOfScheduled = new AtomicInteger();
+    //The messages which are being persisted - they are not loaded from the disk before they are completely written
+    private final ConcurrentSkipListSet<Long> writing = new ConcurrentSkipListSet<>();
+    //The failing messages which currently hold back their worker
+    private final ConcurrentSkipListMap<Long, Path> blocking = new ConcurrentSkipListMap<>();
+    private final CountDownLatch stopping = new CountDownLatch(1);
+    //Set if there are persisted messages which are not held in memory (guarded by this)
+    private boolean spilled;
+    private boolean stopped;
+    private List<ExecutorService> workers;
+
+    private Logger logger = LoggerFactory.getLogger(IndexingQueue.class);
+
+    /**
+     * Initializes the workers on first use. The messages which have been accepted but not processed before the last shutdown are scheduled before any new message is accepted - otherwise a new message could overtake an older one of the same instance.
+     */
+    private synchronized List<ExecutorService> getWorkers() throws IOException {
+        if (workers == null) {
+            Files.createDirectories(getFailedDirectory());
+            //Skipped messages keep their sequence number in the failed directory - the new messages must not reuse them
+            long maxSequence = 0;
+            for (Path directory : Arrays.asList(getDirectory(), getFailedDirectory())) {
+                try (Stream<Path> files = listMessageFiles(directory)) {
+                    maxSequence = Math.max(maxSequence, files.mapToLong(this::getSequence).max().orElse(0));
+                }
+            }
+            sequence.set(maxSequence);
+            long recovered;
+            try (Stream<Path> files = listMessageFiles(getDirectory())) {
+                recovered = files.count();
+            }
+            depth.set(recovered);
+            List<ExecutorService> executors = new ArrayList<>();
+            for (int i = 0; i < Math.max(numberOfWorkers, 1); i++) {
+                executors.add(Executors.newSingleThreadExecutor());
+            }
+            workers = executors;
+            spilled = true;
+            refill();
+            if (recovered > 0) {
+                logger.info("Recovered {} pending indexing messages from {}", recovered, directory);
+            }
+        }
+        return workers;
+    }
+
+    private Path getDirectory() {
+        return Paths.get(directory);
+    }
+
+    private Path getFailedDirectory() {
+        return getDirectory().resolve(FAILED_DIRECTORY);
+    }
+
+    private Stream<Path> listMessageFiles(Path directory) throws IOException {
+        return Files.list(directory).filter(p -> p.getFileName().toString().endsWith(MESSAGE_SUFFIX));
+    }
+
+    private long getSequence(Path file) {
+        return Long.parseLong(file.getFileName().toString().split("[-.]")[0]);
+    }
+
+    /**
+     * The file name consists of the sequence and the hash of the instance - the worker of a message is therefore known without reading the message.
+     */
+    String getFileName(QueuedIndexingMessage message) {
+        return String.format("%019d-%08x%s", message.getSequence(), getInstanceHash(message), MESSAGE_SUFFIX);
+    }
+
+    private int getInstanceHash(QueuedIndexingMessage message) {
+        return message.getInstanceReference().getFullId(false).hashCode();
+    }
+
+    private int getPartition(Path file) {
+        String fileName = file.getFileName().toString();
+        String hash = fileName.substring(fileName.indexOf('-') + 1, fileName.length() - MESSAGE_SUFFIX.length());
+        return Math.floorMod(Integer.parseUnsignedInt(hash, 16), workers.size());
+    }
+
+    /**
+     * Persists the message and schedules it for processing.
+     *
+     * @return the sequence number of the message
+     */
+    public long enqueue(QueuedIndexingMessage message) throws IOException {
+        getWorkers();
+        synchronized (this) {
+            message.setSequence(sequence.incrementAndGet());
+            writing.add(message.getSequence());
+        }
+        message.setEnqueuedAt(System.currentTimeMillis());
+        Path file = getDirectory().resolve(getFileName(message));
+        Path tempFile = getDirectory().resolve(file.getFileName() + ".tmp");
+        try {
+            write(tempFile, gson.toJson(message).getBytes(StandardCharsets.UTF_8));
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            writing.remove(message.getSequence());
+            throw e;
+        }
+        depth.incrementAndGet();
+        synchronized (this) {
+            writing.remove(message.getSequence());
+            if (!spilled && !stopped && numberOfScheduled.get() < capacity) {
+                schedule(file);
+            } else {
+                //The message stays on the disk until the workers have caught up
+                spilled = true;
+                refillIfNecessary();
+            }
+        }
+        return message.getSequence();
+    }
+
+    /**
+     * Writes the file and forces it to the disk - the message is only acknowledged once it is persisted.
+     */
+    private void write(Path file, byte[] content) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+    }
+
+    private synchronized void schedule(Path file) {
+        scheduled.put(getSequence(file), file);
+        numberOfScheduled.incrementAndGet();
+        workers.get(getPartition(file)).execute(() -> process(file));
+    }
+
+    private synchronized void refillIfNecessary() throws IOException {
+        if (spilled && !stopped && numberOfScheduled.get() <= capacity / 2) {
+            refill();
+        }
+    }
+
+    /**
+     * Schedules the oldest persisted messages which are not held in memory yet (as many as the capacity allows). The messages which are still being written are excluded together with all newer ones - they would overtake them otherwise.
+     */
+    private synchronized void refill() throws IOException {
+        int free = capacity - numberOfScheduled.get();
+        Long oldestWriting = writing.ceiling(Long.MIN_VALUE);
+        //The newest candidate is on top and is dropped if there are more candidates than free places
+        PriorityQueue<Path> candidates = new PriorityQueue<>(Comparator.comparingLong(this::getSequence).reversed());
+        boolean complete = true;
+        try (Stream<Path> files = listMessageFiles(getDirectory())) {
+            Iterator<Path> iterator = files.iterator();
+            while (iterator.hasNext()) {
+                Path file = iterator.next();
+                long sequence = getSequence(file);
+                if (scheduled.containsKey(sequence)) {
+                    continue;
+                }
+                if (oldestWriting != null && sequence > oldestWriting) {
+                    complete = false;
+                    continue;
+                }
+                candidates.add(file);
+                if (candidates.size() > free) {
+                    candidates.poll();
+                    complete = false;
+                }
+            }
+        }
+        List<Path> files = new ArrayList<>(candidates);
+        files.sort(Comparator.comparingLong(this::getSequence));
+        for (Path file : files) {
+            schedule(file);
+        }
+        spilled = !complete;
+    }
+
+    /**
+     * Processes the message and retries it (with an increasing delay) as long as it fails - the worker does not continue with the following messages in the meantime, since they could depend on it.
+     * An operator can skip a message which can not be processed at all by moving its file to the failed directory.
+     */
+    void process(Path file) {
+        long sequence = getSequence(file);
+        boolean done = false;
+        try {
+            for (int attempt = 1; !done; attempt++) {
+                if (!Files.exists(file)) {
+                    logger.warn("The message {} has been removed from the queue - it is skipped", file);
+                    skipped.incrementAndGet();
+                    done = true;
+                    break;
+                }
+                try {
+                    QueuedIndexingMessage message = gson.fromJson(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), QueuedIndexingMessage.class);
+                    index(message);
+                    Files.deleteIfExists(file);
+                    processed.incrementAndGet();
+                    lastProcessingLag.set(System.currentTimeMillis() - message.getEnqueuedAt());
+                    done = true;
+                } catch (Exception e) {
+                    failedAttempts.incrementAndGet();
+                    long backoff = getRetryBackoff(attempt);
+                    logger.error(String.format("Was not able to process the message %s (attempt %d) - it is retried in %d ms. The following messages of the worker are held back until it is processed or moved to %s", file, attempt, backoff, getFailedDirectory()), e);
+                    blocking.put(sequence, file);
+                    if (stopping.await(backoff, TimeUnit.MILLISECONDS)) {
+                        //The message stays in the queue and is processed after the next start
+                        return;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            blocking.remove(sequence);
+            scheduled.remove(sequence);
+            numberOfScheduled.decrementAndGet();
+            if (done) {
+                depth.decrementAndGet();
+                try {
+                    refillIfNecessary();
+                } catch (IOException e) {
+                    logger.error(String.format("Was not able to load the pending messages from %s", directory), e);
+                }
+            }
+        }
+    }
+
+    private long getRetryBackoff(int attempt) {
+        return Math.min(retryBackoffInMs << Math.min(attempt - 1, 20), maxRetryBackoffInMs);
+    }
+
+    private void index(QueuedIndexingMessage message) {
+        DetachedRequestAttributes.execute(() -> {
+            authorizationContext.setMasterCredential();
+            switch (message.getOperation()) {
+                case INSERT:
+                    return indexer.insert(message.toIndexingMessage());
+                case UPDATE:
+                    return indexer.update(message.toIndexingMessage());
+                case DELETE:
+                    return indexer.delete(message.getInstanceReference());
+                default:
+                    throw new IllegalArgumentException("Unknown operation " + message.getOperation());
+            }
+        });
+    }
+
+    /**
+     * Initializes the queue at startup (and thereby re-schedules the messages which have been accepted but not processed before the last shutdown) - requests which arrive earlier initialize it themselves.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() throws IOException {
+        getWorkers();
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void shutdown() throws InterruptedException {
+        List<ExecutorService> workers;
+        synchronized (this) {
+            //The remaining messages stay on the disk for the next start
+            stopped = true;
+            workers = this.workers;
+        }
+        stopping.countDown();
+        if (workers != null) {
+            for (ExecutorService worker : workers) {
+                worker.shutdown();
+            }
+            for (ExecutorService worker : workers) {
+                worker.awaitTermination(30, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("queueDepth", depth.get());
+        status.put("lagInMs", getLag());
+        status.put("lastProcessingLagInMs", lastProcessingLag.get());
+        status.put("processed", processed.get());
+        status.put("failedAttempts", failedAttempts.get());
+        status.put("skipped", skipped.get());
+        status.put("blockedBy", blocking.values().stream().map(f -> f.getFileName().toString()).collect(Collectors.toList()));
+        status.put("inMemory", numberOfScheduled.get());
+        status.put("workers", Math.max(numberOfWorkers, 1));
+        return status;
+    }
+
+    /**
+     * The age of the oldest pending message - the messages are loaded oldest first, so it is the oldest one held in memory.
+     */
+    private long getLag() {
+        Map.Entry<Long, Path> oldest = scheduled.firstEntry();
+        if (oldest == null) {
+            return 0L;
+        }
+        try {
+            return System.currentTimeMillis() - Files.getLastModifiedTime(oldest.getValue()).toMillis();
+        } catch (IOException e) {
+            //The message has been processed in the meantime
+            return 0L;
+        }
+    }
+}
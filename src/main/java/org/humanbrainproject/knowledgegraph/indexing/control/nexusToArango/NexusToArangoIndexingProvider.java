@@ -41,12 +41,15 @@ import org.humanbrainproject.knowledgegraph.indexing.entity.QualifiedIndexingMes
 import org.humanbrainproject.knowledgegraph.indexing.entity.TargetDatabase;
 import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusInstanceReference;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 @Component
 @ToBeTested
@@ -70,6 +73,18 @@ public class NexusToArangoIndexingProvider {
     @Autowired
     MessageProcessor messageProcessor;
 
+    final OriginalIdCache originalIdCache = new OriginalIdCache();
+
+    @Value("${org.humanbrainproject.knowledgegraph.indexing.originalIdCache.maxSize:10000}")
+    public void setOriginalIdCacheSize(int maxSize) {
+        originalIdCache.setMaxSize(maxSize);
+    }
+
+    @Value("${org.humanbrainproject.knowledgegraph.indexing.originalIdCache.ttlInSeconds:10}")
+    public void setOriginalIdCacheTimeToLive(long timeToLiveInSeconds) {
+        originalIdCache.setTimeToLiveInMillis(timeToLiveInSeconds * 1000);
+    }
+
 
     public Vertex getVertexStructureById(NexusInstanceReference incomingReference) {
         String payload = getPayloadFromPrimaryStore(incomingReference);
@@ -84,18 +99,40 @@ public class NexusToArangoIndexingProvider {
     public Vertex mapToOriginalSpace(Vertex vertex, NexusInstanceReference originalId) {
         QualifiedIndexingMessage newMessage = new QualifiedIndexingMessage(vertex.getQualifiedIndexingMessage().getOriginalMessage(), new LinkedHashMap(vertex.getQualifiedIndexingMessage().getQualifiedMap()));
         Vertex newVertex = messageProcessor.createVertexStructure(newMessage);
-        Map<NexusInstanceReference, NexusInstanceReference> toOriginalIdMap = new HashMap<>();
+        Set<NexusInstanceReference> relatedReferences = newVertex.getEdges().stream().map(Edge::getReference).collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<NexusInstanceReference, NexusInstanceReference> toOriginalIdMap = findOriginalIds(relatedReferences);
         for (Edge edge : newVertex.getEdges()) {
-            NexusInstanceReference relatedOriginalId = nativeRepository.findOriginalId(edge.getReference());
-            relatedOriginalId = relatedOriginalId.toSubSpace(SubSpace.MAIN);
-            toOriginalIdMap.put(edge.getReference(), relatedOriginalId);
-            edge.setReference(relatedOriginalId);
+            edge.setReference(toOriginalIdMap.get(edge.getReference()).toSubSpace(SubSpace.MAIN));
         }
         newVertex.setInstanceReference(originalId);
         newVertex.toSubSpace(SubSpace.MAIN);
         return newVertex;
     }
 
+    /**
+     * Resolves the original ids of the given references - recently resolved ones are taken from the cache, all others are resolved together.
+     */
+    Map<NexusInstanceReference, NexusInstanceReference> findOriginalIds(Set<NexusInstanceReference> references) {
+        Map<NexusInstanceReference, NexusInstanceReference> result = new HashMap<>();
+        Set<NexusInstanceReference> unresolved = new LinkedHashSet<>();
+        for (NexusInstanceReference reference : references) {
+            NexusInstanceReference cached = originalIdCache.get(reference);
+            if (cached != null) {
+                result.put(reference, cached);
+            } else {
+                unresolved.add(reference);
+            }
+        }
+        if (!unresolved.isEmpty()) {
+            Map<NexusInstanceReference, NexusInstanceReference> originalIds = nativeRepository.findOriginalIds(unresolved);
+            for (Map.Entry<NexusInstanceReference, NexusInstanceReference> originalId : originalIds.entrySet()) {
+                originalIdCache.put(originalId.getKey(), originalId.getValue());
+                result.put(originalId.getKey(), originalId.getValue());
+            }
+        }
+        return result;
+    }
+
 
     public ArangoConnection getConnection(TargetDatabase database) {
         switch (database) {
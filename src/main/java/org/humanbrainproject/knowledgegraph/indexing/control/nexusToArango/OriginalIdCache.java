@@ -0,0 +1,71 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.indexing.control.nexusToArango;
+
+import org.humanbrainproject.knowledgegraph.annotations.Tested;
+import org.humanbrainproject.knowledgegraph.commons.cache.LruTtlCache;
+import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusInstanceReference;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A size-bounded cache of the recently resolved original ids. The entries expire quickly since the resolution changes as soon as the referenced instance is re-indexed -
+ * the cache is meant to prevent the repeated resolution of the same (popular) link targets by subsequent messages. If the maximal size is reached, the least recently used entry is evicted.
+ */
+@Tested
+class OriginalIdCache {
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    private final LruTtlCache<String, NexusInstanceReference> cache = new LruTtlCache<>(10000, 10 * 1000, () -> clock.getAsLong());
+
+    void setMaxSize(int maxSize) {
+        cache.setMaxSize(maxSize);
+    }
+
+    void setTimeToLiveInMillis(long timeToLiveInMillis) {
+        cache.setTimeToLiveInMillis(timeToLiveInMillis);
+    }
+
+    private static String getKey(NexusInstanceReference reference) {
+        return reference.getFullId(true);
+    }
+
+    /**
+     * @return a copy of the original id of the given reference or null if there is no valid entry
+     */
+    NexusInstanceReference get(NexusInstanceReference reference) {
+        NexusInstanceReference originalId = cache.get(getKey(reference));
+        return originalId != null ? originalId.clone() : null;
+    }
+
+    void put(NexusInstanceReference reference, NexusInstanceReference originalId) {
+        cache.put(getKey(reference), originalId.clone());
+    }
+
+    int size() {
+        return cache.size();
+    }
+
+}
@@ -35,14 +35,13 @@ import org.humanbrainproject.knowledgegraph.indexing.entity.QualifiedIndexingMes
 import org.humanbrainproject.knowledgegraph.indexing.entity.knownSemantics.SpatialAnchoring;
 import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusInstanceReference;
 import org.humanbrainproject.knowledgegraph.indexing.entity.todo.TodoList;
-import org.humanbrainproject.knowledgegraph.query.entity.ThreeDVector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.util.Collection;
 
 /**
  * The spatial controller checks, if the incoming message is a known spatial anchoring. If so, it rasterizes the passed
@@ -64,20 +63,36 @@ public class SpatialController implements IndexingController {
     @Autowired
     Solr solr;
 
+    @Value("${org.humanbrainproject.knowledgegraph.spatial.resolution:100}")
+    int defaultResolution = TwoDimensionRasterizer.DEFAULT_RESOLUTION;
+
+    @Value("${org.humanbrainproject.knowledgegraph.spatial.maxResolution:1000}")
+    int maxResolution = 1000;
+
+    private int getResolution(SpatialAnchoring spatial) {
+        Integer resolution = spatial.getResolution();
+        if (resolution == null || resolution < 1) {
+            return defaultResolution;
+        }
+        return Math.min(resolution, maxResolution);
+    }
+
     @Override
     public TodoList insert(QualifiedIndexingMessage message, TodoList todoList) {
         SpatialAnchoring spatial = new SpatialAnchoring(message);
         if (spatial.isInstance()) {
             logger.info("Found spatial anchoring insert - trigger indexing in Solr");
-            Collection<ThreeDVector> points;
-            if(spatial.getFormat().isRasterize()) {
-                points = new TwoDimensionRasterizer(spatial.getTransformation()).raster();
-            }
-            else{
-                points = spatial.getCoordinatesForPointClouds();
-            }
+            String id = ArangoDocumentReference.fromNexusInstance(spatial.getLocatedInstance()).getId();
             try{
-                solr.registerPoints(ArangoDocumentReference.fromNexusInstance(spatial.getLocatedInstance()).getId(), spatial.getReferenceSpace(), points);
+                if(spatial.getFormat().isRasterize()) {
+                    TwoDimensionRasterizer rasterizer = new TwoDimensionRasterizer(spatial.getTransformation(), getResolution(spatial), getResolution(spatial));
+                    try (Solr.PointRegistration registration = solr.registerPoints(id, spatial.getReferenceSpace())) {
+                        rasterizer.raster(registration::add);
+                    }
+                }
+                else{
+                    solr.registerPoints(id, spatial.getReferenceSpace(), spatial.getCoordinatesForPointClouds());
+                }
             }
             catch (IOException | SolrServerException e){
                 throw new RuntimeException(e);
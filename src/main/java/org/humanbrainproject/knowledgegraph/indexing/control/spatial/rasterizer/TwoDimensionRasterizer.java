@@ -47,23 +47,46 @@ public class TwoDimensionRasterizer {
 
     private static Logger logger = LoggerFactory.getLogger(TwoDimensionRasterizer.class);
 
-    private int width = 100;
-    private int height = 100;
+    public static final int DEFAULT_RESOLUTION = 100;
+
+    private final int width;
+    private final int height;
 
     public TwoDimensionRasterizer(ThreeDTransformation transformation) {
+        this(transformation, DEFAULT_RESOLUTION, DEFAULT_RESOLUTION);
+    }
+
+    public TwoDimensionRasterizer(ThreeDTransformation transformation, int width, int height) {
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException(String.format("Invalid resolution of %dx%d for rasterization", width, height));
+        }
         this.transformation = transformation;
+        this.width = width;
+        this.height = height;
+    }
 
+    public int getNumberOfPoints() {
+        return width * height;
     }
 
-    public Collection<ThreeDVector> raster() {
-        List<ThreeDVector> result = new ArrayList<>();
+    /**
+     * Streams the points of the raster to the consumer. Apart from a single coordinate buffer, no objects are allocated.
+     */
+    public void raster(PointConsumer consumer) {
+        double[] point = new double[3];
         for(int row = 0; row<height; row++){
+            double y = (double)row/(double)height;
             for(int col =0; col<width; col++){
-                double y = (double)row/(double)height;
                 double x = (double)col/(double)width;
-                result.add(transformation.getPoint(x, y));
+                transformation.getPoint(x, y, point);
+                consumer.accept(point[0], point[1], point[2]);
             }
         }
+    }
+
+    public Collection<ThreeDVector> raster() {
+        List<ThreeDVector> result = new ArrayList<>(getNumberOfPoints());
+        raster((x, y, z) -> result.add(new ThreeDVector(x, y, z)));
         return result;
     }
 
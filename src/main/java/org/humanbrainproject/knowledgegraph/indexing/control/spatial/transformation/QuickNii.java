@@ -23,10 +23,8 @@
 
 package org.humanbrainproject.knowledgegraph.indexing.control.spatial.transformation;
 
-import org.apache.commons.math3.linear.ArrayRealVector;
 import org.apache.commons.math3.linear.MatrixUtils;
 import org.apache.commons.math3.linear.RealMatrix;
-import org.apache.commons.math3.linear.RealVector;
 import org.humanbrainproject.knowledgegraph.annotations.ToBeTested;
 import org.humanbrainproject.knowledgegraph.query.entity.ThreeDVector;
 
@@ -40,6 +38,13 @@ public class QuickNii implements ThreeDTransformation{
 
     RealMatrix matrix;
 
+    /**
+     * The rows of the matrix (origin, u and v) as primitive values - the point (x, y) is origin + x * u + y * v.
+     */
+    private final double[] o;
+    private final double[] u;
+    private final double[] v;
+
 
     public QuickNii(String anchoring){
         this(ThreeDVector.parse(anchoring));
@@ -52,13 +57,23 @@ public class QuickNii implements ThreeDTransformation{
     private QuickNii(ThreeDVector o, ThreeDVector u, ThreeDVector v) {
         double[][] matrixData = { {o.getX(),o.getY(),o.getZ()}, {u.getX(), u.getY(), u.getZ()}, {v.getX(), v.getY(), v.getZ()}};
         this.matrix = MatrixUtils.createRealMatrix(matrixData);
+        this.o = matrixData[0];
+        this.u = matrixData[1];
+        this.v = matrixData[2];
     }
 
     @Override
     public ThreeDVector getPoint(double x, double y){
-        RealVector vector  = new ArrayRealVector(new double[]{1,x,y});
-        RealVector realVector = matrix.preMultiply(vector);
-        return new ThreeDVector(realVector.getEntry(0), realVector.getEntry(1), realVector.getEntry(2));
+        double[] point = new double[3];
+        getPoint(x, y, point);
+        return new ThreeDVector(point[0], point[1], point[2]);
+    }
+
+    @Override
+    public void getPoint(double x, double y, double[] target) {
+        for (int i = 0; i < 3; i++) {
+            target[i] = o[i] + x * u[i] + y * v[i];
+        }
     }
 
 }
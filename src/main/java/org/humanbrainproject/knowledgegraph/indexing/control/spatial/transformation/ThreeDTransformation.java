@@ -32,4 +32,14 @@ public interface ThreeDTransformation {
 
     ThreeDVector getPoint(double x, double y);
 
+    /**
+     * Writes the coordinates of the point into the given target array (of length 3) instead of creating a new object.
+     */
+    default void getPoint(double x, double y, double[] target) {
+        ThreeDVector point = getPoint(x, y);
+        target[0] = point.getX();
+        target[1] = point.getY();
+        target[2] = point.getZ();
+    }
+
 }
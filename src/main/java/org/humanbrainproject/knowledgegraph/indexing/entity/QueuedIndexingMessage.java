@@ -0,0 +1,97 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.indexing.entity;
+
+import org.humanbrainproject.knowledgegraph.annotations.NoTests;
+import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusInstanceReference;
+import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusSchemaReference;
+
+/**
+ * An indexing request which has been accepted by the API and is waiting in the indexing queue. It is persisted as JSON, which is why it only consists of simple values.
+ */
+@NoTests(NoTests.NO_LOGIC)
+public class QueuedIndexingMessage {
+
+    public enum Operation {
+        INSERT, UPDATE, DELETE
+    }
+
+    private long sequence;
+    private long enqueuedAt;
+    private Operation operation;
+    private String organization;
+    private String domain;
+    private String schema;
+    private String schemaVersion;
+    private String id;
+    private Integer revision;
+    private String payload;
+    private String timestamp;
+    private String userId;
+
+    public QueuedIndexingMessage() {
+    }
+
+    public QueuedIndexingMessage(Operation operation, NexusInstanceReference instanceReference, String payload, String timestamp, String userId) {
+        this.operation = operation;
+        NexusSchemaReference schemaReference = instanceReference.getNexusSchema();
+        this.organization = schemaReference.getOrganization();
+        this.domain = schemaReference.getDomain();
+        this.schema = schemaReference.getSchema();
+        this.schemaVersion = schemaReference.getSchemaVersion();
+        this.id = instanceReference.getId();
+        this.revision = instanceReference.getRevision();
+        this.payload = payload;
+        this.timestamp = timestamp;
+        this.userId = userId;
+    }
+
+    public NexusInstanceReference getInstanceReference() {
+        return new NexusInstanceReference(organization, domain, schema, schemaVersion, id).setRevision(revision);
+    }
+
+    public IndexingMessage toIndexingMessage() {
+        return new IndexingMessage(getInstanceReference(), payload, timestamp, userId);
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public long getEnqueuedAt() {
+        return enqueuedAt;
+    }
+
+    public void setEnqueuedAt(long enqueuedAt) {
+        this.enqueuedAt = enqueuedAt;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+}
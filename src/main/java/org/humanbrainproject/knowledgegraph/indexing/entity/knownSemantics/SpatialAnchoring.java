@@ -88,6 +88,14 @@ public class SpatialAnchoring extends KnownSemantic {
         return o != null ? o.toString() : null;
     }
 
+    /**
+     * @return the number of raster points per dimension requested by the anchoring or null if not defined
+     */
+    public Integer getResolution() {
+        Object o = spec.getQualifiedMap().get(HBPVocabulary.SPATIAL_RESOLUTION);
+        return o instanceof Number ? ((Number) o).intValue() : null;
+    }
+
     public Set<ThreeDVector> getCoordinatesForPointClouds(){
         Object o = spec.getQualifiedMap().get(HBPVocabulary.SPATIAL_COORDINATES);
         if(o instanceof List){
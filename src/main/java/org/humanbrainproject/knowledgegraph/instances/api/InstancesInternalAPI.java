@@ -24,12 +24,14 @@
 package org.humanbrainproject.knowledgegraph.instances.api;
 
 import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 import org.humanbrainproject.knowledgegraph.annotations.ToBeTested;
 import org.humanbrainproject.knowledgegraph.commons.InternalApi;
 import org.humanbrainproject.knowledgegraph.commons.api.Client;
 import org.humanbrainproject.knowledgegraph.commons.api.RestUtils;
 import org.humanbrainproject.knowledgegraph.commons.authorization.control.AuthorizationContext;
+import org.humanbrainproject.knowledgegraph.commons.authorization.exceptions.InsufficientPermissions;
 import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.ArangoInferredRepository;
 import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.ArangoNativeRepository;
 import org.humanbrainproject.knowledgegraph.commons.propertyGraph.entity.SubSpace;
@@ -40,6 +42,7 @@ import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusInstanceR
 import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusSchemaReference;
 import org.humanbrainproject.knowledgegraph.instances.boundary.Instances;
 import org.humanbrainproject.knowledgegraph.instances.control.InstanceLookupController;
+import org.humanbrainproject.knowledgegraph.instances.entity.MaintenanceJob;
 import org.humanbrainproject.knowledgegraph.query.boundary.ArangoGraph;
 import org.humanbrainproject.knowledgegraph.query.entity.DatabaseScope;
 import org.humanbrainproject.knowledgegraph.query.entity.JsonDocument;
@@ -48,6 +51,7 @@ import org.humanbrainproject.knowledgegraph.query.entity.QueryResult;
 import org.humanbrainproject.knowledgegraph.releasing.entity.ReleaseStatus;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.client.HttpClientErrorException;
@@ -56,6 +60,7 @@ import javax.ws.rs.BadRequestException;
 import javax.ws.rs.InternalServerErrorException;
 import javax.ws.rs.NotFoundException;
 import javax.ws.rs.core.MediaType;
+import java.io.IOException;
 import java.util.*;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -114,26 +119,77 @@ public class InstancesInternalAPI {
     }
 
 
+    @ApiOperation(value = "Reindex all instances of the schema", notes = "The instances are reindexed by a background job (see /maintenance/jobs for its progress)")
     @PutMapping(value = "/{"+ORG+"}/{"+DOMAIN+"}/{"+SCHEMA+"}/{"+VERSION+"}/reindex")
-    public ResponseEntity<Void> reindexInstancesFromSchema(@PathVariable(ORG) String org, @PathVariable(DOMAIN) String domain, @PathVariable(SCHEMA) String schema, @PathVariable(VERSION) String version, @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorizationToken) {
+    public ResponseEntity<MaintenanceJob> reindexInstancesFromSchema(@PathVariable(ORG) String org, @PathVariable(DOMAIN) String domain, @PathVariable(SCHEMA) String schema, @PathVariable(VERSION) String version, @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorizationToken) throws IOException {
         authorizationContext.populateAuthorizationContext(authorizationToken);
-        instances.reindexInstancesFromSchema(new NexusSchemaReference(org, domain, schema, version));
-        return ResponseEntity.ok().build();
+        try {
+            return ResponseEntity.accepted().body(instances.reindexInstancesFromSchema(new NexusSchemaReference(org, domain, schema, version)));
+        } catch (InsufficientPermissions e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
     }
 
 
+    @ApiOperation(value = "Clone all instances of the schema to a new schema version", notes = "The instances are cloned by a background job (see /maintenance/jobs for its progress)")
     @PutMapping(value = "/{"+ORG+"}/{"+DOMAIN+"}/{"+SCHEMA+"}/{oldVersion}/clone/{newVersion}")
-    public ResponseEntity<Void> cloneInstancesFromSchema(@PathVariable(ORG) String org, @PathVariable(DOMAIN) String domain, @PathVariable(SCHEMA) String schema, @PathVariable("oldVersion") String oldVersion, @PathVariable("newVersion") String newVersion, @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorizationToken) {
+    public ResponseEntity<MaintenanceJob> cloneInstancesFromSchema(@PathVariable(ORG) String org, @PathVariable(DOMAIN) String domain, @PathVariable(SCHEMA) String schema, @PathVariable("oldVersion") String oldVersion, @PathVariable("newVersion") String newVersion, @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorizationToken) throws IOException {
         authorizationContext.populateAuthorizationContext(authorizationToken);
-        instances.cloneInstancesFromSchema(new NexusSchemaReference(org, domain, schema, oldVersion), newVersion);
-        return ResponseEntity.ok().build();
+        try {
+            return ResponseEntity.accepted().body(instances.cloneInstancesFromSchema(new NexusSchemaReference(org, domain, schema, oldVersion), newVersion));
+        } catch (InsufficientPermissions e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
     }
 
+    @ApiOperation(value = "Translate the namespaces of all instances of the schema", notes = "The instances are translated by a background job (see /maintenance/jobs for its progress)")
     @PutMapping(value = "/{"+ORG+"}/{"+DOMAIN+"}/{"+SCHEMA+"}/{"+VERSION+"}/namespaces")
-    public ResponseEntity<Void> translateNamespacesForSchema(@PathVariable(ORG) String org, @PathVariable(DOMAIN) String domain, @PathVariable(SCHEMA) String schema, @PathVariable(VERSION) String version, @RequestHeader(value = "oldNamespace") String oldNamespace, @RequestHeader(value = "newNamespace") String newNamespace, @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorizationToken) {
+    public ResponseEntity<MaintenanceJob> translateNamespacesForSchema(@PathVariable(ORG) String org, @PathVariable(DOMAIN) String domain, @PathVariable(SCHEMA) String schema, @PathVariable(VERSION) String version, @RequestHeader(value = "oldNamespace") String oldNamespace, @RequestHeader(value = "newNamespace") String newNamespace, @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorizationToken) throws IOException {
+        authorizationContext.populateAuthorizationContext(authorizationToken);
+        try {
+            return ResponseEntity.accepted().body(instances.translateNamespaces(new NexusSchemaReference(org, domain, schema, version), oldNamespace, newNamespace));
+        } catch (InsufficientPermissions e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+    }
+
+    @ApiOperation(value = "The maintenance jobs (reindexing, cloning, namespace translation) and their progress", notes = "Only the jobs of the organizations the user has read access to are listed")
+    @GetMapping(value = "/maintenance/jobs")
+    public ResponseEntity<List<MaintenanceJob>> getMaintenanceJobs(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorizationToken) throws IOException {
+        authorizationContext.populateAuthorizationContext(authorizationToken);
+        return ResponseEntity.ok(instances.getMaintenanceJobs());
+    }
+
+    @ApiOperation(value = "The progress of a maintenance job", notes = "Jobs of organizations the user has no read access to are not found")
+    @GetMapping(value = "/maintenance/jobs/{jobId}")
+    public ResponseEntity<MaintenanceJob> getMaintenanceJob(@PathVariable("jobId") String jobId, @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorizationToken) throws IOException {
+        authorizationContext.populateAuthorizationContext(authorizationToken);
+        MaintenanceJob job = instances.getMaintenanceJob(jobId);
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+    }
+
+    @ApiOperation(value = "Cancel a maintenance job", notes = "The instances which are currently processed are completed - the job can be resumed later on")
+    @DeleteMapping(value = "/maintenance/jobs/{jobId}")
+    public ResponseEntity<MaintenanceJob> cancelMaintenanceJob(@PathVariable("jobId") String jobId, @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorizationToken) throws IOException {
         authorizationContext.populateAuthorizationContext(authorizationToken);
-        instances.translateNamespaces(new NexusSchemaReference(org, domain, schema, version), oldNamespace, newNamespace);
-        return ResponseEntity.ok().build();
+        try {
+            MaintenanceJob job = instances.cancelMaintenanceJob(jobId);
+            return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+        } catch (InsufficientPermissions e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+    }
+
+    @ApiOperation(value = "Resume a cancelled, failed or partially failed maintenance job", notes = "Instances which have already been processed successfully are skipped")
+    @PutMapping(value = "/maintenance/jobs/{jobId}/resume")
+    public ResponseEntity<MaintenanceJob> resumeMaintenanceJob(@PathVariable("jobId") String jobId, @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorizationToken) throws IOException {
+        authorizationContext.populateAuthorizationContext(authorizationToken);
+        try {
+            MaintenanceJob job = instances.resumeMaintenanceJob(jobId);
+            return job != null ? ResponseEntity.accepted().body(job) : ResponseEntity.notFound().build();
+        } catch (InsufficientPermissions e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
     }
 
     @GetMapping(value = "/{"+ORG+"}/{"+DOMAIN+"}/{"+SCHEMA+"}/{"+VERSION+"}/identifier/{identifier}")
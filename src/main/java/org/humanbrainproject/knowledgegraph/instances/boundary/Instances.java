@@ -31,7 +31,8 @@ import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusInstanceR
 import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusSchemaReference;
 import org.humanbrainproject.knowledgegraph.instances.control.InstanceLookupController;
 import org.humanbrainproject.knowledgegraph.instances.control.InstanceManipulationController;
-import org.humanbrainproject.knowledgegraph.instances.control.InstanceMaintenanceController;
+import org.humanbrainproject.knowledgegraph.instances.control.InstanceMaintenanceJobs;
+import org.humanbrainproject.knowledgegraph.instances.entity.MaintenanceJob;
 import org.humanbrainproject.knowledgegraph.query.entity.JsonDocument;
 import org.humanbrainproject.knowledgegraph.query.entity.Pagination;
 import org.humanbrainproject.knowledgegraph.query.entity.QueryResult;
@@ -57,7 +58,7 @@ public class Instances {
     InstanceManipulationController manipulationController;
 
     @Autowired
-    InstanceMaintenanceController instanceMaintenanceController;
+    InstanceMaintenanceJobs instanceMaintenanceJobs;
 
     @Autowired
     JsonTransformer jsonTransformer;
@@ -96,16 +97,32 @@ public class Instances {
         return manipulationController.removeInstance(nexusInstanceReference);
     }
 
-    public void cloneInstancesFromSchema(NexusSchemaReference originalSchema, String newVersion) {
-        instanceMaintenanceController.cloneInstancesFromSchema(originalSchema, newVersion);
+    public MaintenanceJob cloneInstancesFromSchema(NexusSchemaReference originalSchema, String newVersion) throws IOException {
+        return instanceMaintenanceJobs.submit(MaintenanceJob.cloneToVersion(originalSchema, newVersion));
     }
 
-    public void reindexInstancesFromSchema(NexusSchemaReference schemaReference) {
-        instanceMaintenanceController.reindexInstancesFromSchema(schemaReference);
+    public MaintenanceJob reindexInstancesFromSchema(NexusSchemaReference schemaReference) throws IOException {
+        return instanceMaintenanceJobs.submit(MaintenanceJob.reindex(schemaReference));
     }
 
-    public void translateNamespaces(NexusSchemaReference schema, String oldNamespace, String newNamespace) {
-        instanceMaintenanceController.translateNamespaces(schema, oldNamespace, newNamespace);
+    public MaintenanceJob translateNamespaces(NexusSchemaReference schema, String oldNamespace, String newNamespace) throws IOException {
+        return instanceMaintenanceJobs.submit(MaintenanceJob.translateNamespaces(schema, oldNamespace, newNamespace));
+    }
+
+    public List<MaintenanceJob> getMaintenanceJobs() throws IOException {
+        return instanceMaintenanceJobs.getReadableJobs();
+    }
+
+    public MaintenanceJob getMaintenanceJob(String jobId) throws IOException {
+        return instanceMaintenanceJobs.getReadableJob(jobId);
+    }
+
+    public MaintenanceJob cancelMaintenanceJob(String jobId) throws IOException {
+        return instanceMaintenanceJobs.cancel(jobId);
+    }
+
+    public MaintenanceJob resumeMaintenanceJob(String jobId) throws IOException {
+        return instanceMaintenanceJobs.resume(jobId);
     }
 
     public List<Map> getInstancesByReferences(Set<NexusInstanceReference> references, String queryId, String vocab, Map<String, String> queryParams) throws SolrServerException, JSONException, IOException {
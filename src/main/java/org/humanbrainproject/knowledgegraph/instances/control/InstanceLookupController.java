@@ -53,6 +53,7 @@ import java.io.IOException;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Component
 @ToBeTested(integrationTestRequired = true)
@@ -130,13 +131,11 @@ public class InstanceLookupController {
         return nexusClient.get(instanceReference.getRelativeUrl(), authorizationContext.getCredential());
     }
 
-
-    List<NexusInstanceReference> getAllInstancesForSchema(NexusSchemaReference nexusSchemaReference) {
-        List<JsonDocument> list = nexusClient.list(nexusSchemaReference, authorizationContext.getCredential(), true);
-        if (list != null) {
-            return list.stream().map(d -> d.get("resultId")).filter(o -> o instanceof String).map(o -> NexusInstanceReference.createFromUrl((String) o)).collect(Collectors.toList());
-        }
-        return Collections.emptyList();
+    /**
+     * Streams the instances of the schema while their pages are loaded from Nexus
+     */
+    Stream<NexusInstanceReference> streamAllInstancesForSchema(NexusSchemaReference nexusSchemaReference) {
+        return nexusClient.streamInstances(nexusSchemaReference, authorizationContext.getCredential());
     }
 
     public JsonDocument getInstance(NexusInstanceReference instanceReference) {
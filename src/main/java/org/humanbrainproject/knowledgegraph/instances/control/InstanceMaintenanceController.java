@@ -35,6 +35,7 @@ import org.humanbrainproject.knowledgegraph.indexing.boundary.GraphIndexing;
 import org.humanbrainproject.knowledgegraph.indexing.entity.IndexingMessage;
 import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusInstanceReference;
 import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusSchemaReference;
+import org.humanbrainproject.knowledgegraph.instances.entity.MaintenanceJob;
 import org.humanbrainproject.knowledgegraph.query.entity.JsonDocument;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,7 +45,7 @@ import org.springframework.stereotype.Component;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.util.stream.Stream;
 
 @ToBeTested(integrationTestRequired = true)
 @Component
@@ -79,40 +80,64 @@ public class InstanceMaintenanceController {
 
     private Logger logger = LoggerFactory.getLogger(InstanceMaintenanceController.class);
 
-    public void cloneInstancesFromSchema(NexusSchemaReference originalSchema, String newVersion) {
-        List<NexusInstanceReference> allInstancesForSchema = lookupController.getAllInstancesForSchema(originalSchema);
-        for (NexusInstanceReference instanceReference : allInstancesForSchema) {
-            JsonDocument fromNexusById = lookupController.getFromNexusById(instanceReference);
-            //Ensure the right type
-            fromNexusById.addType(schemaController.getTargetClass(originalSchema));
-            //Redirect links
-            JsonDocument redirectedJson = pointLinksToSchema(fromNexusById, newVersion);
-            NexusSchemaReference schemaReference = new NexusSchemaReference(originalSchema.getOrganization(), originalSchema.getDomain(), originalSchema.getSchema(), newVersion);
-            manipulationController.createInstanceByIdentifier(schemaReference, fromNexusById.getPrimaryIdentifier(), redirectedJson, authorizationContext.getUserId());
+    /**
+     * Lazily streams the instances the maintenance job is applied to.
+     */
+    public Stream<NexusInstanceReference> streamInstances(MaintenanceJob job) {
+        return lookupController.streamAllInstancesForSchema(job.toSchemaReference());
+    }
+
+    /**
+     * Applies the operation of the maintenance job to a single instance.
+     */
+    public void process(MaintenanceJob job, NexusInstanceReference instanceReference) {
+        switch (job.getOperation()) {
+            case REINDEX:
+                reindexInstance(instanceReference, job.getUserId());
+                break;
+            case CLONE:
+                cloneInstance(job.toSchemaReference(), instanceReference, job.getNewVersion(), job.getUserId());
+                break;
+            case TRANSLATE_NAMESPACES:
+                translateNamespaces(instanceReference, job.getOldNamespace(), job.getNewNamespace(), job.getUserId());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown operation " + job.getOperation());
         }
     }
 
+    void cloneInstance(NexusSchemaReference originalSchema, NexusInstanceReference instanceReference, String newVersion, String userId) {
+        JsonDocument fromNexusById = lookupController.getFromNexusById(instanceReference);
+        if (fromNexusById == null) {
+            //The instance has been removed in the meantime - there is nothing to do.
+            return;
+        }
+        //Ensure the right type
+        fromNexusById.addType(schemaController.getTargetClass(originalSchema));
+        //Redirect links
+        JsonDocument redirectedJson = pointLinksToSchema(fromNexusById, newVersion);
+        NexusSchemaReference schemaReference = new NexusSchemaReference(originalSchema.getOrganization(), originalSchema.getDomain(), originalSchema.getSchema(), newVersion);
+        manipulationController.createInstanceByIdentifier(schemaReference, fromNexusById.getPrimaryIdentifier(), redirectedJson, userId);
+    }
 
-    public void reindexInstancesFromSchema(NexusSchemaReference schemaReference) {
-        nexusClient.consumeInstances(schemaReference, authorizationContext.getCredential(), true, instanceReferences -> {
-            for (NexusInstanceReference instanceReference : instanceReferences) {
-                if (instanceReference != null) {
-                    JsonDocument fromNexusById = lookupController.getFromNexusById(instanceReference);
-                    IndexingMessage indexingMessage = new IndexingMessage(fromNexusById.getReference(), jsonTransformer.getMapAsJson(fromNexusById), ZonedDateTime.now(ZoneOffset.UTC).format(DateTimeFormatter.ISO_INSTANT), authorizationContext.getUserId());
-                    graphIndexing.update(indexingMessage);
-                }
-            }
-        });
+
+    void reindexInstance(NexusInstanceReference instanceReference, String userId) {
+        JsonDocument fromNexusById = lookupController.getFromNexusById(instanceReference);
+        if (fromNexusById == null) {
+            return;
+        }
+        IndexingMessage indexingMessage = new IndexingMessage(fromNexusById.getReference(), jsonTransformer.getMapAsJson(fromNexusById), ZonedDateTime.now(ZoneOffset.UTC).format(DateTimeFormatter.ISO_INSTANT), userId);
+        graphIndexing.update(indexingMessage);
     }
 
 
-    public void translateNamespaces(NexusSchemaReference schema, String oldNamespace, String newNamespace) {
-        List<NexusInstanceReference> allInstancesForSchema = lookupController.getAllInstancesForSchema(schema);
-        for (NexusInstanceReference instanceReference : allInstancesForSchema) {
-            JsonDocument fromNexusById = lookupController.getFromNexusById(instanceReference);
-            fromNexusById.replaceNamespace(oldNamespace, newNamespace);
-            manipulationController.createInstanceByNexusId(instanceReference.getNexusSchema(), instanceReference.getId(), instanceReference.getRevision(), fromNexusById, authorizationContext.getUserId());
+    void translateNamespaces(NexusInstanceReference instanceReference, String oldNamespace, String newNamespace, String userId) {
+        JsonDocument fromNexusById = lookupController.getFromNexusById(instanceReference);
+        if (fromNexusById == null) {
+            return;
         }
+        fromNexusById.replaceNamespace(oldNamespace, newNamespace);
+        manipulationController.createInstanceByNexusId(instanceReference.getNexusSchema(), instanceReference.getId(), instanceReference.getRevision(), fromNexusById, userId);
     }
 
 
@@ -0,0 +1,460 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.instances.control;
+
+import com.google.gson.Gson;
+import org.humanbrainproject.knowledgegraph.annotations.Tested;
+import org.humanbrainproject.knowledgegraph.commons.authorization.control.AuthorizationContext;
+import org.humanbrainproject.knowledgegraph.commons.authorization.exceptions.InsufficientPermissions;
+import org.humanbrainproject.knowledgegraph.context.DetachedRequestAttributes;
+import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusInstanceReference;
+import org.humanbrainproject.knowledgegraph.instances.entity.MaintenanceJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Runs the maintenance operations of the {@link InstanceMaintenanceController} as background jobs: The instances of a schema are processed by the maintenance workers (shared by all jobs) and every processed instance is checkpointed in a local directory.
+ * Jobs which were running when the application stopped are resumed on startup and skip the instances which have already been processed.
+ * Since a job can outlive the token of the user who submitted it, the workers act with the master credential (as the {@link org.humanbrainproject.knowledgegraph.indexing.boundary.IndexingQueue} does) - the user is only recorded as the author of the changes.
+ * Jobs can therefore only be submitted (and resumed or cancelled) by users who have write access to the organization of the schema.
+ */
+@Component
+@Tested
+public class InstanceMaintenanceJobs {
+
+    private static final String JOB_SUFFIX = ".json";
+    private static final String CHECKPOINT_SUFFIX = ".done";
+
+    @Autowired
+    InstanceMaintenanceController maintenanceController;
+
+    @Autowired
+    AuthorizationContext authorizationContext;
+
+    @Autowired
+    @Qualifier("maintenance")
+    ExecutorService executorService;
+
+    @Value("${org.humanbrainproject.knowledgegraph.instances.maintenance.directory:${org.humanbrainproject.knowledgegraph.dataDirectory:${user.home}/.kg-query}/maintenance-jobs}")
+    String directory;
+
+    @Value("${org.humanbrainproject.knowledgegraph.instances.maintenance.parallelism:8}")
+    int parallelism;
+
+    @Value("${org.humanbrainproject.knowledgegraph.instances.maintenance.progressInterval:100}")
+    int progressInterval;
+
+    @Value("${org.humanbrainproject.knowledgegraph.instances.maintenance.shutdownTimeout:30000}")
+    long shutdownTimeout;
+
+    private final Gson gson = new Gson();
+    private final Map<String, JobExecution> executions = new ConcurrentHashMap<>();
+    private ExecutorService coordinators;
+
+    private Logger logger = LoggerFactory.getLogger(InstanceMaintenanceJobs.class);
+
+    private static class JobExecution {
+        private final MaintenanceJob job;
+        private final AtomicLong processed;
+        private final AtomicLong failed = new AtomicLong();
+        private volatile boolean cancelled;
+        private BufferedWriter checkpoint;
+
+        private JobExecution(MaintenanceJob job, long alreadyProcessed) {
+            this.job = job;
+            this.processed = new AtomicLong(alreadyProcessed);
+        }
+    }
+
+    private synchronized ExecutorService getCoordinators() throws IOException {
+        if (coordinators == null) {
+            Files.createDirectories(getDirectory());
+            coordinators = Executors.newCachedThreadPool();
+        }
+        return coordinators;
+    }
+
+    private Path getDirectory() {
+        return Paths.get(directory);
+    }
+
+    private Path getJobFile(String jobId) {
+        return getDirectory().resolve(jobId + JOB_SUFFIX);
+    }
+
+    private Path getCheckpointFile(String jobId) {
+        return getDirectory().resolve(jobId + CHECKPOINT_SUFFIX);
+    }
+
+    private void checkWritePermission(MaintenanceJob job) {
+        String organization = job.toSchemaReference().getOrganization();
+        if (!authorizationContext.isWritable(organization)) {
+            throw new InsufficientPermissions(String.format("The user has no write access to the organization %s", organization));
+        }
+    }
+
+    /**
+     * Persists the job and starts it in the background. The user of the current request is recorded as the author of the changes.
+     *
+     * @return the submitted job (including its id)
+     * @throws InsufficientPermissions if the user of the current request has no write access to the organization of the schema
+     */
+    public MaintenanceJob submit(MaintenanceJob job) throws IOException {
+        checkWritePermission(job);
+        job.setId(UUID.randomUUID().toString());
+        job.setUserId(authorizationContext.getUserId());
+        job.setSubmittedAt(System.currentTimeMillis());
+        start(job);
+        return getJob(job.getId());
+    }
+
+    /**
+     * Continues a job which has been cancelled, has failed or has completed with failures. Instances which have already been processed successfully are skipped.
+     *
+     * @return the resumed job or null if there is no such job
+     */
+    public MaintenanceJob resume(String jobId) throws IOException {
+        if (!executions.containsKey(jobId)) {
+            MaintenanceJob job = loadJob(jobId);
+            if (job == null) {
+                return null;
+            }
+            checkWritePermission(job);
+            if (job.getState() != MaintenanceJob.State.COMPLETED || job.getFailed() > 0) {
+                start(job);
+            }
+        }
+        return getJob(jobId);
+    }
+
+    /**
+     * Stops the job after the instances which are currently processed. It can be continued with {@link #resume(String)}.
+     *
+     * @return the job or null if there is no such job
+     */
+    public MaintenanceJob cancel(String jobId) throws IOException {
+        JobExecution execution = executions.get(jobId);
+        if (execution != null) {
+            checkWritePermission(execution.job);
+            execution.cancelled = true;
+        }
+        return getJob(jobId);
+    }
+
+    private synchronized void start(MaintenanceJob job) throws IOException {
+        ExecutorService executorService = getCoordinators();
+        if (executions.containsKey(job.getId())) {
+            return;
+        }
+        Set<String> alreadyProcessed = readCheckpoint(job.getId());
+        JobExecution execution = new JobExecution(job, alreadyProcessed.size());
+        job.setState(MaintenanceJob.State.RUNNING);
+        job.setMessage(null);
+        executions.put(job.getId(), execution);
+        persist(execution);
+        executorService.execute(() -> run(execution, alreadyProcessed));
+    }
+
+    private Set<String> readCheckpoint(String jobId) throws IOException {
+        Path checkpointFile = getCheckpointFile(jobId);
+        if (!Files.exists(checkpointFile)) {
+            return new HashSet<>();
+        }
+        try (Stream<String> lines = Files.lines(checkpointFile, StandardCharsets.UTF_8)) {
+            return lines.filter(l -> !l.isEmpty()).collect(Collectors.toSet());
+        }
+    }
+
+    private void run(JobExecution execution, Set<String> alreadyProcessed) {
+        MaintenanceJob job = execution.job;
+        logger.info("Starting the {} of {} (job {}, {} instances already processed)", job.getOperation(), job.getSchema(), job.getId(), alreadyProcessed.size());
+        //Bounds the number of instances of this job which are handed to the shared workers ahead of their processing.
+        int maxInFlight = Math.max(parallelism, 1) * 2;
+        Semaphore permits = new Semaphore(maxInFlight);
+        Set<Future<?>> inFlight = ConcurrentHashMap.newKeySet();
+        boolean interrupted = false;
+        try (BufferedWriter checkpoint = Files.newBufferedWriter(getCheckpointFile(job.getId()), StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            synchronized (execution) {
+                execution.checkpoint = checkpoint;
+            }
+            try {
+                try {
+                    interrupted = DetachedRequestAttributes.execute(() -> dispatch(execution, alreadyProcessed, permits, inFlight));
+                } catch (RuntimeException e) {
+                    fail(job, e);
+                }
+                interrupted = awaitWorkers(permits, maxInFlight, interrupted);
+            } finally {
+                //Workers which are still running after this point don't checkpoint their instance anymore - it is processed again when the job is resumed.
+                synchronized (execution) {
+                    execution.checkpoint = null;
+                }
+            }
+        } catch (IOException e) {
+            fail(job, e);
+        } finally {
+            //Only the instances of this job are cancelled - the workers are shared with the other jobs.
+            inFlight.forEach(f -> f.cancel(true));
+            if (interrupted) {
+                //The application is shutting down - the job remains in the running state and is resumed at the next startup.
+                Thread.currentThread().interrupt();
+            } else if (job.getState() != MaintenanceJob.State.FAILED) {
+                job.setState(execution.cancelled ? MaintenanceJob.State.CANCELLED : MaintenanceJob.State.COMPLETED);
+            }
+            finish(execution);
+        }
+    }
+
+    /**
+     * Waits for the instances which have already been handed to the workers (they are done as soon as all permits have been returned). If the run is interrupted (the application is shutting down),
+     * the workers get at most {@link #shutdownTimeout} milliseconds to finish their current instance.
+     *
+     * @return true if the run has been interrupted
+     */
+    private boolean awaitWorkers(Semaphore permits, int maxInFlight, boolean interrupted) {
+        if (!interrupted) {
+            try {
+                permits.acquire(maxInFlight);
+                return false;
+            } catch (InterruptedException e) {
+                //Fall through to the bounded wait
+            }
+        }
+        try {
+            permits.tryAcquire(maxInFlight, Math.max(shutdownTimeout, 0), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            logger.warn("Interrupted while waiting for the maintenance workers to finish");
+        }
+        return true;
+    }
+
+    /**
+     * Hands the instances which haven't been processed yet to the workers.
+     *
+     * @return true if the dispatching has been interrupted
+     */
+    private boolean dispatch(JobExecution execution, Set<String> alreadyProcessed, Semaphore permits, Set<Future<?>> inFlight) {
+        authorizationContext.setMasterCredential();
+        Iterator<NexusInstanceReference> instances = maintenanceController.streamInstances(execution.job).iterator();
+        while (!execution.cancelled && instances.hasNext()) {
+            NexusInstanceReference instance = instances.next();
+            if (instance != null && !alreadyProcessed.contains(instance.getFullId(false))) {
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    return true;
+                }
+                FutureTask<Void> task = new FutureTask<Void>(() -> process(execution, instance), null) {
+                    @Override
+                    protected void done() {
+                        inFlight.remove(this);
+                        permits.release();
+                    }
+                };
+                inFlight.add(task);
+                try {
+                    executorService.execute(task);
+                } catch (RejectedExecutionException e) {
+                    //The workers are shut down together with the application
+                    task.cancel(false);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void fail(MaintenanceJob job, Exception e) {
+        logger.error(String.format("The %s of %s (job %s) has failed", job.getOperation(), job.getSchema(), job.getId()), e);
+        job.setMessage(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        job.setState(MaintenanceJob.State.FAILED);
+    }
+
+    private void process(JobExecution execution, NexusInstanceReference instance) {
+        try {
+            DetachedRequestAttributes.execute(() -> {
+                authorizationContext.setMasterCredential();
+                maintenanceController.process(execution.job, instance);
+                return null;
+            });
+            synchronized (execution) {
+                if (execution.checkpoint == null) {
+                    //The run has been interrupted in the meantime - the instance is processed again when the job is resumed.
+                    return;
+                }
+                execution.checkpoint.write(instance.getFullId(false));
+                execution.checkpoint.newLine();
+                execution.checkpoint.flush();
+            }
+            if (execution.processed.incrementAndGet() % Math.max(progressInterval, 1) == 0) {
+                persist(execution);
+            }
+        } catch (Exception e) {
+            synchronized (execution) {
+                if (execution.checkpoint == null) {
+                    //Aborted by the interruption of the run - not a failure of the instance since it is processed again when the job is resumed.
+                    logger.info(String.format("The %s of instance %s (job %s) has been aborted", execution.job.getOperation(), instance.getRelativeUrl().getUrl(), execution.job.getId()));
+                    return;
+                }
+            }
+            logger.error(String.format("Was not able to apply the %s of job %s to instance %s", execution.job.getOperation(), execution.job.getId(), instance.getRelativeUrl().getUrl()), e);
+            execution.failed.incrementAndGet();
+        }
+    }
+
+    private void finish(JobExecution execution) {
+        MaintenanceJob job = execution.job;
+        try {
+            persist(execution);
+            if (job.getState() == MaintenanceJob.State.COMPLETED && job.getFailed() == 0) {
+                //Nothing has to be resumed anymore - the checkpoint is not needed.
+                Files.deleteIfExists(getCheckpointFile(job.getId()));
+            }
+        } catch (IOException e) {
+            logger.error(String.format("Was not able to persist the state of job %s", job.getId()), e);
+        } finally {
+            executions.remove(job.getId());
+        }
+        logger.info("The {} of {} (job {}) is {}: {} instances processed, {} failed", job.getOperation(), job.getSchema(), job.getId(), job.getState(), job.getProcessed(), job.getFailed());
+    }
+
+    private void persist(JobExecution execution) throws IOException {
+        synchronized (execution.job) {
+            MaintenanceJob job = execution.job;
+            job.setProcessed(execution.processed.get());
+            job.setFailed(execution.failed.get());
+            job.setUpdatedAt(System.currentTimeMillis());
+            Path file = getJobFile(job.getId());
+            Path tempFile = getDirectory().resolve(file.getFileName() + ".tmp");
+            Files.write(tempFile, gson.toJson(job).getBytes(StandardCharsets.UTF_8));
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    private MaintenanceJob loadJob(String jobId) throws IOException {
+        Path file = getJobFile(jobId);
+        if (!file.getParent().equals(getDirectory()) || !Files.exists(file)) {
+            return null;
+        }
+        return gson.fromJson(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), MaintenanceJob.class);
+    }
+
+    /**
+     * @return the current state of the job (with the live progress if it is running) or null if there is no such job
+     */
+    public MaintenanceJob getJob(String jobId) throws IOException {
+        JobExecution execution = executions.get(jobId);
+        if (execution != null) {
+            synchronized (execution.job) {
+                execution.job.setProcessed(execution.processed.get());
+                execution.job.setFailed(execution.failed.get());
+                return gson.fromJson(gson.toJson(execution.job), MaintenanceJob.class);
+            }
+        }
+        return loadJob(jobId);
+    }
+
+    /**
+     * @return the job if the user of the current request has read access to the organization of its schema - null otherwise or if there is no such job
+     */
+    public MaintenanceJob getReadableJob(String jobId) throws IOException {
+        MaintenanceJob job = getJob(jobId);
+        return job != null && isReadable(job, authorizationContext.getReadableOrganizations()) ? job : null;
+    }
+
+    /**
+     * @return the jobs of the organizations the user of the current request has read access to
+     */
+    public List<MaintenanceJob> getReadableJobs() throws IOException {
+        Set<String> readableOrganizations = authorizationContext.getReadableOrganizations();
+        return getJobs().stream().filter(j -> isReadable(j, readableOrganizations)).collect(Collectors.toList());
+    }
+
+    private boolean isReadable(MaintenanceJob job, Set<String> readableOrganizations) {
+        return readableOrganizations != null && readableOrganizations.contains(job.toSchemaReference().getOrganization());
+    }
+
+    public List<MaintenanceJob> getJobs() throws IOException {
+        if (!Files.exists(getDirectory())) {
+            return Collections.emptyList();
+        }
+        List<String> jobIds;
+        try (Stream<Path> files = Files.list(getDirectory())) {
+            jobIds = files.map(f -> f.getFileName().toString()).filter(f -> f.endsWith(JOB_SUFFIX)).map(f -> f.substring(0, f.length() - JOB_SUFFIX.length())).collect(Collectors.toList());
+        }
+        List<MaintenanceJob> jobs = new ArrayList<>();
+        for (String jobId : jobIds) {
+            MaintenanceJob job = getJob(jobId);
+            if (job != null) {
+                jobs.add(job);
+            }
+        }
+        jobs.sort(Comparator.comparingLong(MaintenanceJob::getSubmittedAt));
+        return jobs;
+    }
+
+    /**
+     * Resumes the jobs which were running when the application stopped.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() throws IOException {
+        List<MaintenanceJob> interruptedJobs = getJobs().stream().filter(j -> j.getState() == MaintenanceJob.State.RUNNING && !executions.containsKey(j.getId())).collect(Collectors.toList());
+        for (MaintenanceJob job : interruptedJobs) {
+            start(job);
+        }
+        if (!interruptedJobs.isEmpty()) {
+            logger.info("Resumed {} interrupted maintenance jobs from {}", interruptedJobs.size(), directory);
+        }
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public synchronized void shutdown() throws InterruptedException {
+        if (coordinators != null) {
+            coordinators.shutdownNow();
+            coordinators.awaitTermination(30, TimeUnit.SECONDS);
+            coordinators = null;
+        }
+    }
+}
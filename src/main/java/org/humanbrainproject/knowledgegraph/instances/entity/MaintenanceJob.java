@@ -0,0 +1,175 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.instances.entity;
+
+import org.humanbrainproject.knowledgegraph.annotations.NoTests;
+import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusSchemaReference;
+
+/**
+ * A maintenance operation (reindexing, cloning or namespace translation) which is applied to all instances of a schema in the background. It is persisted as JSON, which is why it only consists of simple values.
+ */
+@NoTests(NoTests.NO_LOGIC)
+public class MaintenanceJob {
+
+    public enum Operation {
+        REINDEX, CLONE, TRANSLATE_NAMESPACES
+    }
+
+    public enum State {
+        RUNNING, COMPLETED, CANCELLED, FAILED
+    }
+
+    private String id;
+    private Operation operation;
+    private String organization;
+    private String domain;
+    private String schema;
+    private String schemaVersion;
+    private String newVersion;
+    private String oldNamespace;
+    private String newNamespace;
+    private String userId;
+    private State state;
+    private String message;
+    private long submittedAt;
+    private long updatedAt;
+    private long processed;
+    private long failed;
+
+    public MaintenanceJob() {
+    }
+
+    private MaintenanceJob(Operation operation, NexusSchemaReference schemaReference) {
+        this.operation = operation;
+        this.organization = schemaReference.getOrganization();
+        this.domain = schemaReference.getDomain();
+        this.schema = schemaReference.getSchema();
+        this.schemaVersion = schemaReference.getSchemaVersion();
+    }
+
+    public static MaintenanceJob reindex(NexusSchemaReference schemaReference) {
+        return new MaintenanceJob(Operation.REINDEX, schemaReference);
+    }
+
+    public static MaintenanceJob cloneToVersion(NexusSchemaReference originalSchema, String newVersion) {
+        MaintenanceJob job = new MaintenanceJob(Operation.CLONE, originalSchema);
+        job.newVersion = newVersion;
+        return job;
+    }
+
+    public static MaintenanceJob translateNamespaces(NexusSchemaReference schemaReference, String oldNamespace, String newNamespace) {
+        MaintenanceJob job = new MaintenanceJob(Operation.TRANSLATE_NAMESPACES, schemaReference);
+        job.oldNamespace = oldNamespace;
+        job.newNamespace = newNamespace;
+        return job;
+    }
+
+    public NexusSchemaReference toSchemaReference() {
+        return new NexusSchemaReference(organization, domain, schema, schemaVersion);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public String getSchema() {
+        return toSchemaReference().getRelativeUrl().getUrl();
+    }
+
+    public String getNewVersion() {
+        return newVersion;
+    }
+
+    public String getOldNamespace() {
+        return oldNamespace;
+    }
+
+    public String getNewNamespace() {
+        return newNamespace;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public long getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public void setSubmittedAt(long submittedAt) {
+        this.submittedAt = submittedAt;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(long processed) {
+        this.processed = processed;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+}
@@ -53,6 +53,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import springfox.documentation.annotations.ApiIgnore;
 
 import javax.ws.rs.core.MediaType;
@@ -416,7 +417,7 @@ public class QueryAPI {
     @ApiOperation(value = "Execute a stored query and fetch the corresponding instances")
     @Deprecated
     @GetMapping("/{" + ORG + "}/{" + DOMAIN + "}/{" + SCHEMA + "}/{" + VERSION + "}/{" + QUERY_ID + "}/instances/deprecated")
-    public ResponseEntity<QueryResult> executeStoredQuery(@PathVariable(ORG) String org, @PathVariable(DOMAIN) String domain, @PathVariable(SCHEMA) String schema, @PathVariable(VERSION) String version, @PathVariable(QUERY_ID) String queryId, @ApiParam(SIZE_DOC) @RequestParam(value = SIZE, required = false) Integer size, @ApiParam(START_DOC) @RequestParam(value = START, required = false) Integer start, @RequestParam(value = DATABASE_SCOPE, required = false) ExposedDatabaseScope databaseScope, @ApiParam(SEARCH_DOC) @RequestParam(value = SEARCH, required = false) String searchTerm, @ApiParam(VOCAB_DOC) @RequestParam(value = VOCAB, required = false) String vocab, @ApiParam(RESTRICTED_ORGANIZATION_DOC) @RequestParam(value = RESTRICT_TO_ORGANIZATIONS, required = false) String restrictToOrganizations, @ApiParam(value = ParameterConstants.AUTHORIZATION_DOC) @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorizationToken, @ApiIgnore @RequestParam Map<String, String> allRequestParams) throws Exception {
+    public ResponseEntity<QueryResult> executeStoredQuery(@PathVariable(ORG) String org, @PathVariable(DOMAIN) String domain, @PathVariable(SCHEMA) String schema, @PathVariable(VERSION) String version, @PathVariable(QUERY_ID) String queryId, @ApiParam(SIZE_DOC) @RequestParam(value = SIZE, required = false) Integer size, @ApiParam(START_DOC) @RequestParam(value = START, required = false) Integer start, @ApiParam(CURSOR_DOC) @RequestParam(value = CURSOR, required = false) String cursor, @RequestParam(value = DATABASE_SCOPE, required = false) ExposedDatabaseScope databaseScope, @ApiParam(SEARCH_DOC) @RequestParam(value = SEARCH, required = false) String searchTerm, @ApiParam(VOCAB_DOC) @RequestParam(value = VOCAB, required = false) String vocab, @ApiParam(RESTRICTED_ORGANIZATION_DOC) @RequestParam(value = RESTRICT_TO_ORGANIZATIONS, required = false) String restrictToOrganizations, @ApiParam(value = ParameterConstants.AUTHORIZATION_DOC) @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorizationToken, @ApiIgnore @RequestParam Map<String, String> allRequestParams) throws Exception {
         try {
 
 
@@ -427,11 +428,13 @@ public class QueryAPI {
             StoredQuery query = new StoredQuery(schemaRef, queryId, vocab);
             query.setParameters(allRequestParams);
             query.getFilter().restrictToOrganizations(RestUtils.splitCommaSeparatedValues(restrictToOrganizations)).setQueryString(searchTerm);
-            query.getPagination().setStart(start).setSize(size);
+            query.getPagination().setStart(start).setSize(size).setCursor(PaginationCursor.decode(cursor));
             QueryResult<List<Map>> result = this.query.queryPropertyGraphByStoredSpecification(query);
             String userHashedId = LoggingUtils.hashUserId(authorizationContext.getUserId());
             log.info(String.format("[Query][Result] - schema: %s - queryid: %s - total: %d - user: %s", schemaRef.toString(), queryId, result.getTotal(), userHashedId));
             return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (IllegalDatabaseScope e) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         } catch (StoredQueryNotFoundException e) {
@@ -447,8 +450,45 @@ public class QueryAPI {
     @ApiOperation(value = "Execute a stored query and fetch the corresponding instances")
     @ExternalApi
     @GetMapping("/{" + ORG + "}/{" + DOMAIN + "}/{" + SCHEMA + "}/{" + VERSION + "}/{" + QUERY_ID + "}/instances")
-    public ResponseEntity<QueryResult> executeStoredQuery(@PathVariable(ORG) String org, @PathVariable(DOMAIN) String domain, @PathVariable(SCHEMA) String schema, @PathVariable(VERSION) String version, @PathVariable(QUERY_ID) String queryId, @ApiParam(SIZE_DOC) @RequestParam(value = SIZE, required = false) Integer size, @ApiParam(START_DOC) @RequestParam(value = START, required = false) Integer start, @RequestParam(value = DATABASE_SCOPE, required = false) ExposedDatabaseScope databaseScope, @ApiParam(VOCAB_DOC) @RequestParam(value = VOCAB, required = false) String vocab, @ApiParam(RESTRICTED_ORGANIZATION_DOC) @RequestParam(value = RESTRICT_TO_ORGANIZATIONS, required = false) String restrictToOrganizations, @ApiParam(value = ParameterConstants.AUTHORIZATION_DOC) @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorizationToken, @ApiIgnore @RequestParam Map<String, String> allRequestParams) throws Exception {
-        return executeStoredQuery(org, domain, schema, version, queryId, size, start, databaseScope, null, vocab, restrictToOrganizations, authorizationToken, allRequestParams);
+    public ResponseEntity<QueryResult> executeStoredQuery(@PathVariable(ORG) String org, @PathVariable(DOMAIN) String domain, @PathVariable(SCHEMA) String schema, @PathVariable(VERSION) String version, @PathVariable(QUERY_ID) String queryId, @ApiParam(SIZE_DOC) @RequestParam(value = SIZE, required = false) Integer size, @ApiParam(START_DOC) @RequestParam(value = START, required = false) Integer start, @ApiParam(CURSOR_DOC) @RequestParam(value = CURSOR, required = false) String cursor, @RequestParam(value = DATABASE_SCOPE, required = false) ExposedDatabaseScope databaseScope, @ApiParam(VOCAB_DOC) @RequestParam(value = VOCAB, required = false) String vocab, @ApiParam(RESTRICTED_ORGANIZATION_DOC) @RequestParam(value = RESTRICT_TO_ORGANIZATIONS, required = false) String restrictToOrganizations, @ApiParam(value = ParameterConstants.AUTHORIZATION_DOC) @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorizationToken, @ApiIgnore @RequestParam Map<String, String> allRequestParams) throws Exception {
+        return executeStoredQuery(org, domain, schema, version, queryId, size, start, cursor, databaseScope, null, vocab, restrictToOrganizations, authorizationToken, allRequestParams);
+    }
+
+
+    @ApiOperation(value = "Execute a stored query and stream the corresponding instances", notes = "Same as the instances endpoint, but the result is written while it is read from the database instead of being loaded into memory first - use this for large result sets. Since the size and the next cursor are only known at the end, they are written after the results.")
+    @ExternalApi
+    @GetMapping(value = "/{" + ORG + "}/{" + DOMAIN + "}/{" + SCHEMA + "}/{" + VERSION + "}/{" + QUERY_ID + "}/instances/stream", produces = MediaType.APPLICATION_JSON)
+    public ResponseEntity<StreamingResponseBody> streamStoredQuery(@PathVariable(ORG) String org, @PathVariable(DOMAIN) String domain, @PathVariable(SCHEMA) String schema, @PathVariable(VERSION) String version, @PathVariable(QUERY_ID) String queryId, @ApiParam(SIZE_DOC) @RequestParam(value = SIZE, required = false) Integer size, @ApiParam(START_DOC) @RequestParam(value = START, required = false) Integer start, @ApiParam(CURSOR_DOC) @RequestParam(value = CURSOR, required = false) String cursor, @RequestParam(value = DATABASE_SCOPE, required = false) ExposedDatabaseScope databaseScope, @ApiParam(VOCAB_DOC) @RequestParam(value = VOCAB, required = false) String vocab, @ApiParam(RESTRICTED_ORGANIZATION_DOC) @RequestParam(value = RESTRICT_TO_ORGANIZATIONS, required = false) String restrictToOrganizations, @ApiParam(value = ParameterConstants.AUTHORIZATION_DOC) @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorizationToken, @ApiIgnore @RequestParam Map<String, String> allRequestParams) throws Exception {
+        try {
+            authorizationContext.populateAuthorizationContext(authorizationToken);
+            queryContext.populateQueryContext(databaseScope);
+            queryContext.setAllParameters(allRequestParams);
+            NexusSchemaReference schemaRef = new NexusSchemaReference(org, domain, schema, version);
+            StoredQuery query = new StoredQuery(schemaRef, queryId, vocab);
+            query.setParameters(allRequestParams);
+            query.getFilter().restrictToOrganizations(RestUtils.splitCommaSeparatedValues(restrictToOrganizations));
+            query.getPagination().setStart(start).setSize(size).setCursor(PaginationCursor.decode(cursor));
+            //The cursor has to be opened within the request since the query context is request scoped - only the consumption happens asynchronously.
+            StreamedQueryResult result = this.query.streamPropertyGraphByStoredSpecification(query);
+            String userHashedId = LoggingUtils.hashUserId(authorizationContext.getUserId());
+            log.info(String.format("[Query][Stream] - schema: %s - queryid: %s - total: %d - user: %s", schemaRef.toString(), queryId, result.getTotal(), userHashedId));
+            return ResponseEntity.ok(out -> {
+                try (StreamedQueryResult r = result) {
+                    RestUtils.writeStreamedQueryResult(r, out);
+                }
+            });
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalDatabaseScope e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        } catch (StoredQueryNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (RootCollectionNotFoundException e) {
+            StreamedQueryResult emptyResult = StreamedQueryResult.createEmptyResult(queryContext.getDatabaseScope().name());
+            return ResponseEntity.ok(out -> RestUtils.writeStreamedQueryResult(emptyResult, out));
+        } catch (HttpClientErrorException e) {
+            return ResponseEntity.status(e.getStatusCode()).build();
+        }
     }
 
 
@@ -34,6 +34,7 @@ import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusSchemaRef
 import org.humanbrainproject.knowledgegraph.query.boundary.ArangoQuery;
 import org.humanbrainproject.knowledgegraph.query.boundary.EditorSpecifications;
 import org.humanbrainproject.knowledgegraph.query.boundary.Templating;
+import org.humanbrainproject.knowledgegraph.query.control.SpecificationCache;
 import org.humanbrainproject.knowledgegraph.query.entity.Query;
 import org.humanbrainproject.knowledgegraph.query.entity.QueryResult;
 import org.humanbrainproject.knowledgegraph.query.entity.StoredQueryReference;
@@ -76,6 +77,9 @@ public class QueryInternalAPI {
     @Autowired
     EditorSpecifications editorSpecifications;
 
+    @Autowired
+    SpecificationCache specificationCache;
+
 
     @PutMapping(value = "/{"+ORG+"}/{"+ DOMAIN+"}/{"+SCHEMA+"}/{"+VERSION+"}/{"+QUERY_ID+"}/templates/{"+TEMPLATE_ID+"}")
     public ResponseEntity<Void> saveFreemarkerTemplate(@RequestBody String template, @PathVariable(ORG) String org, @PathVariable(DOMAIN) String domain, @PathVariable(SCHEMA) String schema, @PathVariable(VERSION) String version, @PathVariable(QUERY_ID) String queryId, @PathVariable(TEMPLATE_ID) String templateId, @RequestParam(value = "lib", required = false) String library, @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
@@ -98,6 +102,12 @@ public class QueryInternalAPI {
         return null;
     }
 
+    @ApiOperation(value="Statistics (size, hits and misses) of the cache of interpreted stored specifications")
+    @GetMapping(value = "/specificationCache")
+    public ResponseEntity<Map<String, Long>> getSpecificationCacheStatistics() {
+        return ResponseEntity.ok(specificationCache.getStatistics());
+    }
+
     @ApiOperation(value="Fetch UUIDS")
     @GetMapping(value = "/{"+ORG+"}/{"+ DOMAIN+"}/{"+SCHEMA+"}/{"+VERSION+"}/instancesid")
     public ResponseEntity<QueryResult> queryResolveByIdentifier(@PathVariable(ORG) String org, @PathVariable(DOMAIN) String domain, @PathVariable(SCHEMA) String schema, @PathVariable(VERSION) String version, @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorizationToken) {
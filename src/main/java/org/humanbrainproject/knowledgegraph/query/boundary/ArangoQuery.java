@@ -48,11 +48,13 @@ import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusInstanceR
 import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusSchemaReference;
 import org.humanbrainproject.knowledgegraph.query.control.FreemarkerTemplating;
 import org.humanbrainproject.knowledgegraph.query.control.SpatialSearch;
+import org.humanbrainproject.knowledgegraph.query.control.SpecificationCache;
 import org.humanbrainproject.knowledgegraph.query.control.SpecificationController;
 import org.humanbrainproject.knowledgegraph.query.control.SpecificationInterpreter;
 import org.humanbrainproject.knowledgegraph.query.entity.*;
 import org.humanbrainproject.knowledgegraph.query.entity.fieldFilter.ParameterDescription;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.configurationprocessor.json.JSONException;
 import org.springframework.boot.configurationprocessor.json.JSONObject;
 import org.springframework.stereotype.Component;
@@ -106,6 +108,12 @@ public class ArangoQuery {
     @Autowired
     ArangoToNexusLookupMap lookupMap;
 
+    @Autowired
+    SpecificationCache specificationCache;
+
+    @Value("${org.humanbrainproject.knowledgegraph.query.streamBatchSize:500}")
+    int streamBatchSize;
+
 
     private String getAbsoluteUrlOfRootSchema(Query query){
         if(query.getSchemaReference()!=null) {
@@ -119,13 +127,21 @@ public class ArangoQuery {
     }
 
 
+    /**
+     * Interprets the specification of the query. Specifications of stored queries are taken from the {@link SpecificationCache} as long as the stored document hasn't changed. Note that the interpretation must not depend on the query parameters since they are not part of the cache key.
+     */
+    private Specification readSpecification(Query query) throws IOException, JSONException {
+        String rootSchema = getAbsoluteUrlOfRootSchema(query);
+        return specificationCache.getSpecification(query.getSpecificationDocumentId(), query.getSpecificationRevision(), rootSchema, () -> specInterpreter.readSpecification(JsonUtils.toString(standardization.fullyQualify(query.getSpecification())), rootSchema, query.getParameters()));
+    }
+
     public List<ParameterDescription> listQueryParameters(Query query) throws IOException, JSONException {
-        Specification spec = specInterpreter.readSpecification(JsonUtils.toString(standardization.fullyQualify(query.getSpecification())), getAbsoluteUrlOfRootSchema(query), null);
+        Specification spec = readSpecification(query);
         return spec.getAllFilterParameters();
     }
 
     public QueryResult<List<Map>> metaQueryBySpecification(Query query) throws JSONException, IOException {
-        Specification spec = specInterpreter.readSpecification(JsonUtils.toString(standardization.fullyQualify(query.getSpecification())), getAbsoluteUrlOfRootSchema(query), null);
+        Specification spec = readSpecification(query);
         return specificationQuery.metaSpecification(spec);
     }
 
@@ -136,7 +152,7 @@ public class ArangoQuery {
             map = specificationQuery.defaultReleaseTree(instanceReference);
         }
         else {
-            Specification spec = specInterpreter.readSpecification(JsonUtils.toString(standardization.fullyQualify(query.getSpecification())), getAbsoluteUrlOfRootSchema(query), null);
+            Specification spec = readSpecification(query);
             map = specificationQuery.releaseTreeBySpecification(spec, query, instanceReference, scope);
         }
         map.put("children", regroup((List<Map>) map.get("children")));
@@ -144,6 +160,17 @@ public class ArangoQuery {
     }
 
 
+    /**
+     * @return the release status of the instance and the worst release status of the instances in its release tree (without returning the tree itself).
+     */
+    public Map queryReleaseStatus(Query query, NexusInstanceReference instanceReference, TreeScope scope) throws JSONException, IOException {
+        if(query == null ||  query.getSpecification() == null){
+            return specificationQuery.defaultReleaseTree(instanceReference);
+        }
+        Specification spec = readSpecification(query);
+        return specificationQuery.releaseStatusBySpecification(spec, query, instanceReference, scope);
+    }
+
     private List<Map> regroup(List<Map> children) {
         if (children != null) {
             Map<Object, Map> lookupMap = new HashMap<>();
@@ -174,7 +201,7 @@ public class ArangoQuery {
             context = new LinkedHashMap<>();
             context.put(JsonLdConsts.VOCAB, query.getVocabulary());
         }
-        Specification spec = specInterpreter.readSpecification(JsonUtils.toString(standardization.fullyQualify(query.getSpecification())),  getAbsoluteUrlOfRootSchema(query), query.getParameters());
+        Specification spec = readSpecification(query);
         QueryResult<List<Map>> result = specificationQuery.queryForSpecification(spec, query.getPagination(), query.getFilter(), queryId);
         if (context != null) {
             result.setResults(standardization.applyContext(result.getResults(), context));
@@ -182,6 +209,25 @@ public class ArangoQuery {
         return result;
     }
 
+    /**
+     * Executes the query without loading the result into memory - the documents are fetched from the database in batches of {@link #streamBatchSize} while the returned result is consumed.
+     */
+    public StreamedQueryResult streamPropertyGraphBySpecification(Query query, String queryId) throws JSONException, IOException, SolrServerException {
+        Specification spec = readSpecification(query);
+        StreamedQueryResult result = specificationQuery.streamForSpecification(spec, query.getPagination(), query.getFilter(), queryId, streamBatchSize);
+        if (query.getVocabulary() != null) {
+            Map<String, Object> context = new LinkedHashMap<>();
+            context.put(JsonLdConsts.VOCAB, query.getVocabulary());
+            result.setTransformation(document -> standardization.applyContext(Collections.singletonList(document), context).get(0));
+        }
+        return result;
+    }
+
+    public StreamedQueryResult streamPropertyGraphByStoredSpecification(StoredQuery query) throws
+            IOException, JSONException, SolrServerException {
+        return streamPropertyGraphBySpecification(resolveStoredQuery(query), query.getStoredQueryReference().getAlias());
+    }
+
     public List<Map> getStoredQueries(){
         List<Map> internalDocuments = arangoInternalRepository.getInternalDocuments(SPECIFICATION_QUERIES);
         return internalDocuments;
@@ -233,26 +279,41 @@ public class ArangoQuery {
     }
 
 
+    public Map queryReleaseStatus(StoredQuery query, NexusInstanceReference instanceReference, TreeScope scope) throws
+            IOException, JSONException {
+        Query resolvedQuery;
+        try {
+            resolvedQuery = resolveStoredQuery(query);
+        }
+        catch(StoredQueryNotFoundException e){
+            resolvedQuery = null;
+        }
+        return queryReleaseStatus(resolvedQuery, instanceReference, scope);
+    }
+
     public QueryResult<List<Map>> queryPropertyGraphByStoredSpecification(StoredQuery query) throws
             IOException, JSONException, SolrServerException {
         return queryPropertyGraphBySpecification(resolveStoredQuery(query), query.getStoredQueryReference().getAlias());
     }
 
     public Query resolveStoredQuery(StoredQuery storedQuery) {
-        String queryPayload = getQueryPayload(storedQuery.getStoredQueryReference(), String.class);
+        StoredQueryReference queryReference = storedQuery.getStoredQueryReference();
+        Map queryPayload = getQueryPayload(queryReference, Map.class);
         if(queryPayload==null){
             NexusSchemaReference organizationGlobalQuery = new NexusSchemaReference(storedQuery.getStoredQueryReference().getSchemaReference().getOrganization(), StoredQueryReference.GLOBAL_QUERY_SCHEMA.getDomain(), StoredQueryReference.GLOBAL_QUERY_SCHEMA.getSchema(), StoredQueryReference.GLOBAL_QUERY_SCHEMA.getSchemaVersion());
-            StoredQueryReference organizationDefinition = new StoredQueryReference(organizationGlobalQuery, storedQuery.getStoredQueryReference().getAlias());
-            queryPayload = getQueryPayload(organizationDefinition, String.class);
+            queryReference = new StoredQueryReference(organizationGlobalQuery, storedQuery.getStoredQueryReference().getAlias());
+            queryPayload = getQueryPayload(queryReference, Map.class);
             if(queryPayload==null) {
-                StoredQueryReference globalDefinition = new StoredQueryReference(StoredQueryReference.GLOBAL_QUERY_SCHEMA, storedQuery.getStoredQueryReference().getAlias());
-                queryPayload = getQueryPayload(globalDefinition, String.class);
+                queryReference = new StoredQueryReference(StoredQueryReference.GLOBAL_QUERY_SCHEMA, storedQuery.getStoredQueryReference().getAlias());
+                queryPayload = getQueryPayload(queryReference, Map.class);
                 if (queryPayload == null) {
                     throw new StoredQueryNotFoundException("Did not find query " + storedQuery.getStoredQueryReference().getName());
                 }
             }
         }
-        return new Query(storedQuery, queryPayload);
+        Object revision = queryPayload.get(ArangoVocabulary.REV);
+        Query query = new Query(storedQuery, jsonTransformer.getMapAsJson(queryPayload));
+        return query.setStoredSpecification(new ArangoDocumentReference(SPECIFICATION_QUERIES, queryReference.getName()).getId(), revision != null ? revision.toString() : null);
     }
 
 
@@ -276,13 +337,19 @@ public class ArangoQuery {
 
     public QueryResult<List<Map>>   queryPropertyGraphByStoredSpecificationAndFreemarkerTemplate(StoredQuery storedQuery) throws IOException, JSONException, SolrServerException {
         QueryResult<List<Map>> queryResult = queryPropertyGraphByStoredSpecification(storedQuery);
-        String templatePayload = templating.getTemplateById(storedQuery.getStoredTemplateReference()).getTemplateContent();
-        String result = freemarkerTemplating.applyTemplate(templatePayload, queryResult, storedQuery.getStoredLibraryReference(), databaseFactory.getInternalDB());
+        Template template = templating.getTemplateById(storedQuery.getStoredTemplateReference());
+        String result = freemarkerTemplating.applyTemplate(template, queryResult, storedQuery.getStoredLibraryReference(), databaseFactory.getInternalDB());
         return createResult(queryResult, jsonTransformer.parseToListOfMaps(result), storedQuery.isReturnOriginalJson());
     }
 
     public Map queryPropertyGraphByStoredSpecificationAndStoredTemplateWithId(StoredQuery query) throws IOException, JSONException, SolrServerException {
-        return queryPropertyGraphByStoredSpecificationAndTemplateWithId(query, templating.getTemplateById(query.getStoredTemplateReference()).getTemplateContent());
+        Template template = templating.getTemplateById(query.getStoredTemplateReference());
+        QueryResult<List<Map>> queryResult = queryPropertyGraphByStoredSpecification(query);
+        if (queryResult.getResults().size() > 0) {
+            String result = freemarkerTemplating.applyTemplate(template, queryResult, query.getStoredLibraryReference(), databaseFactory.getInternalDB());
+            return jsonTransformer.parseToMap(result);
+        }
+        return null;
     }
 
     public Map queryPropertyGraphByStoredSpecificationAndTemplateWithId(StoredQuery query, String templatePayload) throws IOException, JSONException, SolrServerException {
@@ -298,7 +365,7 @@ public class ArangoQuery {
 
         Template template = templating.getTemplateById(storedQuery.getStoredTemplateReference());
         QueryResult<List<Map>> queryResult = metaQueryPropertyGraphByStoredSpecification(storedQuery);
-        String result = freemarkerTemplating.applyTemplate(template.getTemplateContent(), queryResult, storedQuery.getStoredLibraryReference(), databaseFactory.getInternalDB());
+        String result = freemarkerTemplating.applyTemplate(template, queryResult, storedQuery.getStoredLibraryReference(), databaseFactory.getInternalDB());
         Map map = jsonTransformer.parseToMap(result);
         return createResult(queryResult, map, storedQuery.isReturnOriginalJson());
     }
@@ -318,6 +385,7 @@ public class ArangoQuery {
         r.setTotal(queryResult.getTotal());
         r.setSize(queryResult.getSize());
         r.setStart(queryResult.getStart());
+        r.setNextCursor(queryResult.getNextCursor());
         return r;
     }
 
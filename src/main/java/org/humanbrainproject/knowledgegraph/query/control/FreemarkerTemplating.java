@@ -48,6 +48,7 @@ import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 @ToBeTested
@@ -66,8 +67,19 @@ public class FreemarkerTemplating {
 
     private Gson gson = new Gson();
 
+    /**
+     * The configuration is thread-safe and therefore shared by all templates
+     */
+    private final Configuration configuration = createConfiguration();
+
+    /**
+     * The compiled stored templates by their document id
+     */
+    private final Map<String, CompiledTemplate> compiledTemplates = new ConcurrentHashMap<>();
+
     public void saveTemplate(org.humanbrainproject.knowledgegraph.query.entity.Template template, ArangoConnection driver){
         saveFreemarker(gson.toJson(template.asJsonDocument()), template.getKey(), TEMPLATES, driver);
+        compiledTemplates.remove(TEMPLATES.getName() + "/" + ArangoNamingHelper.createCompatibleId(template.getKey()));
     }
 
     public void saveLibrary(String library, String libraryId, String template, ArangoConnection driver){
@@ -75,17 +87,25 @@ public class FreemarkerTemplating {
         lib.put(ArangoVocabulary.LIBRARY, library);
         lib.put(ArangoVocabulary.KEY, template);
         saveFreemarker(gson.toJson(lib), template, new ArangoCollectionReference(ArangoNamingHelper.createCompatibleId("libraries-"+libraryId)), driver);
+        String libraryKey = createLibraryKey(libraryId, template);
+        compiledTemplates.values().removeIf(c -> libraryKey.equals(c.libraryKey));
     }
 
     public String getLibraryById(String libraryId, String template, ArangoConnection connection){
+        Map library = getLibraryDocument(libraryId, template, connection);
+        return library != null ? (String) library.get(ArangoVocabulary.LIBRARY) : null;
+    }
+
+    private Map getLibraryDocument(String libraryId, String template, ArangoConnection connection){
         //TODO ensure authorization
 
         ArangoDatabase db = connection.getOrCreateDB();
-        ArangoCollection library = db.collection(ArangoNamingHelper.createCompatibleId("libraries-"+libraryId));
-        if(library.exists() && library.documentExists(template)){
-            return (String)library.getDocument(template, Map.class).get(ArangoVocabulary.LIBRARY);
-        }
-        return null;
+        //The lookup of a document which (or which's collection) doesn't exist results in null - no need to check for existence upfront.
+        return db.collection(ArangoNamingHelper.createCompatibleId("libraries-"+libraryId)).getDocument(template, Map.class);
+    }
+
+    private static String createLibraryKey(String libraryId, String template){
+        return ArangoNamingHelper.createCompatibleId("libraries-"+libraryId) + "/" + template;
     }
 
 
@@ -118,28 +138,80 @@ public class FreemarkerTemplating {
         return applyTemplate(template, queryResult, libraryById);
     }
 
+    /**
+     * Applies a stored template - the compiled template (including its library) is reused as long as neither the template nor the library have changed.
+     */
+    public String applyTemplate(org.humanbrainproject.knowledgegraph.query.entity.Template template, QueryResult<List<Map>> queryResult, StoredLibraryReference library, ArangoConnection driver) {
+        Map libraryDocument = library!=null && library.getName()!=null ? getLibraryDocument(library.getName(), library.getTemplate(), driver) : null;
+        if(template.getId()==null || template.getRevision()==null){
+            return applyTemplate(template.getTemplateContent(), queryResult, libraryDocument != null ? (String) libraryDocument.get(ArangoVocabulary.LIBRARY) : null);
+        }
+        String libraryKey = libraryDocument != null ? createLibraryKey(library.getName(), library.getTemplate()) : null;
+        String libraryRevision = libraryDocument != null ? (String) libraryDocument.get(ArangoVocabulary.REV) : null;
+        CompiledTemplate compiledTemplate = compiledTemplates.get(template.getId());
+        if(compiledTemplate == null || !compiledTemplate.isValid(template.getRevision(), libraryKey, libraryRevision)){
+            String finalTemplate = createFinalTemplate(template.getTemplateContent(), libraryDocument != null ? (String) libraryDocument.get(ArangoVocabulary.LIBRARY) : null);
+            compiledTemplate = new CompiledTemplate(template.getRevision(), libraryKey, libraryRevision, compile(finalTemplate));
+            compiledTemplates.put(template.getId(), compiledTemplate);
+        }
+        return process(compiledTemplate.template, queryResult);
+    }
+
     String applyTemplate(String template, QueryResult<List<Map>> queryResult, String libraryContent) {
-        String finalTemplate;
+        return process(compile(createFinalTemplate(template, libraryContent)), queryResult);
+    }
+
+    private String createFinalTemplate(String template, String libraryContent){
         if(libraryContent!=null){
-            finalTemplate = String.format("%s\n\n%s", libraryContent, template);
+            return String.format("%s\n\n%s", libraryContent, template);
         }
-        else{
-            finalTemplate = template;
+        return template;
+    }
+
+    private Template compile(String finalTemplate){
+        try (StringReader reader = new StringReader(finalTemplate)) {
+            return new Template("dynamic", reader, configuration);
+        } catch (IOException e) {
+            logger.error("Was not able to compile template {}", finalTemplate);
+            throw new RuntimeException("Was not able to apply template", e);
         }
+    }
 
-        try (StringWriter writer = new StringWriter(); StringReader reader = new StringReader(finalTemplate)) {
-            Configuration cfg = new Configuration(Configuration.VERSION_2_3_28);
-            cfg.setEncoding(Locale.ENGLISH, "utf-8");
-            cfg.setURLEscapingCharset("utf-8");
-            Template t = new Template("dynamic", reader, cfg);
-            t.process(queryResult, writer);
+    private String process(Template template, QueryResult<List<Map>> queryResult){
+        try (StringWriter writer = new StringWriter()) {
+            template.process(queryResult, writer);
             return writer.toString();
         } catch (TemplateException | IOException e) {
-            logger.error("Was not able to apply template {}", finalTemplate);
+            logger.error("Was not able to apply template {}", template);
             throw new RuntimeException("Was not able to apply template", e);
         }
     }
 
+    private static Configuration createConfiguration(){
+        Configuration cfg = new Configuration(Configuration.VERSION_2_3_28);
+        cfg.setEncoding(Locale.ENGLISH, "utf-8");
+        cfg.setURLEscapingCharset("utf-8");
+        return cfg;
+    }
+
+    private static class CompiledTemplate {
+        private final String templateRevision;
+        private final String libraryKey;
+        private final String libraryRevision;
+        private final Template template;
+
+        private CompiledTemplate(String templateRevision, String libraryKey, String libraryRevision, Template template) {
+            this.templateRevision = templateRevision;
+            this.libraryKey = libraryKey;
+            this.libraryRevision = libraryRevision;
+            this.template = template;
+        }
+
+        private boolean isValid(String templateRevision, String libraryKey, String libraryRevision){
+            return this.templateRevision.equals(templateRevision) && Objects.equals(this.libraryKey, libraryKey) && Objects.equals(this.libraryRevision, libraryRevision);
+        }
+    }
+
     private String replaceSpecialChars(String original){
         return original.replaceAll(":", "_");
     }
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.query.control;
+
+import org.humanbrainproject.knowledgegraph.annotations.ToBeTested;
+import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.entity.ArangoDocumentReference;
+import org.humanbrainproject.knowledgegraph.query.entity.Specification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.configurationprocessor.json.JSONException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the interpreted {@link Specification}s of stored queries in memory so the JSON-LD standardization and the interpretation of the specification doesn't have to be repeated on every request.
+ * The entries are keyed by the id of the stored query document and the root schema the query is applied to. An entry is only considered valid for the revision of the document it has been created from.
+ */
+@Component
+@ToBeTested(easy = true)
+public class SpecificationCache {
+
+    protected Logger logger = LoggerFactory.getLogger(SpecificationCache.class);
+
+    private final Map<String, CachedSpecification> cache = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @FunctionalInterface
+    public interface SpecificationLoader {
+        Specification load() throws JSONException, IOException;
+    }
+
+    public Specification getSpecification(String documentId, String revision, String rootSchema, SpecificationLoader loader) throws JSONException, IOException {
+        if (documentId == null || revision == null) {
+            return loader.load();
+        }
+        String key = createKey(documentId, rootSchema);
+        CachedSpecification cached = cache.get(key);
+        if (cached != null && cached.revision.equals(revision)) {
+            hits.incrementAndGet();
+            return cached.specification;
+        }
+        misses.incrementAndGet();
+        Specification specification = loader.load();
+        cache.put(key, new CachedSpecification(documentId, revision, specification));
+        return specification;
+    }
+
+    public void invalidate(ArangoDocumentReference document) {
+        if (document != null) {
+            String documentId = document.getId();
+            if (cache.values().removeIf(c -> c.documentId.equals(documentId))) {
+                logger.debug("Invalidated cached specifications of {}", documentId);
+            }
+        }
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public Map<String, Long> getStatistics() {
+        Map<String, Long> statistics = new LinkedHashMap<>();
+        statistics.put("size", (long) cache.size());
+        statistics.put("hits", getHits());
+        statistics.put("misses", getMisses());
+        return statistics;
+    }
+
+    private static String createKey(String documentId, String rootSchema) {
+        return documentId + "|" + Objects.toString(rootSchema, "");
+    }
+
+    private static class CachedSpecification {
+        private final String documentId;
+        private final String revision;
+        private final Specification specification;
+
+        private CachedSpecification(String documentId, String revision, Specification specification) {
+            this.documentId = documentId;
+            this.revision = revision;
+            this.specification = specification;
+        }
+    }
+
+}
@@ -114,6 +114,14 @@ public class SpecificationController {
         return getTreeBySpecification(new SpecificationBasedScopeBuilder(spec, authorizationContext.getReadableOrganizations(new InternalMasterKey(), query!=null ? query.getFilter().getRestrictToOrganizations() : null), ArangoDocumentReference.fromNexusInstance(instanceReference), queryContext.getExistingCollections(), configuration.getNexusBase(NexusConfiguration.ResourceType.DATA), scope));
     }
 
+    /**
+     * @return the scope trees of all given instances (which have to be of the root schema of the specification) - evaluated in a single query.
+     */
+    public List<Map> scopeTreesBySpecification(Specification spec, Set<NexusInstanceReference> instanceReferences){
+        SpecificationBasedScopeBuilder builder = new SpecificationBasedScopeBuilder(spec, authorizationContext.getReadableOrganizations(new InternalMasterKey(), null), instanceReferences.stream().map(ArangoDocumentReference::fromNexusInstance).collect(Collectors.toList()), queryContext.getExistingCollections(), configuration.getNexusBase(NexusConfiguration.ResourceType.DATA), TreeScope.ALL);
+        return specificationQuery.queryForSimpleMap(builder.build(), builder.getBindParameters());
+    }
+
     private Map getTreeBySpecification(SpecificationBasedScopeBuilder builder){
         List<Map> results = specificationQuery.queryForSimpleMap(builder.build());
         if(results==null || results.isEmpty()){
@@ -126,6 +134,13 @@ public class SpecificationController {
         return getTreeBySpecification(new SpecificationBasedReleaseTreeBuilder(spec, authorizationContext.getReadableOrganizations(query.getFilter().getRestrictToOrganizations()), ArangoDocumentReference.fromNexusInstance(instanceReference), queryContext.getExistingCollections(), configuration.getNexusBase(NexusConfiguration.ResourceType.DATA), scope));
     }
 
+    /**
+     * @return the release status of the instance and the worst release status of its children (see {@link SpecificationBasedReleaseStatusBuilder}) - aggregated by the database.
+     */
+    public Map releaseStatusBySpecification(Specification spec, Query query, NexusInstanceReference instanceReference, TreeScope scope) throws JSONException {
+        return getTreeBySpecification(new SpecificationBasedReleaseStatusBuilder(spec, authorizationContext.getReadableOrganizations(query.getFilter().getRestrictToOrganizations()), ArangoDocumentReference.fromNexusInstance(instanceReference), queryContext.getExistingCollections(), configuration.getNexusBase(NexusConfiguration.ResourceType.DATA), scope));
+    }
+
     public Map defaultReleaseTree(NexusInstanceReference instanceReference){
         DefaultReleaseTreeBuilder builder = new DefaultReleaseTreeBuilder(authorizationContext.getReadableOrganizations(null), ArangoDocumentReference.fromNexusInstance(instanceReference), configuration.getNexusBase(NexusConfiguration.ResourceType.DATA));
         List<Map> results = specificationQuery.queryForSimpleMap(builder.build());
@@ -137,12 +152,19 @@ public class SpecificationController {
 
 
     public QueryResult<List<Map>> queryForSpecification(Specification spec, Pagination pagination, Filter filter, String queryName) throws IOException, SolrServerException {
+        return specificationQuery.queryForData(createDataQueryBuilder(spec, pagination, filter, queryName), filter.getRestrictToIds(), filter.getQueryString());
+    }
+
+    public StreamedQueryResult streamForSpecification(Specification spec, Pagination pagination, Filter filter, String queryName, int batchSize) throws IOException, SolrServerException {
+        return specificationQuery.streamForData(createDataQueryBuilder(spec, pagination, filter, queryName), filter.getRestrictToIds(), filter.getQueryString(), batchSize);
+    }
+
+    private DataQueryBuilder createDataQueryBuilder(Specification spec, Pagination pagination, Filter filter, String queryName){
         Set<String> readableOrganizations = authorizationContext.getReadableOrganizations(filter.getRestrictToOrganizations());
         Set<String> invitations = queryName!=null ? authorizationContext.getInvitations(queryName) : null;
 
         Set<ArangoCollectionReference> existingCollections = queryContext.getExistingCollections();
-        DataQueryBuilder queryBuilderNew = new DataQueryBuilder(spec, readableOrganizations, invitations, pagination, queryContext.getAllParameters(), existingCollections);
-        return specificationQuery.queryForData(queryBuilderNew, filter.getRestrictToIds(), filter.getQueryString());
+        return new DataQueryBuilder(spec, readableOrganizations, invitations, pagination, queryContext.getAllParameters(), existingCollections);
     }
 
 }
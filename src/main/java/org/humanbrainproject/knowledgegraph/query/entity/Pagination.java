@@ -30,6 +30,7 @@ public class Pagination {
 
     private int start=0;
     private Integer size;
+    private PaginationCursor cursor;
 
     public Pagination setStart(Integer start) {
         this.start = start == null ? 0 : start;
@@ -48,4 +49,13 @@ public class Pagination {
     public int getStart() {
         return start;
     }
+
+    public Pagination setCursor(PaginationCursor cursor) {
+        this.cursor = cursor;
+        return this;
+    }
+
+    public PaginationCursor getCursor() {
+        return cursor;
+    }
 }
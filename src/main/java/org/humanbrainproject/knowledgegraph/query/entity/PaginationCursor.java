@@ -0,0 +1,76 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.query.entity;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import org.humanbrainproject.knowledgegraph.annotations.Tested;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The opaque continuation token of a keyset paginated query. It holds the sort key (the values of the sorted fields followed by the key of the document) of the last instance of the previous page.
+ */
+@Tested
+public class PaginationCursor {
+
+    private static final Gson GSON = new Gson();
+
+    private final List<Object> sortKey;
+
+    public PaginationCursor(List<Object> sortKey) {
+        this.sortKey = Collections.unmodifiableList(new ArrayList<>(sortKey));
+    }
+
+    public List<Object> getSortKey() {
+        return sortKey;
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(GSON.toJson(sortKey).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the cursor represented by the given token or null if no token is given
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static PaginationCursor decode(String token) {
+        if (token == null || token.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            Object sortKey = GSON.fromJson(new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8), Object.class);
+            if (sortKey instanceof List && !((List) sortKey).isEmpty()) {
+                return new PaginationCursor((List<Object>) sortKey);
+            }
+        } catch (JsonSyntaxException e) {
+            throw new IllegalArgumentException(String.format("The cursor %s is malformed", token), e);
+        }
+        throw new IllegalArgumentException(String.format("The cursor %s is malformed", token));
+    }
+}
@@ -30,6 +30,8 @@ import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusSchemaRef
 public class Query extends AbstractQuery{
 
     private final String specification;
+    private String specificationDocumentId;
+    private String specificationRevision;
 
     public Query(StoredQuery storedQuery, String payload){
         super(storedQuery.getSchemaReference(), storedQuery.getVocabulary(), storedQuery.getFilter(), storedQuery.getPagination(), storedQuery.getParameters());
@@ -45,6 +47,23 @@ public class Query extends AbstractQuery{
         return specification;
     }
 
+    /**
+     * @return the id of the database document the specification has been loaded from or null if the specification has been passed directly.
+     */
+    public String getSpecificationDocumentId() {
+        return specificationDocumentId;
+    }
+
+    public String getSpecificationRevision() {
+        return specificationRevision;
+    }
+
+    public Query setStoredSpecification(String specificationDocumentId, String specificationRevision) {
+        this.specificationDocumentId = specificationDocumentId;
+        this.specificationRevision = specificationRevision;
+        return this;
+    }
+
 
 
 }
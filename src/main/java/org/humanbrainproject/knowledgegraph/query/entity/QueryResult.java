@@ -41,6 +41,7 @@ public class QueryResult<T> {
     private Long total;
     private Long size;
     private Long start;
+    private String nextCursor;
 
     public String getImportantMessage() {
         return importantMessage;
@@ -90,6 +91,17 @@ public class QueryResult<T> {
         this.start = start;
     }
 
+    /**
+     * @return the token to be passed as cursor to fetch the next page or null if there are no further results (or the query is not paginated)
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
     public String getDatabaseScope() {
         return databaseScope;
     }
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.query.entity;
+
+import org.humanbrainproject.knowledgegraph.annotations.NoTests;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * The counterpart of {@link QueryResult} for results which are not loaded into memory but rather consumed document by document (e.g. directly from a database cursor).
+ * The instance has to be closed once it has been consumed to release the underlying resources.
+ */
+@NoTests(NoTests.TRIVIAL)
+public class StreamedQueryResult implements Iterator<Map>, Closeable {
+
+    private final Iterator<Map> documents;
+    private final Closeable source;
+    private String databaseScope;
+    private String apiName;
+    private Long total;
+    private Long start;
+    private UnaryOperator<Map> transformation = UnaryOperator.identity();
+    private Supplier<String> nextCursor = () -> null;
+
+    public StreamedQueryResult(Iterator<Map> documents, Closeable source) {
+        this.documents = documents;
+        this.source = source;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return documents.hasNext();
+    }
+
+    @Override
+    public Map next() {
+        return transformation.apply(documents.next());
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (source != null) {
+            source.close();
+        }
+    }
+
+    /**
+     * Registers a transformation which is applied to every document when it is consumed.
+     */
+    public StreamedQueryResult setTransformation(UnaryOperator<Map> transformation) {
+        this.transformation = transformation;
+        return this;
+    }
+
+    public String getDatabaseScope() {
+        return databaseScope;
+    }
+
+    public void setDatabaseScope(String databaseScope) {
+        this.databaseScope = databaseScope;
+    }
+
+    public String getApiName() {
+        return apiName;
+    }
+
+    public void setApiName(String apiName) {
+        this.apiName = apiName;
+    }
+
+    public Long getTotal() {
+        return total;
+    }
+
+    public void setTotal(Long total) {
+        this.total = total;
+    }
+
+    public Long getStart() {
+        return start;
+    }
+
+    public void setStart(Long start) {
+        this.start = start;
+    }
+
+    /**
+     * @return the cursor pointing to the page following this result (see {@link QueryResult#getNextCursor()}). Only available once all documents have been consumed.
+     */
+    public String getNextCursor() {
+        return nextCursor.get();
+    }
+
+    public void setNextCursor(Supplier<String> nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public static StreamedQueryResult createEmptyResult(String databaseScope){
+        StreamedQueryResult result = new StreamedQueryResult(Collections.emptyIterator(), null);
+        result.setDatabaseScope(databaseScope);
+        result.setStart(0L);
+        result.setTotal(0L);
+        return result;
+    }
+}
@@ -23,6 +23,7 @@
 
 package org.humanbrainproject.knowledgegraph.query.entity;
 
+import com.arangodb.entity.DocumentField;
 import org.humanbrainproject.knowledgegraph.annotations.Tested;
 import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.entity.ArangoNamingHelper;
 import org.humanbrainproject.knowledgegraph.commons.vocabulary.ArangoVocabulary;
@@ -35,6 +36,12 @@ public class Template {
     String templateContent;
     String library;
 
+    @DocumentField(DocumentField.Type.ID)
+    String id;
+
+    @DocumentField(DocumentField.Type.REV)
+    String revision;
+
     public Template() {
     }
 
@@ -56,6 +63,20 @@ public class Template {
         return templateContent;
     }
 
+    /**
+     * @return the id of the document the template has been loaded from (null if it hasn't been loaded from the database)
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return the revision of the document the template has been loaded from (null if it hasn't been loaded from the database)
+     */
+    public String getRevision() {
+        return revision;
+    }
+
     public JsonDocument asJsonDocument(){
         JsonDocument doc = new JsonDocument();
         doc.put(ArangoVocabulary.KEY, ArangoNamingHelper.createCompatibleId(this.key));
@@ -30,15 +30,19 @@ import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control
 import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.exceptions.StoredQueryNotFoundException;
 import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusInstanceReference;
 import org.humanbrainproject.knowledgegraph.releasing.boundary.Releasing;
+import org.humanbrainproject.knowledgegraph.releasing.entity.ReleaseResult;
 import org.humanbrainproject.knowledgegraph.releasing.entity.ReleaseStatusResponse;
+import org.humanbrainproject.knowledgegraph.releasing.exceptions.BulkSizeExceeded;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.client.HttpClientErrorException;
 
 import javax.ws.rs.core.MediaType;
 import java.util.List;
+import java.util.Objects;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -126,4 +130,58 @@ public class ReleasingAPI {
         }
     }
 
+    @PutMapping(value = "/{" + ORG + "}/{" + DOMAIN + "}/{" + SCHEMA + "}/{" + VERSION + "}/{" + ID + "}/graph")
+    public ResponseEntity<List<ReleaseResult>> releaseGraph(@PathVariable(ORG) String org, @PathVariable(DOMAIN) String domain, @PathVariable(SCHEMA) String schema, @PathVariable(VERSION) String version, @PathVariable(ID) String id, @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorizationToken) {
+        try {
+            authorizationContext.populateAuthorizationContext(authorizationToken);
+            List<ReleaseResult> results = releasing.releaseTree(new NexusInstanceReference(org, domain, schema, version, id));
+            if (results == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(results);
+        } catch (StoredQueryNotFoundException e){
+            return ResponseEntity.notFound().build();
+        } catch (BulkSizeExceeded e) {
+            return ResponseEntity.badRequest().build();
+        } catch (HttpClientErrorException e) {
+            return ResponseEntity.status(e.getStatusCode()).build();
+        }
+    }
+
+    @PostMapping(value = "/bulk/release", consumes = {MediaType.APPLICATION_JSON})
+    public ResponseEntity<List<ReleaseResult>> releaseList(@RequestBody List<String> relativeNexusIds, @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorizationToken) {
+        authorizationContext.populateAuthorizationContext(authorizationToken);
+        List<NexusInstanceReference> instances = parseRelativeNexusIds(relativeNexusIds);
+        if (instances == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(releasing.release(instances));
+        } catch (BulkSizeExceeded e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+    }
+
+    @PostMapping(value = "/bulk/unrelease", consumes = {MediaType.APPLICATION_JSON})
+    public ResponseEntity<List<ReleaseResult>> unreleaseList(@RequestBody List<String> relativeNexusIds, @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorizationToken) {
+        authorizationContext.populateAuthorizationContext(authorizationToken);
+        List<NexusInstanceReference> instances = parseRelativeNexusIds(relativeNexusIds);
+        if (instances == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(releasing.unrelease(instances));
+        } catch (BulkSizeExceeded e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+    }
+
+    private List<NexusInstanceReference> parseRelativeNexusIds(List<String> relativeNexusIds) {
+        if (relativeNexusIds == null) {
+            return null;
+        }
+        List<NexusInstanceReference> instances = relativeNexusIds.stream().map(NexusInstanceReference::createFromUrl).collect(Collectors.toList());
+        return instances.stream().allMatch(Objects::nonNull) ? instances : null;
+    }
+
 }
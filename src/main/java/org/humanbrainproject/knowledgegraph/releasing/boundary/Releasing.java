@@ -26,11 +26,15 @@ package org.humanbrainproject.knowledgegraph.releasing.boundary;
 import org.humanbrainproject.knowledgegraph.annotations.ToBeTested;
 import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.builders.TreeScope;
 import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusInstanceReference;
+import org.humanbrainproject.knowledgegraph.releasing.control.BulkReleaseControl;
 import org.humanbrainproject.knowledgegraph.releasing.control.ReleaseControl;
+import org.humanbrainproject.knowledgegraph.releasing.entity.ReleaseResult;
 import org.humanbrainproject.knowledgegraph.releasing.entity.ReleaseStatusResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 @Component
@@ -40,6 +44,9 @@ public class Releasing {
     @Autowired
     ReleaseControl releaseControl;
 
+    @Autowired
+    BulkReleaseControl bulkReleaseControl;
+
     public void release(NexusInstanceReference instanceReference) {
         releaseControl.release(instanceReference);
     }
@@ -48,6 +55,18 @@ public class Releasing {
         return releaseControl.unrelease(instanceReference);
     }
 
+    public List<ReleaseResult> releaseTree(NexusInstanceReference instanceReference) {
+        return bulkReleaseControl.releaseTree(instanceReference);
+    }
+
+    public List<ReleaseResult> release(Collection<NexusInstanceReference> instanceReferences) {
+        return bulkReleaseControl.release(instanceReferences);
+    }
+
+    public List<ReleaseResult> unrelease(Collection<NexusInstanceReference> instanceReferences) {
+        return bulkReleaseControl.unrelease(instanceReferences);
+    }
+
     public ReleaseStatusResponse getReleaseStatus(NexusInstanceReference instanceReference, TreeScope scope) {
         return releaseControl.getReleaseStatus(instanceReference, scope);
     }
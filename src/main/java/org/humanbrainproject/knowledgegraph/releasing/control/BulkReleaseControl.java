@@ -0,0 +1,196 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.releasing.control;
+
+import com.github.jsonldjava.core.JsonLdConsts;
+import org.humanbrainproject.knowledgegraph.annotations.Tested;
+import org.humanbrainproject.knowledgegraph.commons.authorization.control.AuthorizationContext;
+import org.humanbrainproject.knowledgegraph.commons.authorization.entity.Credential;
+import org.humanbrainproject.knowledgegraph.commons.authorization.entity.InternalMasterKey;
+import org.humanbrainproject.knowledgegraph.commons.authorization.entity.OidcAccessToken;
+import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.builders.TreeScope;
+import org.humanbrainproject.knowledgegraph.context.DetachedRequestAttributes;
+import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusInstanceReference;
+import org.humanbrainproject.knowledgegraph.releasing.entity.ReleaseOutcome;
+import org.humanbrainproject.knowledgegraph.releasing.entity.ReleaseResult;
+import org.humanbrainproject.knowledgegraph.releasing.entity.ReleaseStatus;
+import org.humanbrainproject.knowledgegraph.releasing.entity.ReleaseStatusResponse;
+import org.humanbrainproject.knowledgegraph.releasing.exceptions.BulkSizeExceeded;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Releases (or unreleases) many instances at once. The instances are processed concurrently by the shared (bounded) releasing executor and the outcome is reported per instance. A failure of one instance doesn't affect the others.
+ * The number of instances per operation is limited since the operation is executed synchronously within the request.
+ * Since instances which are already in the requested state are skipped, a partially failed operation can be resumed by simply repeating it.
+ */
+@Component
+@Tested
+public class BulkReleaseControl {
+
+    protected Logger logger = LoggerFactory.getLogger(BulkReleaseControl.class);
+
+    @Autowired
+    ReleaseControl releaseControl;
+
+    @Autowired
+    AuthorizationContext authorizationContext;
+
+    @Autowired
+    @Qualifier("releasing")
+    ExecutorService executorService;
+
+    @Value("${org.humanbrainproject.knowledgegraph.releasing.maxBulkSize:1000}")
+    int maxBulkSize = 1000;
+
+    /**
+     * Releases the instance and all instances of its release tree.
+     *
+     * @return the outcome per instance or null if the instance doesn't exist.
+     * @throws BulkSizeExceeded if the release tree contains more than {@link #maxBulkSize} instances
+     */
+    public List<ReleaseResult> releaseTree(NexusInstanceReference instanceReference) {
+        Map releaseGraph = releaseControl.getReleaseGraph(instanceReference, TreeScope.ALL);
+        if (releaseGraph == null) {
+            return null;
+        }
+        Map<NexusInstanceReference, ReleaseStatus> releaseStates = new LinkedHashMap<>();
+        collectReleaseStates(releaseGraph, releaseStates);
+        return execute(releaseStates.keySet(), instance -> {
+            if (releaseStates.get(instance) == ReleaseStatus.RELEASED) {
+                return ReleaseOutcome.SKIPPED;
+            }
+            releaseControl.release(instance);
+            return ReleaseOutcome.RELEASED;
+        });
+    }
+
+    public List<ReleaseResult> release(Collection<NexusInstanceReference> instanceReferences) {
+        return execute(new LinkedHashSet<>(instanceReferences), instance -> {
+            ReleaseStatus releaseStatus = getReleaseStatus(instance);
+            if (releaseStatus == ReleaseStatus.RELEASED) {
+                return ReleaseOutcome.SKIPPED;
+            }
+            releaseControl.release(instance);
+            return ReleaseOutcome.RELEASED;
+        });
+    }
+
+    public List<ReleaseResult> unrelease(Collection<NexusInstanceReference> instanceReferences) {
+        return execute(new LinkedHashSet<>(instanceReferences), instance -> {
+            ReleaseStatus releaseStatus = getReleaseStatus(instance);
+            if (releaseStatus == ReleaseStatus.NOT_RELEASED) {
+                return ReleaseOutcome.SKIPPED;
+            }
+            if (releaseControl.unrelease(instance) == null) {
+                throw new NoSuchElementException(String.format("The instance %s doesn't exist", instance.getRelativeUrl().getUrl()));
+            }
+            return ReleaseOutcome.UNRELEASED;
+        });
+    }
+
+    private ReleaseStatus getReleaseStatus(NexusInstanceReference instanceReference) {
+        ReleaseStatusResponse releaseStatus = releaseControl.getReleaseStatus(instanceReference, TreeScope.TOP_INSTANCE_ONLY);
+        if (releaseStatus == null) {
+            throw new NoSuchElementException(String.format("The instance %s doesn't exist", instanceReference.getRelativeUrl().getUrl()));
+        }
+        return releaseControl.parseReleaseStatus(releaseStatus.get("status"));
+    }
+
+    void collectReleaseStates(Map releaseGraph, Map<NexusInstanceReference, ReleaseStatus> releaseStates) {
+        Object id = releaseGraph.get(JsonLdConsts.ID);
+        if (id instanceof String) {
+            NexusInstanceReference instanceReference = NexusInstanceReference.createFromUrl((String) id);
+            if (instanceReference != null) {
+                releaseStates.putIfAbsent(instanceReference, releaseControl.parseReleaseStatus(releaseGraph.get("status")));
+            }
+        }
+        Object children = releaseGraph.get("children");
+        if (children instanceof List) {
+            for (Object child : ((List) children)) {
+                if (child instanceof Map) {
+                    collectReleaseStates((Map) child, releaseStates);
+                }
+            }
+        }
+    }
+
+    /**
+     * Executes the operation for all instances with the credential of the current request. The workers run in their own (detached) request scope.
+     *
+     * @throws BulkSizeExceeded if there are more than {@link #maxBulkSize} instances
+     */
+    private List<ReleaseResult> execute(Collection<NexusInstanceReference> instanceReferences, Function<NexusInstanceReference, ReleaseOutcome> operation) {
+        if (instanceReferences.size() > maxBulkSize) {
+            throw new BulkSizeExceeded(String.format("The operation affects %d instances - the maximum is %d", instanceReferences.size(), maxBulkSize));
+        }
+        Credential credential = authorizationContext.getCredential();
+        List<NexusInstanceReference> instances = new ArrayList<>(instanceReferences);
+        List<Future<ReleaseOutcome>> futures = new ArrayList<>();
+        try {
+            for (NexusInstanceReference instance : instances) {
+                futures.add(executorService.submit(() -> DetachedRequestAttributes.execute(() -> {
+                    populateAuthorizationContext(credential);
+                    return operation.apply(instance);
+                })));
+            }
+            List<ReleaseResult> results = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                NexusInstanceReference instance = instances.get(i);
+                try {
+                    results.add(new ReleaseResult(instance, futures.get(i).get(), null));
+                } catch (ExecutionException e) {
+                    logger.error(String.format("Was not able to change the release of %s", instance.getRelativeUrl().getUrl()), e.getCause());
+                    results.add(new ReleaseResult(instance, ReleaseOutcome.FAILED, e.getCause().getMessage() != null ? e.getCause().getMessage() : e.getCause().getClass().getSimpleName()));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+            }
+            return results;
+        } finally {
+            //The executor is shared - only the (remaining) tasks of this operation are stopped.
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private void populateAuthorizationContext(Credential credential) {
+        if (credential instanceof OidcAccessToken) {
+            authorizationContext.setCredential(((OidcAccessToken) credential).getToken());
+        } else if (credential instanceof InternalMasterKey) {
+            authorizationContext.setMasterCredential();
+        }
+    }
+
+}
@@ -32,6 +32,7 @@ import org.humanbrainproject.knowledgegraph.commons.nexus.control.NexusConfigura
 import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.ArangoDatabaseFactory;
 import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.ArangoNativeRepository;
 import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.ArangoRepository;
+import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.builders.SpecificationBasedReleaseStatusBuilder;
 import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.builders.TreeScope;
 import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.entity.ArangoCollectionReference;
 import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.entity.ArangoDocumentReference;
@@ -112,16 +113,18 @@ public class ReleaseControl {
         return null;
     }
 
+    /**
+     * The release states are aggregated by the database - the release tree is neither transferred nor transformed.
+     */
     public ReleaseStatusResponse getReleaseStatus(NexusInstanceReference instance, TreeScope scope) {
-        Map releaseGraph = getReleaseGraph(instance, scope);
-        if (releaseGraph != null) {
+        Map releaseStatus = queryReleaseStatus(instance, scope);
+        if (releaseStatus != null) {
             ReleaseStatusResponse response = new ReleaseStatusResponse();
             if(!scope.name().equals(TreeScope.CHILDREN_ONLY.name())){
-                response.setRootStatus(ReleaseStatus.valueOf((String) releaseGraph.get("status")));
+                response.setRootStatus(parseReleaseStatus(releaseStatus.get(SpecificationBasedReleaseStatusBuilder.STATUS)));
             }
             if (!scope.name().equals(TreeScope.TOP_INSTANCE_ONLY.name())) {
-                ReleaseStatus worstReleaseStatusOfChildren = findWorstReleaseStatusOfChildren(releaseGraph, null, true);
-                response.setChildrenStatus(worstReleaseStatusOfChildren);
+                response.setChildrenStatus(parseReleaseStatus(releaseStatus.get(SpecificationBasedReleaseStatusBuilder.CHILDREN_STATUS)));
             }
             response.setId(instance);
             return response;
@@ -129,6 +132,28 @@ public class ReleaseControl {
         return null;
     }
 
+    private Map queryReleaseStatus(NexusInstanceReference instanceReference, TreeScope scope) {
+        try {
+            StoredQuery storedQuery = new StoredQuery(instanceReference.getNexusSchema(), "search", null);
+            storedQuery.getFilter().restrictToSingleId(instanceReference.getId());
+            return query.queryReleaseStatus(storedQuery, instanceReference, scope);
+        } catch (IOException | JSONException e) {
+            logger.error("Was not able to request the release status ", e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    ReleaseStatus parseReleaseStatus(Object status) {
+        if (status instanceof String) {
+            try {
+                return ReleaseStatus.valueOf((String) status);
+            } catch (IllegalArgumentException e) {
+                logger.error(String.format("Was not able to parse the status with the value %s", status));
+            }
+        }
+        return null;
+    }
+
     public Map getReleaseGraph(NexusInstanceReference instanceReference, TreeScope scope) {
         try {
             StoredQuery storedQuery = new StoredQuery(instanceReference.getNexusSchema(), "search", null);
@@ -195,44 +220,6 @@ public class ReleaseControl {
 
     }
 
-    ReleaseStatus findWorstReleaseStatusOfChildren(Map map, ReleaseStatus currentStatus, boolean isRoot) {
-        ReleaseStatus worstStatusSoFar = currentStatus;
-        if (map != null) {
-            //Skip status of root instance
-            if (!isRoot) {
-                try {
-                    Object status = map.get("status");
-                    if (status instanceof String) {
-                        ReleaseStatus releaseStatus = ReleaseStatus.valueOf((String) status);
-                        if (releaseStatus.isWorst()) {
-                            return releaseStatus;
-                        }
-                        if (releaseStatus.isWorseThan(worstStatusSoFar)) {
-                            worstStatusSoFar = releaseStatus;
-                        }
-                    }
-                } catch (IllegalArgumentException e) {
-                    logger.error(String.format("Was not able to parse the status with the value %s", map.get("status")));
-                }
-            }
-
-            Object children = map.get("children");
-            if (children instanceof List) {
-                for (Object o : ((List) children)) {
-                    if (o instanceof Map) {
-                        worstStatusSoFar = findWorstReleaseStatusOfChildren((Map) o, worstStatusSoFar, false);
-                        if (worstStatusSoFar.isWorst()) {
-                            return worstStatusSoFar;
-                        }
-                    }
-                }
-            }
-
-
-        }
-        return worstStatusSoFar;
-    }
-
     public void release(NexusInstanceReference instanceReference) {
         NexusInstanceReference nexusInstanceFromInferredArangoEntry = findNexusInstanceFromInferredArangoEntry(ArangoDocumentReference.fromNexusInstance(instanceReference));
         release(nexusInstanceFromInferredArangoEntry, nexusInstanceFromInferredArangoEntry.getRevision());
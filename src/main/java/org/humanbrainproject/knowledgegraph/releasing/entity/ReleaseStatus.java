@@ -26,7 +26,10 @@ package org.humanbrainproject.knowledgegraph.releasing.entity;
 import org.humanbrainproject.knowledgegraph.annotations.Tested;
 
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Tested
 public enum ReleaseStatus {
@@ -42,6 +45,13 @@ public enum ReleaseStatus {
         return releaseStatus == null || this.severity > releaseStatus.severity;
     }
 
+    /**
+     * @return all release states ordered by their severity - starting with the least severe one
+     */
+    public static List<ReleaseStatus> bySeverity(){
+        return Arrays.stream(ReleaseStatus.values()).sorted(Comparator.comparingInt(s -> s.severity)).collect(Collectors.toList());
+    }
+
     public boolean isWorst(){
         Optional<Integer> max = Arrays.stream(ReleaseStatus.values()).map(s -> s.severity).reduce(Integer::max);
         return max.get()!=null && max.get()==this.severity;
@@ -78,7 +78,7 @@ public class Scope {
             UserByName user = userController.findUniqueInstance(Collections.singletonList(new EqualsFilter(UserByName.USER_NAME_FIELD, userInfo.getUserName())), UserByName.STRUCTURE, true);
             Set<NexusInstanceReference> invitations = user==null ? null : invitationController.getInvitations(user);
             if (invitations != null && !invitations.isEmpty()) {
-                return scopeEvaluator.getScope(invitations, query);
+                return scopeEvaluator.getScope(user.getUserName(), invitations, query);
             }
         }
         return Collections.emptySet();
@@ -88,6 +88,7 @@ public class Scope {
         UserByName user = userController.findUniqueInstance(Collections.singletonList(new EqualsFilter(UserByName.USER_NAME_FIELD, userName)), UserByName.STRUCTURE, true);
         if(user!=null) {
             invitationController.removeInvitation(new AbsoluteNexusInstanceReference(user.getInstanceReference(), configuration), new AbsoluteNexusInstanceReference(instanceReference, configuration));
+            scopeEvaluator.invalidate(userName);
         }
     }
 
@@ -101,6 +102,7 @@ public class Scope {
         if(!invitations.contains(instanceReference)) {
             Invitation invitation = new Invitation(new AbsoluteNexusInstanceReference(user.getInstanceReference(), configuration), new AbsoluteNexusInstanceReference(instanceReference, configuration));
             invitationController.createInstance(invitation);
+            scopeEvaluator.invalidate(userName);
         }
 
     }
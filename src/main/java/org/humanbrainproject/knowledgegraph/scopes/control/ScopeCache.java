@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.scopes.control;
+
+import org.humanbrainproject.knowledgegraph.annotations.Tested;
+import org.humanbrainproject.knowledgegraph.commons.cache.LruTtlCache;
+import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusInstanceReference;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * A size-bounded cache of the resolved scopes per user and query. An entry is only valid for the invitations and the revision of the stored specifications it has been resolved for - as soon as one of them changes, the scope is resolved again. Since the scope also depends on the indexed instances, the entries expire after the configured time to live.
+ */
+@Tested
+class ScopeCache {
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    private final LruTtlCache<String, CachedScope> cache = new LruTtlCache<>(1000, 5 * 60 * 1000, () -> clock.getAsLong());
+
+    private static class CachedScope {
+        private final String userName;
+        private final Set<NexusInstanceReference> invitations;
+        private final String specificationRevision;
+        private final Set<String> scope;
+
+        private CachedScope(String userName, Set<NexusInstanceReference> invitations, String specificationRevision, Set<String> scope) {
+            this.userName = userName;
+            this.invitations = invitations;
+            this.specificationRevision = specificationRevision;
+            this.scope = scope;
+        }
+    }
+
+    void setMaxSize(int maxSize) {
+        cache.setMaxSize(maxSize);
+    }
+
+    void setTimeToLiveInMillis(long timeToLiveInMillis) {
+        cache.setTimeToLiveInMillis(timeToLiveInMillis);
+    }
+
+    private static String createKey(String userName, String queryId) {
+        return userName + "\n" + queryId;
+    }
+
+    /**
+     * @return the (unmodifiable) scope of the user for the given query or null if there is no entry which is still valid for the given invitations and specification revision.
+     */
+    Set<String> get(String userName, String queryId, Set<NexusInstanceReference> invitations, String specificationRevision) {
+        CachedScope cachedScope = cache.get(createKey(userName, queryId), c -> c.invitations.equals(invitations) && Objects.equals(c.specificationRevision, specificationRevision));
+        return cachedScope != null ? cachedScope.scope : null;
+    }
+
+    void put(String userName, String queryId, Set<NexusInstanceReference> invitations, String specificationRevision, Set<String> scope) {
+        cache.put(createKey(userName, queryId), new CachedScope(userName, new HashSet<>(invitations), specificationRevision, Collections.unmodifiableSet(scope)));
+    }
+
+    void invalidate(String userName) {
+        cache.removeIf(cachedScope -> cachedScope.userName.equals(userName));
+    }
+
+    void clear() {
+        cache.clear();
+    }
+
+    int size() {
+        return cache.size();
+    }
+
+}
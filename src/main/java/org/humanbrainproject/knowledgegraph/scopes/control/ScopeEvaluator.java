@@ -23,37 +23,30 @@
 
 package org.humanbrainproject.knowledgegraph.scopes.control;
 
-import com.arangodb.ArangoCollection;
 import com.github.jsonldjava.core.JsonLdConsts;
-import com.github.jsonldjava.utils.JsonUtils;
-import org.humanbrainproject.knowledgegraph.commons.jsonld.control.JsonLdStandardization;
-import org.humanbrainproject.knowledgegraph.commons.nexus.control.NexusConfiguration;
-import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.ArangoDatabaseFactory;
+import org.humanbrainproject.knowledgegraph.annotations.Tested;
 import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.ArangoInternalRepository;
-import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.builders.TreeScope;
-import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.entity.ArangoCollectionReference;
-import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.entity.ArangoDocumentReference;
 import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusInstanceReference;
 import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusSchemaReference;
 import org.humanbrainproject.knowledgegraph.query.boundary.ArangoQuery;
-import org.humanbrainproject.knowledgegraph.query.boundary.CodeGenerator;
-import org.humanbrainproject.knowledgegraph.query.control.SpecificationController;
-import org.humanbrainproject.knowledgegraph.query.control.SpecificationInterpreter;
-import org.humanbrainproject.knowledgegraph.query.entity.Specification;
-import org.humanbrainproject.knowledgegraph.query.entity.StoredQueryReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.configurationprocessor.json.JSONException;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.io.IOException;
 import java.util.*;
+import java.util.stream.Collectors;
 
+/**
+ * Resolves the ids of the instances a user is invited to (for a specific query) by following the scope trees of the invitations. The scope trees are evaluated level by level - all instances of the same schema of a level are resolved with a single query, so the number of queries depends on the depth of the scope rather than on the number of instances in it.
+ * Note that the scope is intentionally not resolved by a single graph traversal: Which relations are followed is defined by the stored specification of each schema (for the given query) and therefore only known once the instances of a level (and thereby their schemas) are known.
+ */
 @Component
+@Tested
 public class ScopeEvaluator {
 
+    private static Logger logger = LoggerFactory.getLogger(ScopeEvaluator.class);
 
     @Autowired
     ArangoInternalRepository arangoInternalRepository;
@@ -61,35 +54,97 @@ public class ScopeEvaluator {
     @Autowired
     ScopeTreeController scopeTreeController;
 
+    final ScopeCache scopeCache = new ScopeCache();
+
+    private int maxDepth = 20;
+
+    @Value("${org.humanbrainproject.knowledgegraph.scope.maxDepth:20}")
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    @Value("${org.humanbrainproject.knowledgegraph.scope.cache.maxSize:1000}")
+    public void setCacheMaxSize(int maxSize) {
+        scopeCache.setMaxSize(maxSize);
+    }
+
+    @Value("${org.humanbrainproject.knowledgegraph.scope.cache.ttlInSeconds:300}")
+    public void setCacheTimeToLiveInSeconds(long timeToLiveInSeconds) {
+        scopeCache.setTimeToLiveInMillis(timeToLiveInSeconds * 1000);
+    }
+
+    /**
+     * @return the scope of the given user for the given query - reused as long as neither the invitations of the user nor the stored specifications have changed (and the cached scope hasn't expired).
+     */
+    public Set<String> getScope(String userName, Set<NexusInstanceReference> invitations, String query) {
+        String specificationRevision = arangoInternalRepository.getCollectionRevision(ArangoQuery.SPECIFICATION_QUERIES);
+        Set<String> scope = scopeCache.get(userName, query, invitations, specificationRevision);
+        if (scope == null) {
+            scope = getScope(invitations, query);
+            scopeCache.put(userName, query, invitations, specificationRevision, scope);
+        }
+        return scope;
+    }
+
+    public void invalidate(String userName) {
+        scopeCache.invalidate(userName);
+    }
+
+    public void invalidateAll() {
+        scopeCache.clear();
+    }
 
     public Set<String> getScope(Set<NexusInstanceReference> references, String query) {
         Set<String> ids = new HashSet<>();
         Set<NexusSchemaReference> schemasWithSpecification = arangoInternalRepository.getSchemasWithSpecification(query);
-        for (NexusInstanceReference reference : references) {
-            recursivelyFindScope(reference, ids, reference, query, schemasWithSpecification);
+        Map<NexusSchemaReference, Set<NexusInstanceReference>> rootsBySchema = groupBySchema(references);
+        for (Map.Entry<NexusSchemaReference, Set<NexusInstanceReference>> roots : rootsBySchema.entrySet()) {
+            ids.addAll(findScope(roots.getKey(), roots.getValue(), query, schemasWithSpecification));
         }
         return ids;
     }
 
-
-    public void recursivelyFindScope(NexusInstanceReference currentInstance, Set<String> allIds, NexusInstanceReference root, String query, Set<NexusSchemaReference> schemasWithSpec) {
-        Map scopeTree = scopeTreeController.getScopeTree(currentInstance, query);
-        Set<String> ids = new HashSet<>();
-        collectObjectIds(scopeTree, ids);
-        for (String id : ids) {
-            if (!allIds.contains(id)) {
-                NexusInstanceReference reference = NexusInstanceReference.createFromUrl(id);
-                if(schemasWithSpec.contains(reference.getNexusSchema())){
-                    if (root.equals(reference) || !reference.getNexusSchema().equals(root.getNexusSchema())) {
-                        allIds.add(id);
-                        recursivelyFindScope(reference, allIds, root, query, schemasWithSpec);
-                    }
+    /**
+     * Collects the scope of the given root instances (all of the given root schema) by a breadth first traversal of the scope trees. Instances of the root schema are only part of the scope if they are one of the roots themselves.
+     */
+    private Set<String> findScope(NexusSchemaReference rootSchema, Set<NexusInstanceReference> roots, String query, Set<NexusSchemaReference> schemasWithSpec) {
+        Set<String> scope = new HashSet<>();
+        Set<NexusInstanceReference> visited = new HashSet<>(roots);
+        Set<NexusInstanceReference> currentLevel = roots;
+        for (int depth = 0; !currentLevel.isEmpty(); depth++) {
+            if (depth == maxDepth) {
+                logger.warn(String.format("The scope of %s for the query %s exceeds the maximal depth of %d - %d instances are not resolved any further", rootSchema.getRelativeUrl().getUrl(), query, maxDepth, currentLevel.size()));
+                break;
+            }
+            Set<NexusInstanceReference> nextLevel = new HashSet<>();
+            for (Map.Entry<NexusSchemaReference, Set<NexusInstanceReference>> instances : groupBySchema(currentLevel).entrySet()) {
+                Set<String> ids = new HashSet<>();
+                for (Map scopeTree : scopeTreeController.getScopeTrees(instances.getKey(), instances.getValue(), query)) {
+                    collectObjectIds(scopeTree, ids);
                 }
-                else{
-                    allIds.add(id);
+                for (String id : ids) {
+                    if (!scope.contains(id)) {
+                        NexusInstanceReference reference = NexusInstanceReference.createFromUrl(id);
+                        if (reference != null && schemasWithSpec.contains(reference.getNexusSchema())) {
+                            if (roots.contains(reference) || !reference.getNexusSchema().equals(rootSchema)) {
+                                scope.add(id);
+                                if (visited.add(reference)) {
+                                    nextLevel.add(reference);
+                                }
+                            }
+                        } else {
+                            scope.add(id);
+                        }
+                    }
                 }
             }
+            currentLevel = nextLevel;
         }
+        return scope;
+    }
+
+    private Map<NexusSchemaReference, Set<NexusInstanceReference>> groupBySchema(Set<NexusInstanceReference> references) {
+        return references.stream().collect(Collectors.groupingBy(NexusInstanceReference::getNexusSchema, Collectors.toSet()));
     }
 
     private void collectObjectIds(Map scopeTree, Set<String> objectIds) {
@@ -30,6 +30,7 @@ import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control
 import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.builders.TreeScope;
 import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.entity.ArangoDocumentReference;
 import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusInstanceReference;
+import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusSchemaReference;
 import org.humanbrainproject.knowledgegraph.query.boundary.ArangoQuery;
 import org.humanbrainproject.knowledgegraph.query.control.SpecificationController;
 import org.humanbrainproject.knowledgegraph.query.control.SpecificationInterpreter;
@@ -46,7 +47,9 @@ import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Component
 public class ScopeTreeController {
@@ -73,18 +76,37 @@ public class ScopeTreeController {
     @Cacheable("scopeTree")
     public Map getScopeTree(NexusInstanceReference instanceReference, String queryId) {
         logger.info(String.format("Finding scope for %s with the query %s", instanceReference.getRelativeUrl().getUrl(), queryId));
-        StoredQueryReference queryReference = new StoredQueryReference(instanceReference.getNexusSchema(), queryId);
+        Specification specification = getSpecification(instanceReference.getNexusSchema(), queryId);
+        if (specification != null) {
+            return specificationController.scopeTreeBySpecification(specification, null, instanceReference, TreeScope.ALL);
+        }
+        return Collections.emptyMap();
+
+    }
+
+    /**
+     * @return the scope trees of all given instances of the given schema - they are resolved by a single query.
+     */
+    public List<Map> getScopeTrees(NexusSchemaReference schemaReference, Set<NexusInstanceReference> instanceReferences, String queryId) {
+        logger.info(String.format("Finding scope for %d instances of %s with the query %s", instanceReferences.size(), schemaReference.getRelativeUrl().getUrl(), queryId));
+        Specification specification = getSpecification(schemaReference, queryId);
+        if (specification != null) {
+            return specificationController.scopeTreesBySpecification(specification, instanceReferences);
+        }
+        return Collections.emptyList();
+    }
+
+    private Specification getSpecification(NexusSchemaReference schemaReference, String queryId) {
+        StoredQueryReference queryReference = new StoredQueryReference(schemaReference, queryId);
         String payload = arangoInternalRepository.getInternalDocumentByKey(new ArangoDocumentReference(ArangoQuery.SPECIFICATION_QUERIES, queryReference.getName()), String.class);
         if (payload != null) {
             try {
-                Specification specification = specInterpreter.readSpecification(JsonUtils.toString(standardization.fullyQualify(payload)), nexusConfiguration.getAbsoluteUrl(instanceReference.getNexusSchema()), null);
-                return specificationController.scopeTreeBySpecification(specification, null, instanceReference, TreeScope.ALL);
+                return specInterpreter.readSpecification(JsonUtils.toString(standardization.fullyQualify(payload)), nexusConfiguration.getAbsoluteUrl(schemaReference), null);
             } catch (IOException | JSONException e) {
                 e.printStackTrace();
             }
         }
-        return Collections.emptyMap();
-
+        return null;
     }
 
 
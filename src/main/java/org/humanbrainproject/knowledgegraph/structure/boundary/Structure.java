@@ -38,6 +38,7 @@ import org.humanbrainproject.knowledgegraph.structure.exceptions.AsynchronousSta
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
@@ -46,6 +47,11 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @ToBeTested(integrationTestRequired = true, systemTestRequired = true)
@@ -75,6 +81,49 @@ public class Structure {
 
     private static boolean STRUCTURE_LOCK = false;
 
+    /**
+     * The schemas are reflected concurrently by the shared (bounded) structure executor
+     */
+    @Autowired
+    @Qualifier("structure")
+    ExecutorService executorService;
+
+    /**
+     * The reflection results by collection name. They are reused as long as the revision they have been calculated for is unchanged.
+     */
+    private final Map<String, CachedReflection> attributesCache = new ConcurrentHashMap<>();
+    private final Map<String, CachedReflection> outboundRelationsCache = new ConcurrentHashMap<>();
+    private final Map<String, CachedReflection> inboundRelationsCache = new ConcurrentHashMap<>();
+
+    private static class CachedReflection {
+        private final String revision;
+        private final List<Map> result;
+
+        private CachedReflection(String revision, List<Map> result) {
+            this.revision = revision;
+            this.result = result;
+        }
+    }
+
+    private List<Map> getReflection(Map<String, CachedReflection> cache, ArangoCollectionReference reference, String revision, Supplier<List<Map>> reflection) {
+        CachedReflection cached = cache.get(reference.getName());
+        List<Map> result;
+        if (revision != null && cached != null && revision.equals(cached.revision)) {
+            result = cached.result;
+        } else {
+            result = reflection.get();
+            if (revision != null) {
+                cache.put(reference.getName(), new CachedReflection(revision, result));
+            }
+        }
+        //The maps are enriched by the caller - we therefore hand out copies to keep the cached results untouched
+        List<Map> copy = new ArrayList<>(result.size());
+        for (Map map : result) {
+            copy.add(map != null ? new LinkedHashMap(map) : null);
+        }
+        return copy;
+    }
+
 
     private Map<String, Map> groupDirectReferences(List<Map> relations, boolean outbound) {
         Map<String, Map> groupedLinks = new HashMap<>();
@@ -105,6 +154,13 @@ public class Structure {
 
 
     public JsonDocument getStructureForSchema(NexusSchemaReference schemaReference, boolean withLinks) {
+        return getStructureForSchema(schemaReference, withLinks, withLinks ? structureRepository.getEdgesCollectionsRevision() : null);
+    }
+
+    /**
+     * @param edgesRevision - the fingerprint of the edge collections at the beginning of the reflection (used to decide if the cached inbound relations are still valid)
+     */
+    private JsonDocument getStructureForSchema(NexusSchemaReference schemaReference, boolean withLinks, String edgesRevision) {
         JsonDocument jsonDocument = new JsonDocument();
         jsonDocument.put("id", schemaReference.getRelativeUrl().getUrl());
         jsonDocument.put("group", schemaReference.getOrganization());
@@ -114,16 +170,19 @@ public class Structure {
         if (!inferredRepository.hasInstances(arangoReference)) {
             return null;
         }
+        //The revision is read before the reflection - if the collection is modified in the meantime, it will be rescanned the next time.
+        String revision = structureRepository.getCollectionRevision(arangoReference);
         Map<String, Map> inboundRelations;
         if (withLinks) {
-            inboundRelations = groupDirectReferences(structureRepository.getDirectRelationsWithType(arangoReference, false), false);
+            inboundRelations = groupDirectReferences(getReflection(inboundRelationsCache, arangoReference, edgesRevision, () -> structureRepository.getDirectRelationsWithType(arangoReference, false)), false);
         } else {
             inboundRelations = Collections.emptyMap();
         }
-        List<Map> attributesWithCount = structureRepository.getAttributesWithCount(arangoReference);
+        List<Map> attributesWithCount = getReflection(attributesCache, arangoReference, revision, () -> structureRepository.getAttributesWithCount(arangoReference));
         Map<String, Map> outboundRelations;
         if (attributesWithCount.size() > 0 && withLinks) {
-            outboundRelations = groupDirectReferences(structureRepository.getDirectRelationsWithType(arangoReference, true), true);
+            //Outbound relations are stored together with the documents of the collection and therefore change with its revision.
+            outboundRelations = groupDirectReferences(getReflection(outboundRelationsCache, arangoReference, revision, () -> structureRepository.getDirectRelationsWithType(arangoReference, true)), true);
         } else {
             outboundRelations = Collections.emptyMap();
         }
@@ -207,19 +266,37 @@ public class Structure {
         JsonDocument jsonDocument = new JsonDocument();
         List<JsonDocument> schemas = new ArrayList<>();
         jsonDocument.put("schemas", schemas);
-        for (NexusSchemaReference schemaReference : allSchemas) {
-            try {
-                logger.debug(String.format("fetching structure from schema %s", schemaReference.getRelativeUrl().getUrl()));
-                JsonDocument structureForSchema = getStructureForSchema(schemaReference, withLinks);
-                if (structureForSchema != null) {
-                    schemas.add(structureForSchema);
+        String edgesRevision = withLinks ? structureRepository.getEdgesCollectionsRevision() : null;
+        List<Future<JsonDocument>> futures = new ArrayList<>();
+        try {
+            for (NexusSchemaReference schemaReference : allSchemas) {
+                futures.add(executorService.submit(() -> {
+                    logger.debug(String.format("fetching structure from schema %s", schemaReference.getRelativeUrl().getUrl()));
+                    return getStructureForSchema(schemaReference, withLinks, edgesRevision);
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    JsonDocument structureForSchema = futures.get(i).get();
+                    if (structureForSchema != null) {
+                        schemas.add(structureForSchema);
+                    }
+                } catch (ExecutionException e) {
+                    if (!(e.getCause() instanceof ArangoDBException)) {
+                        throw new RuntimeException(e.getCause());
+                    }
+                    JsonDocument document = new JsonDocument();
+                    document.put("id", allSchemas.get(i).getRelativeUrl().getUrl());
+                    document.put("failure", String.format("Was not able to reflect. Cause: %s", ((ArangoDBException) e.getCause()).getErrorMessage()));
+                    schemas.add(document);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
                 }
-            } catch (ArangoDBException exception) {
-                JsonDocument document = new JsonDocument();
-                document.put("id", schemaReference.getRelativeUrl().getUrl());
-                document.put("failure", String.format("Was not able to reflect. Cause: ", exception.getErrorMessage()));
-                schemas.add(document);
             }
+        } finally {
+            //The executor is shared - only the (remaining) tasks of this reflection are stopped.
+            futures.forEach(future -> future.cancel(true));
         }
         return jsonDocument;
     }
@@ -45,6 +45,7 @@ import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 
 @Component
@@ -188,6 +189,21 @@ public class NexusMockClient extends NexusClient {
         return list(schemaReference.getRelativeUrl(), credential, followPages);
     }
 
+    @Override
+    public Stream<JsonDocument> stream(NexusRelativeUrl relativeUrl, Credential credential, boolean followPages) {
+        return list(relativeUrl, credential, followPages).stream();
+    }
+
+    @Override
+    public Stream<JsonDocument> stream(NexusSchemaReference schemaReference, Credential credential, boolean followPages) {
+        return list(schemaReference, credential, followPages).stream();
+    }
+
+    @Override
+    public Stream<NexusInstanceReference> streamInstances(NexusSchemaReference schemaReference, Credential credential) {
+        return stream(schemaReference, credential, true).map(d -> NexusInstanceReference.createFromUrl(d.getNexusId()));
+    }
+
     @Override
     public List<NexusSchemaReference> listSchemasByOrganization(String organization, Credential oidc, boolean followPages) {
         return schemas.stream().filter(s -> s.getRelativeUrl().getUrl().startsWith(organization)).collect(Collectors.toList());
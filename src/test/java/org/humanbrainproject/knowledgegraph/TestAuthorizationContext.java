@@ -84,6 +84,11 @@ public class TestAuthorizationContext implements AuthorizationContext {
         return false;
     }
 
+    @Override
+    public boolean isWritable(String organization) {
+        return false;
+    }
+
     @Override
     public ClientHttpRequestInterceptor getInterceptor() {
         return null;
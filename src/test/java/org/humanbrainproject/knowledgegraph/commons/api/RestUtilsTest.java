@@ -23,11 +23,17 @@
 
 package org.humanbrainproject.knowledgegraph.commons.api;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.humanbrainproject.knowledgegraph.query.entity.QueryResult;
+import org.humanbrainproject.knowledgegraph.query.entity.StreamedQueryResult;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.*;
+
 public class RestUtilsTest {
 
     @Test
@@ -71,4 +77,37 @@ public class RestUtilsTest {
         Assert.assertNull(queryResult);
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void writeStreamedQueryResult() throws IOException {
+        StreamedQueryResult result = new StreamedQueryResult(Arrays.<Map>asList(Collections.singletonMap("name", "foo"), Collections.singletonMap("name", "bar")).iterator(), null);
+        result.setDatabaseScope("INFERRED");
+        result.setApiName("test");
+        result.setStart(0L);
+        result.setTotal(5L);
+        result.setNextCursor(() -> "next");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        RestUtils.writeStreamedQueryResult(result, out);
+
+        Map written = new ObjectMapper().readValue(out.toByteArray(), Map.class);
+        Assert.assertEquals("INFERRED", written.get("databaseScope"));
+        Assert.assertEquals("test", written.get("apiName"));
+        Assert.assertEquals(5, written.get("total"));
+        Assert.assertEquals(2, written.get("size"));
+        Assert.assertEquals("next", written.get("nextCursor"));
+        Assert.assertEquals(Arrays.asList(Collections.singletonMap("name", "foo"), Collections.singletonMap("name", "bar")), written.get("results"));
+    }
+
+    @Test
+    public void writeStreamedQueryResultEmpty() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        RestUtils.writeStreamedQueryResult(StreamedQueryResult.createEmptyResult("RELEASED"), out);
+
+        Map written = new ObjectMapper().readValue(out.toByteArray(), Map.class);
+        Assert.assertEquals(Collections.emptyList(), written.get("results"));
+        Assert.assertEquals(0, written.get("size"));
+        Assert.assertFalse(written.containsKey("nextCursor"));
+    }
+}
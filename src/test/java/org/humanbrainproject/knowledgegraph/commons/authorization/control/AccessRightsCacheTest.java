@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.commons.authorization.control;
+
+import org.humanbrainproject.knowledgegraph.commons.authorization.entity.AccessRight;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+public class AccessRightsCacheTest {
+
+    AccessRightsCache cache;
+    long now;
+
+    @Before
+    public void setup(){
+        cache = new AccessRightsCache();
+        cache.clock = () -> now;
+    }
+
+    private Set<AccessRight> createAccessRights(String organization){
+        return Collections.singleton(new AccessRight(organization, AccessRight.Permission.READ));
+    }
+
+    @Test
+    public void get(){
+        Set<AccessRight> accessRights = createAccessRights("foo");
+        cache.put("token", accessRights);
+
+        Assert.assertEquals(accessRights, cache.get("token"));
+        Assert.assertNull(cache.get("other"));
+    }
+
+    @Test
+    public void getExpired(){
+        cache.setTimeToLiveInMillis(1000);
+        cache.put("token", createAccessRights("foo"));
+
+        now = 1000;
+
+        Assert.assertNull(cache.get("token"));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed(){
+        cache.setMaxSize(2);
+        cache.put("foo", createAccessRights("foo"));
+        cache.put("bar", createAccessRights("bar"));
+        cache.get("foo");
+
+        cache.put("foobar", createAccessRights("foobar"));
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNotNull(cache.get("foo"));
+        Assert.assertNull(cache.get("bar"));
+        Assert.assertNotNull(cache.get("foobar"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void cachedAccessRightsAreUnmodifiable(){
+        cache.put("token", new HashSet<>(createAccessRights("foo")));
+
+        cache.get("token").clear();
+    }
+}
@@ -27,6 +27,8 @@ import org.humanbrainproject.knowledgegraph.commons.authorization.entity.AccessR
 import org.humanbrainproject.knowledgegraph.commons.authorization.entity.Credential;
 import org.humanbrainproject.knowledgegraph.commons.authorization.entity.InternalMasterKey;
 import org.humanbrainproject.knowledgegraph.commons.authorization.entity.OidcAccessToken;
+import org.humanbrainproject.knowledgegraph.commons.nexus.control.NexusClient;
+import org.humanbrainproject.knowledgegraph.commons.nexus.control.NexusConfiguration;
 import org.humanbrainproject.knowledgegraph.testFactory.TestObjectFactory;
 import org.junit.Before;
 import org.junit.Test;
@@ -42,6 +44,7 @@ import org.springframework.mock.http.client.MockClientHttpResponse;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -199,4 +202,91 @@ public class AuthorizationControllerTest {
         //then
         assertFalse(readable);
     }
-}
\ No newline at end of file
+
+    private void mockNexusOrganizations(){
+        controller.nexusClient = Mockito.mock(NexusClient.class);
+        controller.nexusConfiguration = Mockito.mock(NexusConfiguration.class);
+        Mockito.doReturn("http://nexus/v0/organizations").when(controller.nexusConfiguration).getNexusBase(NexusConfiguration.ResourceType.ORGANIZATION);
+        Mockito.doReturn(new HashSet<>(Collections.singletonList("http://nexus/v0/organizations/foopermission"))).when(controller.nexusClient).getAllOrganizations(Mockito.any());
+    }
+
+    @Test
+    public void isWritable(){
+        //given
+        controller.nexusClient = Mockito.mock(NexusClient.class);
+        OidcAccessToken token = new OidcAccessToken().setToken("foobar");
+        Mockito.doReturn(new HashSet<>(Arrays.asList("read", "write"))).when(controller.nexusClient).getPermissions("foo", token);
+        Mockito.doReturn(new HashSet<>(Collections.singletonList("read"))).when(controller.nexusClient).getPermissions("bar", token);
+
+        //then
+        assertTrue(controller.isWritable("foo", token));
+        assertFalse(controller.isWritable("bar", token));
+        assertTrue(controller.isWritable("bar", new InternalMasterKey()));
+    }
+
+    @Test
+    public void repeatedAuthorizationsHitNexusOnce(){
+        //given
+        mockNexusOrganizations();
+        Map<String, Object> arangoInstance = TestObjectFactory.createArangoInstanceSkeleton("fooinstance", "foopermission");
+        OidcAccessToken token = new OidcAccessToken().setToken("foobar");
+
+        //when
+        for (int i = 0; i < 10; i++) {
+            assertTrue(controller.isReadable(arangoInstance, token));
+            assertEquals(Collections.singleton("foopermission"), controller.getReadableOrganizations(new OidcAccessToken().setToken("foobar"), null));
+        }
+
+        //then
+        Mockito.verify(controller.nexusClient, Mockito.times(1)).getAllOrganizations(Mockito.any());
+    }
+
+    @Test
+    public void authorizationsOfDifferentTokensAreCachedSeparately(){
+        //given
+        mockNexusOrganizations();
+
+        //when
+        controller.getReadableOrganizations(new OidcAccessToken().setToken("foo"), null);
+        controller.getReadableOrganizations(new OidcAccessToken().setToken("bar"), null);
+        controller.getReadableOrganizations(new OidcAccessToken().setToken("foo"), null);
+
+        //then
+        Mockito.verify(controller.nexusClient, Mockito.times(2)).getAllOrganizations(Mockito.any());
+    }
+
+    @Test
+    public void expiredAuthorizationsAreReloaded(){
+        //given
+        mockNexusOrganizations();
+        long[] now = {0};
+        controller.tokenToAccessRights.clock = () -> now[0];
+        controller.setAccessRightsCacheTimeToLive(60);
+        OidcAccessToken token = new OidcAccessToken().setToken("foobar");
+
+        //when
+        controller.getReadableOrganizations(token, null);
+        now[0] = 59999;
+        controller.getReadableOrganizations(token, null);
+        now[0] = 60000;
+        controller.getReadableOrganizations(token, null);
+
+        //then
+        Mockito.verify(controller.nexusClient, Mockito.times(2)).getAllOrganizations(Mockito.any());
+    }
+
+    @Test
+    public void getReadableOrganizationsDoesNotAlterCache(){
+        //given
+        mockNexusOrganizations();
+        OidcAccessToken token = new OidcAccessToken().setToken("foobar");
+
+        //when
+        Set<String> restricted = controller.getReadableOrganizations(token, Collections.singletonList("bar"));
+        Set<String> unrestricted = controller.getReadableOrganizations(token, null);
+
+        //then
+        assertTrue(restricted.isEmpty());
+        assertEquals(Collections.singleton("foopermission"), unrestricted);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.commons.cache;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+public class LruTtlCacheTest {
+
+    LruTtlCache<String, String> cache;
+    long now;
+
+    @Before
+    public void setup() {
+        cache = new LruTtlCache<>(1000, 1000, () -> now);
+    }
+
+    @Test
+    public void get() {
+        cache.put("foo", "bar");
+
+        Assert.assertEquals("bar", cache.get("foo"));
+        Assert.assertNull(cache.get("other"));
+    }
+
+    @Test
+    public void getExpired() {
+        cache.put("foo", "bar");
+
+        now = 999;
+        Assert.assertEquals("bar", cache.get("foo"));
+        now = 1000;
+        Assert.assertNull(cache.get("foo"));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void getInvalid() {
+        cache.put("foo", "bar");
+
+        Assert.assertNull(cache.get("foo", "foobar"::equals));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() {
+        cache.setMaxSize(2);
+        cache.put("foo", "foo");
+        cache.put("bar", "bar");
+        cache.get("foo");
+
+        cache.put("foobar", "foobar");
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNotNull(cache.get("foo"));
+        Assert.assertNull(cache.get("bar"));
+        Assert.assertNotNull(cache.get("foobar"));
+    }
+
+    @Test
+    public void disabled() {
+        cache.setTimeToLiveInMillis(0);
+
+        cache.put("foo", "bar");
+
+        Assert.assertNull(cache.get("foo"));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void neverExpires() {
+        cache.setTimeToLiveInMillis(Long.MAX_VALUE);
+        now = 1000;
+        cache.put("foo", "bar");
+
+        now = Long.MAX_VALUE - 1;
+
+        Assert.assertEquals("bar", cache.get("foo"));
+    }
+
+    @Test
+    public void computeIfAbsent() {
+        AtomicInteger computations = new AtomicInteger();
+
+        Function<String, String> computation = k -> {
+            computations.incrementAndGet();
+            return "bar";
+        };
+
+        Assert.assertEquals("bar", cache.computeIfAbsent("foo", computation));
+        Assert.assertEquals("bar", cache.computeIfAbsent("foo", computation));
+        Assert.assertEquals(1, computations.get());
+    }
+
+    @Test
+    public void removeIf() {
+        cache.put("foo", "foo");
+        cache.put("bar", "bar");
+
+        cache.removeIf("foo"::equals);
+
+        Assert.assertNull(cache.get("foo"));
+        Assert.assertEquals("bar", cache.get("bar"));
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.commons.http.control;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.web.client.RestTemplate;
+
+import java.nio.charset.StandardCharsets;
+
+public class HttpClientProviderTest {
+
+    HttpClientProvider provider;
+
+    @Before
+    public void setup() {
+        provider = new HttpClientProvider();
+        provider.maxConnections = 20;
+        provider.maxConnectionsPerRoute = 5;
+        provider.connectTimeoutInMs = 1000;
+        provider.readTimeoutInMs = 2000;
+        provider.idleTimeoutInSeconds = 10;
+        provider.init();
+    }
+
+    @After
+    public void tearDown() {
+        provider.close();
+    }
+
+    @Test
+    public void initConfiguresPool() {
+        Assert.assertEquals(20, provider.connectionManager.getMaxTotal());
+        Assert.assertEquals(5, provider.connectionManager.getDefaultMaxPerRoute());
+    }
+
+    @Test
+    public void getRestTemplateIsShared() {
+        RestTemplate restTemplate = provider.getRestTemplate();
+        Assert.assertSame(restTemplate, provider.getRestTemplate());
+        Assert.assertTrue(restTemplate.getInterceptors().isEmpty());
+        Assert.assertTrue(restTemplate.getRequestFactory() instanceof HttpComponentsClientHttpRequestFactory);
+    }
+
+    @Test
+    public void createRestTemplateSharesPool() {
+        ClientHttpRequestInterceptor interceptor = Mockito.mock(ClientHttpRequestInterceptor.class);
+        RestTemplate first = provider.createRestTemplate(interceptor);
+        RestTemplate second = provider.createRestTemplate(interceptor);
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(1, first.getInterceptors().size());
+        Assert.assertSame(interceptor, first.getInterceptors().get(0));
+        Assert.assertSame(provider.getRestTemplate().getRequestFactory(), provider.createRestTemplate(null).getRequestFactory());
+    }
+
+    @Test
+    public void createRestTemplateReadsStringsAsUtf8() {
+        RestTemplate restTemplate = provider.createRestTemplate(null);
+        Assert.assertTrue(restTemplate.getMessageConverters().get(0) instanceof StringHttpMessageConverter);
+        Assert.assertEquals(StandardCharsets.UTF_8, ((StringHttpMessageConverter) restTemplate.getMessageConverters().get(0)).getDefaultCharset());
+    }
+
+}
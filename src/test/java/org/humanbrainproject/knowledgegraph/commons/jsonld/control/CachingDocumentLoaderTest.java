@@ -0,0 +1,129 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.commons.jsonld.control;
+
+import com.github.jsonldjava.core.JsonLdOptions;
+import com.github.jsonldjava.core.JsonLdProcessor;
+import com.github.jsonldjava.core.RemoteDocument;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CachingDocumentLoaderTest {
+
+    private static final String CONTEXT_URL = "http://test/context.jsonld";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    AtomicInteger remoteCalls = new AtomicInteger();
+    AtomicLong now = new AtomicLong();
+    CachingDocumentLoader loader;
+
+    @Before
+    public void setup() {
+        loader = new CachingDocumentLoader() {
+            @Override
+            protected RemoteDocument loadRemoteDocument(String url) {
+                remoteCalls.incrementAndGet();
+                Map<String, Object> context = new LinkedHashMap<>();
+                context.put("test", "http://test/");
+                return new RemoteDocument(url, Collections.singletonMap("@context", context));
+            }
+        };
+        loader.clock = now::get;
+    }
+
+    @Test
+    public void loadDocumentOnlyOnce() {
+        loader.loadDocument(CONTEXT_URL);
+        RemoteDocument document = loader.loadDocument(CONTEXT_URL);
+
+        Assert.assertEquals(1, remoteCalls.get());
+        Assert.assertEquals(CONTEXT_URL, document.getDocumentUrl());
+        Assert.assertTrue(((Map) document.getDocument()).containsKey("@context"));
+    }
+
+    @Test
+    public void loadDocumentAfterExpiry() {
+        loader.setTimeToLiveInMillis(1000);
+        loader.loadDocument(CONTEXT_URL);
+        now.set(1000);
+        loader.loadDocument(CONTEXT_URL);
+
+        Assert.assertEquals(2, remoteCalls.get());
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() {
+        loader.setMaxSize(2);
+        loader.loadDocument("http://test/a");
+        loader.loadDocument("http://test/b");
+        loader.loadDocument("http://test/a");
+        loader.loadDocument("http://test/c");
+
+        Assert.assertEquals(2, loader.size());
+        loader.loadDocument("http://test/a");
+        Assert.assertEquals(3, remoteCalls.get());
+        loader.loadDocument("http://test/b");
+        Assert.assertEquals(4, remoteCalls.get());
+    }
+
+    @Test
+    public void loadedDocumentsAreIndependentCopies() {
+        ((Map) loader.loadDocument(CONTEXT_URL).getDocument()).clear();
+
+        Assert.assertFalse(((Map) loader.loadDocument(CONTEXT_URL).getDocument()).isEmpty());
+    }
+
+    @Test
+    public void preload() throws Exception {
+        File file = new File(folder.getRoot(), URLEncoder.encode(CONTEXT_URL, StandardCharsets.UTF_8.name()) + ".jsonld");
+        Files.write(file.toPath(), "{\"@context\": {\"foo\": \"http://foo/\"}}".getBytes(StandardCharsets.UTF_8));
+        loader.preload(folder.getRoot().toPath());
+
+        Map<String, Object> input = new LinkedHashMap<>();
+        input.put("@context", CONTEXT_URL);
+        input.put("foo:bar", "foobar");
+        JsonLdOptions options = new JsonLdOptions();
+        options.setDocumentLoader(loader);
+        Object expanded = JsonLdProcessor.expand(input, options);
+
+        Assert.assertEquals(0, remoteCalls.get());
+        Assert.assertTrue(expanded.toString().contains("http://foo/bar"));
+    }
+
+}
@@ -30,6 +30,10 @@ import org.junit.Ignore;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 public class JsonLdStandardizationTest {
@@ -113,4 +117,20 @@ public class JsonLdStandardizationTest {
 
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void applyContextWithVocab() {
+        JsonLdStandardization standardization = new JsonLdStandardization();
+        standardization.jsonTransformer = json;
+        Map<String, Object> context = new LinkedHashMap<>();
+        context.put("@vocab", "http://test/");
+
+        List<Map> first = standardization.applyContext(Arrays.asList(json.parseToMap("{'http://test/foo': 'a', 'http://test/bar': {'http://test/foo': 'b'}}"), json.parseToMap("{'http://test/foo': 'c'}")), context);
+        Assert.assertEquals(json.parseToMap("{'foo': 'a', 'bar': {'foo': 'b'}}"), first.get(0));
+        Assert.assertEquals(json.parseToMap("{'foo': 'c'}"), first.get(1));
+
+        //The second request reuses the mapping of the known keys and resolves the new one
+        List<Map> second = standardization.applyContext(Collections.singletonList(json.parseToMap("{'http://test/foo': 'd', 'http://test/foobar': 'e', 'http://other/foo': 'f'}")), context);
+        Assert.assertEquals(json.parseToMap("{'foo': 'd', 'foobar': 'e', 'http://other/foo': 'f'}"), second.get(0));
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.commons.nexus.control;
+
+import org.humanbrainproject.knowledgegraph.query.entity.JsonDocument;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+public class NexusPageIteratorTest {
+
+    private final Executor sameThread = Runnable::run;
+
+    private Function<String, NexusPage> createLoader(int numberOfPages, List<String> loadedUrls) {
+        Map<String, NexusPage> pages = new HashMap<>();
+        for (int i = 0; i < numberOfPages; i++) {
+            JsonDocument document = new JsonDocument();
+            document.put("resultId", "instance" + i);
+            pages.put("page" + i, new NexusPage(Collections.singletonList(document), i + 1 < numberOfPages ? "page" + (i + 1) : null));
+        }
+        return url -> {
+            loadedUrls.add(url);
+            return pages.get(url);
+        };
+    }
+
+    @Test
+    public void iterateAllPages() {
+        List<String> loadedUrls = Collections.synchronizedList(new ArrayList<>());
+        NexusPageIterator iterator = new NexusPageIterator("page0", createLoader(5, loadedUrls), ForkJoinPool.commonPool(), 2);
+        List<Object> ids = new ArrayList<>();
+        while (iterator.hasNext()) {
+            iterator.next().forEach(d -> ids.add(d.get("resultId")));
+        }
+        Assert.assertEquals(5, ids.size());
+        Assert.assertEquals("instance0", ids.get(0));
+        Assert.assertEquals("instance4", ids.get(4));
+        Assert.assertEquals(5, loadedUrls.size());
+    }
+
+    @Test
+    public void prefetchIsBounded() {
+        List<String> loadedUrls = new ArrayList<>();
+        NexusPageIterator iterator = new NexusPageIterator("page0", createLoader(10, loadedUrls), sameThread, 2);
+        Assert.assertEquals(2, loadedUrls.size());
+        iterator.next();
+        Assert.assertEquals(3, loadedUrls.size());
+        iterator.next();
+        Assert.assertEquals(4, loadedUrls.size());
+    }
+
+    @Test
+    public void emptyListing() {
+        NexusPageIterator iterator = new NexusPageIterator("page0", url -> NexusPage.EMPTY, sameThread, 1);
+        Assert.assertTrue(iterator.hasNext());
+        Assert.assertTrue(iterator.next().isEmpty());
+        Assert.assertFalse(iterator.hasNext());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void nextAfterLastPage() {
+        NexusPageIterator iterator = new NexusPageIterator("page0", createLoader(1, new ArrayList<>()), sameThread, 1);
+        iterator.next();
+        iterator.next();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void loadingErrorIsPropagated() {
+        NexusPageIterator iterator = new NexusPageIterator("page0", url -> {
+            throw new IllegalStateException();
+        }, sameThread, 1);
+        iterator.hasNext();
+    }
+
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control;
+
+import com.arangodb.ArangoCollection;
+import com.arangodb.ArangoCursor;
+import com.arangodb.ArangoDBException;
+import com.arangodb.ArangoDatabase;
+import com.arangodb.entity.CollectionEntity;
+import com.arangodb.model.TransactionOptions;
+import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.entity.ArangoCollectionReference;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+public class ArangoAttributeStatisticsTest {
+
+    ArangoAttributeStatistics attributeStatistics;
+    ArangoConnection connection;
+    ArangoDatabase database;
+    ArangoCollection statisticsCollection;
+
+    private CollectionEntity collectionEntity(String name, boolean system) {
+        CollectionEntity entity = Mockito.mock(CollectionEntity.class);
+        Mockito.doReturn(name).when(entity).getName();
+        Mockito.doReturn(system).when(entity).getIsSystem();
+        return entity;
+    }
+
+    @Before
+    public void setup() {
+        attributeStatistics = new ArangoAttributeStatistics();
+        connection = Mockito.mock(ArangoConnection.class);
+        database = Mockito.mock(ArangoDatabase.class);
+        statisticsCollection = Mockito.mock(ArangoCollection.class);
+        Mockito.doReturn(database).when(connection).getOrCreateDB();
+        Mockito.doReturn("kg_inferred").when(database).name();
+        Mockito.doReturn(statisticsCollection).when(database).collection("attribute_statistics");
+        Mockito.doReturn(true).when(statisticsCollection).exists();
+    }
+
+    @Test
+    public void getAttributesWithCount() {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("http://schema.org/name", 10);
+        attributes.put("http://schema.org/description", 0);
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("count", 10);
+        statistics.put("attributes", attributes);
+        Mockito.doReturn(statistics).when(statisticsCollection).getDocument("foo", Map.class);
+
+        List<Map> attributesWithCount = attributeStatistics.getAttributesWithCount(connection, new ArangoCollectionReference("foo"));
+
+        Assert.assertEquals(1, attributesWithCount.size());
+        Assert.assertEquals("http://schema.org/name", attributesWithCount.get(0).get("attribute"));
+        Assert.assertEquals(10L, attributesWithCount.get(0).get("numOfOccurences"));
+    }
+
+    @Test
+    public void getAttributesWithCountWithoutStatistics() {
+        Assert.assertNull(attributeStatistics.getAttributesWithCount(connection, new ArangoCollectionReference("foo")));
+        Mockito.doReturn(false).when(statisticsCollection).exists();
+        Assert.assertNull(attributeStatistics.getAttributesWithCount(connection, new ArangoCollectionReference("foo")));
+    }
+
+    private ArangoCursor cursor(List<?> values) {
+        ArangoCursor cursor = Mockito.mock(ArangoCursor.class);
+        Mockito.doReturn(values).when(cursor).asListRemaining();
+        return cursor;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void getDirectRelationsWithType() {
+        Map<String, Object> relation = new LinkedHashMap<>();
+        relation.put("ref", "bar");
+        relation.put("attribute", "http://schema.org/author");
+        Mockito.doReturn(cursor(Collections.singletonList(2))).when(database).query(Mockito.eq(ArangoAttributeStatistics.RELATION_STATISTICS_COUNT), Mockito.anyMap(), Mockito.any(), Mockito.eq(Number.class));
+        Mockito.doReturn(cursor(Collections.singletonList(relation))).when(database).query(Mockito.eq(ArangoAttributeStatistics.OUTBOUND_RELATIONS), Mockito.anyMap(), Mockito.any(), Mockito.eq(Map.class));
+
+        List<Map> relations = attributeStatistics.getDirectRelationsWithType(connection, new ArangoCollectionReference("foo"), new LinkedHashSet<>(Arrays.asList(new ArangoCollectionReference("author"), new ArangoCollectionReference("editor"))), true);
+
+        Assert.assertEquals(Collections.singletonList(relation), relations);
+        ArgumentCaptor<Map> bindVars = ArgumentCaptor.forClass(Map.class);
+        Mockito.verify(database).query(Mockito.eq(ArangoAttributeStatistics.OUTBOUND_RELATIONS), bindVars.capture(), Mockito.any(), Mockito.eq(Map.class));
+        Assert.assertEquals("foo", bindVars.getValue().get("collection"));
+        Assert.assertEquals(Arrays.asList("author", "editor"), bindVars.getValue().get("edgeCollections"));
+        Assert.assertEquals("attribute_statistics", bindVars.getValue().get("@statistics"));
+    }
+
+    @Test
+    public void getDirectRelationsWithTypeWithIncompleteStatistics() {
+        //Only one of the two edge collections has relation statistics
+        Mockito.doReturn(cursor(Collections.singletonList(1))).when(database).query(Mockito.eq(ArangoAttributeStatistics.RELATION_STATISTICS_COUNT), Mockito.anyMap(), Mockito.any(), Mockito.eq(Number.class));
+
+        Assert.assertNull(attributeStatistics.getDirectRelationsWithType(connection, new ArangoCollectionReference("foo"), new LinkedHashSet<>(Arrays.asList(new ArangoCollectionReference("author"), new ArangoCollectionReference("editor"))), false));
+        Mockito.verify(database, Mockito.never()).query(Mockito.eq(ArangoAttributeStatistics.INBOUND_RELATIONS), Mockito.anyMap(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    public void reconcileAllCollections() {
+        Mockito.doReturn(Arrays.asList(collectionEntity("_system", true), collectionEntity("foo", false), collectionEntity("attribute_statistics", false), collectionEntity("bar", false))).when(database).getCollections();
+        Mockito.doThrow(new ArangoDBException("conflict")).doReturn(null).when(database).transaction(Mockito.anyString(), Mockito.any(), Mockito.any());
+
+        attributeStatistics.reconcile(connection);
+
+        ArgumentCaptor<TransactionOptions> options = ArgumentCaptor.forClass(TransactionOptions.class);
+        Mockito.verify(database, Mockito.times(2)).transaction(Mockito.eq(ArangoAttributeStatistics.RECONCILIATION), Mockito.eq(Void.class), options.capture());
+        Assert.assertEquals("foo", ((Map) options.getAllValues().get(0).getParams()).get("collection"));
+        Assert.assertEquals("bar", ((Map) options.getAllValues().get(1).getParams()).get("collection"));
+        Mockito.verify(database, Mockito.never()).createCollection(Mockito.anyString());
+    }
+
+    @Test
+    public void applyChangesRetriesConflicts() {
+        ArangoDBException conflict = Mockito.mock(ArangoDBException.class);
+        Mockito.doReturn(409).when(conflict).getResponseCode();
+        Mockito.doThrow(conflict).doReturn(null).when(database).transaction(Mockito.anyString(), Mockito.any(), Mockito.any());
+
+        ArangoAttributeStatistics.applyChanges(database, Collections.singletonMap("foo", new LinkedHashMap<>()), Collections.emptyList());
+
+        Mockito.verify(database, Mockito.times(2)).transaction(Mockito.eq(ArangoAttributeStatistics.APPLY_CHANGES), Mockito.eq(Void.class), Mockito.any());
+    }
+
+    @Test
+    public void applyChangesDoesNotRetryOtherFailures() {
+        Mockito.doThrow(new ArangoDBException("failure")).when(database).transaction(Mockito.anyString(), Mockito.any(), Mockito.any());
+
+        ArangoAttributeStatistics.applyChanges(database, Collections.singletonMap("foo", new LinkedHashMap<>()), Collections.emptyList());
+
+        Mockito.verify(database, Mockito.times(1)).transaction(Mockito.eq(ArangoAttributeStatistics.APPLY_CHANGES), Mockito.eq(Void.class), Mockito.any());
+    }
+
+}
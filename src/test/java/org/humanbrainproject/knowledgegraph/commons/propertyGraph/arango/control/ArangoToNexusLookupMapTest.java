@@ -0,0 +1,142 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control;
+
+import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.entity.ArangoCollectionReference;
+import org.humanbrainproject.knowledgegraph.commons.propertyGraph.entity.SubSpace;
+import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusSchemaReference;
+import org.humanbrainproject.knowledgegraph.structure.boundary.StructureFromNexus;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ArangoToNexusLookupMapTest {
+
+    ArangoToNexusLookupMap lookupMap;
+    AtomicLong time = new AtomicLong(0);
+
+    @Before
+    public void setup() {
+        lookupMap = new ArangoToNexusLookupMap();
+        lookupMap.structureFromNexus = Mockito.mock(StructureFromNexus.class);
+        lookupMap.negativeTimeToLiveInSeconds = 60;
+        lookupMap.clock = time::get;
+    }
+
+    @Test
+    public void getNexusSchemaRefetchesOnMiss() {
+        NexusSchemaReference schemaReference = new NexusSchemaReference("lookuptest", "core", "dataset", "v1.0.0");
+        Mockito.when(lookupMap.structureFromNexus.getAllSchemasInMainSpace()).thenReturn(Collections.singleton(schemaReference));
+
+        Assert.assertEquals(schemaReference, lookupMap.getNexusSchema(new ArangoCollectionReference("lookuptest-core-dataset-v1_0_0")));
+        Assert.assertEquals(schemaReference, lookupMap.getNexusSchema(new ArangoCollectionReference("lookuptest-core-dataset-v1_0_0")));
+
+        Mockito.verify(lookupMap.structureFromNexus, Mockito.times(1)).getAllSchemasInMainSpace();
+    }
+
+    @Test
+    public void getNexusSchemaCachesUnknownCollections() {
+        Mockito.when(lookupMap.structureFromNexus.getAllSchemasInMainSpace()).thenReturn(Collections.emptySet());
+        ArangoCollectionReference unknown = new ArangoCollectionReference("lookuptest-core-unknown-v1_0_0");
+
+        Assert.assertNull(lookupMap.getNexusSchema(unknown));
+        time.addAndGet(59 * 1000);
+        Assert.assertNull(lookupMap.getNexusSchema(unknown));
+        Mockito.verify(lookupMap.structureFromNexus, Mockito.times(1)).getAllSchemasInMainSpace();
+
+        time.addAndGet(2 * 1000);
+        Assert.assertNull(lookupMap.getNexusSchema(unknown));
+        Mockito.verify(lookupMap.structureFromNexus, Mockito.times(2)).getAllSchemasInMainSpace();
+    }
+
+    @Test
+    public void concurrentMissesShareOneRefetch() throws InterruptedException {
+        CountDownLatch refetchStarted = new CountDownLatch(1);
+        CountDownLatch releaseRefetch = new CountDownLatch(1);
+        Mockito.when(lookupMap.structureFromNexus.getAllSchemasInMainSpace()).thenAnswer(invocation -> {
+            refetchStarted.countDown();
+            releaseRefetch.await(5, TimeUnit.SECONDS);
+            return Collections.emptySet();
+        });
+        ArangoCollectionReference unknown = new ArangoCollectionReference("lookuptest-core-concurrent-v1_0_0");
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Thread thread = new Thread(() -> lookupMap.getNexusSchema(unknown));
+            threads.add(thread);
+            thread.start();
+            if (i == 0) {
+                Assert.assertTrue(refetchStarted.await(5, TimeUnit.SECONDS));
+            }
+        }
+        releaseRefetch.countDown();
+        for (Thread thread : threads) {
+            thread.join(5000);
+        }
+        Mockito.verify(lookupMap.structureFromNexus, Mockito.times(1)).getAllSchemasInMainSpace();
+    }
+
+    @Test
+    public void refreshInBackgroundRemovesDeletedSchemas() {
+        NexusSchemaReference removed = new NexusSchemaReference("lookuptest", "core", "removed", "v1.0.0");
+        NexusSchemaReference remaining = new NexusSchemaReference("lookuptest", "core", "remaining", "v1.0.0");
+        Mockito.when(lookupMap.structureFromNexus.getAllSchemasInMainSpace()).thenReturn(new HashSet<>(Arrays.asList(removed, remaining)), Collections.singleton(remaining));
+
+        Assert.assertEquals(removed, lookupMap.getLookupTable(true).get("lookuptest-core-removed-v1_0_0"));
+        lookupMap.refreshInBackground();
+
+        Assert.assertFalse(lookupMap.getLookupTable(false).containsKey("lookuptest-core-removed-v1_0_0"));
+        Assert.assertEquals(remaining, lookupMap.getLookupTable(false).get("lookuptest-core-remaining-v1_0_0"));
+    }
+
+    @Test
+    public void refreshKeepsSubSpaceCollections() {
+        NexusSchemaReference schemaReference = new NexusSchemaReference("lookuptest", "core", "subspace", "v1.0.0");
+        NexusSchemaReference editorReference = schemaReference.toSubSpace(SubSpace.EDITOR);
+        ArangoCollectionReference editorCollection = ArangoCollectionReference.fromNexusSchemaReference(editorReference);
+        Mockito.when(lookupMap.structureFromNexus.getAllSchemasInMainSpace()).thenReturn(Collections.singleton(schemaReference));
+
+        lookupMap.refreshInBackground();
+
+        Assert.assertEquals(editorReference, lookupMap.getLookupTable(false).get(editorCollection.getName()));
+        Assert.assertEquals(schemaReference, lookupMap.getLookupTable(false).get("lookuptest-core-subspace-v1_0_0"));
+    }
+
+    @Test
+    public void refreshInBackgroundSwallowsErrors() {
+        Mockito.when(lookupMap.structureFromNexus.getAllSchemasInMainSpace()).thenThrow(new IllegalStateException());
+        lookupMap.refreshInBackground();
+        Mockito.verify(lookupMap.structureFromNexus, Mockito.times(1)).getAllSchemasInMainSpace();
+    }
+
+}
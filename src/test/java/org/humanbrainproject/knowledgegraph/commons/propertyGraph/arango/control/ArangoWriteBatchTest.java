@@ -0,0 +1,269 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control;
+
+import com.arangodb.ArangoCollection;
+import com.arangodb.ArangoDBException;
+import com.arangodb.ArangoDatabase;
+import com.arangodb.entity.CollectionEntity;
+import com.arangodb.entity.CollectionType;
+import com.arangodb.model.CollectionCreateOptions;
+import com.arangodb.model.TransactionOptions;
+import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.entity.ArangoCollectionReference;
+import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.entity.ArangoDocumentReference;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ArangoWriteBatchTest {
+
+    ArangoDatabase database;
+
+    private CollectionEntity collectionEntity(String name, CollectionType type) {
+        CollectionEntity entity = Mockito.mock(CollectionEntity.class);
+        Mockito.doReturn(name).when(entity).getName();
+        Mockito.doReturn(type).when(entity).getType();
+        Mockito.doReturn(false).when(entity).getIsSystem();
+        return entity;
+    }
+
+    @Before
+    public void setup() {
+        database = Mockito.mock(ArangoDatabase.class);
+        Mockito.doReturn("kg").when(database).name();
+        Mockito.doReturn(Arrays.asList(collectionEntity("vertices", CollectionType.DOCUMENT), collectionEntity("edges", CollectionType.EDGES))).when(database).getCollections();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> verifyTransaction(String... writeCollections) {
+        ArgumentCaptor<TransactionOptions> options = ArgumentCaptor.forClass(TransactionOptions.class);
+        Mockito.verify(database).transaction(Mockito.eq(ArangoWriteBatch.TRANSACTION), Mockito.eq(Map.class), options.capture());
+        Assert.assertArrayEquals(writeCollections, options.getValue().getCollections().getWrite().toArray(new String[0]));
+        return (Map<String, Object>) options.getValue().getParams();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void applyWritesAllCollectionsInOneTransaction() {
+        ArangoWriteBatch batch = new ArangoWriteBatch(database);
+        batch.delete(new ArangoDocumentReference(new ArangoCollectionReference("vertices"), "foo"));
+        batch.insert(new ArangoDocumentReference(new ArangoCollectionReference("vertices"), "foo"), "{\"_key\": \"foo\"}", CollectionType.DOCUMENT);
+        for (int i = 0; i < 50; i++) {
+            batch.insert(new ArangoDocumentReference(new ArangoCollectionReference("edges"), "edge" + i), "{\"_key\": \"edge" + i + "\"}", CollectionType.EDGES);
+        }
+
+        batch.apply();
+
+        Map<String, Object> params = verifyTransaction("vertices", "edges");
+        List<Map<String, Object>> deletions = (List<Map<String, Object>>) params.get("deletions");
+        Assert.assertEquals(2, deletions.size());
+        Assert.assertEquals(Collections.singletonList("foo"), deletions.get(0).get("keys"));
+        List<Map<String, Object>> insertions = (List<Map<String, Object>>) params.get("insertions");
+        Assert.assertEquals("edges", insertions.get(1).get("collection"));
+        Assert.assertEquals(50, ((List) insertions.get(1).get("documents")).size());
+        //The collection metadata is only read once
+        Mockito.verify(database).getCollections();
+        Mockito.verify(database, Mockito.never()).collection(Mockito.anyString());
+        Mockito.verify(database).createCollection("attribute_statistics");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void applyUpdatesStatisticsAfterCommit() {
+        Map<String, Object> changes = Collections.singletonMap("bar", Collections.singletonMap("count", 1));
+        Mockito.doReturn(changes).when(database).transaction(Mockito.eq(ArangoWriteBatch.TRANSACTION), Mockito.eq(Map.class), Mockito.any());
+        ArangoWriteBatch batch = new ArangoWriteBatch(database);
+        batch.insert(new ArangoDocumentReference(new ArangoCollectionReference("bar"), "foo"), "{}", CollectionType.DOCUMENT);
+
+        batch.apply();
+
+        ArgumentCaptor<TransactionOptions> options = ArgumentCaptor.forClass(TransactionOptions.class);
+        Mockito.verify(database).transaction(Mockito.eq(ArangoAttributeStatistics.APPLY_CHANGES), Mockito.eq(Void.class), options.capture());
+        Assert.assertArrayEquals(new String[]{"attribute_statistics"}, options.getValue().getCollections().getWrite().toArray(new String[0]));
+        Map<String, Object> params = (Map<String, Object>) options.getValue().getParams();
+        Assert.assertEquals(changes, params.get("changes"));
+        Assert.assertEquals(Collections.singletonList("bar"), params.get("newCollections"));
+    }
+
+    private ArangoDBException conflict() {
+        ArangoDBException conflict = Mockito.mock(ArangoDBException.class);
+        Mockito.doReturn(409).when(conflict).getResponseCode();
+        return conflict;
+    }
+
+    /**
+     * Simulates the document level write-write conflict detection of RocksDB: A transaction fails if another running transaction writes one of its documents.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void concurrentBatchesOnTheSameCollectionCommit() throws Exception {
+        Set<String> lockedDocuments = ConcurrentHashMap.newKeySet();
+        CyclicBarrier bothInDataTransaction = new CyclicBarrier(2);
+        AtomicInteger statisticsUpdates = new AtomicInteger();
+        Mockito.doAnswer(invocation -> {
+            TransactionOptions options = invocation.getArgument(2);
+            Map<String, Object> params = (Map<String, Object>) options.getParams();
+            List<String> documents = new ArrayList<>();
+            if (ArangoWriteBatch.TRANSACTION.equals(invocation.getArgument(0))) {
+                for (Map<String, Object> insertion : (List<Map<String, Object>>) params.get("insertions")) {
+                    for (Object document : (List) insertion.get("documents")) {
+                        documents.add(insertion.get("collection") + "/" + document);
+                    }
+                }
+            } else {
+                for (Object collection : ((Map) params.get("changes")).keySet()) {
+                    documents.add("attribute_statistics/" + collection);
+                }
+            }
+            List<String> acquired = new ArrayList<>();
+            try {
+                for (String document : documents) {
+                    if (!lockedDocuments.add(document)) {
+                        throw conflict();
+                    }
+                    acquired.add(document);
+                }
+                if (ArangoWriteBatch.TRANSACTION.equals(invocation.getArgument(0))) {
+                    //Both batches are within their data transaction at the same time
+                    bothInDataTransaction.await(5, TimeUnit.SECONDS);
+                    return Collections.singletonMap("vertices", Collections.singletonMap("count", 1));
+                }
+                Thread.sleep(5);
+                statisticsUpdates.incrementAndGet();
+                return null;
+            } finally {
+                lockedDocuments.removeAll(acquired);
+            }
+        }).when(database).transaction(Mockito.anyString(), Mockito.any(), Mockito.any());
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<?>> batches = new ArrayList<>();
+            for (String key : Arrays.asList("foo", "bar")) {
+                batches.add(executorService.submit(() -> {
+                    ArangoWriteBatch batch = new ArangoWriteBatch(database);
+                    batch.insert(new ArangoDocumentReference(new ArangoCollectionReference("vertices"), key), "{\"_key\": \"" + key + "\"}", CollectionType.DOCUMENT);
+                    batch.apply();
+                }));
+            }
+            for (Future<?> batch : batches) {
+                //Throws if one of the batches has failed
+                batch.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        Assert.assertEquals(2, statisticsUpdates.get());
+    }
+
+    @Test
+    public void applyCreatesMissingCollections() {
+        ArangoWriteBatch batch = new ArangoWriteBatch(database);
+        batch.insert(new ArangoDocumentReference(new ArangoCollectionReference("bar"), "foo"), "{}", CollectionType.DOCUMENT);
+        Assert.assertEquals(CollectionType.DOCUMENT, batch.getCollectionType(new ArangoCollectionReference("bar")));
+
+        batch.apply();
+
+        Mockito.verify(database).createCollection(Mockito.eq("bar"), Mockito.any(CollectionCreateOptions.class));
+        verifyTransaction("bar");
+    }
+
+    @Test
+    public void applyToleratesCollectionCreatedConcurrently() {
+        ArangoCollection collection = Mockito.mock(ArangoCollection.class);
+        Mockito.doReturn(true).when(collection).exists();
+        Mockito.doReturn(collection).when(database).collection("bar");
+        Mockito.doThrow(new ArangoDBException("duplicate name")).when(database).createCollection(Mockito.eq("bar"), Mockito.any(CollectionCreateOptions.class));
+        ArangoWriteBatch batch = new ArangoWriteBatch(database);
+        batch.insert(new ArangoDocumentReference(new ArangoCollectionReference("bar"), "foo"), "{}", CollectionType.DOCUMENT);
+
+        batch.apply();
+
+        verifyTransaction("bar");
+    }
+
+    @Test(expected = ArangoDBException.class)
+    public void applyPropagatesFailedCollectionCreation() {
+        ArangoCollection collection = Mockito.mock(ArangoCollection.class);
+        Mockito.doReturn(collection).when(database).collection("bar");
+        Mockito.doThrow(new ArangoDBException("failure")).when(database).createCollection(Mockito.eq("bar"), Mockito.any(CollectionCreateOptions.class));
+        ArangoWriteBatch batch = new ArangoWriteBatch(database);
+        batch.insert(new ArangoDocumentReference(new ArangoCollectionReference("bar"), "foo"), "{}", CollectionType.DOCUMENT);
+
+        batch.apply();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void deleteRemovesPendingInsertion() {
+        ArangoWriteBatch batch = new ArangoWriteBatch(database);
+        ArangoDocumentReference reference = new ArangoDocumentReference(new ArangoCollectionReference("edges"), "foo");
+        batch.insert(reference, "{}", CollectionType.EDGES);
+        batch.delete(reference);
+
+        batch.apply();
+
+        Map<String, Object> params = verifyTransaction("edges");
+        Assert.assertTrue(((List) params.get("insertions")).isEmpty());
+    }
+
+    @Test
+    public void applyWithoutOperations() {
+        new ArangoWriteBatch(database).apply();
+
+        Mockito.verify(database, Mockito.never()).transaction(Mockito.anyString(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    public void applyDoesNotRecreateExistingStatisticsCollection() {
+        Mockito.doReturn(Arrays.asList(collectionEntity("vertices", CollectionType.DOCUMENT), collectionEntity("attribute_statistics", CollectionType.DOCUMENT))).when(database).getCollections();
+        ArangoWriteBatch batch = new ArangoWriteBatch(database);
+        batch.insert(new ArangoDocumentReference(new ArangoCollectionReference("vertices"), "foo"), "{}", CollectionType.DOCUMENT);
+
+        batch.apply();
+
+        Mockito.verify(database, Mockito.never()).createCollection(Mockito.anyString());
+        verifyTransaction("vertices");
+    }
+
+    @Test(expected = ArangoDBException.class)
+    public void applyPropagatesFailedTransaction() {
+        Mockito.doThrow(new ArangoDBException("conflict")).when(database).transaction(Mockito.anyString(), Mockito.any(), Mockito.any());
+        ArangoWriteBatch batch = new ArangoWriteBatch(database);
+        batch.insert(new ArangoDocumentReference(new ArangoCollectionReference("vertices"), "foo"), "{}", CollectionType.DOCUMENT);
+
+        batch.apply();
+    }
+
+}
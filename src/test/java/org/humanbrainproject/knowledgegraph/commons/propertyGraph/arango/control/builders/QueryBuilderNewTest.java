@@ -29,9 +29,11 @@ import org.humanbrainproject.knowledgegraph.commons.jsonld.control.JsonTransform
 import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.entity.ArangoCollectionReference;
 import org.humanbrainproject.knowledgegraph.query.control.SpecificationInterpreter;
 import org.humanbrainproject.knowledgegraph.query.entity.Pagination;
+import org.humanbrainproject.knowledgegraph.query.entity.PaginationCursor;
 import org.humanbrainproject.knowledgegraph.query.entity.SpecField;
 import org.humanbrainproject.knowledgegraph.query.entity.SpecTraverse;
 import org.humanbrainproject.knowledgegraph.query.entity.Specification;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.boot.configurationprocessor.json.JSONException;
@@ -164,5 +166,65 @@ public class QueryBuilderNewTest {
         printResult(queryBuilderNew);
     }
 
+    @Test
+    public void buildFilterWithStableQueryText() throws IOException, JSONException {
+        Specification specification = readSpecification("filter.json", DATASET_ENDPOINT);
+        parameters.put("dynamicRegex", ".*Probab.*");
+        DataQueryBuilder first = new DataQueryBuilder(specification, COLLECTION_WHITELIST, null, pagination, parameters, existingCollections);
+        String firstQuery = first.build(null, "foo");
+
+        Map<String, String> otherParameters = new HashMap<>();
+        otherParameters.put("dynamicOverride", "Whole.*");
+        Pagination otherPagination = new Pagination().setStart(50).setSize(10);
+        DataQueryBuilder second = new DataQueryBuilder(specification, Collections.singleton("minds"), Collections.singleton("http://test/v0/data/minds/core/dataset/v1.0.0/foo"), otherPagination, otherParameters, existingCollections);
+        String secondQuery = second.build(null, null);
+
+        Assert.assertEquals(firstQuery, secondQuery);
+        Assert.assertEquals(".*Probab.*", first.getProcessedFilterValues().get("dynamicRegex"));
+        Assert.assertNull(second.getProcessedFilterValues().get("dynamicRegex"));
+        Assert.assertEquals("%foo%", first.getProcessedFilterValues().get("searchQuery"));
+        Assert.assertNull(second.getProcessedFilterValues().get("searchQuery"));
+        Assert.assertEquals(50, second.getProcessedFilterValues().get("paginationStart"));
+        Assert.assertEquals(10, second.getProcessedFilterValues().get("paginationSize"));
+        Assert.assertEquals(Collections.singletonList("minds"), second.getProcessedFilterValues().get("whitelist"));
+    }
+
+    @Test
+    public void buildWithSearch() throws IOException, JSONException {
+        DataQueryBuilder queryBuilderNew = new DataQueryBuilder(readSpecification("simpleFields.json", DATASET_ENDPOINT), COLLECTION_WHITELIST, null, pagination, parameters, existingCollections);
+
+        String query = queryBuilderNew.build(null, "Campus");
+
+        //The search term is matched as case insensitive substring of the name or label
+        Assert.assertTrue(query.contains("LOWER(root_doc.`http://schema.org/name`) LIKE @searchQuery"));
+        Assert.assertTrue(query.contains("LOWER(root_doc.`http://www.w3.org/2000/01/rdf-schema#label`) LIKE @searchQuery"));
+        Assert.assertFalse(query.contains("Campus"));
+        Assert.assertEquals("%campus%", queryBuilderNew.getProcessedFilterValues().get("searchQuery"));
+    }
+
+    @Test
+    public void buildWithCursor() throws IOException, JSONException {
+        Specification specification = readSpecification("simpleFields.json", DATASET_ENDPOINT);
+        String queryWithoutCursor = new DataQueryBuilder(specification, COLLECTION_WHITELIST, null, pagination, parameters, existingCollections).build(null, null);
+
+        pagination.setCursor(new PaginationCursor(Collections.singletonList("foo")));
+        DataQueryBuilder queryBuilderNew = new DataQueryBuilder(specification, COLLECTION_WHITELIST, null, pagination, parameters, existingCollections);
+        String queryWithCursor = queryBuilderNew.build(null, null);
+
+        Assert.assertEquals(queryWithoutCursor, queryWithCursor);
+        Assert.assertTrue(queryWithCursor.contains("@paginationCursor"));
+        Assert.assertTrue(queryWithCursor.contains(DataQueryBuilder.CURSOR_FIELD));
+        Assert.assertEquals(Collections.singletonList("foo"), queryBuilderNew.getProcessedFilterValues().get("paginationCursor"));
+    }
+
+    @Test
+    public void buildWithCursorComparesSortKeyLexicographically() throws IOException, JSONException {
+        String query = new DataQueryBuilder(readSpecification("simpleFields.json", DATASET_ENDPOINT), COLLECTION_WHITELIST, null, pagination, parameters, existingCollections).build(null, null);
+
+        //The sort criteria are compared one by one (so their indices can be used) - the document key decides between equal sort criteria
+        Assert.assertTrue(query.contains("FILTER @paginationCursor == null OR root_doc.`http://schema.org/name` > @paginationCursor[0] OR (root_doc.`http://schema.org/name` == @paginationCursor[0] AND root_doc._key > @paginationCursor[1])\n"));
+        Assert.assertTrue(query.contains("SORT root_doc.`http://schema.org/name` ASC, root_doc._key ASC"));
+    }
+
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.builders;
+
+import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.entity.ArangoCollectionReference;
+import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.entity.ArangoDocumentReference;
+import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusInstanceReference;
+import org.humanbrainproject.knowledgegraph.query.entity.SpecField;
+import org.humanbrainproject.knowledgegraph.query.entity.SpecTraverse;
+import org.humanbrainproject.knowledgegraph.query.entity.Specification;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+public class SpecificationBasedReleaseStatusBuilderTest {
+
+    private final static String DATASET_ENDPOINT = "http://test/v0/minds/core/dataset/v1.0.0";
+
+    Specification specification;
+    Set<ArangoCollectionReference> existingCollections;
+    ArangoDocumentReference instance = ArangoDocumentReference.fromNexusInstance(new NexusInstanceReference("minds", "core", "dataset", "v1.0.0", "foo"));
+
+    @Before
+    public void setup() {
+        SpecTraverse contributors = new SpecTraverse("https://schema.hbp.eu/minds/contributors", false);
+        SpecTraverse affiliation = new SpecTraverse("https://schema.hbp.eu/minds/affiliation", false);
+        SpecField name = new SpecField("name", null, Collections.singletonList(new SpecTraverse("http://schema.org/name", false)), null, false, false, false, false, null);
+        SpecField contributorsWithName = new SpecField("contributors", Collections.singletonList(name), Collections.singletonList(contributors), null, false, false, false, false, null);
+        SpecField affiliations = new SpecField("affiliations", null, Arrays.asList(contributors, affiliation), null, false, false, false, false, null);
+        specification = new Specification(null, "search", DATASET_ENDPOINT, null, Arrays.asList(contributorsWithName, affiliations), null);
+        existingCollections = new HashSet<>(Arrays.asList(ArangoCollectionReference.fromSpecTraversal(contributors), ArangoCollectionReference.fromSpecTraversal(affiliation)));
+    }
+
+    @Test
+    public void build() {
+        String query = new SpecificationBasedReleaseStatusBuilder(specification, Collections.singleton("minds"), instance, existingCollections, "http://test/v0/data", TreeScope.ALL).build();
+
+        Assert.assertTrue(query.contains("POSITION([\"RELEASED\",\"HAS_CHANGED\",\"NOT_RELEASED\"], "));
+        Assert.assertTrue(query.contains("MAX(FLATTEN(["));
+        Assert.assertTrue(query.contains("\"childrenStatus\": root_doc_children_severity == null ? null : [\"RELEASED\",\"HAS_CHANGED\",\"NOT_RELEASED\"][root_doc_children_severity]"));
+        //The tree itself is not returned
+        Assert.assertFalse(query.contains("\"children\""));
+        Assert.assertFalse(query.contains("${"));
+    }
+
+    @Test
+    public void buildTopInstanceOnly() {
+        String query = new SpecificationBasedReleaseStatusBuilder(specification, Collections.singleton("minds"), instance, existingCollections, "http://test/v0/data", TreeScope.TOP_INSTANCE_ONLY).build();
+
+        Assert.assertTrue(query.contains("LET root_doc_children_severity = null"));
+        Assert.assertFalse(query.contains("MAX(FLATTEN(["));
+    }
+
+    @Test
+    public void buildReleaseTreeIsUnchanged() {
+        String query = new SpecificationBasedReleaseTreeBuilder(specification, Collections.singleton("minds"), instance, existingCollections, "http://test/v0/data", TreeScope.ALL).build();
+
+        Assert.assertTrue(query.contains("\"children\""));
+        Assert.assertFalse(query.contains("childrenStatus"));
+    }
+}
@@ -23,6 +23,7 @@
 
 package org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.query;
 
+import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.aql.AQL;
 import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.entity.ArangoCollectionReference;
 import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.entity.ArangoDocumentReference;
 import org.junit.Test;
@@ -56,4 +57,26 @@ public class ArangoQueryFactoryUnitTest {
     }
 
 
-}
\ No newline at end of file
+    @Test
+    public void getInstanceListWithSearch(){
+        ArangoQueryFactory factory = new ArangoQueryFactory();
+
+        AQL query = factory.getInstanceList(new ArangoCollectionReference("minds-core-dataset-v1_0_0"), 0, 20, "Hippo\"Campus", Collections.singleton("minds"), true);
+
+        String queryText = query.build().getValue();
+        assertTrue(queryText.contains("FILTER LIKE (LOWER(doc.`http://schema.org/name`), @searchTerm)"));
+        assertFalse(queryText.contains("campus"));
+        assertEquals("%hippo\"campus%", query.getBindParameters().get("searchTerm"));
+    }
+
+    @Test
+    public void getInstanceListWithoutSearch(){
+        ArangoQueryFactory factory = new ArangoQueryFactory();
+
+        AQL query = factory.getInstanceList(new ArangoCollectionReference("minds-core-dataset-v1_0_0"), 0, 20, null, Collections.singleton("minds"), true);
+
+        assertFalse(query.build().getValue().contains("@searchTerm"));
+        assertFalse(query.getBindParameters().containsKey("searchTerm"));
+    }
+
+}
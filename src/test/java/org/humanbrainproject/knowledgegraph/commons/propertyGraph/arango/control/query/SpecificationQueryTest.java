@@ -0,0 +1,146 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.query;
+
+import com.arangodb.ArangoCursor;
+import org.humanbrainproject.knowledgegraph.commons.api.RestUtils;
+import org.humanbrainproject.knowledgegraph.context.QueryContext;
+import org.humanbrainproject.knowledgegraph.query.entity.DatabaseScope;
+import org.humanbrainproject.knowledgegraph.query.entity.StreamedQueryResult;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class SpecificationQueryTest {
+
+    private static final String DOCUMENT_MARKER = "DOCUMENTMARKER";
+
+    SpecificationQuery specificationQuery;
+
+    @Before
+    public void setup() {
+        specificationQuery = new SpecificationQuery();
+        specificationQuery.queryContext = Mockito.mock(QueryContext.class);
+        Mockito.doReturn(DatabaseScope.INFERRED).when(specificationQuery.queryContext).getDatabaseScope();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void streamHoldsOnlyOneBatchAtOnce() throws IOException {
+        int numberOfDocuments = 10000;
+        int batchSize = 100;
+        DocumentCountingOutputStream out = new DocumentCountingOutputStream();
+        BatchedCursor documents = new BatchedCursor(numberOfDocuments, batchSize, out);
+        ArangoCursor<Map> cursor = Mockito.mock(ArangoCursor.class);
+        Mockito.doAnswer(invocation -> documents.hasNext()).when(cursor).hasNext();
+        Mockito.doAnswer(invocation -> documents.next()).when(cursor).next();
+        Mockito.doReturn(numberOfDocuments).when(cursor).getCount();
+        Mockito.doReturn(cursor).when(specificationQuery.queryContext).queryDatabase(Mockito.eq("query"), Mockito.eq(true), Mockito.isNull(), Mockito.eq(Map.class), Mockito.anyMap(), Mockito.eq(batchSize));
+
+        try (StreamedQueryResult result = specificationQuery.stream("query", "test", null, Collections.emptyMap(), batchSize)) {
+            RestUtils.writeStreamedQueryResult(result, out);
+        }
+
+        Assert.assertEquals(numberOfDocuments, out.documents);
+        //The documents of the current batch plus the few ones which are buffered by the JSON generator - the result is never collected as a whole
+        Assert.assertTrue("Held " + documents.maxHeld + " documents at once", documents.maxHeld <= 2 * batchSize);
+        Mockito.verify(cursor).close();
+    }
+
+    /**
+     * Simulates a database cursor which fetches the documents batch by batch - it keeps track of the number of documents which have been fetched but not yet written.
+     */
+    private static class BatchedCursor {
+        private final int numberOfDocuments;
+        private final int batchSize;
+        private final DocumentCountingOutputStream out;
+        private final Deque<Map> batch = new ArrayDeque<>();
+        private int fetched;
+        private long maxHeld;
+
+        private BatchedCursor(int numberOfDocuments, int batchSize, DocumentCountingOutputStream out) {
+            this.numberOfDocuments = numberOfDocuments;
+            this.batchSize = batchSize;
+            this.out = out;
+        }
+
+        boolean hasNext() {
+            return !batch.isEmpty() || fetched < numberOfDocuments;
+        }
+
+        Map next() {
+            if (batch.isEmpty()) {
+                for (int i = 0; i < batchSize && fetched < numberOfDocuments; i++) {
+                    Map<String, Object> document = new LinkedHashMap<>();
+                    document.put("marker", DOCUMENT_MARKER);
+                    document.put("id", "http://localhost/v0/data/foo/core/bar/v1.0.0/" + fetched);
+                    document.put("description", String.join("", Collections.nCopies(80, "lorem ipsum ")));
+                    batch.add(document);
+                    fetched++;
+                }
+                maxHeld = Math.max(maxHeld, fetched - out.documents);
+            }
+            return batch.poll();
+        }
+    }
+
+    /**
+     * Counts the documents which have reached the output stream by their marker.
+     */
+    private static class DocumentCountingOutputStream extends OutputStream {
+        private final byte[] marker = DOCUMENT_MARKER.getBytes(StandardCharsets.UTF_8);
+        private int matched;
+        private long documents;
+
+        @Override
+        public void write(int b) {
+            if (b == marker[matched]) {
+                matched++;
+            } else {
+                matched = b == marker[0] ? 1 : 0;
+            }
+            if (matched == marker.length) {
+                documents++;
+                matched = 0;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+    }
+}
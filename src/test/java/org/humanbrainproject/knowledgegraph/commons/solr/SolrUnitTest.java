@@ -0,0 +1,127 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.commons.solr;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.response.FacetField;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.FacetParams;
+import org.apache.solr.common.params.SolrParams;
+import org.humanbrainproject.knowledgegraph.query.entity.BoundingBox;
+import org.humanbrainproject.knowledgegraph.query.entity.ThreeDVector;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+public class SolrUnitTest {
+
+    Solr solr;
+
+    @Before
+    public void setup() {
+        solr = new Solr();
+        solr.solrCore = "kg";
+        solr.solr = Mockito.mock(SolrClient.class);
+    }
+
+    private List<ThreeDVector> createPoints(int numberOfPoints) {
+        List<ThreeDVector> points = new ArrayList<>();
+        for (int i = 0; i < numberOfPoints; i++) {
+            points.add(new ThreeDVector(i, i, 0));
+        }
+        return points;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void registerPointsInBatches() throws Exception {
+        solr.batchSize = 1000;
+
+        solr.registerPoints("foo", "bar", createPoints(2500));
+
+        ArgumentCaptor<Collection<SolrInputDocument>> batches = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(solr.solr, Mockito.times(3)).add(Mockito.eq("kg"), batches.capture());
+        Assert.assertEquals(1000, batches.getAllValues().get(0).size());
+        Assert.assertEquals(500, batches.getAllValues().get(2).size());
+        SolrInputDocument document = batches.getAllValues().get(0).iterator().next();
+        Assert.assertEquals("foo", document.getFieldValue("aid"));
+        Assert.assertEquals("bar", document.getFieldValue("r"));
+        Mockito.verify(solr.solr, Mockito.times(1)).commit("kg");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void registerPointsWithCommitWithin() throws Exception {
+        solr.commitWithinInMs = 1000;
+
+        solr.registerPoints("foo", "bar", createPoints(10));
+
+        Mockito.verify(solr.solr).add(Mockito.eq("kg"), Mockito.any(Collection.class), Mockito.eq(1000));
+        Mockito.verify(solr.solr, Mockito.never()).commit(Mockito.anyString());
+    }
+
+    @Test
+    public void registerNoPoints() throws Exception {
+        solr.registerPoints("foo", "bar", new ArrayList<>());
+
+        Mockito.verify(solr.solr, Mockito.never()).add(Mockito.anyString(), Mockito.<Collection<SolrInputDocument>>any());
+    }
+
+    @Test
+    public void queryIdsOfMinimalBoundingBox() throws Exception {
+        QueryResponse response = Mockito.mock(QueryResponse.class);
+        FacetField instances = new FacetField("aid");
+        instances.add("foo", 1000);
+        instances.add("bar", 3);
+        Mockito.doReturn(instances).when(response).getFacetField("aid");
+        Mockito.doReturn(response).when(solr.solr).query(Mockito.eq("kg"), Mockito.any(SolrParams.class));
+
+        List<String> ids = solr.queryIdsOfMinimalBoundingBox(new BoundingBox(new ThreeDVector(0, 0, 0), new ThreeDVector(1, 1, 1), "space"));
+
+        Assert.assertEquals(Arrays.asList("foo", "bar"), ids);
+        ArgumentCaptor<SolrParams> query = ArgumentCaptor.forClass(SolrParams.class);
+        //A single request which doesn't return any points
+        Mockito.verify(solr.solr, Mockito.times(1)).query(Mockito.eq("kg"), query.capture());
+        Assert.assertEquals("0", query.getValue().get(CommonParams.ROWS));
+        Assert.assertEquals("aid", query.getValue().get(FacetParams.FACET_FIELD));
+    }
+
+    @Test
+    public void queryIdsOfMinimalBoundingBoxWithoutMatches() throws Exception {
+        QueryResponse response = Mockito.mock(QueryResponse.class);
+        Mockito.doReturn(new FacetField("aid")).when(response).getFacetField("aid");
+        Mockito.doReturn(response).when(solr.solr).query(Mockito.eq("kg"), Mockito.any(SolrParams.class));
+
+        Assert.assertTrue(solr.queryIdsOfMinimalBoundingBox(new BoundingBox(new ThreeDVector(0, 0, 0), new ThreeDVector(1, 1, 1), "space")).isEmpty());
+    }
+}
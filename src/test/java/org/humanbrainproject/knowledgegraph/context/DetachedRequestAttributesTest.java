@@ -0,0 +1,64 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.context;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class DetachedRequestAttributesTest {
+
+    @Test
+    public void execute() {
+        AtomicBoolean destroyed = new AtomicBoolean();
+        String result = DetachedRequestAttributes.execute(() -> {
+            RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+            Assert.assertNotNull(attributes);
+            attributes.setAttribute("foo", "bar", RequestAttributes.SCOPE_REQUEST);
+            attributes.registerDestructionCallback("foo", () -> destroyed.set(true), RequestAttributes.SCOPE_REQUEST);
+            return (String) attributes.getAttribute("foo", RequestAttributes.SCOPE_REQUEST);
+        });
+        Assert.assertEquals("bar", result);
+        Assert.assertTrue(destroyed.get());
+        Assert.assertNull(RequestContextHolder.getRequestAttributes());
+    }
+
+    @Test
+    public void executeRestoresPreviousAttributes() {
+        DetachedRequestAttributes previous = new DetachedRequestAttributes();
+        RequestContextHolder.setRequestAttributes(previous);
+        try {
+            DetachedRequestAttributes.execute(() -> {
+                Assert.assertNotSame(previous, RequestContextHolder.getRequestAttributes());
+                return null;
+            });
+            Assert.assertSame(previous, RequestContextHolder.getRequestAttributes());
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.indexing.boundary;
+
+import com.google.gson.Gson;
+import org.humanbrainproject.knowledgegraph.commons.authorization.control.AuthorizationContext;
+import org.humanbrainproject.knowledgegraph.indexing.entity.IndexingMessage;
+import org.humanbrainproject.knowledgegraph.indexing.entity.QueuedIndexingMessage;
+import org.humanbrainproject.knowledgegraph.testFactory.TestObjectFactory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class IndexingQueueTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    IndexingQueue queue;
+
+    @Before
+    public void setup() {
+        queue = new IndexingQueue();
+        queue.indexer = Mockito.mock(GraphIndexing.class);
+        queue.authorizationContext = Mockito.mock(AuthorizationContext.class);
+        queue.directory = folder.getRoot().getAbsolutePath();
+        queue.numberOfWorkers = 2;
+        queue.capacity = 100;
+        queue.retryBackoffInMs = 10;
+        queue.maxRetryBackoffInMs = 50;
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        queue.shutdown();
+    }
+
+    private void waitUntilProcessed() throws InterruptedException {
+        long start = System.currentTimeMillis();
+        while ((Long) queue.getStatus().get("queueDepth") > 0 && System.currentTimeMillis() - start < 5000) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void writeMessage(File directory, QueuedIndexingMessage message) throws Exception {
+        Files.write(new File(directory, queue.getFileName(message)).toPath(), new Gson().toJson(message).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private QueuedIndexingMessage persistedMessage(long sequence) {
+        QueuedIndexingMessage message = new QueuedIndexingMessage(QueuedIndexingMessage.Operation.INSERT, TestObjectFactory.fooInstanceReference(), "{}", null, null);
+        message.setSequence(sequence);
+        message.setEnqueuedAt(System.currentTimeMillis());
+        return message;
+    }
+
+    @Test
+    public void enqueueInsert() throws Exception {
+        QueuedIndexingMessage message = new QueuedIndexingMessage(QueuedIndexingMessage.Operation.INSERT, TestObjectFactory.fooInstanceReference(), "{}", "2019-01-01T00:00:00Z", "foo");
+        queue.enqueue(message);
+
+        ArgumentCaptor<IndexingMessage> captor = ArgumentCaptor.forClass(IndexingMessage.class);
+        Mockito.verify(queue.indexer, Mockito.timeout(5000)).insert(captor.capture());
+        Assert.assertEquals(TestObjectFactory.fooInstanceReference(), captor.getValue().getInstanceReference());
+        Assert.assertEquals("{}", captor.getValue().getPayload());
+        Mockito.verify(queue.authorizationContext).setMasterCredential();
+
+        waitUntilProcessed();
+        Assert.assertFalse(new File(folder.getRoot(), queue.getFileName(message)).exists());
+        Map<String, Object> status = queue.getStatus();
+        Assert.assertEquals(0L, status.get("queueDepth"));
+        Assert.assertEquals(1L, status.get("processed"));
+    }
+
+    @Test
+    public void enqueueDelete() throws Exception {
+        queue.enqueue(new QueuedIndexingMessage(QueuedIndexingMessage.Operation.DELETE, TestObjectFactory.fooInstanceReference(), null, null, null));
+
+        Mockito.verify(queue.indexer, Mockito.timeout(5000)).delete(TestObjectFactory.fooInstanceReference());
+    }
+
+    @Test
+    public void failedMessageIsRetried() throws Exception {
+        Mockito.doThrow(new RuntimeException("failure")).doReturn(null).when(queue.indexer).update(Mockito.any());
+
+        QueuedIndexingMessage message = new QueuedIndexingMessage(QueuedIndexingMessage.Operation.UPDATE, TestObjectFactory.fooInstanceReference(), "{}", null, null);
+        queue.enqueue(message);
+
+        Mockito.verify(queue.indexer, Mockito.timeout(5000).times(2)).update(Mockito.any());
+        waitUntilProcessed();
+        Assert.assertFalse(new File(folder.getRoot(), queue.getFileName(message)).exists());
+        Map<String, Object> status = queue.getStatus();
+        Assert.assertEquals(1L, status.get("failedAttempts"));
+        Assert.assertEquals(1L, status.get("processed"));
+    }
+
+    @Test
+    public void failedMessageHoldsBackTheFollowingMessagesOfTheInstance() throws Exception {
+        Mockito.doThrow(new RuntimeException("failure")).doThrow(new RuntimeException("failure")).doReturn(null).when(queue.indexer).update(Mockito.any());
+
+        queue.enqueue(new QueuedIndexingMessage(QueuedIndexingMessage.Operation.UPDATE, TestObjectFactory.fooInstanceReference(), "{}", null, null));
+        queue.enqueue(new QueuedIndexingMessage(QueuedIndexingMessage.Operation.DELETE, TestObjectFactory.fooInstanceReference(), null, null, null));
+
+        InOrder inOrder = Mockito.inOrder(queue.indexer);
+        inOrder.verify(queue.indexer, Mockito.timeout(5000).times(3)).update(Mockito.any());
+        inOrder.verify(queue.indexer, Mockito.timeout(5000)).delete(TestObjectFactory.fooInstanceReference());
+    }
+
+    @Test
+    public void failingMessageIsSkippedWhenMovedToFailedDirectory() throws Exception {
+        Mockito.doThrow(new RuntimeException("failure")).when(queue.indexer).update(Mockito.any());
+
+        QueuedIndexingMessage message = new QueuedIndexingMessage(QueuedIndexingMessage.Operation.UPDATE, TestObjectFactory.fooInstanceReference(), "{}", null, null);
+        queue.enqueue(message);
+        queue.enqueue(new QueuedIndexingMessage(QueuedIndexingMessage.Operation.DELETE, TestObjectFactory.fooInstanceReference(), null, null, null));
+        long start = System.currentTimeMillis();
+        while (((List<?>) queue.getStatus().get("blockedBy")).isEmpty() && System.currentTimeMillis() - start < 5000) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(Collections.singletonList(queue.getFileName(message)), queue.getStatus().get("blockedBy"));
+        Mockito.verify(queue.indexer, Mockito.never()).delete(Mockito.any());
+
+        Files.move(new File(folder.getRoot(), queue.getFileName(message)).toPath(), new File(new File(folder.getRoot(), "failed"), queue.getFileName(message)).toPath());
+
+        Mockito.verify(queue.indexer, Mockito.timeout(5000)).delete(TestObjectFactory.fooInstanceReference());
+        waitUntilProcessed();
+        Assert.assertEquals(1L, queue.getStatus().get("skipped"));
+    }
+
+    @Test
+    public void recover() throws Exception {
+        QueuedIndexingMessage message = persistedMessage(42);
+        writeMessage(folder.getRoot(), message);
+
+        queue.recover();
+
+        Mockito.verify(queue.indexer, Mockito.timeout(5000)).insert(Mockito.any());
+        waitUntilProcessed();
+        Assert.assertFalse(new File(folder.getRoot(), queue.getFileName(message)).exists());
+
+        //New messages continue after the highest recovered sequence
+        Assert.assertEquals(43, queue.enqueue(new QueuedIndexingMessage(QueuedIndexingMessage.Operation.DELETE, TestObjectFactory.fooInstanceReference(), null, null, null)));
+    }
+
+    @Test
+    public void recoveredMessagesAreProcessedBeforeNewOnes() throws Exception {
+        writeMessage(folder.getRoot(), persistedMessage(42));
+
+        //A request arrives before the application is ready
+        queue.enqueue(new QueuedIndexingMessage(QueuedIndexingMessage.Operation.UPDATE, TestObjectFactory.fooInstanceReference(), "{}", null, null));
+
+        InOrder inOrder = Mockito.inOrder(queue.indexer);
+        inOrder.verify(queue.indexer, Mockito.timeout(5000)).insert(Mockito.any());
+        inOrder.verify(queue.indexer, Mockito.timeout(5000)).update(Mockito.any());
+    }
+
+    @Test
+    public void sequenceContinuesAfterFailedMessages() throws Exception {
+        File failedDirectory = new File(folder.getRoot(), "failed");
+        Assert.assertTrue(failedDirectory.mkdirs());
+        writeMessage(failedDirectory, persistedMessage(42));
+
+        Assert.assertEquals(43, queue.enqueue(new QueuedIndexingMessage(QueuedIndexingMessage.Operation.DELETE, TestObjectFactory.fooInstanceReference(), null, null, null)));
+    }
+
+    @Test
+    public void onlyCapacityMessagesAreHeldInMemory() throws Exception {
+        queue.capacity = 2;
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(queue.indexer).insert(Mockito.any());
+        for (int i = 0; i < 10; i++) {
+            queue.enqueue(new QueuedIndexingMessage(QueuedIndexingMessage.Operation.INSERT, TestObjectFactory.fooInstanceReference().setRevision(i + 1), "{}", null, null));
+        }
+        Map<String, Object> status = queue.getStatus();
+        Assert.assertEquals(10L, status.get("queueDepth"));
+        Assert.assertEquals(2, status.get("inMemory"));
+
+        release.countDown();
+
+        //The messages which only have been kept on the disk are loaded in the order of their reception
+        ArgumentCaptor<IndexingMessage> captor = ArgumentCaptor.forClass(IndexingMessage.class);
+        Mockito.verify(queue.indexer, Mockito.timeout(5000).times(10)).insert(captor.capture());
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(Integer.valueOf(i + 1), captor.getAllValues().get(i).getInstanceReference().getRevision());
+        }
+        waitUntilProcessed();
+        Assert.assertEquals(0, queue.getStatus().get("inMemory"));
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.indexing.control.nexusToArango;
+
+import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.ArangoNativeRepository;
+import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusInstanceReference;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class NexusToArangoIndexingProviderTest {
+
+    NexusToArangoIndexingProvider provider;
+
+    @Before
+    public void setup() {
+        provider = new NexusToArangoIndexingProvider();
+        provider.nativeRepository = Mockito.mock(ArangoNativeRepository.class);
+        Mockito.when(provider.nativeRepository.findOriginalIds(Mockito.any())).thenAnswer(invocation -> {
+            Collection<NexusInstanceReference> references = invocation.getArgument(0);
+            return references.stream().collect(Collectors.toMap(Function.identity(), r -> r.clone().setRevision(2)));
+        });
+    }
+
+    private NexusInstanceReference createReference(String id) {
+        return new NexusInstanceReference("foo", "core", "bar", "v1.0.0", id).setRevision(1);
+    }
+
+    @Test
+    public void findOriginalIdsResolvesAllReferencesAtOnce() {
+        Set<NexusInstanceReference> references = new LinkedHashSet<>(Arrays.asList(createReference("a"), createReference("b")));
+
+        Map<NexusInstanceReference, NexusInstanceReference> originalIds = provider.findOriginalIds(references);
+
+        Assert.assertEquals(2, originalIds.size());
+        Assert.assertEquals(Integer.valueOf(2), originalIds.get(createReference("a")).getRevision());
+        Mockito.verify(provider.nativeRepository, Mockito.times(1)).findOriginalIds(Mockito.any());
+    }
+
+    @Test
+    public void findOriginalIdsReusesRecentResolutions() {
+        provider.findOriginalIds(Collections.singleton(createReference("a")));
+
+        Map<NexusInstanceReference, NexusInstanceReference> originalIds = provider.findOriginalIds(new LinkedHashSet<>(Arrays.asList(createReference("a"), createReference("b"))));
+
+        Assert.assertEquals(2, originalIds.size());
+        Mockito.verify(provider.nativeRepository).findOriginalIds(Collections.singleton(createReference("b")));
+    }
+
+    @Test
+    public void findOriginalIdsWithoutReferences() {
+        Assert.assertTrue(provider.findOriginalIds(Collections.emptySet()).isEmpty());
+        Mockito.verify(provider.nativeRepository, Mockito.never()).findOriginalIds(Mockito.any());
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.indexing.control.nexusToArango;
+
+import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusInstanceReference;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class OriginalIdCacheTest {
+
+    OriginalIdCache cache;
+    long now;
+
+    @Before
+    public void setup(){
+        cache = new OriginalIdCache();
+        cache.clock = () -> now;
+    }
+
+    private NexusInstanceReference createReference(String id){
+        return new NexusInstanceReference("foo", "core", "bar", "v1.0.0", id).setRevision(1);
+    }
+
+    @Test
+    public void get(){
+        NexusInstanceReference originalId = createReference("original");
+        cache.put(createReference("extension"), originalId);
+
+        Assert.assertEquals(originalId, cache.get(createReference("extension")));
+        Assert.assertNull(cache.get(createReference("other")));
+    }
+
+    @Test
+    public void getExpired(){
+        cache.setTimeToLiveInMillis(1000);
+        cache.put(createReference("extension"), createReference("original"));
+
+        now = 1000;
+
+        Assert.assertNull(cache.get(createReference("extension")));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed(){
+        cache.setMaxSize(2);
+        cache.put(createReference("foo"), createReference("foo"));
+        cache.put(createReference("bar"), createReference("bar"));
+        cache.get(createReference("foo"));
+
+        cache.put(createReference("foobar"), createReference("foobar"));
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNotNull(cache.get(createReference("foo")));
+        Assert.assertNull(cache.get(createReference("bar")));
+        Assert.assertNotNull(cache.get(createReference("foobar")));
+    }
+
+    @Test
+    public void cachedOriginalIdsAreCopied(){
+        cache.put(createReference("extension"), createReference("original"));
+
+        cache.get(createReference("extension")).setRevision(5);
+
+        Assert.assertEquals(Integer.valueOf(1), cache.get(createReference("extension")).getRevision());
+    }
+
+    @Test
+    public void disabledCache(){
+        cache.setTimeToLiveInMillis(0);
+        cache.put(createReference("extension"), createReference("original"));
+
+        Assert.assertEquals(0, cache.size());
+    }
+}
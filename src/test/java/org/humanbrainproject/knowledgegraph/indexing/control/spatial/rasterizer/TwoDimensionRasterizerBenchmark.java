@@ -0,0 +1,100 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.indexing.control.spatial.rasterizer;
+
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+import org.humanbrainproject.knowledgegraph.indexing.control.spatial.transformation.QuickNii;
+import org.humanbrainproject.knowledgegraph.query.entity.ThreeDVector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the streaming rasterization with the former implementation (commons-math vectors collected into a list).
+ * Run with the main method (add "-prof gc" to the JMH arguments to compare the allocation rates).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TwoDimensionRasterizerBenchmark {
+
+    @Param({"100", "300"})
+    int resolution;
+
+    QuickNii quickNii;
+
+    RealMatrix matrix;
+
+    @Setup
+    public void setup() {
+        quickNii = new QuickNii(TwoDimensionRasterizerTest.ANCHORING);
+        matrix = TwoDimensionRasterizerTest.createMatrix();
+    }
+
+    @Benchmark
+    public List<ThreeDVector> formerImplementation() {
+        List<ThreeDVector> result = new ArrayList<>();
+        for (int row = 0; row < resolution; row++) {
+            for (int col = 0; col < resolution; col++) {
+                RealVector point = matrix.preMultiply(new ArrayRealVector(new double[]{1, (double) col / resolution, (double) row / resolution}));
+                result.add(new ThreeDVector(point.getEntry(0), point.getEntry(1), point.getEntry(2)));
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public void streamingRasterization(Blackhole blackhole) {
+        new TwoDimensionRasterizer(quickNii, resolution, resolution).raster((x, y, z) -> {
+            blackhole.consume(x);
+            blackhole.consume(y);
+            blackhole.consume(z);
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TwoDimensionRasterizerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.indexing.control.spatial.rasterizer;
+
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.MatrixUtils;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+import org.humanbrainproject.knowledgegraph.indexing.control.spatial.transformation.QuickNii;
+import org.humanbrainproject.knowledgegraph.query.entity.ThreeDVector;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public class TwoDimensionRasterizerTest {
+
+    static final String ANCHORING = "116.76450275662296,420.38180695602125,371.05990195986874,32.25523977201931,-483.5743708352436,-69.49201572740994,88.9241921312597,51.94987159616494,-320.22912581890387";
+
+    /**
+     * The transformation matrix of the anchoring (rows: origin, u and v)
+     */
+    static RealMatrix createMatrix() {
+        List<ThreeDVector> vectors = ThreeDVector.parse(ANCHORING);
+        double[][] matrixData = new double[3][];
+        for (int i = 0; i < 3; i++) {
+            matrixData[i] = new double[]{vectors.get(i).getX(), vectors.get(i).getY(), vectors.get(i).getZ()};
+        }
+        return MatrixUtils.createRealMatrix(matrixData);
+    }
+
+    @Test
+    public void rasterMatchesMatrixMultiplication() {
+        QuickNii quickNii = new QuickNii(ANCHORING);
+        RealMatrix matrix = createMatrix();
+        List<double[]> points = new ArrayList<>();
+        new TwoDimensionRasterizer(quickNii, 10, 20).raster((x, y, z) -> points.add(new double[]{x, y, z}));
+
+        Assert.assertEquals(200, points.size());
+        int i = 0;
+        for (int row = 0; row < 20; row++) {
+            for (int col = 0; col < 10; col++) {
+                RealVector expected = matrix.preMultiply(new ArrayRealVector(new double[]{1, col / 10.0, row / 20.0}));
+                Assert.assertArrayEquals(expected.toArray(), points.get(i++), 0.000001);
+            }
+        }
+    }
+
+    @Test
+    public void rasterWithDefaultResolution() {
+        Collection<ThreeDVector> raster = new TwoDimensionRasterizer(new QuickNii(ANCHORING)).raster();
+
+        Assert.assertEquals(TwoDimensionRasterizer.DEFAULT_RESOLUTION * TwoDimensionRasterizer.DEFAULT_RESOLUTION, raster.size());
+        Assert.assertEquals(new ThreeDVector(116.76450275662296, 420.38180695602125, 371.05990195986874), raster.iterator().next());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rasterWithInvalidResolution() {
+        new TwoDimensionRasterizer(new QuickNii(ANCHORING), 0, 10);
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.instances.control;
+
+import com.google.gson.Gson;
+import org.humanbrainproject.knowledgegraph.commons.authorization.control.AuthorizationContext;
+import org.humanbrainproject.knowledgegraph.commons.authorization.exceptions.InsufficientPermissions;
+import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusInstanceReference;
+import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusSchemaReference;
+import org.humanbrainproject.knowledgegraph.instances.entity.MaintenanceJob;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+public class InstanceMaintenanceJobsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    InstanceMaintenanceJobs jobs;
+    NexusSchemaReference schema = new NexusSchemaReference("foo", "core", "bar", "v1.0.0");
+    NexusInstanceReference foo = new NexusInstanceReference(schema, "foo");
+    NexusInstanceReference bar = new NexusInstanceReference(schema, "bar");
+    NexusInstanceReference foobar = new NexusInstanceReference(schema, "foobar");
+
+    @Before
+    public void setup() {
+        jobs = new InstanceMaintenanceJobs();
+        jobs.maintenanceController = Mockito.mock(InstanceMaintenanceController.class);
+        jobs.authorizationContext = Mockito.mock(AuthorizationContext.class);
+        jobs.directory = folder.getRoot().getAbsolutePath();
+        jobs.parallelism = 2;
+        jobs.executorService = Executors.newFixedThreadPool(2);
+        jobs.progressInterval = 1;
+        Mockito.when(jobs.authorizationContext.getUserId()).thenReturn("john");
+        Mockito.when(jobs.authorizationContext.isWritable("foo")).thenReturn(true);
+        Mockito.when(jobs.maintenanceController.streamInstances(Mockito.any())).thenAnswer(invocation -> Stream.of(foo, bar, foobar));
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        jobs.shutdown();
+        jobs.executorService.shutdownNow();
+    }
+
+    private MaintenanceJob waitUntilFinished(String jobId) throws IOException, InterruptedException {
+        long start = System.currentTimeMillis();
+        MaintenanceJob job = jobs.getJob(jobId);
+        while (job.getState() == MaintenanceJob.State.RUNNING && System.currentTimeMillis() - start < 5000) {
+            Thread.sleep(10);
+            job = jobs.getJob(jobId);
+        }
+        return job;
+    }
+
+    @Test
+    public void submit() throws Exception {
+        MaintenanceJob submitted = jobs.submit(MaintenanceJob.reindex(schema));
+
+        Assert.assertNotNull(submitted.getId());
+        Assert.assertEquals("john", submitted.getUserId());
+        MaintenanceJob job = waitUntilFinished(submitted.getId());
+        Assert.assertEquals(MaintenanceJob.State.COMPLETED, job.getState());
+        Assert.assertEquals(3, job.getProcessed());
+        Assert.assertEquals(0, job.getFailed());
+        Mockito.verify(jobs.maintenanceController).process(Mockito.any(), Mockito.eq(foo));
+        Mockito.verify(jobs.maintenanceController).process(Mockito.any(), Mockito.eq(bar));
+        Mockito.verify(jobs.maintenanceController).process(Mockito.any(), Mockito.eq(foobar));
+        Mockito.verify(jobs.authorizationContext, Mockito.atLeast(3)).setMasterCredential();
+        //The checkpoint is not required anymore after a successful completion
+        Assert.assertFalse(new File(folder.getRoot(), submitted.getId() + ".done").exists());
+        Assert.assertEquals(1, jobs.getJobs().size());
+    }
+
+    @Test
+    public void resumeRetriesFailedInstancesOnly() throws Exception {
+        Mockito.doThrow(new RuntimeException("failure")).doNothing().when(jobs.maintenanceController).process(Mockito.any(), Mockito.eq(bar));
+
+        MaintenanceJob job = waitUntilFinished(jobs.submit(MaintenanceJob.translateNamespaces(schema, "http://foo/", "http://bar/")).getId());
+        Assert.assertEquals(MaintenanceJob.State.COMPLETED, job.getState());
+        Assert.assertEquals(2, job.getProcessed());
+        Assert.assertEquals(1, job.getFailed());
+
+        jobs.resume(job.getId());
+
+        job = waitUntilFinished(job.getId());
+        Assert.assertEquals(MaintenanceJob.State.COMPLETED, job.getState());
+        Assert.assertEquals(3, job.getProcessed());
+        Assert.assertEquals(0, job.getFailed());
+        Mockito.verify(jobs.maintenanceController, Mockito.times(1)).process(Mockito.any(), Mockito.eq(foo));
+        Mockito.verify(jobs.maintenanceController, Mockito.times(2)).process(Mockito.any(), Mockito.eq(bar));
+        Mockito.verify(jobs.maintenanceController, Mockito.times(1)).process(Mockito.any(), Mockito.eq(foobar));
+    }
+
+    @Test
+    public void recover() throws Exception {
+        MaintenanceJob interrupted = MaintenanceJob.reindex(schema);
+        interrupted.setId("42");
+        interrupted.setState(MaintenanceJob.State.RUNNING);
+        Files.write(new File(folder.getRoot(), "42.json").toPath(), new Gson().toJson(interrupted).getBytes(StandardCharsets.UTF_8));
+        Files.write(new File(folder.getRoot(), "42.done").toPath(), (foo.getFullId(false) + "\n").getBytes(StandardCharsets.UTF_8));
+
+        jobs.recover();
+
+        MaintenanceJob job = waitUntilFinished("42");
+        Assert.assertEquals(MaintenanceJob.State.COMPLETED, job.getState());
+        Assert.assertEquals(3, job.getProcessed());
+        Mockito.verify(jobs.maintenanceController, Mockito.never()).process(Mockito.any(), Mockito.eq(foo));
+        Mockito.verify(jobs.maintenanceController).process(Mockito.any(), Mockito.eq(bar));
+        Mockito.verify(jobs.maintenanceController).process(Mockito.any(), Mockito.eq(foobar));
+    }
+
+    @Test
+    public void interruptedRunIsLeftForResumption() throws Exception {
+        jobs.shutdownTimeout = 100;
+        CountDownLatch barInProcess = new CountDownLatch(1);
+        Mockito.when(jobs.maintenanceController.streamInstances(Mockito.any())).thenAnswer(invocation -> Stream.of(foo, bar));
+        Mockito.doAnswer(invocation -> {
+            barInProcess.countDown();
+            Thread.sleep(10000);
+            return null;
+        }).when(jobs.maintenanceController).process(Mockito.any(), Mockito.eq(bar));
+
+        MaintenanceJob submitted = jobs.submit(MaintenanceJob.reindex(schema));
+        Assert.assertTrue(barInProcess.await(5, TimeUnit.SECONDS));
+        jobs.shutdown();
+
+        MaintenanceJob job = jobs.getJob(submitted.getId());
+        Assert.assertEquals(MaintenanceJob.State.RUNNING, job.getState());
+        Assert.assertEquals(1, job.getProcessed());
+        Assert.assertEquals(0, job.getFailed());
+        Assert.assertEquals(Collections.singletonList(foo.getFullId(false)), Files.readAllLines(new File(folder.getRoot(), submitted.getId() + ".done").toPath()));
+    }
+
+    @Test
+    public void failedListing() throws Exception {
+        Mockito.when(jobs.maintenanceController.streamInstances(Mockito.any())).thenThrow(new IllegalStateException("Nexus is not available"));
+
+        MaintenanceJob job = waitUntilFinished(jobs.submit(MaintenanceJob.reindex(schema)).getId());
+
+        Assert.assertEquals(MaintenanceJob.State.FAILED, job.getState());
+        Assert.assertEquals("Nexus is not available", job.getMessage());
+    }
+
+    @Test(expected = InsufficientPermissions.class)
+    public void submitWithoutWritePermission() throws Exception {
+        Mockito.when(jobs.authorizationContext.isWritable("foo")).thenReturn(false);
+        try {
+            jobs.submit(MaintenanceJob.reindex(schema));
+        } finally {
+            Mockito.verify(jobs.maintenanceController, Mockito.never()).streamInstances(Mockito.any());
+            Assert.assertTrue(jobs.getJobs().isEmpty());
+        }
+    }
+
+    @Test
+    public void jobsAreOnlyVisibleWithReadPermission() throws Exception {
+        MaintenanceJob job = waitUntilFinished(jobs.submit(MaintenanceJob.reindex(schema)).getId());
+
+        Mockito.when(jobs.authorizationContext.getReadableOrganizations()).thenReturn(Collections.singleton("foo"));
+        Assert.assertEquals(1, jobs.getReadableJobs().size());
+        Assert.assertNotNull(jobs.getReadableJob(job.getId()));
+
+        Mockito.when(jobs.authorizationContext.getReadableOrganizations()).thenReturn(Collections.singleton("bar"));
+        Assert.assertTrue(jobs.getReadableJobs().isEmpty());
+        Assert.assertNull(jobs.getReadableJob(job.getId()));
+    }
+
+    @Test
+    public void unknownJob() throws Exception {
+        Assert.assertNull(jobs.getJob("unknown"));
+        Assert.assertNull(jobs.resume("../unknown"));
+        Assert.assertNull(jobs.cancel("unknown"));
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.query.control;
+
+import com.arangodb.ArangoCollection;
+import com.arangodb.ArangoDatabase;
+import com.google.gson.Gson;
+import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.ArangoConnection;
+import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.entity.ArangoNamingHelper;
+import org.humanbrainproject.knowledgegraph.commons.vocabulary.ArangoVocabulary;
+import org.humanbrainproject.knowledgegraph.query.entity.QueryResult;
+import org.humanbrainproject.knowledgegraph.query.entity.StoredLibraryReference;
+import org.humanbrainproject.knowledgegraph.query.entity.Template;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class FreemarkerTemplatingTest {
+
+    FreemarkerTemplating templating;
+    ArangoConnection connection;
+    ArangoCollection libraries;
+    QueryResult<List<Map>> queryResult;
+    StoredLibraryReference library = new StoredLibraryReference("lib", "foo");
+
+    @Before
+    public void setup() {
+        templating = new FreemarkerTemplating();
+        connection = Mockito.mock(ArangoConnection.class);
+        ArangoDatabase database = Mockito.mock(ArangoDatabase.class);
+        libraries = Mockito.mock(ArangoCollection.class);
+        Mockito.doReturn(database).when(connection).getOrCreateDB();
+        Mockito.doReturn(libraries).when(database).collection(ArangoNamingHelper.createCompatibleId("libraries-lib"));
+        Mockito.doReturn(Mockito.mock(ArangoCollection.class)).when(database).collection("templates");
+        mockLibrary("1", "<#macro greet>hello</#macro>");
+        queryResult = new QueryResult<>();
+        queryResult.setResults(Collections.singletonList(Collections.singletonMap("name", "world")));
+    }
+
+    private void mockLibrary(String revision, String content) {
+        Map<String, Object> document = new HashMap<>();
+        document.put(ArangoVocabulary.REV, revision);
+        document.put(ArangoVocabulary.LIBRARY, content);
+        Mockito.doReturn(document).when(libraries).getDocument("foo", Map.class);
+    }
+
+    private Template storedTemplate(String revision, String content) {
+        Map<String, String> template = new HashMap<>();
+        template.put("id", "templates/bar");
+        template.put("revision", revision);
+        template.put("templateContent", content);
+        return new Gson().fromJson(new Gson().toJson(template), Template.class);
+    }
+
+    @Test
+    public void applyTemplate() {
+        Assert.assertEquals("hello world", templating.applyTemplate("<@greet/> ${results[0].name}", queryResult, "<#macro greet>hello</#macro>").trim());
+    }
+
+    @Test
+    public void applyStoredTemplateReusesCompiledTemplate() {
+        Assert.assertEquals("hello world", templating.applyTemplate(storedTemplate("1", "<@greet/> ${results[0].name}"), queryResult, library, connection).trim());
+        //Same revision - the compiled template is reused
+        Assert.assertEquals("hello world", templating.applyTemplate(storedTemplate("1", "changed"), queryResult, library, connection).trim());
+        //New revision - the template is recompiled
+        Assert.assertEquals("changed", templating.applyTemplate(storedTemplate("2", "changed"), queryResult, library, connection).trim());
+        //The library lookup is a single round trip
+        Mockito.verify(libraries, Mockito.never()).exists();
+        Mockito.verify(libraries, Mockito.never()).documentExists(Mockito.anyString());
+    }
+
+    @Test
+    public void applyStoredTemplateWithChangedLibrary() {
+        Template template = storedTemplate("1", "<@greet/> ${results[0].name}");
+        Assert.assertEquals("hello world", templating.applyTemplate(template, queryResult, library, connection).trim());
+
+        mockLibrary("2", "<#macro greet>bye</#macro>");
+
+        Assert.assertEquals("bye world", templating.applyTemplate(template, queryResult, library, connection).trim());
+    }
+
+    @Test
+    public void applyStoredTemplateWithoutLibrary() {
+        Mockito.doReturn(null).when(libraries).getDocument("foo", Map.class);
+
+        Assert.assertEquals("world", templating.applyTemplate(storedTemplate("1", "${results[0].name}"), queryResult, library, connection).trim());
+    }
+
+}
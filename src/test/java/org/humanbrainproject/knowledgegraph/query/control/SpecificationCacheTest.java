@@ -0,0 +1,98 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.query.control;
+
+import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.entity.ArangoCollectionReference;
+import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.entity.ArangoDocumentReference;
+import org.humanbrainproject.knowledgegraph.query.entity.Specification;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.configurationprocessor.json.JSONException;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SpecificationCacheTest {
+
+    SpecificationCache cache;
+    AtomicInteger loads;
+
+    private static final String ROOT_SCHEMA = "http://test/v0/minds/core/dataset/v1.0.0";
+
+    @Before
+    public void setup(){
+        this.cache = new SpecificationCache();
+        this.loads = new AtomicInteger();
+    }
+
+    private Specification load(){
+        loads.incrementAndGet();
+        return new Specification(null, "foo", ROOT_SCHEMA, null, null, null);
+    }
+
+    @Test
+    public void getSpecificationHit() throws IOException, JSONException {
+        Specification first = cache.getSpecification("specification_queries/foo", "1", ROOT_SCHEMA, this::load);
+        Specification second = cache.getSpecification("specification_queries/foo", "1", ROOT_SCHEMA, this::load);
+
+        Assert.assertSame(first, second);
+        Assert.assertEquals(1, loads.get());
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void getSpecificationNewRevision() throws IOException, JSONException {
+        cache.getSpecification("specification_queries/foo", "1", ROOT_SCHEMA, this::load);
+        cache.getSpecification("specification_queries/foo", "2", ROOT_SCHEMA, this::load);
+
+        Assert.assertEquals(2, loads.get());
+        Assert.assertEquals(0, cache.getHits());
+        Assert.assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void getSpecificationWithoutDocument() throws IOException, JSONException {
+        cache.getSpecification(null, null, ROOT_SCHEMA, this::load);
+        cache.getSpecification(null, null, ROOT_SCHEMA, this::load);
+
+        Assert.assertEquals(2, loads.get());
+        Assert.assertEquals(0, cache.getHits());
+        Assert.assertEquals(0, cache.getMisses());
+    }
+
+    @Test
+    public void invalidate() throws IOException, JSONException {
+        cache.getSpecification("specification_queries/foo", "1", ROOT_SCHEMA, this::load);
+        cache.getSpecification("specification_queries/bar", "1", ROOT_SCHEMA, this::load);
+
+        cache.invalidate(new ArangoDocumentReference(new ArangoCollectionReference("specification_queries"), "foo"));
+
+        cache.getSpecification("specification_queries/foo", "1", ROOT_SCHEMA, this::load);
+        cache.getSpecification("specification_queries/bar", "1", ROOT_SCHEMA, this::load);
+        Assert.assertEquals(3, loads.get());
+        Assert.assertEquals(1, cache.getHits());
+    }
+}
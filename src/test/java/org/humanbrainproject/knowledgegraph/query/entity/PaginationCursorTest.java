@@ -0,0 +1,53 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.query.entity;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class PaginationCursorTest {
+
+    @Test
+    public void encodeAndDecode() {
+        PaginationCursor cursor = new PaginationCursor(Arrays.asList("foo", "bar-123"));
+
+        PaginationCursor decoded = PaginationCursor.decode(cursor.encode());
+
+        assertEquals(Arrays.asList("foo", "bar-123"), decoded.getSortKey());
+    }
+
+    @Test
+    public void decodeNull() {
+        assertNull(PaginationCursor.decode(null));
+        assertNull(PaginationCursor.decode(""));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decodeMalformed() {
+        PaginationCursor.decode("this is not a cursor");
+    }
+}
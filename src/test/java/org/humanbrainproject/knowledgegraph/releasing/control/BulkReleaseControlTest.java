@@ -0,0 +1,162 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.releasing.control;
+
+import com.github.jsonldjava.core.JsonLdConsts;
+import org.humanbrainproject.knowledgegraph.commons.authorization.control.AuthorizationContext;
+import org.humanbrainproject.knowledgegraph.commons.authorization.entity.OidcAccessToken;
+import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.builders.TreeScope;
+import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusInstanceReference;
+import org.humanbrainproject.knowledgegraph.releasing.entity.ReleaseOutcome;
+import org.humanbrainproject.knowledgegraph.releasing.entity.ReleaseResult;
+import org.humanbrainproject.knowledgegraph.releasing.entity.ReleaseStatus;
+import org.humanbrainproject.knowledgegraph.releasing.entity.ReleaseStatusResponse;
+import org.humanbrainproject.knowledgegraph.releasing.exceptions.BulkSizeExceeded;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+public class BulkReleaseControlTest {
+
+    BulkReleaseControl bulkReleaseControl;
+    NexusInstanceReference foo = new NexusInstanceReference("foo", "core", "dataset", "v1.0.0", "foo");
+    NexusInstanceReference bar = new NexusInstanceReference("foo", "core", "file", "v1.0.0", "bar");
+    NexusInstanceReference foobar = new NexusInstanceReference("foo", "core", "file", "v1.0.0", "foobar");
+
+    @Before
+    public void setup() {
+        bulkReleaseControl = new BulkReleaseControl();
+        bulkReleaseControl.releaseControl = Mockito.mock(ReleaseControl.class);
+        bulkReleaseControl.authorizationContext = Mockito.mock(AuthorizationContext.class);
+        bulkReleaseControl.executorService = Executors.newFixedThreadPool(2);
+        Mockito.when(bulkReleaseControl.authorizationContext.getCredential()).thenReturn(new OidcAccessToken().setToken("token"));
+        Mockito.when(bulkReleaseControl.releaseControl.parseReleaseStatus(Mockito.any())).thenCallRealMethod();
+    }
+
+    @After
+    public void tearDown() {
+        bulkReleaseControl.executorService.shutdownNow();
+    }
+
+    private void mockReleaseStatus(NexusInstanceReference instance, ReleaseStatus status) {
+        ReleaseStatusResponse response = new ReleaseStatusResponse();
+        response.setId(instance);
+        response.setRootStatus(status);
+        Mockito.when(bulkReleaseControl.releaseControl.getReleaseStatus(instance, TreeScope.TOP_INSTANCE_ONLY)).thenReturn(response);
+    }
+
+    private Map<String, ReleaseOutcome> outcomes(List<ReleaseResult> results) {
+        return results.stream().collect(Collectors.toMap(r -> r.get("id"), ReleaseResult::getOutcome));
+    }
+
+    private Map<String, Object> node(NexusInstanceReference instance, ReleaseStatus status, Map... children) {
+        Map<String, Object> node = new LinkedHashMap<>();
+        node.put(JsonLdConsts.ID, "https://nexus.example.org/v0/data/" + instance.getRelativeUrl().getUrl());
+        node.put("status", status.name());
+        node.put("children", Arrays.asList(children));
+        return node;
+    }
+
+    @Test
+    public void release() {
+        mockReleaseStatus(foo, ReleaseStatus.NOT_RELEASED);
+        mockReleaseStatus(bar, ReleaseStatus.RELEASED);
+        mockReleaseStatus(foobar, ReleaseStatus.HAS_CHANGED);
+
+        List<ReleaseResult> results = bulkReleaseControl.release(Arrays.asList(foo, bar, foobar, foo));
+
+        Assert.assertEquals(3, results.size());
+        Assert.assertEquals(foo.getRelativeUrl().getUrl(), results.get(0).get("id"));
+        Map<String, ReleaseOutcome> outcomes = outcomes(results);
+        Assert.assertEquals(ReleaseOutcome.RELEASED, outcomes.get(foo.getRelativeUrl().getUrl()));
+        Assert.assertEquals(ReleaseOutcome.SKIPPED, outcomes.get(bar.getRelativeUrl().getUrl()));
+        Assert.assertEquals(ReleaseOutcome.RELEASED, outcomes.get(foobar.getRelativeUrl().getUrl()));
+        Mockito.verify(bulkReleaseControl.releaseControl).release(foo);
+        Mockito.verify(bulkReleaseControl.releaseControl).release(foobar);
+        Mockito.verify(bulkReleaseControl.releaseControl, Mockito.never()).release(bar);
+        Mockito.verify(bulkReleaseControl.authorizationContext, Mockito.atLeastOnce()).setCredential("token");
+    }
+
+    @Test
+    public void releaseReportsFailuresPerInstance() {
+        mockReleaseStatus(foo, ReleaseStatus.NOT_RELEASED);
+        mockReleaseStatus(bar, ReleaseStatus.NOT_RELEASED);
+        Mockito.doThrow(new IllegalStateException("Nexus is not available")).when(bulkReleaseControl.releaseControl).release(foo);
+
+        List<ReleaseResult> results = bulkReleaseControl.release(Arrays.asList(foo, bar, foobar));
+
+        Assert.assertEquals(ReleaseOutcome.FAILED, results.get(0).getOutcome());
+        Assert.assertEquals("Nexus is not available", results.get(0).get("message"));
+        Assert.assertEquals(ReleaseOutcome.RELEASED, results.get(1).getOutcome());
+        //The status of foobar is unknown - it doesn't exist
+        Assert.assertEquals(ReleaseOutcome.FAILED, results.get(2).getOutcome());
+    }
+
+    @Test(expected = BulkSizeExceeded.class)
+    public void releaseExceedingMaxBulkSize() {
+        bulkReleaseControl.maxBulkSize = 2;
+        try {
+            bulkReleaseControl.release(Arrays.asList(foo, bar, foobar));
+        } finally {
+            Mockito.verify(bulkReleaseControl.releaseControl, Mockito.never()).release(Mockito.any());
+        }
+    }
+
+    @Test
+    public void releaseTree() {
+        Mockito.when(bulkReleaseControl.releaseControl.getReleaseGraph(foo, TreeScope.ALL)).thenReturn(node(foo, ReleaseStatus.HAS_CHANGED, node(bar, ReleaseStatus.RELEASED), node(foobar, ReleaseStatus.NOT_RELEASED, node(bar, ReleaseStatus.RELEASED))));
+
+        List<ReleaseResult> results = bulkReleaseControl.releaseTree(foo);
+
+        Assert.assertEquals(3, results.size());
+        Map<String, ReleaseOutcome> outcomes = outcomes(results);
+        Assert.assertEquals(ReleaseOutcome.RELEASED, outcomes.get(foo.getRelativeUrl().getUrl()));
+        Assert.assertEquals(ReleaseOutcome.SKIPPED, outcomes.get(bar.getRelativeUrl().getUrl()));
+        Assert.assertEquals(ReleaseOutcome.RELEASED, outcomes.get(foobar.getRelativeUrl().getUrl()));
+    }
+
+    @Test
+    public void releaseTreeOfUnknownInstance() {
+        Assert.assertNull(bulkReleaseControl.releaseTree(foo));
+    }
+
+    @Test
+    public void unrelease() {
+        mockReleaseStatus(foo, ReleaseStatus.RELEASED);
+        mockReleaseStatus(bar, ReleaseStatus.NOT_RELEASED);
+        Mockito.when(bulkReleaseControl.releaseControl.unrelease(foo)).thenReturn(foo);
+
+        List<ReleaseResult> results = bulkReleaseControl.unrelease(Arrays.asList(foo, bar));
+
+        Assert.assertEquals(ReleaseOutcome.UNRELEASED, results.get(0).getOutcome());
+        Assert.assertEquals(ReleaseOutcome.SKIPPED, results.get(1).getOutcome());
+        Mockito.verify(bulkReleaseControl.releaseControl, Mockito.never()).unrelease(bar);
+    }
+}
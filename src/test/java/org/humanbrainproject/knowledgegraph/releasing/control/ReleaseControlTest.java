@@ -24,67 +24,69 @@
 package org.humanbrainproject.knowledgegraph.releasing.control;
 
 import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.ArangoRepository;
+import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.builders.TreeScope;
+import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusInstanceReference;
+import org.humanbrainproject.knowledgegraph.query.boundary.ArangoQuery;
+import org.humanbrainproject.knowledgegraph.query.entity.StoredQuery;
 import org.humanbrainproject.knowledgegraph.releasing.entity.ReleaseStatus;
+import org.humanbrainproject.knowledgegraph.releasing.entity.ReleaseStatusResponse;
 import org.junit.Assert;
 import org.junit.Test;
+import org.mockito.Mockito;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 public class ReleaseControlTest {
 
-    @Test
-    public void findWorstReleaseStatus() {
+    private ReleaseControl createReleaseControlWithStatus(String status, String childrenStatus) throws Exception {
+        ReleaseControl releaseControl = new ReleaseControl();
+        releaseControl.query = Mockito.mock(ArangoQuery.class);
+        Map<String, Object> releaseStatus = new HashMap<>();
+        releaseStatus.put("status", status);
+        releaseStatus.put("childrenStatus", childrenStatus);
+        Mockito.when(releaseControl.query.queryReleaseStatus(Mockito.any(StoredQuery.class), Mockito.any(), Mockito.any())).thenReturn(releaseStatus);
+        return releaseControl;
+    }
 
-        Map<String, Object> map = new HashMap<>();
-        map.put("status", ReleaseStatus.HAS_CHANGED.name());
-        List<Object> children = new ArrayList<>();
-        Map<String, Object> childMap = new HashMap<>();
-        childMap.put("status", ReleaseStatus.RELEASED.name());
-        children.add(childMap);
-        map.put("children", children);
+    @Test
+    public void getReleaseStatus() throws Exception {
+        ReleaseControl releaseControl = createReleaseControlWithStatus(ReleaseStatus.RELEASED.name(), ReleaseStatus.HAS_CHANGED.name());
 
-        ReleaseStatus worstReleaseStatus = new ReleaseControl().findWorstReleaseStatusOfChildren(map, null, true);
+        ReleaseStatusResponse response = releaseControl.getReleaseStatus(new NexusInstanceReference("foo", "core", "bar", "v1.0.0", "foobar"), TreeScope.ALL);
 
-        //The worst release state is RELEASED, because root is not taken into account
-        Assert.assertEquals(ReleaseStatus.RELEASED, worstReleaseStatus);
+        Assert.assertEquals(ReleaseStatus.RELEASED.name(), response.get("status"));
+        Assert.assertEquals(ReleaseStatus.HAS_CHANGED.name(), response.get("childrenStatus"));
+        Assert.assertEquals("foo/core/bar/v1.0.0/foobar", response.get("id"));
+        Mockito.verify(releaseControl.query, Mockito.never()).queryReleaseTree(Mockito.any(StoredQuery.class), Mockito.any(), Mockito.any());
     }
 
     @Test
-    public void findWorstReleaseStatus2() {
-
-        Map<String, Object> map = new HashMap<>();
-        map.put("status", ReleaseStatus.HAS_CHANGED.name());
-        List<Object> children = new ArrayList<>();
-        Map<String, Object> childMap = new HashMap<>();
-        childMap.put("status", ReleaseStatus.RELEASED.name());
-        children.add(childMap);
-        Map<String, Object> childMap2 = new HashMap<>();
-        childMap2.put("status", ReleaseStatus.HAS_CHANGED.name());
-        children.add(childMap2);
-        map.put("children", children);
-
-        ReleaseStatus worstReleaseStatus = new ReleaseControl().findWorstReleaseStatusOfChildren(map, null, true);
-
-        //The worst release state is RELEASED, because root is not taken into account
-        Assert.assertEquals(ReleaseStatus.HAS_CHANGED, worstReleaseStatus);
+    public void getReleaseStatusWithoutChildren() throws Exception {
+        ReleaseControl releaseControl = createReleaseControlWithStatus(ReleaseStatus.NOT_RELEASED.name(), null);
+
+        ReleaseStatusResponse response = releaseControl.getReleaseStatus(new NexusInstanceReference("foo", "core", "bar", "v1.0.0", "foobar"), TreeScope.ALL);
+
+        Assert.assertEquals(ReleaseStatus.NOT_RELEASED.name(), response.get("status"));
+        Assert.assertFalse(response.containsKey("childrenStatus"));
     }
 
     @Test
-    public void findWorstReleaseStatus3() {
+    public void getReleaseStatusChildrenOnly() throws Exception {
+        ReleaseControl releaseControl = createReleaseControlWithStatus(ReleaseStatus.NOT_RELEASED.name(), ReleaseStatus.RELEASED.name());
+
+        ReleaseStatusResponse response = releaseControl.getReleaseStatus(new NexusInstanceReference("foo", "core", "bar", "v1.0.0", "foobar"), TreeScope.CHILDREN_ONLY);
 
-        Map<String, Object> map = new HashMap<>();
-        map.put("status", ReleaseStatus.HAS_CHANGED.name());
-        List<Object> children = new ArrayList<>();
-        Map<String, Object> childMap = new HashMap<>();
-        childMap.put("status", ReleaseStatus.NOT_RELEASED.name());
-        children.add(childMap);
-        map.put("children", children);
+        Assert.assertFalse(response.containsKey("status"));
+        Assert.assertEquals(ReleaseStatus.RELEASED.name(), response.get("childrenStatus"));
+    }
 
-        ReleaseStatus worstReleaseStatus = new ReleaseControl().findWorstReleaseStatusOfChildren(map, null, true);
+    @Test
+    public void parseReleaseStatus() {
+        ReleaseControl releaseControl = new ReleaseControl();
 
-        Assert.assertEquals(ReleaseStatus.NOT_RELEASED, worstReleaseStatus);
+        Assert.assertEquals(ReleaseStatus.HAS_CHANGED, releaseControl.parseReleaseStatus(ReleaseStatus.HAS_CHANGED.name()));
+        Assert.assertNull(releaseControl.parseReleaseStatus("UNKNOWN"));
+        Assert.assertNull(releaseControl.parseReleaseStatus(null));
     }
-}
\ No newline at end of file
+}
@@ -26,6 +26,8 @@ package org.humanbrainproject.knowledgegraph.releasing.entity;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Arrays;
+
 public class ReleaseStatusTest {
 
     @Test
@@ -50,4 +52,9 @@ public class ReleaseStatusTest {
         Assert.assertFalse(ReleaseStatus.HAS_CHANGED.isWorst());
         Assert.assertFalse(ReleaseStatus.RELEASED.isWorst());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void bySeverity() {
+        Assert.assertEquals(Arrays.asList(ReleaseStatus.RELEASED, ReleaseStatus.HAS_CHANGED, ReleaseStatus.NOT_RELEASED), ReleaseStatus.bySeverity());
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.scopes.control;
+
+import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusInstanceReference;
+import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusSchemaReference;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+public class ScopeCacheTest {
+
+    ScopeCache cache;
+    long now;
+    Set<NexusInstanceReference> invitations = Collections.singleton(new NexusInstanceReference(new NexusSchemaReference("foo", "core", "dataset", "v1.0.0"), "bar"));
+    Set<String> scope = Collections.singleton("https://nexus.example.org/v0/data/foo/core/dataset/v1.0.0/bar");
+
+    @Before
+    public void setup(){
+        cache = new ScopeCache();
+        cache.clock = () -> now;
+    }
+
+    @Test
+    public void get(){
+        cache.put("user", "query", invitations, "1", scope);
+
+        Assert.assertEquals(scope, cache.get("user", "query", invitations, "1"));
+        Assert.assertNull(cache.get("user", "otherQuery", invitations, "1"));
+        Assert.assertNull(cache.get("otherUser", "query", invitations, "1"));
+    }
+
+    @Test
+    public void getWithChangedInvitations(){
+        cache.put("user", "query", invitations, "1", scope);
+
+        Assert.assertNull(cache.get("user", "query", Collections.emptySet(), "1"));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void getWithChangedSpecificationRevision(){
+        cache.put("user", "query", invitations, "1", scope);
+
+        Assert.assertNull(cache.get("user", "query", invitations, "2"));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void getExpired(){
+        cache.setTimeToLiveInMillis(1000);
+        cache.put("user", "query", invitations, "1", scope);
+
+        now = 1000;
+
+        Assert.assertNull(cache.get("user", "query", invitations, "1"));
+    }
+
+    @Test
+    public void invalidate(){
+        cache.put("user", "query", invitations, "1", scope);
+        cache.put("user", "otherQuery", invitations, "1", scope);
+        cache.put("otherUser", "query", invitations, "1", scope);
+
+        cache.invalidate("user");
+
+        Assert.assertEquals(1, cache.size());
+        Assert.assertNotNull(cache.get("otherUser", "query", invitations, "1"));
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed(){
+        cache.setMaxSize(2);
+        cache.put("foo", "query", invitations, "1", scope);
+        cache.put("bar", "query", invitations, "1", scope);
+        cache.get("foo", "query", invitations, "1");
+
+        cache.put("foobar", "query", invitations, "1", scope);
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNotNull(cache.get("foo", "query", invitations, "1"));
+        Assert.assertNull(cache.get("bar", "query", invitations, "1"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void cachedScopeIsUnmodifiable(){
+        cache.put("user", "query", invitations, "1", new HashSet<>(scope));
+
+        cache.get("user", "query", invitations, "1").clear();
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.scopes.control;
+
+import com.github.jsonldjava.core.JsonLdConsts;
+import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.ArangoInternalRepository;
+import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusInstanceReference;
+import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusSchemaReference;
+import org.humanbrainproject.knowledgegraph.query.boundary.ArangoQuery;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.*;
+
+public class ScopeEvaluatorTest {
+
+    private static final String NEXUS_BASE = "https://nexus.example.org/v0/data/";
+
+    ScopeEvaluator scopeEvaluator;
+    NexusSchemaReference dataset = new NexusSchemaReference("foo", "core", "dataset", "v1.0.0");
+    NexusSchemaReference person = new NexusSchemaReference("foo", "core", "person", "v1.0.0");
+    NexusSchemaReference file = new NexusSchemaReference("foo", "core", "file", "v1.0.0");
+
+    @Before
+    public void setup() {
+        scopeEvaluator = new ScopeEvaluator();
+        scopeEvaluator.arangoInternalRepository = Mockito.mock(ArangoInternalRepository.class);
+        scopeEvaluator.scopeTreeController = Mockito.mock(ScopeTreeController.class);
+        Mockito.when(scopeEvaluator.arangoInternalRepository.getSchemasWithSpecification("query")).thenReturn(new HashSet<>(Arrays.asList(dataset, person)));
+        Mockito.when(scopeEvaluator.arangoInternalRepository.getCollectionRevision(ArangoQuery.SPECIFICATION_QUERIES)).thenReturn("1");
+        Mockito.when(scopeEvaluator.scopeTreeController.getScopeTrees(Mockito.eq(dataset), Mockito.any(), Mockito.eq("query"))).thenAnswer(invocation -> {
+            List<Map> trees = new ArrayList<>();
+            for (NexusInstanceReference root : invocation.<Set<NexusInstanceReference>>getArgument(1)) {
+                trees.add(tree(root.getNexusSchema(), root.getId(), tree(person, "p1", tree(file, "f2")), tree(file, "f1"), tree(dataset, "other")));
+            }
+            return trees;
+        });
+        Mockito.when(scopeEvaluator.scopeTreeController.getScopeTrees(Mockito.eq(person), Mockito.any(), Mockito.eq("query"))).thenReturn(Collections.singletonList(tree(person, "p1", tree(file, "f2"), tree(dataset, "d1"))));
+    }
+
+    private Map tree(NexusSchemaReference schema, String id, Map... children) {
+        Map<String, Object> tree = new LinkedHashMap<>();
+        tree.put(JsonLdConsts.ID, url(schema, id));
+        tree.put("children", Arrays.asList(children));
+        return tree;
+    }
+
+    private String url(NexusSchemaReference schema, String id) {
+        return NEXUS_BASE + schema.getRelativeUrl().getUrl() + "/" + id;
+    }
+
+    @Test
+    public void getScope() {
+        Set<String> scope = scopeEvaluator.getScope(Collections.singleton(new NexusInstanceReference(dataset, "d1")), "query");
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList(url(dataset, "d1"), url(person, "p1"), url(file, "f1"), url(file, "f2"))), scope);
+    }
+
+    @Test
+    public void getScopeResolvesInstancesOfTheSameSchemaAndLevelAtOnce() {
+        Set<NexusInstanceReference> invitations = new HashSet<>(Arrays.asList(new NexusInstanceReference(dataset, "d1"), new NexusInstanceReference(dataset, "d2")));
+
+        Set<String> scope = scopeEvaluator.getScope(invitations, "query");
+
+        Assert.assertTrue(scope.containsAll(Arrays.asList(url(dataset, "d1"), url(dataset, "d2"))));
+        Assert.assertFalse(scope.contains(url(dataset, "other")));
+        Mockito.verify(scopeEvaluator.scopeTreeController).getScopeTrees(dataset, invitations, "query");
+        Mockito.verify(scopeEvaluator.scopeTreeController).getScopeTrees(person, Collections.singleton(new NexusInstanceReference(person, "p1")), "query");
+        Mockito.verifyNoMoreInteractions(scopeEvaluator.scopeTreeController);
+    }
+
+    @Test
+    public void getScopeWithMaxDepth() {
+        scopeEvaluator.setMaxDepth(1);
+
+        Set<String> scope = scopeEvaluator.getScope(Collections.singleton(new NexusInstanceReference(dataset, "d1")), "query");
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList(url(dataset, "d1"), url(person, "p1"), url(file, "f1"))), scope);
+    }
+
+    @Test
+    public void getScopeForUserIsCached() {
+        Set<NexusInstanceReference> invitations = Collections.singleton(new NexusInstanceReference(dataset, "d1"));
+
+        Set<String> first = scopeEvaluator.getScope("user", invitations, "query");
+        Set<String> second = scopeEvaluator.getScope("user", invitations, "query");
+
+        Assert.assertEquals(first, second);
+        Mockito.verify(scopeEvaluator.scopeTreeController, Mockito.times(1)).getScopeTrees(Mockito.eq(dataset), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    public void getScopeForUserAfterInvalidation() {
+        Set<NexusInstanceReference> invitations = Collections.singleton(new NexusInstanceReference(dataset, "d1"));
+        scopeEvaluator.getScope("user", invitations, "query");
+
+        scopeEvaluator.invalidate("user");
+        scopeEvaluator.getScope("user", invitations, "query");
+
+        Mockito.verify(scopeEvaluator.scopeTreeController, Mockito.times(2)).getScopeTrees(Mockito.eq(dataset), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    public void getScopeForUserWithChangedSpecifications() {
+        Set<NexusInstanceReference> invitations = Collections.singleton(new NexusInstanceReference(dataset, "d1"));
+        scopeEvaluator.getScope("user", invitations, "query");
+
+        Mockito.when(scopeEvaluator.arangoInternalRepository.getCollectionRevision(ArangoQuery.SPECIFICATION_QUERIES)).thenReturn("2");
+        scopeEvaluator.getScope("user", invitations, "query");
+
+        Mockito.verify(scopeEvaluator.scopeTreeController, Mockito.times(2)).getScopeTrees(Mockito.eq(dataset), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    public void getScopeForUserWithChangedInvitations() {
+        scopeEvaluator.getScope("user", Collections.singleton(new NexusInstanceReference(dataset, "d1")), "query");
+
+        Set<String> scope = scopeEvaluator.getScope("user", Collections.singleton(new NexusInstanceReference(dataset, "d2")), "query");
+
+        Assert.assertTrue(scope.contains(url(dataset, "d2")));
+        Assert.assertFalse(scope.contains(url(dataset, "d1")));
+    }
+}
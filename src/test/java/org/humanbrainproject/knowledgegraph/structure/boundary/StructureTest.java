@@ -0,0 +1,130 @@
+/*
+ * Copyright 2018 - 2021 Swiss Federal Institute of Technology Lausanne (EPFL)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This open source software code was developed in part or in whole in the
+ * Human Brain Project, funded from the European Union's Horizon 2020
+ * Framework Programme for Research and Innovation under
+ * Specific Grant Agreements No. 720270, No. 785907, and No. 945539
+ * (Human Brain Project SGA1, SGA2 and SGA3).
+ *
+ */
+
+package org.humanbrainproject.knowledgegraph.structure.boundary;
+
+import com.arangodb.ArangoDBException;
+import org.humanbrainproject.knowledgegraph.commons.labels.SemanticsToHumanTranslator;
+import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.ArangoInferredRepository;
+import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.ArangoStructureRepository;
+import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.control.ArangoToNexusLookupMap;
+import org.humanbrainproject.knowledgegraph.commons.propertyGraph.arango.entity.ArangoCollectionReference;
+import org.humanbrainproject.knowledgegraph.indexing.entity.nexus.NexusSchemaReference;
+import org.humanbrainproject.knowledgegraph.query.entity.JsonDocument;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+public class StructureTest {
+
+    Structure structure;
+    NexusSchemaReference schemaReference = new NexusSchemaReference("structuretest", "core", "dataset", "v1.0.0");
+
+    @Before
+    public void setup() {
+        structure = new Structure();
+        structure.structureRepository = Mockito.mock(ArangoStructureRepository.class);
+        structure.inferredRepository = Mockito.mock(ArangoInferredRepository.class);
+        structure.semanticsToHumanTranslator = new SemanticsToHumanTranslator();
+        structure.lookupMap = Mockito.mock(ArangoToNexusLookupMap.class);
+        structure.executorService = Executors.newFixedThreadPool(2);
+        Mockito.when(structure.inferredRepository.hasInstances(Mockito.any())).thenReturn(true);
+        Mockito.when(structure.structureRepository.getAttributesWithCount(Mockito.any())).thenAnswer(invocation -> {
+            List<Map> attributes = new ArrayList<>();
+            Map<String, Object> attribute = new LinkedHashMap<>();
+            attribute.put("attribute", "http://schema.org/name");
+            attribute.put("count", 10);
+            attributes.add(attribute);
+            return attributes;
+        });
+    }
+
+    @After
+    public void tearDown() {
+        structure.executorService.shutdownNow();
+    }
+
+    @Test
+    public void getStructureForSchemaReusesUnchangedCollections() {
+        Mockito.when(structure.structureRepository.getCollectionRevision(Mockito.any())).thenReturn("1");
+
+        JsonDocument first = structure.getStructureForSchema(schemaReference, false);
+        JsonDocument second = structure.getStructureForSchema(schemaReference, false);
+
+        Assert.assertEquals(first, second);
+        Mockito.verify(structure.structureRepository, Mockito.times(1)).getAttributesWithCount(Mockito.any(ArangoCollectionReference.class));
+    }
+
+    @Test
+    public void getStructureForSchemaRescansChangedCollections() {
+        Mockito.when(structure.structureRepository.getCollectionRevision(Mockito.any())).thenReturn("1", "2");
+
+        structure.getStructureForSchema(schemaReference, false);
+        structure.getStructureForSchema(schemaReference, false);
+
+        Mockito.verify(structure.structureRepository, Mockito.times(2)).getAttributesWithCount(Mockito.any(ArangoCollectionReference.class));
+    }
+
+    @Test
+    public void getStructureForSchemaDoesNotModifyCachedResult() {
+        Mockito.when(structure.structureRepository.getCollectionRevision(Mockito.any())).thenReturn("1");
+
+        List<Map> properties = (List<Map>) structure.getStructureForSchema(schemaReference, false).get("properties");
+        properties.get(0).put("foo", "bar");
+        List<Map> reloadedProperties = (List<Map>) structure.getStructureForSchema(schemaReference, false).get("properties");
+
+        Assert.assertFalse(reloadedProperties.get(0).containsKey("foo"));
+        Assert.assertEquals("name", reloadedProperties.get(0).get("simpleAttributeName"));
+    }
+
+    @Test
+    public void getStructureReportsFailedReflection() {
+        ArangoDBException failure = Mockito.mock(ArangoDBException.class);
+        Mockito.when(failure.getErrorMessage()).thenReturn("collection not found");
+        Mockito.when(structure.lookupMap.getLookupTable(false)).thenReturn(Collections.singletonMap("structuretest-core-dataset-v1_0_0", schemaReference));
+        Mockito.when(structure.structureRepository.getCollectionRevision(Mockito.any())).thenThrow(failure);
+
+        List<JsonDocument> schemas = (List<JsonDocument>) structure.getCachedStructure(false).get("schemas");
+
+        Assert.assertEquals(1, schemas.size());
+        Assert.assertEquals("structuretest/core/dataset/v1.0.0", schemas.get(0).get("id"));
+        Assert.assertEquals("Was not able to reflect. Cause: collection not found", schemas.get(0).get("failure"));
+    }
+
+    @Test
+    public void getStructureForSchemaWithoutInstances() {
+        Mockito.when(structure.inferredRepository.hasInstances(Mockito.any())).thenReturn(false);
+
+        Assert.assertNull(structure.getStructureForSchema(schemaReference, false));
+    }
+
+}